@@ -20,10 +20,46 @@ CREATE TABLE CARTELERA (
 	CONSTRAINT chk_anio_min CHECK (anio >= 1900), -- Rango de anios
 	CONSTRAINT chk_dur   CHECK (duracion BETWEEN 1 AND 999), -- Rango de duracion
 	-- Evita duplicados evidentes: mismo título en el mismo año.
-	UNIQUE KEY uq_titulo_anio (titulo, anio)
+	UNIQUE KEY uq_titulo_anio (titulo, anio),
+	-- Índices para las búsquedas por criterio (PeliculaCriteria).
+	-- ORDER BY titulo usa el prefijo de uq_titulo_anio.
+	KEY idx_genero_anio (genero, anio),
+	KEY idx_anio (anio),
+	KEY idx_director (director),
+	KEY idx_duracion (duracion)
 ) ENGINE=InnoDB;
 
 -- Datos de prueba
 INSERT INTO Cartelera (titulo, director, anio, duracion, genero) VALUES
 ('Magenta: El Comienzo', 'A. López', 2023, 120, 'Accion'),
 ('Sueños de Campus', 'B. Romero', 2022, 98,  'Comedia');
+
+-- Crea la tabla de funciones (proyecciones programadas por sala)
+-- El fin lo calcula la aplicación: inicio + duración de la película + limpieza.
+-- El solapamiento entre funciones de una sala lo valida FuncionService.
+CREATE TABLE FUNCION (
+  id          INT AUTO_INCREMENT PRIMARY KEY,
+  pelicula_id INT      NOT NULL,
+  sala        SMALLINT NOT NULL,
+  inicio      DATETIME NOT NULL,
+  fin         DATETIME NOT NULL,           -- sala libre (exclusivo)
+	CONSTRAINT fk_funcion_pelicula FOREIGN KEY (pelicula_id) REFERENCES CARTELERA (id),
+	CONSTRAINT chk_sala CHECK (sala >= 1),
+	CONSTRAINT chk_funcion_rango CHECK (fin > inicio),
+	-- Agenda de una sala y consultas por semana.
+	KEY idx_sala_inicio (sala, inicio),
+	KEY idx_inicio (inicio),
+	KEY idx_pelicula (pelicula_id)
+) ENGINE=InnoDB;
+
+-- Crea la tabla de asientos vendidos por función
+-- Las retenciones temporales (carrito) no se guardan: viven en memoria.
+-- La clave primaria impide vender dos veces el mismo asiento.
+CREATE TABLE RESERVA (
+  funcion_id INT      NOT NULL,
+  asiento    SMALLINT NOT NULL,              -- desde 0
+  vendida    DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	PRIMARY KEY (funcion_id, asiento),
+	CONSTRAINT fk_reserva_funcion FOREIGN KEY (funcion_id) REFERENCES FUNCION (id),
+	CONSTRAINT chk_asiento CHECK (asiento >= 0)
+) ENGINE=InnoDB;
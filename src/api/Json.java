@@ -0,0 +1,177 @@
+package api;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * Utilidades JSON mínimas para la API HTTP (sin dependencias externas)
+ *
+ * Responsabilidades:
+ * - Escribir películas como objetos JSON directamente sobre un Writer
+ * - Leer cuerpos de petición planos (objeto con valores string/número)
+ *
+ */
+
+final class Json {
+
+    private Json() {}
+
+    /**
+     * Escribe una película como objeto JSON
+     *
+     * @param out Destino de la escritura
+     * @param p Película a serializar
+     * @throws IOException Si falla la escritura
+     */
+    static void write(Writer out, Pelicula p) throws IOException {
+        out.write("{\"id\":");
+        out.write(String.valueOf(p.getId()));
+        out.write(",\"titulo\":");
+        string(out, p.getTitulo());
+        out.write(",\"director\":");
+        string(out, p.getDirector());
+        out.write(",\"anio\":");
+        out.write(Integer.toString(p.getAnio()));
+        out.write(",\"duracion\":");
+        out.write(Integer.toString(p.getDuracion()));
+        out.write(",\"genero\":");
+        string(out, p.getGenero().name());
+        out.write('}');
+    }
+
+    /**
+     * Escribe un string JSON escapado
+     *
+     * @param out Destino de la escritura
+     * @param s Texto a escribir (null se escribe como null)
+     * @throws IOException Si falla la escritura
+     */
+    static void string(Writer out, String s) throws IOException {
+        if (s == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                    else out.write(c);
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Construye una película a partir del cuerpo JSON de una petición
+     *
+     * @param body Texto JSON con titulo, director, anio, duracion y genero
+     * @param id ID a asignar (null para películas nuevas)
+     * @return Pelicula con los datos leídos
+     * @throws IllegalArgumentException Si el JSON es inválido o falta un campo
+     */
+    static Pelicula toPelicula(String body, Integer id) {
+        Map<String, String> campos = parseObject(body);
+        try {
+            return new Pelicula(id,
+                    requerido(campos, "titulo"),
+                    requerido(campos, "director"),
+                    Integer.parseInt(requerido(campos, "anio")),
+                    Integer.parseInt(requerido(campos, "duracion")),
+                    Genero.valueOf(requerido(campos, "genero")));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("anio y duracion deben ser números enteros.");
+        }
+    }
+
+    private static String requerido(Map<String, String> campos, String nombre) {
+        String valor = campos.get(nombre);
+        if (valor == null) throw new IllegalArgumentException("Falta el campo '" + nombre + "'.");
+        return valor;
+    }
+
+    /**
+     * Lee un objeto JSON plano; los valores se devuelven como texto
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> out = new HashMap<>();
+        int[] pos = {saltarEspacios(json, 0)};
+        esperar(json, pos, '{');
+        if (json.charAt(saltar(json, pos)) == '}') return out;
+        while (true) {
+            saltar(json, pos);
+            String clave = leerString(json, pos);
+            saltar(json, pos);
+            esperar(json, pos, ':');
+            saltar(json, pos);
+            String valor = json.charAt(pos[0]) == '"' ? leerString(json, pos) : leerLiteral(json, pos);
+            out.put(clave, valor);
+            saltar(json, pos);
+            char c = json.charAt(pos[0]++);
+            if (c == '}') return out;
+            if (c != ',') throw new IllegalArgumentException("JSON inválido en posición " + (pos[0] - 1) + ".");
+        }
+    }
+
+    private static String leerString(String json, int[] pos) {
+        esperar(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = json.charAt(pos[0]++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = json.charAt(pos[0]++);
+            switch (e) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                }
+                default -> sb.append(e);
+            }
+        }
+    }
+
+    private static String leerLiteral(String json, int[] pos) {
+        int inicio = pos[0];
+        while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) pos[0]++;
+        String literal = json.substring(inicio, pos[0]);
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private static void esperar(String json, int[] pos, char c) {
+        if (pos[0] >= json.length() || json.charAt(pos[0]) != c) {
+            throw new IllegalArgumentException("JSON inválido: se esperaba '" + c + "'.");
+        }
+        pos[0]++;
+    }
+
+    private static int saltar(String json, int[] pos) {
+        pos[0] = saltarEspacios(json, pos[0]);
+        if (pos[0] >= json.length()) throw new IllegalArgumentException("JSON incompleto.");
+        return pos[0];
+    }
+
+    private static int saltarEspacios(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+}
@@ -0,0 +1,273 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dao.PeliculaCriteria;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import model.Pelicula;
+import service.PeliculaService;
+
+/**
+ * Servidor HTTP/JSON embebido sobre PeliculaService
+ *
+ * Responsabilidades:
+ * - Exponer CRUD, búsqueda por título y filtros para la web y los kioscos
+ * - Atender cada petición en su propio hilo virtual
+ * - Escribir las listas en streaming (chunked) sin armar el JSON completo en
+ *   memoria; las búsquedas y filtros se leen de la base por páginas (keyset)
+ *   a medida que se escriben
+ * - Traducir las excepciones de negocio a códigos HTTP
+ *
+ * Endpoints (prefijo /api/peliculas):
+ * - GET    /api/peliculas?pagina=0&tamanio=50   Página del catálogo
+ * - GET    /api/peliculas/{id}                  Película por ID
+ * - GET    /api/peliculas/{id}/similares?k=10   "También te puede gustar"
+ * - GET    /api/peliculas/buscar?q=texto        Búsqueda por título
+ * - GET    /api/peliculas/filtrar?genero=&desde=&hasta=
+ * - POST   /api/peliculas                       Crea (cuerpo JSON)
+ * - PUT    /api/peliculas/{id}                  Modifica (cuerpo JSON)
+ * - DELETE /api/peliculas/{id}                  Elimina
+ *
+ * Las listas responden {"items":[...],"total":n}: el total va al final
+ * porque recién se conoce al terminar de escribirlas.
+ *
+ */
+
+public class PeliculaHttpServer implements AutoCloseable {
+
+    private static final String BASE = "/api/peliculas";
+    private static final int LOTE_LISTA = 500; // Películas por consulta al escribir búsquedas y filtros
+
+    private final PeliculaService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Crea el servidor (no empieza a escuchar hasta llamar a start)
+     *
+     * @param service Servicio de películas compartido con la GUI
+     * @param host Interfaz donde escuchar (ej. 127.0.0.1 para pruebas de carga locales)
+     * @param puerto Puerto TCP (0 = uno libre)
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public PeliculaHttpServer(PeliculaService service, String host, int puerto) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(host, puerto), 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor(); // Un hilo virtual por petición
+        server.setExecutor(executor);
+        server.createContext(BASE, this::atender);
+    }
+
+    /**
+     * Empieza a aceptar peticiones
+     */
+    public void start() {
+        server.start();
+        System.out.println("API HTTP escuchando en http://" + server.getAddress().getHostString()
+                + ":" + getPuerto() + BASE);
+    }
+
+    /**
+     * @return int Puerto en que escucha el servidor
+     */
+    public int getPuerto() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void atender(HttpExchange ex) throws IOException {
+        try (ex) {
+            String ruta = ex.getRequestURI().getPath().substring(BASE.length());
+            if (ruta.endsWith("/")) ruta = ruta.substring(0, ruta.length() - 1);
+            Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+            String metodo = ex.getRequestMethod();
+
+            try {
+                if (ruta.isEmpty()) {
+                    switch (metodo) {
+                        case "GET" -> enviarLista(ex, service.findPage(
+                                entero(query, "pagina", 0), entero(query, "tamanio", 50)));
+                        case "POST" -> {
+                            int id = service.add(Json.toPelicula(leerCuerpo(ex), null));
+                            enviar(ex, 201, "{\"id\":" + id + "}");
+                        }
+                        default -> enviar(ex, 405, error("Método no permitido."));
+                    }
+                } else if (ruta.equals("/buscar") && metodo.equals("GET")) {
+                    enviarConsulta(ex, service.criterioTitulo(query.getOrDefault("q", "")));
+                } else if (ruta.equals("/filtrar") && metodo.equals("GET")) {
+                    enviarConsulta(ex, service.criterioFiltros(query.getOrDefault("genero", "Todos"),
+                            entero(query, "desde", 1900), entero(query, "hasta", 2030)));
+                } else if (ruta.endsWith("/similares") && metodo.equals("GET")) {
+                    int id = Integer.parseInt(ruta.substring(1, ruta.length() - "/similares".length()));
+                    enviarLista(ex, service.findSimilares(id, entero(query, "k", 10)));
+                } else {
+                    int id = Integer.parseInt(ruta.substring(1));
+                    switch (metodo) {
+                        case "GET" -> enviarPelicula(ex, service.findById(id));
+                        case "PUT" -> {
+                            esperar(service.updateAsync(Json.toPelicula(leerCuerpo(ex), id)));
+                            enviar(ex, 204, null);
+                        }
+                        case "DELETE" -> {
+                            esperar(service.deleteAsync(id));
+                            enviar(ex, 204, null);
+                        }
+                        default -> enviar(ex, 405, error("Método no permitido."));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                enviar(ex, 400, error("Parámetro numérico inválido."));
+            } catch (IllegalArgumentException e) {
+                // El servicio usa IllegalArgumentException para validaciones y "no encontrado"
+                int status = e.getMessage() != null && e.getMessage().startsWith("No se encontró") ? 404 : 400;
+                enviar(ex, status, error(e.getMessage()));
+            } catch (SQLTransientConnectionException e) {
+                // Base de datos caída (o circuito abierto): el cliente puede reintentar
+                ex.getResponseHeaders().set("Retry-After", "2");
+                enviar(ex, 503, error(e.getMessage()));
+            } catch (Exception e) {
+                System.err.println("Error en " + metodo + " " + ex.getRequestURI() + ": " + e.getMessage());
+                // Con los encabezados ya enviados (lista cortada) solo queda cerrar la respuesta
+                if (ex.getResponseCode() == -1) enviar(ex, 500, error("Error interno: " + e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Espera la confirmación de una escritura (en modo write-behind, hasta que
+     * se aplique su lote): la respuesta no informa éxito antes del commit.
+     * Bloquear es barato en un hilo virtual
+     *
+     * @throws Exception La causa original si la escritura falló
+     */
+    private static void esperar(CompletableFuture<Void> escritura) throws Exception {
+        try {
+            escritura.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception causa) throw causa;
+            throw e;
+        }
+    }
+
+    /**
+     * Escribe la lista elemento por elemento con transferencia chunked
+     */
+    private static void enviarLista(HttpExchange ex, List<Pelicula> peliculas) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024)) {
+            out.write("{\"items\":[");
+            for (int i = 0; i < peliculas.size(); i++) {
+                if (i > 0) out.write(',');
+                Json.write(out, peliculas.get(i));
+            }
+            out.write("],\"total\":");
+            out.write(Integer.toString(peliculas.size()));
+            out.write('}');
+        }
+    }
+
+    /**
+     * Escribe todas las películas del criterio pidiéndolas de a LOTE_LISTA
+     * (keyset): en memoria nunca hay más de una página
+     *
+     * La primera página se lee antes de enviar los encabezados, así un error
+     * de validación o de conexión todavía se responde con su código. Un error
+     * en una página posterior corta la respuesta (el JSON queda incompleto).
+     */
+    private void enviarConsulta(HttpExchange ex, PeliculaCriteria criterio) throws Exception {
+        criterio.limite(LOTE_LISTA);
+        List<Pelicula> pagina = service.findBy(criterio);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024)) {
+            out.write("{\"items\":[");
+            int total = 0;
+            while (true) {
+                for (Pelicula p : pagina) {
+                    if (total++ > 0) out.write(',');
+                    Json.write(out, p);
+                }
+                if (pagina.size() < LOTE_LISTA) break;
+                pagina = service.findBy(criterio.despuesDe(pagina.get(pagina.size() - 1)));
+            }
+            out.write("],\"total\":");
+            out.write(Integer.toString(total));
+            out.write('}');
+        } catch (Exception e) {
+            throw new IOException("Lista interrumpida: " + e.getMessage(), e);
+        }
+    }
+
+    private static void enviarPelicula(HttpExchange ex, Pelicula p) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        try (Writer out = new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8)) {
+            Json.write(out, p);
+        }
+    }
+
+    private static void enviar(HttpExchange ex, int status, String json) throws IOException {
+        if (json == null) {
+            ex.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        ex.getResponseBody().write(bytes);
+    }
+
+    private static String error(String mensaje) throws IOException {
+        StringWriter sw = new StringWriter();
+        sw.write("{\"error\":");
+        Json.string(sw, mensaje);
+        sw.write('}');
+        return sw.toString();
+    }
+
+    private static String leerCuerpo(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int entero(Map<String, String> query, String nombre, int porDefecto) {
+        String valor = query.get(nombre);
+        return valor == null || valor.isBlank() ? porDefecto : Integer.parseInt(valor.trim());
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String par : raw.split("&")) {
+            int eq = par.indexOf('=');
+            String k = eq < 0 ? par : par.substring(0, eq);
+            String v = eq < 0 ? "" : par.substring(eq + 1);
+            out.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+}
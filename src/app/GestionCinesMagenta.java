@@ -1,9 +1,32 @@
 package app;
 
+import api.PeliculaHttpServer;
+import cache.OffHeapPeliculaCache;
 import controller.MainController;
+import db.CircuitBreaker;
+import db.ConnectionProvider;
 import db.DatabaseConnection;
+import db.ReplicaRouter;
+import dao.CachingPeliculaDAO;
+import dao.FilePeliculaDAO;
+import dao.IPeliculaDAO;
+import dao.InMemoryPeliculaDAO;
 import dao.PeliculaDAO;
+import dao.ResilientPeliculaDAO;
+import dao.ShardedPeliculaDAO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.*;
+import journal.ChangeJournal;
+import service.CacheWarmup;
 import service.PeliculaService;
 import view.MainFrame;
 
@@ -17,38 +40,418 @@ import view.MainFrame;
  * - Lanzar la interfaz gráfica
  * 
  * Flujo de ejecución:
- * 1. Testea la conexión a la base de datos
- * 2. Muestra mensaje de éxito/error al usuario
- * 3. Si la conexión es exitosa, inicializa la aplicación
- * 4. Crea instancias de View, Service y Controller
+ * 1. Lanza en segundo plano la prueba/precalentamiento de la conexión
+ * 2. En paralelo crea View, Service y Controller y muestra la ventana
+ * 3. Al terminar la prueba, si falló avisa al usuario y sigue: el circuit
+ *    breaker rechaza las operaciones al instante y sondea hasta reconectar
+ * 4. Con la ventana visible y la conexión lista, precarga en segundo plano
+ *    las películas más usadas y las de los años recientes en la caché
+ * 5. Imprime el desglose de tiempos de cada fase del arranque
+ * 
+ * Argumentos:
+ * - --http[=puerto]  Levanta además la API HTTP/JSON (puerto 8080 por defecto)
+ * - --headless       Solo la API HTTP, sin interfaz gráfica
+ * 
+ * Backend de Cartelera: -Dcine.db.backend=mysql (por defecto), file (embebido,
+ * en -Dcine.db.file.dir, con -Dcine.db.file.fsync) o memory (sin persistencia).
+ * Con mysql, findById pasa por una caché en el heap (-Dcine.cache.entradas) y
+ * otra fuera del heap (-Dcine.cache.offheap.mb); 0 desactiva cada nivel y
+ * -Dcine.cache.ttl.s (300) es el tiempo de vida de cada entrada. La
+ * precarga se configura con -Dcine.warmup (true), -Dcine.warmup.anios,
+ * -Dcine.warmup.ids y -Dcine.warmup.archivo
+ * 
+ * Diario de cambios (opcional): -Dcine.journal=directorio, con
+ * -Dcine.journal.segmento.mb, -Dcine.journal.fsync y -Dcine.journal.retencion.dias;
+ * cada -Dcine.journal.mantenimiento.min (10) se hace un checkpoint si la cola
+ * supera -Dcine.journal.checkpoint.registros (100000) y se compacta
  */
 
 public class GestionCinesMagenta {
+    
+    private static final int TAMANIO_SLAB = 4 << 20; // Bytes por slab de la caché fuera del heap
 
     /**
      * Método principal - punto de entrada de la aplicación
-     * @param args Argumentos de línea de comandos (no utilizado)
+     * @param args Argumentos de línea de comandos (--http[=puerto], --headless)
      */
     public static void main(String[] args) {
-        //Prueba la conexión a la base de datos
-        boolean ok = DatabaseConnection.databaseTest();
-        String msg = ok ? "Conexión a Cine_DB exitosa."
-                        : "ERROR conectando a Cine_DB. Revisa credenciales/servicio.";
-        System.out.println(msg); //Muestra el mensaje en consola
+        StartupTimer timer = new StartupTimer();
+        boolean headless = false;
+        Integer puertoHttp = null;
+        for (String arg : args) {
+            if (arg.equals("--headless")) {
+                headless = true;
+                if (puertoHttp == null) puertoHttp = 8080;
+            } else if (arg.equals("--http")) {
+                puertoHttp = 8080;
+            } else if (arg.startsWith("--http=")) {
+                puertoHttp = puerto(arg.substring("--http=".length()));
+            }
+        }
+        
+        // Un circuit breaker por nodo; el DAO abre sus conexiones a través de ellos
+        List<CircuitBreaker> circuitos = new ArrayList<>();
+        long tService = timer.inicio();
+        IPeliculaDAO dao;
+        try {
+            dao = crearDAO(System.getProperty("cine.db.backend", "mysql"), circuitos);
+        } catch (SQLException e) {
+            System.err.println("No se pudo abrir el almacenamiento de Cartelera: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        PeliculaService service = new PeliculaService(dao);
+        
+        // Prueba (y precalienta) la conexión a la base de datos sin bloquear la UI;
+        // si un nodo no responde su circuito queda abierto y sondeando
+        CompletableFuture<Boolean> warmup = CompletableFuture.supplyAsync(() -> {
+            long t = timer.inicio();
+            boolean ok = true;
+            for (CircuitBreaker c : circuitos) ok &= c.probar();
+            timer.registrar("Conexión a Cine_DB", t);
+            return ok;
+        });
         
-        // Muestra al usuario el estado de conexión
-        JOptionPane.showMessageDialog(null, msg, "Estado de Conexión",
-                ok ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.ERROR_MESSAGE);
+        if (Boolean.getBoolean("cine.writebehind")) {
+            // Modo edición masiva: modificaciones agrupadas en lotes
+            service.habilitarWriteBehind(Integer.getInteger("cine.writebehind.lote", 100),
+                    Long.getLong("cine.writebehind.ms", 200));
+        }
+        ChangeJournal journal = abrirJournal();
+        if (journal != null) service.habilitarJournal(journal);
+        CacheWarmup precarga = crearPrecarga(service, dao);
+        // Drena las modificaciones pendientes (y las registra en el diario) al cerrar la aplicación
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (precarga != null) precarga.cancelar();
+            service.close();
+            if (dao instanceof CachingPeliculaDAO cache) {
+                cache.estadisticas().forEach(System.out::println);
+                guardarIdsCalientes(cache);
+            }
+            if (dao instanceof AutoCloseable cerrable) {
+                try {
+                    cerrable.close();
+                } catch (Exception e) {
+                    System.err.println("No se pudo cerrar el almacenamiento de Cartelera: " + e.getMessage());
+                }
+            }
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("No se pudo cerrar el diario de cambios: " + e.getMessage());
+                }
+            }
+        }, "service-shutdown"));
+        timer.registrar("Servicio y DAO", tService);
         
-        // Si la conexión falla, termina la ejecución
-        if (!ok) return;
+        // Con la conexión lista, carga en segundo plano el filtro de duplicados
+        // (si la base no estaba disponible, en cuanto se recupere)
+        AtomicBoolean filtroCargado = new AtomicBoolean();
+        Runnable cargarFiltro = () -> {
+            if (!filtroCargado.compareAndSet(false, true)) return;
+            long t = System.nanoTime();
+            try {
+                service.cargarFiltroDuplicados();
+                System.out.printf("Filtro de duplicados cargado en %d ms.%n", (System.nanoTime() - t) / 1_000_000);
+            } catch (SQLException e) {
+                filtroCargado.set(false);
+                System.err.println("No se pudo cargar el filtro de duplicados: " + e.getMessage());
+            }
+        };
+        warmup.thenAcceptAsync(ok -> {
+            if (ok) cargarFiltro.run();
+            if (ok && journal != null) programarMantenimiento(service, journal);
+        });
+        for (CircuitBreaker c : circuitos) {
+            c.addListener(estado -> {
+                if (estado == CircuitBreaker.Estado.CERRADO) CompletableFuture.runAsync(cargarFiltro);
+            });
+        }
+        
+        if (headless) {
+            if (precarga != null) warmup.thenAccept(ok -> iniciarPrecarga(precarga, ok));
+            iniciarApi(service, puertoHttp, warmup.join());
+            return; // Sin GUI: el servidor HTTP mantiene viva la JVM
+        }
+        if (puertoHttp != null) {
+            int puerto = puertoHttp;
+            warmup.thenAccept(ok -> iniciarApi(service, puerto, ok));
+        }
         
         // Inicializa la interfaz gráfica en el hilo de eventos de Swing
         SwingUtilities.invokeLater(() -> {
+            long t = timer.inicio();
             MainFrame view = new MainFrame();
-            PeliculaService service = new PeliculaService(new PeliculaDAO());
             MainController controller = new MainController(view, service);
             view.setVisible(true);
+            timer.registrar("Primera ventana visible", t);
+            
+            // El indicador de la toolbar sigue el estado de los circuitos
+            for (CircuitBreaker c : circuitos) {
+                c.addListener(estado -> SwingUtilities.invokeLater(() -> mostrarEstado(view, circuitos)));
+            }
+            
+            // La precarga arranca recién con la ventana pintada
+            if (precarga != null) {
+                precarga.addListener(p -> SwingUtilities.invokeLater(() -> view.setProgresoPrecarga(
+                        p.terminado() ? "" : "Precargando " + p.etapa() + "… (" + p.cargadas() + ")")));
+                warmup.thenAccept(ok -> iniciarPrecarga(precarga, ok));
+            }
+            
+            // Cuando termina la prueba de conexión se informa el resultado
+            warmup.thenAccept(ok -> SwingUtilities.invokeLater(() -> {
+                String msg = ok ? "Conexión a Cine_DB exitosa."
+                                : "ERROR conectando a Cine_DB. Revisa credenciales/servicio.";
+                System.out.println(msg); //Muestra el mensaje en consola
+                timer.reporte();
+                mostrarEstado(view, circuitos);
+                
+                // Si la conexión falla, avisa al usuario; la aplicación sigue
+                // y se reconecta sola cuando el servidor vuelva
+                if (!ok) {
+                    JOptionPane.showMessageDialog(view, msg + "\nSe reintentará la conexión en segundo plano.",
+                            "Estado de Conexión", JOptionPane.WARNING_MESSAGE);
+                }
+            }));
+        });
+    }
+    
+    /**
+     * @param valor Puerto de --http=puerto
+     * @return Puerto validado; si es inválido termina la aplicación con un mensaje
+     */
+    private static int puerto(String valor) {
+        try {
+            int puerto = Integer.parseInt(valor.trim());
+            if (puerto >= 0 && puerto <= 65535) return puerto;
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.err.println("Puerto HTTP inválido: '" + valor + "' (debe ser un número entre 0 y 65535).");
+        System.exit(1);
+        return -1; // No se alcanza
+    }
+    
+    /**
+     * Abre el diario de cambios si está configurado
+     * 
+     * @return ChangeJournal abierto, o null si está desactivado o no se pudo abrir
+     */
+    private static ChangeJournal abrirJournal() {
+        String dir = System.getProperty("cine.journal", "");
+        if (dir.isBlank()) return null;
+        try {
+            ChangeJournal journal = new ChangeJournal(Path.of(dir),
+                    Integer.getInteger("cine.journal.segmento.mb", 16) << 20, Boolean.getBoolean("cine.journal.fsync"));
+            System.out.println("Diario de cambios en " + dir + " (secuencia " + journal.ultimoSeq() + ").");
+            return journal;
+        } catch (IOException e) {
+            System.err.println("Diario de cambios desactivado: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Con la conexión lista: mantiene el diario ahora y después en forma
+     * periódica, en un hilo daemon
+     */
+    private static void programarMantenimiento(PeliculaService service, ChangeJournal journal) {
+        long periodo = Math.max(1, Long.getLong("cine.journal.mantenimiento.min", 10));
+        ScheduledExecutorService mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        mantenimiento.scheduleWithFixedDelay(() -> mantenerJournal(service, journal), 0, periodo, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Crea un checkpoint si el diario no tiene o si la cola desde el último
+     * supera el umbral (así el replay no crece sin límite) y borra los
+     * segmentos cubiertos que superan la retención
+     */
+    private static void mantenerJournal(PeliculaService service, ChangeJournal journal) {
+        try {
+            long cola = journal.registrosSinCheckpoint();
+            if (!journal.tieneSnapshot() || cola >= Long.getLong("cine.journal.checkpoint.registros", 100_000)) {
+                long t = System.nanoTime();
+                service.checkpointJournal();
+                System.out.printf("Checkpoint del diario creado en %d ms (%d registros en la cola).%n",
+                        (System.nanoTime() - t) / 1_000_000, cola);
+            }
+            long retencion = TimeUnit.DAYS.toMillis(Long.getLong("cine.journal.retencion.dias", 30));
+            int borrados = journal.compactar(retencion);
+            if (borrados > 0) System.out.println("Diario compactado: " + borrados + " segmentos borrados.");
+        } catch (SQLException | IOException | RuntimeException e) {
+            // Se reintenta en el próximo período
+            System.err.println("No se pudo mantener el diario de cambios: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Prepara la precarga de caché si hay caché y no está desactivada
+     * 
+     * @return CacheWarmup sin iniciar, o null
+     */
+    private static CacheWarmup crearPrecarga(PeliculaService service, IPeliculaDAO dao) {
+        if (!(dao instanceof CachingPeliculaDAO) || !Boolean.parseBoolean(System.getProperty("cine.warmup", "true"))) {
+            return null;
+        }
+        CacheWarmup precarga = new CacheWarmup(service);
+        long inicio = System.nanoTime();
+        precarga.addListener(p -> {
+            if (p.terminado()) {
+                System.out.printf("Precarga de caché %s: %d películas en %d ms.%n",
+                        p.etapa(), p.cargadas(), (System.nanoTime() - inicio) / 1_000_000);
+            }
         });
+        return precarga;
+    }
+    
+    /**
+     * Lanza la precarga si la conexión está disponible (sin conexión no
+     * tiene sentido: la caché se llena sola con el uso)
+     */
+    private static void iniciarPrecarga(CacheWarmup precarga, boolean conexionOk) {
+        if (!conexionOk) return;
+        Path archivo = Path.of(System.getProperty("cine.warmup.archivo", "data/hot-ids.txt"));
+        List<Integer> ids = CacheWarmup.leerIds(archivo);
+        int max = Integer.getInteger("cine.warmup.ids", 5000);
+        if (ids.size() > max) ids = ids.subList(0, max);
+        precarga.iniciar(ids, Integer.getInteger("cine.warmup.anios", 5));
+    }
+    
+    /**
+     * Guarda los IDs del primer nivel de la caché para precargarlos en el
+     * próximo arranque
+     */
+    private static void guardarIdsCalientes(CachingPeliculaDAO cache) {
+        if (!Boolean.parseBoolean(System.getProperty("cine.warmup", "true"))) return;
+        Path archivo = Path.of(System.getProperty("cine.warmup.archivo", "data/hot-ids.txt"));
+        List<Integer> ids = cache.idsCalientes(Integer.getInteger("cine.warmup.ids", 5000));
+        if (ids.isEmpty()) return; // Sin uso (ej. sin conexión): se conserva la lista anterior
+        try {
+            CacheWarmup.guardarIds(archivo, ids);
+        } catch (IOException e) {
+            System.err.println("No se pudieron guardar los IDs calientes: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Muestra en la toolbar el estado de los circuitos (el peor de todos)
+     */
+    private static void mostrarEstado(MainFrame view, List<CircuitBreaker> circuitos) {
+        for (CircuitBreaker c : circuitos) {
+            if (c.getEstado() != CircuitBreaker.Estado.CERRADO) {
+                view.setEstadoConexion("BD: sin conexión a " + c.getNombre() + " (reintentando…)", false);
+                return;
+            }
+        }
+        view.setEstadoConexion("BD: conectada", true);
+    }
+    
+    /**
+     * Levanta la API HTTP; sin conexión responde 503 hasta que el circuito
+     * se cierre
+     * 
+     * @param service Servicio compartido con la GUI
+     * @param puerto Puerto TCP del servidor
+     * @param conexionOk Resultado de la prueba de conexión
+     */
+    private static void iniciarApi(PeliculaService service, int puerto, boolean conexionOk) {
+        if (!conexionOk) {
+            System.err.println("Sin conexión a Cine_DB: la API responderá 503 hasta que se recupere.");
+        }
+        try {
+            PeliculaHttpServer api = new PeliculaHttpServer(service,
+                    System.getProperty("cine.http.host", "127.0.0.1"), puerto);
+            api.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(api::close, "http-shutdown"));
+        } catch (IOException e) {
+            System.err.println("No se pudo iniciar la API HTTP: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Crea el DAO del backend indicado
+     * 
+     * @param backend mysql, memory, file (directorio de cine.db.file.dir) o
+     *        file:directorio
+     * @param circuitos Recibe los circuit breakers creados (solo mysql)
+     * @return IPeliculaDAO a utilizar por el servicio
+     * @throws SQLException Si no se puede abrir el almacenamiento embebido
+     */
+    static IPeliculaDAO crearDAO(String backend, List<CircuitBreaker> circuitos) throws SQLException {
+        if (backend.equals("mysql")) return crearDAO(circuitos);
+        if (backend.equals("memory")) {
+            System.out.println("Cartelera en memoria: los cambios se pierden al salir.");
+            return new InMemoryPeliculaDAO();
+        }
+        if (backend.equals("file") || backend.startsWith("file:")) {
+            String dir = backend.startsWith("file:") ? backend.substring("file:".length())
+                    : System.getProperty("cine.db.file.dir", "data/cine");
+            long t = System.nanoTime();
+            FilePeliculaDAO dao = new FilePeliculaDAO(Path.of(dir), Boolean.getBoolean("cine.db.file.fsync"));
+            System.out.printf("Cartelera embebida en %s (abierta en %d ms).%n", dir, (System.nanoTime() - t) / 1_000_000);
+            return dao;
+        }
+        throw new IllegalArgumentException("Backend desconocido: " + backend + " (mysql, file o memory).");
+    }
+    
+    /**
+     * Envuelve el DAO con la caché de dos niveles según la configuración
+     * 
+     * @param dao DAO de la base de datos
+     * @param lecturasPrimario DAO que lee del primario para cargar la caché
+     *        cuando dao lee de réplicas (null = dao ya lee del primario)
+     * @return CachingPeliculaDAO, o el mismo DAO si ambos niveles están desactivados
+     */
+    private static IPeliculaDAO cachear(IPeliculaDAO dao, IPeliculaDAO lecturasPrimario) {
+        int entradas = Integer.getInteger("cine.cache.entradas", 10_000);
+        long offHeapMb = Long.getLong("cine.cache.offheap.mb", 64);
+        long ttlMillis = Long.getLong("cine.cache.ttl.s", 300) * 1000;
+        if (entradas <= 0 && offHeapMb <= 0) return dao;
+        OffHeapPeliculaCache offHeap = offHeapMb > 0
+                ? new OffHeapPeliculaCache(offHeapMb << 20, Math.min(TAMANIO_SLAB, (int) (offHeapMb << 20)), ttlMillis)
+                : null;
+        return new CachingPeliculaDAO(dao, lecturasPrimario, entradas, ttlMillis, offHeap);
+    }
+    
+    /**
+     * Crea el DAO según la configuración: un solo nodo (con réplicas de
+     * lectura opcionales) o varios shards, cada nodo detrás de su circuit
+     * breaker y con reintentos, detrás de la caché
+     * 
+     * @param circuitos Recibe los circuit breakers creados (uno por nodo)
+     * @return IPeliculaDAO a utilizar por el servicio
+     */
+    private static IPeliculaDAO crearDAO(List<CircuitBreaker> circuitos) {
+        List<String> urls = DatabaseConnection.shardUrls();
+        if (urls.isEmpty()) {
+            CircuitBreaker circuito = DatabaseConnection.circuitBreaker("Cine_DB", DatabaseConnection::get);
+            circuitos.add(circuito);
+            ConnectionProvider primario = circuito.proteger(DatabaseConnection::get);
+            ReplicaRouter router = DatabaseConnection.replicaRouter(primario);
+            if (router == null) {
+                return cachear(new ResilientPeliculaDAO(new PeliculaDAO(primario), DatabaseConnection.retryPolicy()), null);
+            }
+            System.out.println("Lecturas enrutadas a réplicas de Cine_DB.");
+            Runtime.getRuntime().addShutdownHook(new Thread(router::close, "replica-router-shutdown"));
+            return cachear(new ResilientPeliculaDAO(new PeliculaDAO(router.writer(), router.reader()),
+                    DatabaseConnection.retryPolicy()),
+                    new ResilientPeliculaDAO(new PeliculaDAO(primario), DatabaseConnection.retryPolicy()));
+        }
+        List<IPeliculaDAO> shards = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            ConnectionProvider nodo = DatabaseConnection.forUrl(urls.get(i));
+            CircuitBreaker circuito = DatabaseConnection.circuitBreaker("shard-" + i, nodo);
+            circuitos.add(circuito);
+            shards.add(new ResilientPeliculaDAO(new PeliculaDAO(circuito.proteger(nodo)),
+                    DatabaseConnection.retryPolicy()));
+        }
+        System.out.println("Usando " + shards.size() + " shards para Cartelera.");
+        return cachear(new ShardedPeliculaDAO(shards), null);
     }
 }
@@ -0,0 +1,102 @@
+package app;
+
+import dao.IPeliculaDAO;
+import dao.PeliculaCriteria;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import model.Pelicula;
+
+/**
+ * Copia la Cartelera de un backend a otro conservando los IDs
+ *
+ * Responsabilidades:
+ * - Leer el origen en lotes por ID (keyset, sin OFFSET) e insertarlos en el
+ *   destino con importBatch
+ * - Informar el avance y el total copiado
+ *
+ * Características:
+ * - Cada lote se aplica entero o nada; si la copia se corta, volver a
+ *   ejecutarla con --desde=ultimoId continúa después del último lote
+ * - El destino debe estar vacío (o no contener esos IDs ni esos títulos)
+ *
+ * Uso: java app.PeliculaMigrator origen destino [--lote=500] [--desde=id]
+ * donde origen y destino son mysql, file, file:directorio o memory
+ * (ej. mysql file:data/cine)
+ *
+ */
+
+public class PeliculaMigrator {
+
+    /**
+     * @param args origen, destino y opciones
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: PeliculaMigrator origen destino [--lote=500] [--desde=id]");
+            System.exit(2);
+        }
+        int lote = 500;
+        int desde = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--lote=")) lote = Integer.parseInt(args[i].substring("--lote=".length()));
+            else if (args[i].startsWith("--desde=")) desde = Integer.parseInt(args[i].substring("--desde=".length()));
+        }
+        IPeliculaDAO origen = null;
+        IPeliculaDAO destino = null;
+        try {
+            origen = GestionCinesMagenta.crearDAO(args[0], new ArrayList<>());
+            destino = GestionCinesMagenta.crearDAO(args[1], new ArrayList<>());
+            long t = System.nanoTime();
+            int total = migrar(origen, destino, lote, desde);
+            System.out.printf("Migradas %d películas en %d ms.%n", total, (System.nanoTime() - t) / 1_000_000);
+        } catch (SQLException e) {
+            System.err.println("Error migrando Cartelera: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            cerrar(origen);
+            cerrar(destino);
+        }
+    }
+
+    /**
+     * Copia las películas con ID mayor a desde, en orden de ID
+     *
+     * @param origen DAO de lectura
+     * @param destino DAO que recibe los lotes
+     * @param lote Películas por lote
+     * @param desde Último ID ya copiado (0 para copiar todo)
+     * @return Cantidad de películas copiadas
+     * @throws SQLException Si falla una lectura o un lote (los anteriores quedan copiados)
+     */
+    public static int migrar(IPeliculaDAO origen, IPeliculaDAO destino, int lote, int desde) throws SQLException {
+        if (lote < 1) {
+            throw new IllegalArgumentException("El lote debe ser mayor a 0.");
+        }
+        Pelicula ultima = desde > 0 ? new Pelicula(desde, "", "", 0, 0, null) : null;
+        int total = 0;
+        while (true) {
+            PeliculaCriteria pagina = PeliculaCriteria.create()
+                    .ordenarPor(PeliculaCriteria.Campo.ID, false)
+                    .limite(lote);
+            if (ultima != null) pagina.despuesDe(ultima);
+            List<Pelicula> peliculas = origen.findBy(pagina);
+            if (peliculas.isEmpty()) return total;
+            destino.importBatch(peliculas);
+            total += peliculas.size();
+            ultima = peliculas.get(peliculas.size() - 1);
+            System.out.println("Copiadas " + total + " (último ID " + ultima.getId() + ")");
+            if (peliculas.size() < lote) return total;
+        }
+    }
+
+    private static void cerrar(IPeliculaDAO dao) {
+        if (dao instanceof AutoCloseable cerrable) {
+            try {
+                cerrable.close();
+            } catch (Exception e) {
+                System.err.println("Error cerrando " + dao.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cronómetro de las fases de arranque de la aplicación
+ *
+ * Responsabilidades:
+ * - Registrar el inicio y fin de cada fase (pueden correr en hilos distintos)
+ * - Imprimir un desglose relativo al inicio del proceso de arranque
+ *
+ */
+
+final class StartupTimer {
+
+    private final long t0 = System.nanoTime();
+    private final List<String> fases = new ArrayList<>(); // Protegido por this
+
+    /**
+     * Marca el inicio de una fase
+     *
+     * @return long instante de inicio para pasar a {@link #registrar}
+     */
+    long inicio() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra una fase terminada
+     *
+     * @param fase Nombre de la fase
+     * @param inicio Valor devuelto por {@link #inicio()} al comenzar la fase
+     */
+    synchronized void registrar(String fase, long inicio) {
+        long fin = System.nanoTime();
+        fases.add(String.format("  %-28s +%5d ms  (%d ms, hilo %s)", fase,
+                TimeUnit.NANOSECONDS.toMillis(fin - t0),
+                TimeUnit.NANOSECONDS.toMillis(fin - inicio),
+                Thread.currentThread().getName()));
+    }
+
+    /**
+     * Imprime el desglose de las fases registradas hasta ahora
+     */
+    synchronized void reporte() {
+        System.out.println("Tiempos de arranque (fin de fase relativo al inicio):");
+        for (String fase : fases) System.out.println(fase);
+    }
+}
@@ -0,0 +1,112 @@
+package bench;
+
+/**
+ * Histograma de latencias log-lineal (precisión ~1%) en nanosegundos
+ *
+ * Responsabilidades:
+ * - Registrar latencias en memoria constante, sin guardar cada muestra
+ * - Corregir la omisión coordinada agregando las muestras que un cliente
+ *   bloqueado no llegó a emitir (igual que HdrHistogram)
+ * - Calcular percentiles, media y máximo, y combinar histogramas
+ *
+ * Características:
+ * - No es thread-safe: cada cliente usa el suyo y se combinan al final
+ *
+ */
+
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;               // 128 sub-buckets por potencia de 2
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = 64 - SUB_BITS;
+
+    private final long[] counts = new long[BUCKETS * SUB_COUNT];
+    private long total;
+    private long max;
+    private double suma;
+
+    /**
+     * Registra una latencia
+     *
+     * @param nanos Latencia en nanosegundos (negativos cuentan como 0)
+     */
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts[indice(v)]++;
+        total++;
+        suma += v;
+        if (v > max) max = v;
+    }
+
+    /**
+     * Registra una latencia corrigiendo la omisión coordinada
+     *
+     * Si la operación tardó más que el intervalo esperado entre peticiones,
+     * se registran también las peticiones que habrían esperado detrás de ella.
+     *
+     * @param nanos Latencia medida
+     * @param intervaloEsperado Intervalo entre peticiones del cliente (0 = sin corrección)
+     */
+    public void recordCorrected(long nanos, long intervaloEsperado) {
+        record(nanos);
+        if (intervaloEsperado <= 0) return;
+        for (long faltante = nanos - intervaloEsperado; faltante >= intervaloEsperado; faltante -= intervaloEsperado) {
+            record(faltante);
+        }
+    }
+
+    /**
+     * Suma las muestras de otro histograma a éste
+     *
+     * @param otro Histograma a combinar
+     */
+    public void add(LatencyHistogram otro) {
+        for (int i = 0; i < counts.length; i++) counts[i] += otro.counts[i];
+        total += otro.total;
+        suma += otro.suma;
+        max = Math.max(max, otro.max);
+    }
+
+    /**
+     * @param percentil Percentil entre 0 y 100
+     * @return long Latencia en nanosegundos del percentil pedido
+     */
+    public long percentile(double percentil) {
+        if (total == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < counts.length; i++) {
+            acumulado += counts[i];
+            if (acumulado >= objetivo) return Math.min(max, valorSuperior(i));
+        }
+        return max;
+    }
+
+    /**
+     * @return long Cantidad de muestras registradas
+     */
+    public long count() { return total; }
+
+    /**
+     * @return long Latencia máxima en nanosegundos
+     */
+    public long max() { return max; }
+
+    /**
+     * @return double Latencia media en nanosegundos
+     */
+    public double mean() { return total == 0 ? 0 : suma / total; }
+
+    private static int indice(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int bucket = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS + 1;
+        int sub = (int) (v >>> bucket);          // Entre SUB_COUNT/2 y SUB_COUNT-1
+        return bucket * SUB_COUNT + sub;
+    }
+
+    private static long valorSuperior(int indice) {
+        int bucket = indice / SUB_COUNT;
+        long sub = indice % SUB_COUNT;
+        return bucket == 0 ? sub : ((sub + 1) << bucket) - 1;
+    }
+}
@@ -0,0 +1,311 @@
+package bench;
+
+import dao.IPeliculaDAO;
+import dao.InMemoryPeliculaDAO;
+import dao.PeliculaDAO;
+import db.DatabaseConnection;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import model.Genero;
+import model.Pelicula;
+import service.PeliculaService;
+
+/**
+ * Generador de carga sobre PeliculaService
+ *
+ * Responsabilidades:
+ * - Simular N operadores/clientes concurrentes con una mezcla de operaciones
+ * - Modo cerrado (cada cliente espera respuesta + think time) y abierto
+ *   (peticiones a tasa fija, independientes de la respuesta)
+ * - Medir latencias corregidas por omisión coordinada y throughput
+ * - Emitir un reporte por corrida, comparable entre corridas (CSV acumulativo)
+ *
+ * Uso:
+ *   java bench.LoadTest --clientes 16 --segundos 30 --modo cerrado --think 5
+ *        --mezcla add=5,update=10,delete=2,findById=50,buscar=20,filtrar=13
+ *        [--modo abierto --tasa 2000] [--backend memoria|mysql] [--precarga 10000]
+ *        [--seed 42] [--reporte corridas.csv]
+ *
+ * La precarga usa PeliculaGenerator, así dos corridas con la misma semilla
+ * parten del mismo catálogo.
+ *
+ */
+
+public final class LoadTest {
+
+    /**
+     * Operaciones que puede ejecutar un cliente
+     */
+    enum Operacion { add, update, delete, findById, buscar, filtrar }
+
+    private final PeliculaService service;
+    private final Map<String, String> opciones;
+    private final Operacion[] ruleta = new Operacion[100]; // Mezcla en porcentajes
+    private final IdPool ids = new IdPool();
+    private final AtomicInteger secuencia = new AtomicInteger();
+
+    private LoadTest(PeliculaService service, Map<String, String> opciones) {
+        this.service = service;
+        this.opciones = opciones;
+        cargarMezcla(opciones.getOrDefault("mezcla", "add=5,update=10,delete=2,findById=50,buscar=20,filtrar=13"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = parseArgs(args);
+        IPeliculaDAO dao = "mysql".equals(opciones.get("backend"))
+                ? new PeliculaDAO(DatabaseConnection::get)
+                : new InMemoryPeliculaDAO();
+        try (PeliculaService service = new PeliculaService(dao)) {
+            new LoadTest(service, opciones).run();
+        }
+    }
+
+    private void run() throws Exception {
+        int clientes = entero("clientes", 8);
+        int segundos = entero("segundos", 10);
+        boolean abierto = "abierto".equals(opciones.get("modo"));
+        long thinkNanos = TimeUnit.MILLISECONDS.toNanos(entero("think", 0));
+        long seed = Long.parseLong(opciones.getOrDefault("seed", "42"));
+
+        precargar(entero("precarga", 1000), seed);
+
+        // Intervalo entre peticiones de cada cliente en modo abierto
+        long intervaloNanos = abierto ? (long) (1e9 * clientes / entero("tasa", 1000)) : 0;
+        long warmupFin = System.nanoTime() + TimeUnit.SECONDS.toNanos(entero("warmup", 2));
+        long fin = warmupFin + TimeUnit.SECONDS.toNanos(segundos);
+
+        // El servicio imprime trazas por operación: se silencian durante la medición
+        PrintStream consola = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        List<Cliente> lista = new ArrayList<>();
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            Cliente c = new Cliente(new SplittableRandom(seed + i + 1), warmupFin, fin, thinkNanos, intervaloNanos);
+            lista.add(c);
+            Thread t = new Thread(c, "cliente-" + i);
+            hilos.add(t);
+            t.start();
+        }
+        for (Thread t : hilos) t.join();
+        System.setOut(consola);
+
+        reportar(lista, clientes, segundos, abierto, thinkNanos, intervaloNanos);
+    }
+
+    /**
+     * Cliente simulado con sus propios histogramas (sin contención al medir)
+     */
+    private final class Cliente implements Runnable {
+        final SplittableRandom rnd;
+        final long desde, hasta, think, intervalo;
+        final Map<Operacion, LatencyHistogram> histos = new EnumMap<>(Operacion.class);
+        final Map<Operacion, Long> errores = new EnumMap<>(Operacion.class);
+
+        Cliente(SplittableRandom rnd, long desde, long hasta, long think, long intervalo) {
+            this.rnd = rnd;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.think = think;
+            this.intervalo = intervalo;
+            for (Operacion op : Operacion.values()) {
+                histos.put(op, new LatencyHistogram());
+                errores.put(op, 0L);
+            }
+        }
+
+        @Override
+        public void run() {
+            // En modo abierto cada petición tiene un instante planificado; la
+            // latencia se mide desde ese instante, no desde que se pudo enviar
+            long planificado = System.nanoTime() + (intervalo > 0 ? rnd.nextLong(intervalo) : 0);
+            while (true) {
+                if (intervalo > 0) {
+                    long espera = planificado - System.nanoTime();
+                    if (espera > 0) LockSupport.parkNanos(espera);
+                }
+                long inicio = intervalo > 0 ? planificado : System.nanoTime();
+                if (inicio >= hasta) return;
+
+                Operacion op = ruleta[rnd.nextInt(ruleta.length)];
+                boolean ok = ejecutar(op, rnd);
+                long latencia = System.nanoTime() - inicio;
+
+                if (inicio >= desde) {
+                    // En modo cerrado se corrige con el think time como intervalo esperado
+                    histos.get(op).recordCorrected(latencia, intervalo > 0 ? 0 : think);
+                    if (!ok) errores.merge(op, 1L, Long::sum);
+                }
+                if (intervalo > 0) {
+                    planificado += intervalo;
+                } else if (think > 0) {
+                    LockSupport.parkNanos((long) (-Math.log(1 - rnd.nextDouble()) * think)); // Exponencial
+                }
+            }
+        }
+    }
+
+    private boolean ejecutar(Operacion op, SplittableRandom rnd) {
+        try {
+            switch (op) {
+                case add -> ids.add(service.add(nuevaPelicula(rnd)));
+                case update -> {
+                    int id = ids.random(rnd);
+                    if (id > 0) {
+                        Pelicula p = service.findById(id);
+                        p.setDuracion(1 + rnd.nextInt(999));
+                        service.update(p);
+                    }
+                }
+                case delete -> {
+                    int id = ids.removeRandom(rnd);
+                    if (id > 0) service.delete(id);
+                }
+                case findById -> {
+                    int id = ids.random(rnd);
+                    if (id > 0) service.findById(id);
+                }
+                case buscar -> service.findByTitle(
+                        PeliculaGenerator.SUSTANTIVOS[rnd.nextInt(PeliculaGenerator.SUSTANTIVOS.length)]);
+                case filtrar -> {
+                    int desde = 1950 + rnd.nextInt(70);
+                    service.findWithFilters(Genero.values()[rnd.nextInt(Genero.values().length)].name(), desde, desde + 5);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private Pelicula nuevaPelicula(SplittableRandom rnd) {
+        return new Pelicula("Carga " + secuencia.incrementAndGet(), "Director " + rnd.nextInt(500),
+                1950 + rnd.nextInt(75), 60 + rnd.nextInt(120), Genero.values()[rnd.nextInt(Genero.values().length)]);
+    }
+
+    private void precargar(int cantidad, long seed) throws Exception {
+        PeliculaGenerator gen = new PeliculaGenerator(seed, Math.max(10, cantidad / 20), 1.1);
+        for (int i = 0; i < cantidad; i++) ids.add(service.add(gen.next()));
+        System.out.println("Precarga: " + cantidad + " películas.");
+    }
+
+    private void reportar(List<Cliente> clientes, int clientesN, int segundos, boolean abierto,
+            long think, long intervalo) throws IOException {
+        LatencyHistogram global = new LatencyHistogram();
+        long erroresTotales = 0;
+        String config = String.format("modo=%s clientes=%d segundos=%d think=%dms tasa=%s mezcla=%s backend=%s",
+                abierto ? "abierto" : "cerrado", clientesN, segundos, TimeUnit.NANOSECONDS.toMillis(think),
+                abierto ? opciones.get("tasa") : "-", opciones.getOrDefault("mezcla", "default"),
+                opciones.getOrDefault("backend", "memoria"));
+
+        System.out.println();
+        System.out.println("Corrida " + LocalDateTime.now() + "  " + config);
+        System.out.printf("%-9s %10s %9s %9s %9s %9s %9s %9s %7s%n",
+                "op", "muestras", "ops/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)", "errores");
+        for (Operacion op : Operacion.values()) {
+            LatencyHistogram h = new LatencyHistogram();
+            long errores = 0;
+            for (Cliente c : clientes) {
+                h.add(c.histos.get(op));
+                errores += c.errores.get(op);
+            }
+            if (h.count() == 0) continue;
+            global.add(h);
+            erroresTotales += errores;
+            imprimirFila(op.name(), h, segundos, errores);
+        }
+        imprimirFila("TOTAL", global, segundos, erroresTotales);
+
+        String archivo = opciones.get("reporte");
+        if (archivo != null) {
+            try (PrintWriter out = new PrintWriter(new FileWriter(archivo, true))) {
+                out.printf("%s,\"%s\",%d,%.1f,%d,%d,%d,%d,%d,%d%n", LocalDateTime.now(), config,
+                        global.count(), global.count() / (double) segundos,
+                        micros(global.percentile(50)), micros(global.percentile(90)), micros(global.percentile(99)),
+                        micros(global.percentile(99.9)), micros(global.max()), erroresTotales);
+            }
+            System.out.println("Reporte agregado a " + archivo);
+        }
+    }
+
+    private static void imprimirFila(String nombre, LatencyHistogram h, int segundos, long errores) {
+        System.out.printf("%-9s %10d %9.1f %9d %9d %9d %9d %9d %7d%n", nombre, h.count(), h.count() / (double) segundos,
+                micros(h.percentile(50)), micros(h.percentile(90)), micros(h.percentile(99)),
+                micros(h.percentile(99.9)), micros(h.max()), errores);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private void cargarMezcla(String mezcla) {
+        Map<Operacion, Integer> pesos = new LinkedHashMap<>();
+        int suma = 0;
+        for (String par : mezcla.split(",")) {
+            String[] kv = par.split("=");
+            int peso = Integer.parseInt(kv[1].trim());
+            pesos.put(Operacion.valueOf(kv[0].trim()), peso);
+            suma += peso;
+        }
+        if (suma <= 0) throw new IllegalArgumentException("La mezcla debe tener pesos positivos.");
+        int i = 0;
+        int acumulado = 0;
+        for (Map.Entry<Operacion, Integer> e : pesos.entrySet()) {
+            acumulado += e.getValue();
+            int hasta = (int) Math.round(acumulado * 100.0 / suma);
+            while (i < hasta) ruleta[i++] = e.getKey();
+        }
+    }
+
+    private int entero(String nombre, int porDefecto) {
+        return Integer.parseInt(opciones.getOrDefault(nombre, String.valueOf(porDefecto)));
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Argumento inválido: " + args[i]);
+            out.put(args[i].substring(2), args[i + 1]);
+        }
+        return out;
+    }
+
+    /**
+     * Conjunto de IDs existentes con elección y borrado aleatorio en O(1)
+     */
+    private static final class IdPool {
+        private int[] ids = new int[1024];
+        private int size;
+
+        synchronized void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        synchronized int random(SplittableRandom rnd) {
+            return size == 0 ? -1 : ids[rnd.nextInt(size)];
+        }
+
+        synchronized int removeRandom(SplittableRandom rnd) {
+            if (size == 0) return -1;
+            int i = rnd.nextInt(size);
+            int id = ids[i];
+            ids[i] = ids[--size];
+            return id;
+        }
+    }
+}
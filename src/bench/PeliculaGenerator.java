@@ -0,0 +1,272 @@
+package bench;
+
+import db.DatabaseConnection;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * Generador determinista de catálogos sintéticos para pruebas de escala
+ *
+ * Responsabilidades:
+ * - Generar películas con distribuciones realistas a partir de una semilla
+ * - Títulos en español con acentos, únicos para no violar uq_titulo_anio
+ * - Directores con distribución Zipf (pocos directores con muchas películas)
+ * - Géneros sesgados, años y duraciones dentro de los CHECK de ScriptSQL.sql
+ * - Volcar millones de filas en streaming a CSV o a la BD con inserts en lote
+ *
+ * Uso:
+ *   java bench.PeliculaGenerator --filas 10000000 --seed 42 --csv catalogo.csv
+ *   java bench.PeliculaGenerator --filas 1000000 --mysql
+ *        [--url jdbc:mysql://localhost:3306/Cine_DB?rewriteBatchedStatements=true] [--lote 5000]
+ *
+ */
+
+public final class PeliculaGenerator {
+
+    // Palabras para armar títulos; ninguna difiere de otra solo por acentos
+    static final String[] SUSTANTIVOS = {
+        "Sueños", "Corazón", "Camión", "Jardín", "Canción", "Pasión", "Ilusión", "Océano",
+        "Montaña", "Ciudad", "Noche", "Verano", "Invierno", "Río", "Desierto", "Horizonte",
+        "Destino", "Silencio", "Relámpago", "Guardián", "Murciélago", "Búho", "Náufrago", "Ángel",
+        "Héroe", "Fantasma", "Camino", "Espejo", "Isla", "Tormenta", "Secreto", "Campeón"
+    };
+    private static final String[] ARTICULOS = {"", "El ", "La ", "Los ", "Las ", "Un ", "Una "};
+    private static final String[] COMPLEMENTOS = {
+        "", " de Campus", " de Otoño", " en la Montaña", " del Último Verano", " sin Retorno",
+        " bajo la Lluvia", " de Medianoche", " en París", " de Fuego", " del Pacífico", " Perdido",
+        " Olvidado", " Eterno", " Rebelde", " en Valparaíso", " de Cristal", " Magenta", " Prohibido",
+        " del Sur", " de Acero", " en Llamas", " del Norte", " Invisible"
+    };
+    private static final String[] NOMBRES = {
+        "Andrés", "Begoña", "César", "Dolores", "Joaquín", "Inés", "Martín", "Lucía", "Ramón",
+        "Sofía", "Tomás", "Valentina", "Iñaki", "Mónica", "Raúl", "Pilar", "Julián", "Ángela",
+        "Sebastián", "Verónica", "Óscar", "Rocío", "Germán", "Belén"
+    };
+    private static final String[] APELLIDOS = {
+        "López", "Romero", "Núñez", "Pérez", "González", "Fernández", "Martínez", "Sánchez",
+        "Gómez", "Díaz", "Hernández", "Muñoz", "Álvarez", "Jiménez", "Ruiz", "Vásquez",
+        "Castillo", "Ibáñez", "Ortúzar", "Peña", "Benítez", "Saldías", "Cortés", "Zúñiga"
+    };
+    // Sesgo de géneros (mismo orden que Genero.values())
+    private static final double[] PESOS_GENERO = {15, 25, 20, 8, 7, 5, 8, 12};
+
+    private final SplittableRandom rnd;
+    private final String[] directores;
+    private final double[] cdfDirectores; // Distribución Zipf acumulada
+    private final double[] cdfGeneros;
+    private final int anioMax = Year.now().getValue();
+    private final long combinaciones = (long) ARTICULOS.length * SUSTANTIVOS.length * COMPLEMENTOS.length;
+    private long generadas = 0;
+
+    /**
+     * Constructor del generador
+     *
+     * @param seed Semilla; la misma semilla produce exactamente el mismo catálogo
+     * @param cantidadDirectores Tamaño del universo de directores
+     * @param zipfS Exponente de la distribución Zipf (ej. 1.1)
+     */
+    public PeliculaGenerator(long seed, int cantidadDirectores, double zipfS) {
+        this.rnd = new SplittableRandom(seed);
+        this.directores = new String[cantidadDirectores];
+        SplittableRandom rndDirectores = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        for (int i = 0; i < cantidadDirectores; i++) {
+            directores[i] = NOMBRES[rndDirectores.nextInt(NOMBRES.length)].charAt(0) + ". "
+                    + APELLIDOS[rndDirectores.nextInt(APELLIDOS.length)] + " "
+                    + APELLIDOS[rndDirectores.nextInt(APELLIDOS.length)];
+        }
+        this.cdfDirectores = new double[cantidadDirectores];
+        double acumulado = 0;
+        for (int k = 0; k < cantidadDirectores; k++) {
+            acumulado += 1.0 / Math.pow(k + 1, zipfS);
+            cdfDirectores[k] = acumulado;
+        }
+        this.cdfGeneros = new double[PESOS_GENERO.length];
+        acumulado = 0;
+        for (int g = 0; g < PESOS_GENERO.length; g++) {
+            acumulado += PESOS_GENERO[g];
+            cdfGeneros[g] = acumulado;
+        }
+    }
+
+    /**
+     * Genera la siguiente película del catálogo (sin ID)
+     *
+     * @return Pelicula nueva con título único dentro del catálogo generado
+     */
+    public Pelicula next() {
+        long i = generadas++;
+        return new Pelicula(titulo(i), directores[muestrear(cdfDirectores)], anio(), duracion(),
+                Genero.values()[muestrear(cdfGeneros)]);
+    }
+
+    /**
+     * Genera varias películas y las entrega una a una (sin retenerlas en memoria)
+     *
+     * @param cantidad Cantidad de películas
+     * @param destino Consumidor de cada película generada
+     */
+    public void generate(long cantidad, Consumer<Pelicula> destino) {
+        for (long i = 0; i < cantidad; i++) destino.accept(next());
+    }
+
+    /**
+     * Título único: la fila i se mapea de forma biyectiva a una combinación
+     * (permutada para que filas vecinas no se parezcan) más un número de
+     * secuela cuando se agotan las combinaciones
+     */
+    private String titulo(long i) {
+        long base = Math.floorMod(i * 2654435761L, combinaciones); // 2654435761 es coprimo con combinaciones
+        long secuela = i / combinaciones;
+        int c = (int) (base % COMPLEMENTOS.length);
+        base /= COMPLEMENTOS.length;
+        int s = (int) (base % SUSTANTIVOS.length);
+        int a = (int) (base / SUSTANTIVOS.length);
+        String titulo = ARTICULOS[a] + SUSTANTIVOS[s] + COMPLEMENTOS[c];
+        return secuela == 0 ? titulo : titulo + " " + (secuela + 1);
+    }
+
+    private int anio() {
+        // Más estrenos recientes: distancia exponencial (media 18 años) desde el año actual
+        int atras = (int) (-Math.log(1 - rnd.nextDouble()) * 18);
+        return Math.max(1900, anioMax - atras);
+    }
+
+    private int duracion() {
+        // Normal(105, 22) recortada a un rango realista, dentro de CHECK 1..999
+        double d = 105 + gaussiana() * 22;
+        return (int) Math.max(40, Math.min(240, Math.round(d)));
+    }
+
+    private double gaussiana() {
+        // Box-Muller sobre el SplittableRandom para mantener el determinismo
+        double u1 = 1 - rnd.nextDouble();
+        double u2 = rnd.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private int muestrear(double[] cdf) {
+        double x = rnd.nextDouble() * cdf[cdf.length - 1];
+        int i = Arrays.binarySearch(cdf, x);
+        return i >= 0 ? i : Math.min(cdf.length - 1, -i - 1);
+    }
+
+    /**
+     * Escribe el catálogo como CSV (encabezado + una fila por película)
+     *
+     * @param cantidad Cantidad de películas
+     * @param archivo Ruta del CSV a crear
+     * @throws IOException Si falla la escritura
+     */
+    public void writeCsv(long cantidad, Path archivo) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            out.write("titulo,director,anio,duracion,genero\n");
+            for (long i = 0; i < cantidad; i++) {
+                Pelicula p = next();
+                out.write(csv(p.getTitulo()));
+                out.write(',');
+                out.write(csv(p.getDirector()));
+                out.write(',');
+                out.write(Integer.toString(p.getAnio()));
+                out.write(',');
+                out.write(Integer.toString(p.getDuracion()));
+                out.write(',');
+                out.write(p.getGenero().name());
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Inserta el catálogo en la tabla Cartelera con inserts en lote
+     *
+     * Para MySQL conviene usar una URL con rewriteBatchedStatements=true, así
+     * cada lote viaja como un único INSERT multi-fila.
+     *
+     * @param cantidad Cantidad de películas
+     * @param cn Conexión destino (se usa con autocommit desactivado)
+     * @param tamanioLote Filas por lote y por commit
+     * @throws SQLException Si falla alguna inserción
+     */
+    public void insert(long cantidad, Connection cn, int tamanioLote) throws SQLException {
+        final String sql = "INSERT INTO Cartelera (titulo, director, anio, duracion, genero) VALUES (?,?,?,?,?)";
+        boolean autoCommit = cn.getAutoCommit();
+        cn.setAutoCommit(false);
+        try (PreparedStatement ps = cn.prepareStatement(sql)) {
+            int enLote = 0;
+            for (long i = 0; i < cantidad; i++) {
+                Pelicula p = next();
+                ps.setString(1, p.getTitulo());
+                ps.setString(2, p.getDirector());
+                ps.setInt(3, p.getAnio());
+                ps.setInt(4, p.getDuracion());
+                ps.setString(5, p.getGenero().name());
+                ps.addBatch();
+                if (++enLote == tamanioLote) {
+                    ps.executeBatch();
+                    cn.commit();
+                    enLote = 0;
+                }
+            }
+            if (enLote > 0) {
+                ps.executeBatch();
+                cn.commit();
+            }
+        } catch (SQLException e) {
+            cn.rollback();
+            throw e;
+        } finally {
+            cn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static String csv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) return valor;
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    public static void main(String[] args) throws Exception {
+        long filas = 100_000;
+        long seed = 42;
+        int lote = 5_000;
+        String csv = null;
+        String url = null;
+        boolean mysql = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filas" -> filas = Long.parseLong(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--lote" -> lote = Integer.parseInt(args[++i]);
+                case "--csv" -> csv = args[++i];
+                case "--url" -> url = args[++i];
+                case "--mysql" -> mysql = true;
+                default -> throw new IllegalArgumentException("Argumento desconocido: " + args[i]);
+            }
+        }
+
+        PeliculaGenerator gen = new PeliculaGenerator(seed, 20_000, 1.1);
+        long inicio = System.nanoTime();
+        if (csv != null) {
+            gen.writeCsv(filas, Path.of(csv));
+        } else if (mysql) {
+            try (Connection cn = url == null ? DatabaseConnection.get() : DatabaseConnection.get(url)) {
+                gen.insert(filas, cn, lote);
+            }
+        } else {
+            throw new IllegalArgumentException("Indique --csv archivo o --mysql.");
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("Generadas %d películas en %.1f s (%.0f filas/s).%n", filas, segundos, filas / segundos);
+    }
+}
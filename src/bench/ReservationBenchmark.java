@@ -0,0 +1,327 @@
+package bench;
+
+import dao.InMemoryReservaDAO;
+import dao.ReservaDAO;
+import db.DatabaseConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import service.ReservationEngine;
+import service.SeatMap;
+
+/**
+ * Benchmark de contención de la reserva de asientos
+ *
+ * Responsabilidades:
+ * - Fase "mapa": muchos compradores ocupan y liberan asientos de una sola
+ *   función; compara el SeatMap (CAS) con un BitSet sincronizado
+ * - Fase "motor": noche de estreno de punta a punta con ReservationEngine:
+ *   los compradores retienen, confirman o abandonan hasta agotar la sala, y
+ *   se repite con una función nueva hasta completar el tiempo
+ * - Informar throughput, intentos fallidos por contención y latencias
+ *
+ * Uso:
+ *   java bench.ReservationBenchmark --compradores 2000 --asientos 500 --segundos 10
+ *        [--fase mapa|motor|ambas] [--hilos plataforma|virtual] [--abandono 10]
+ *        [--backend memoria|mysql --funcion 1] [--lote 256] [--seed 42]
+ *
+ * Con --backend mysql cada ronda abre la función indicada (debe existir en
+ * FUNCION) y al terminar devuelve todo lo vendido.
+ *
+ */
+
+public final class ReservationBenchmark {
+
+    /**
+     * Mapa de asientos bajo prueba
+     */
+    private interface Asientos {
+        int[] ocuparLibres(int cantidad, int desde);
+        void liberar(int[] asientos);
+    }
+
+    /**
+     * Línea base: el mismo bitmap protegido por un monitor
+     */
+    private static final class AsientosSincronizados implements Asientos {
+        private final BitSet ocupados = new BitSet();
+        private final int capacidad;
+
+        AsientosSincronizados(int capacidad) {
+            this.capacidad = capacidad;
+        }
+
+        @Override
+        public synchronized int[] ocuparLibres(int cantidad, int desde) {
+            int[] out = new int[cantidad];
+            int n = 0;
+            for (int i = 0; i < capacidad && n < cantidad; i++) {
+                int a = (desde + i) % capacidad;
+                if (!ocupados.get(a)) out[n++] = a;
+            }
+            if (n < cantidad) return null;
+            for (int a : out) ocupados.set(a);
+            return out;
+        }
+
+        @Override
+        public synchronized void liberar(int[] asientos) {
+            for (int a : asientos) ocupados.clear(a);
+        }
+    }
+
+    private final Map<String, String> opciones;
+    private final int compradores;
+    private final int capacidad;
+    private final int segundos;
+    private final boolean virtuales;
+    private final long seed;
+
+    private ReservationBenchmark(Map<String, String> opciones) {
+        this.opciones = opciones;
+        this.compradores = entero("compradores", 2000);
+        this.capacidad = entero("asientos", 500);
+        this.segundos = entero("segundos", 10);
+        this.virtuales = "virtual".equals(opciones.get("hilos"));
+        this.seed = Long.parseLong(opciones.getOrDefault("seed", "42"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new ReservationBenchmark(parseArgs(args)).run();
+    }
+
+    private void run() throws Exception {
+        String fase = opciones.getOrDefault("fase", "ambas");
+        System.out.printf("compradores=%d asientos=%d segundos=%d hilos=%s núcleos=%d%n", compradores, capacidad,
+                segundos, virtuales ? "virtual" : "plataforma", Runtime.getRuntime().availableProcessors());
+        if (!"motor".equals(fase)) {
+            System.out.println();
+            System.out.printf("%-14s %12s %12s %10s %9s %9s %9s%n",
+                    "mapa", "ocupaciones", "ops/s", "sin lugar", "p50(us)", "p99(us)", "max(us)");
+            SeatMap seatMap = new SeatMap(capacidad);
+            faseMapa("cas", new Asientos() {
+                @Override
+                public int[] ocuparLibres(int cantidad, int desde) {
+                    return seatMap.ocuparLibres(cantidad, desde);
+                }
+
+                @Override
+                public void liberar(int[] asientos) {
+                    seatMap.liberar(asientos);
+                }
+            });
+            faseMapa("synchronized", new AsientosSincronizados(capacidad));
+        }
+        if (!"mapa".equals(fase)) {
+            faseMotor();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Fase mapa
+
+    /**
+     * Cada comprador ocupa 1-4 asientos desde un punto al azar y los libera;
+     * con más compradores que asientos siempre hay contención
+     */
+    private void faseMapa(String nombre, Asientos asientos) throws InterruptedException {
+        List<LatencyHistogram> histos = new ArrayList<>();
+        long[] sinLugar = new long[compradores];
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            LatencyHistogram h = new LatencyHistogram();
+            histos.add(h);
+            SplittableRandom rnd = new SplittableRandom(seed + i);
+            int comprador = i;
+            hilos.add(iniciar("comprador-" + i, () -> {
+                esperar(largada);
+                while (System.nanoTime() < fin) {
+                    long t0 = System.nanoTime();
+                    int[] tomados = asientos.ocuparLibres(1 + rnd.nextInt(4), rnd.nextInt(capacidad));
+                    h.record(System.nanoTime() - t0);
+                    if (tomados == null) {
+                        sinLugar[comprador]++;
+                        Thread.yield();
+                    } else {
+                        asientos.liberar(tomados);
+                    }
+                }
+            }));
+        }
+        largada.countDown();
+        for (Thread t : hilos) t.join();
+
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram h : histos) total.add(h);
+        long fallidas = 0;
+        for (long n : sinLugar) fallidas += n;
+        System.out.printf("%-14s %12d %12.0f %10d %9d %9d %9d%n", nombre, total.count() - fallidas,
+                (total.count() - fallidas) / (double) segundos, fallidas,
+                micros(total.percentile(50)), micros(total.percentile(99)), micros(total.max()));
+    }
+
+    // ---------------------------------------------------------------------
+    // Fase motor
+
+    private void faseMotor() throws Exception {
+        boolean mysql = "mysql".equals(opciones.get("backend"));
+        int abandono = entero("abandono", 10); // % de compradores que no pagan
+        ReservationEngine motor = new ReservationEngine(mysql ? new ReservaDAO(DatabaseConnection::get)
+                : new InMemoryReservaDAO(), Duration.ofSeconds(30), entero("lote", 256), 20);
+
+        LatencyHistogram retener = new LatencyHistogram();
+        LatencyHistogram confirmar = new LatencyHistogram();
+        long vendidos = 0, retenciones = 0, agotadas = 0, abandonadas = 0, fallidas = 0;
+        int rondas = 0;
+        long enRonda = 0; // Sin contar la creación de los hilos
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        while (System.nanoTime() < fin) {
+            int funcionId = mysql ? entero("funcion", 1) : rondas + 1;
+            motor.abrir(funcionId, capacidad);
+            Ronda ronda = ronda(motor, funcionId, abandono, rondas);
+            rondas++;
+            enRonda += ronda.nanos;
+            retener.add(ronda.retener);
+            confirmar.add(ronda.confirmar);
+            vendidos += ronda.vendidos;
+            retenciones += ronda.retenciones;
+            agotadas += ronda.agotadas;
+            abandonadas += ronda.abandonadas;
+            fallidas += ronda.fallidas;
+            if (mysql) motor.devolver(funcionId, ronda.asientosVendidos()).join();
+        }
+        motor.close();
+        double transcurrido = enRonda / 1e9;
+
+        System.out.println();
+        System.out.printf("motor: %d rondas (sala agotada), %.2f s compitiendo, backend=%s%n", rondas, transcurrido,
+                mysql ? "mysql" : "memoria");
+        System.out.printf("  asientos vendidos   %10d  (%.0f/s)%n", vendidos, vendidos / transcurrido);
+        System.out.printf("  retenciones         %10d  (%.0f/s)%n", retenciones, retenciones / transcurrido);
+        System.out.printf("  abandonadas         %10d%n", abandonadas);
+        System.out.printf("  sin lugar           %10d%n", agotadas);
+        System.out.printf("  confirmaciones con error %5d%n", fallidas);
+        System.out.printf("  retener   p50=%dus p99=%dus max=%dus%n", micros(retener.percentile(50)),
+                micros(retener.percentile(99)), micros(retener.max()));
+        System.out.printf("  confirmar p50=%dus p99=%dus max=%dus (hasta el commit del lote)%n",
+                micros(confirmar.percentile(50)), micros(confirmar.percentile(99)), micros(confirmar.max()));
+    }
+
+    /**
+     * Resultado de una ronda: todos los compradores compiten por la misma
+     * función hasta que no quedan asientos
+     */
+    private static final class Ronda {
+        final LatencyHistogram retener = new LatencyHistogram();
+        final LatencyHistogram confirmar = new LatencyHistogram();
+        final List<int[]> vendidosPorComprador = new ArrayList<>();
+        long vendidos, retenciones, agotadas, abandonadas, fallidas;
+        long nanos; // Desde la largada hasta que termina el último comprador
+
+        synchronized void sumar(Ronda parcial) {
+            retener.add(parcial.retener);
+            confirmar.add(parcial.confirmar);
+            vendidosPorComprador.addAll(parcial.vendidosPorComprador);
+            vendidos += parcial.vendidos;
+            retenciones += parcial.retenciones;
+            agotadas += parcial.agotadas;
+            abandonadas += parcial.abandonadas;
+            fallidas += parcial.fallidas;
+        }
+
+        int[] asientosVendidos() {
+            return vendidosPorComprador.stream().flatMapToInt(Arrays::stream).toArray();
+        }
+    }
+
+    private Ronda ronda(ReservationEngine motor, int funcionId, int abandono, int numero) throws InterruptedException {
+        Ronda total = new Ronda();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            SplittableRandom rnd = new SplittableRandom(seed + (long) numero * compradores + i);
+            hilos.add(iniciar("comprador-" + i, () -> {
+                Ronda parcial = new Ronda();
+                List<CompletableFuture<Void>> confirmaciones = new ArrayList<>();
+                List<Long> inicios = new ArrayList<>();
+                esperar(largada);
+                while (true) {
+                    long t0 = System.nanoTime();
+                    ReservationEngine.Retencion r = motor.retenerLibres(funcionId, 1 + rnd.nextInt(4), rnd.nextInt(capacidad));
+                    parcial.retener.record(System.nanoTime() - t0);
+                    if (r == null) {
+                        parcial.agotadas++;
+                        if (motor.libres(funcionId) == 0) break; // Sala agotada
+                        Thread.yield();
+                        continue;
+                    }
+                    parcial.retenciones++;
+                    if (rnd.nextInt(100) < abandono) {
+                        motor.cancelar(r);
+                        parcial.abandonadas++;
+                        continue;
+                    }
+                    inicios.add(System.nanoTime());
+                    confirmaciones.add(motor.confirmar(r));
+                    parcial.vendidosPorComprador.add(r.asientos());
+                }
+                for (int k = 0; k < confirmaciones.size(); k++) {
+                    try {
+                        confirmaciones.get(k).join();
+                        parcial.confirmar.record(System.nanoTime() - inicios.get(k));
+                        parcial.vendidos += parcial.vendidosPorComprador.get(k).length;
+                    } catch (RuntimeException e) {
+                        parcial.fallidas++;
+                    }
+                }
+                total.sumar(parcial);
+            }));
+        }
+        long t0 = System.nanoTime();
+        largada.countDown();
+        for (Thread t : hilos) t.join();
+        total.nanos = System.nanoTime() - t0;
+        return total;
+    }
+
+    // ---------------------------------------------------------------------
+
+    private Thread iniciar(String nombre, Runnable tarea) {
+        return virtuales ? Thread.ofVirtual().name(nombre).start(tarea) : Thread.ofPlatform().name(nombre).start(tarea);
+    }
+
+    private static void esperar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private int entero(String nombre, int porDefecto) {
+        return Integer.parseInt(opciones.getOrDefault(nombre, String.valueOf(porDefecto)));
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Argumento inválido: " + args[i]);
+            out.put(args[i].substring(2), args[i + 1]);
+        }
+        return out;
+    }
+}
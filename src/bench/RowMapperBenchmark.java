@@ -0,0 +1,213 @@
+package bench;
+
+import dao.PeliculaRowMapper;
+import java.lang.management.ManagementFactory;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * Microbenchmark de asignación y tiempo por fila del mapeo de ResultSet
+ *
+ * Responsabilidades:
+ * - Comparar el mapeo original (columnas por nombre + Genero.valueOf) con
+ *   PeliculaRowMapper (índices resueltos una vez) y su variante flyweight
+ * - Medir bytes asignados por fila con el contador por hilo de la JVM
+ *   (ThreadMXBean.getThreadAllocatedBytes), descontando lo que asigna la
+ *   propia lectura del contador
+ *
+ * Características:
+ * - Usa un CachedRowSet del JDK como ResultSet en memoria, así no depende de
+ *   un servidor y las cadenas ya existen (solo se mide lo que asigna el mapeo)
+ * - Arnés propio al estilo de JMH (lib/ no incluye JMH y el proyecto se
+ *   compila sin red): calentamiento separado de la medición, un Sumidero
+ *   que consume cada resultado para que el JIT no pueda eliminarlo ni
+ *   evitar la asignación (escape analysis) y media ± desvío por iteración
+ * - Un solo proceso: para comparar entre corridas conviene repetirlo con
+ *   -XX:-BackgroundCompilation o varias veces
+ *
+ * Uso:
+ *   java bench.RowMapperBenchmark [filas] [calentamiento] [iteraciones]
+ *
+ */
+
+public final class RowMapperBenchmark {
+
+    private static final Sumidero sumidero = new Sumidero();
+
+    public static void main(String[] args) throws Exception {
+        int filas = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int calentamiento = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int iteraciones = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        CachedRowSet rs = crearResultSet(filas);
+
+        Variante[] variantes = {
+            new Variante("línea base (solo getXxx)", RowMapperBenchmark::lineaBase),
+            new Variante("por nombre + valueOf", RowMapperBenchmark::porNombre),
+            new Variante("PeliculaRowMapper.map", RowMapperBenchmark::compilado),
+            new Variante("PeliculaRowMapper.forEach", RowMapperBenchmark::flyweight)
+        };
+
+        // Calentamiento: todas las variantes pasan por el JIT antes de medir
+        // ninguna, así el perfil de tipos de correr() es el mismo para todas
+        for (int i = 0; i < calentamiento; i++) {
+            for (Variante v : variantes) correr(v, rs);
+        }
+        long costoContador = costoContador();
+
+        System.out.printf("%-28s %12s %12s %10s %14s%n", "variante", "bytes/fila", "ns/fila", "±", "neto bytes/f");
+        double bytesBase = 0;
+        for (Variante v : variantes) {
+            double[] nanos = new double[iteraciones];
+            long bytes = 0;
+            for (int i = 0; i < iteraciones; i++) {
+                long b0 = bytesAsignados();
+                long t0 = System.nanoTime();
+                correr(v, rs);
+                long t1 = System.nanoTime();
+                bytes += bytesAsignados() - b0 - costoContador;
+                nanos[i] = (double) (t1 - t0) / filas;
+            }
+            double bytesFila = (double) bytes / ((double) filas * iteraciones);
+            if (v == variantes[0]) bytesBase = bytesFila;
+            System.out.printf("%-28s %12.1f %12.1f %10.1f %14.1f%n",
+                    v.nombre, bytesFila, media(nanos), desvio(nanos), bytesFila - bytesBase);
+        }
+        System.out.println("(checksum " + sumidero.total + ")");
+    }
+
+    /**
+     * Bytes que asigna una lectura del contador (se descuentan de cada
+     * medición); se toma el mínimo de varias para no contar un GC
+     */
+    private static long costoContador() {
+        long minimo = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long b0 = bytesAsignados();
+            minimo = Math.min(minimo, bytesAsignados() - b0);
+        }
+        return minimo;
+    }
+
+    private static double media(double[] valores) {
+        double suma = 0;
+        for (double v : valores) suma += v;
+        return suma / valores.length;
+    }
+
+    private static double desvio(double[] valores) {
+        double m = media(valores), suma = 0;
+        for (double v : valores) suma += (v - m) * (v - m);
+        return valores.length > 1 ? Math.sqrt(suma / (valores.length - 1)) : 0;
+    }
+
+    private static void correr(Variante v, CachedRowSet rs) throws SQLException {
+        rs.beforeFirst();
+        v.cuerpo.run(rs);
+    }
+
+    /**
+     * Lee las columnas sin construir objetos: lo que asigna el propio
+     * CachedRowSet (ej. getInt convierte vía toString) y que hay que restar
+     */
+    private static void lineaBase(ResultSet rs) throws SQLException {
+        while (rs.next()) {
+            sumidero.consumir(rs.getInt(1) + rs.getString(2).length() + rs.getString(3).length()
+                    + rs.getInt(4) + rs.getInt(5) + rs.getString(6).length());
+        }
+    }
+
+    /**
+     * Mapeo original de PeliculaDAO: cada columna por nombre y valueOf por fila
+     */
+    private static void porNombre(ResultSet rs) throws SQLException {
+        while (rs.next()) {
+            Pelicula p = new Pelicula(rs.getInt("id"), rs.getString("titulo"), rs.getString("director"),
+                    rs.getInt("anio"), rs.getInt("duracion"), Genero.valueOf(rs.getString("genero")));
+            sumidero.consumir(p);
+        }
+    }
+
+    private static void compilado(ResultSet rs) throws SQLException {
+        PeliculaRowMapper mapper = PeliculaRowMapper.of(rs);
+        while (rs.next()) {
+            sumidero.consumir(mapper.map(rs));
+        }
+    }
+
+    private static void flyweight(ResultSet rs) throws SQLException {
+        PeliculaRowMapper.of(rs).forEach(rs, sumidero::consumir);
+    }
+
+    private static CachedRowSet crearResultSet(int filas) throws SQLException {
+        RowSetMetaDataImpl md = new RowSetMetaDataImpl();
+        String[] columnas = {"id", "titulo", "director", "anio", "duracion", "genero"};
+        int[] tipos = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR};
+        md.setColumnCount(columnas.length);
+        for (int i = 0; i < columnas.length; i++) {
+            md.setColumnName(i + 1, columnas[i]);
+            md.setColumnLabel(i + 1, columnas[i]);
+            md.setColumnType(i + 1, tipos[i]);
+        }
+
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(md);
+        PeliculaGenerator gen = new PeliculaGenerator(7, 500, 1.1);
+        for (int i = 1; i <= filas; i++) {
+            Pelicula p = gen.next();
+            rs.moveToInsertRow();
+            rs.updateInt(1, i);
+            rs.updateString(2, p.getTitulo());
+            rs.updateString(3, p.getDirector());
+            rs.updateInt(4, p.getAnio());
+            rs.updateInt(5, p.getDuracion());
+            rs.updateString(6, p.getGenero().name());
+            rs.insertRow();
+            rs.moveToCurrentRow();
+        }
+        return rs;
+    }
+
+    private static long bytesAsignados() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    /**
+     * Consume resultados como el Blackhole de JMH: el JIT no puede probar que
+     * un valor no se usa, ni que un objeto no escapa, porque a veces (según
+     * un generador que no puede predecir) se publica en un campo volatile
+     */
+    private static final class Sumidero {
+        private int semilla = 1;
+        private int mascara = 1;          // Se ensancha en cada publicación: cada vez más raras
+        private volatile Object publicado;
+        private volatile int a = 1, b = 2; // Nunca iguales: la rama no se toma
+        long total;
+
+        void consumir(Object o) {
+            semilla = semilla * 0x19660D + 0x3C6EF35F;
+            if ((semilla & mascara) == 0) {
+                publicado = o;
+                mascara = (mascara << 1) + 1;
+            }
+        }
+
+        void consumir(int v) {
+            total += v;
+            if (v == a & v == b) publicado = this;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Cuerpo {
+        void run(ResultSet rs) throws SQLException;
+    }
+
+    private record Variante(String nombre, Cuerpo cuerpo) {}
+}
@@ -0,0 +1,32 @@
+package cache;
+
+/**
+ * Estadísticas de un nivel de caché en un instante
+ *
+ * @param nivel Nombre del nivel (ej. "heap", "off-heap")
+ * @param aciertos Lecturas resueltas por el nivel
+ * @param fallos Lecturas que no encontró
+ * @param desalojos Entradas quitadas por falta de espacio
+ * @param entradas Entradas vigentes
+ * @param bytesVivos Bytes ocupados por las entradas vigentes (0 si no se mide)
+ * @param bytesReservados Memoria reservada por el nivel (0 si no se mide)
+ */
+public record CacheStats(String nivel, long aciertos, long fallos, long desalojos,
+                         long entradas, long bytesVivos, long bytesReservados) {
+
+    /**
+     * @return Proporción de aciertos (0 si aún no hubo lecturas)
+     */
+    public double tasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    @Override
+    public String toString() {
+        String base = String.format("Caché %s: %d entradas, %.1f%% aciertos (%d/%d), %d desalojos",
+                nivel, entradas, tasaAciertos() * 100, aciertos, aciertos + fallos, desalojos);
+        if (bytesReservados == 0) return base;
+        return base + String.format(", %.1f/%.1f MB", bytesVivos / 1048576.0, bytesReservados / 1048576.0);
+    }
+}
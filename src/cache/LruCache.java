@@ -0,0 +1,118 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU en el heap de capacidad fija
+ *
+ * Responsabilidades:
+ * - Guardar las entradas más usadas y desalojar la menos reciente al llenarse
+ * - Descartar las entradas que superan su tiempo de vida (opcional)
+ * - Contar aciertos, fallos y desalojos
+ *
+ * Características:
+ * - LinkedHashMap en orden de acceso protegido por el monitor de la caché:
+ *   cada operación es corta, la contención solo importa con muchos núcleos
+ * - Los valores deben ser inmutables (se entregan sin copiar)
+ * - Una entrada vencida cuenta como fallo y se quita al consultarla
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+
+public class LruCache<K, V> {
+
+    private final String nombre;
+    private final Map<K, Entrada<V>> entradas;
+    private final long ttlNanos; // 0 = sin vencimiento
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+
+    private record Entrada<V>(V valor, long cargada) {}
+
+    /**
+     * @param nombre Nombre del nivel (para las estadísticas)
+     * @param capacidad Cantidad máxima de entradas
+     */
+    public LruCache(String nombre, int capacidad) {
+        this(nombre, capacidad, 0);
+    }
+
+    /**
+     * @param nombre Nombre del nivel (para las estadísticas)
+     * @param capacidad Cantidad máxima de entradas
+     * @param ttlMillis Tiempo de vida de cada entrada desde que se guarda (0 = sin vencimiento)
+     */
+    public LruCache(String nombre, int capacidad, long ttlMillis) {
+        if (capacidad < 1 || ttlMillis < 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor a 0 y el tiempo de vida no negativo.");
+        }
+        this.nombre = nombre;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entradas = new LinkedHashMap<>(Math.min(capacidad, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() <= capacidad) return false;
+                desalojos.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return El valor, o null si no está
+     */
+    public V get(K clave) {
+        V v = null;
+        synchronized (this) {
+            Entrada<V> e = entradas.get(clave);
+            if (e != null && ttlNanos > 0 && System.nanoTime() - e.cargada() >= ttlNanos) {
+                entradas.remove(clave);
+            } else if (e != null) {
+                v = e.valor();
+            }
+        }
+        (v == null ? fallos : aciertos).increment();
+        return v;
+    }
+
+    public synchronized void put(K clave, V valor) {
+        entradas.put(clave, new Entrada<>(valor, System.nanoTime()));
+    }
+
+    public synchronized void remove(K clave) {
+        entradas.remove(clave);
+    }
+
+    /**
+     * @param max Cantidad máxima de claves
+     * @return Claves de la más a la menos recientemente usada
+     */
+    public List<K> clavesRecientes(int max) {
+        List<K> claves;
+        synchronized (this) {
+            claves = new ArrayList<>(entradas.keySet());
+        }
+        Collections.reverse(claves);
+        return claves.size() > max ? new ArrayList<>(claves.subList(0, max)) : claves;
+    }
+
+    public synchronized void clear() {
+        entradas.clear();
+    }
+
+    public CacheStats estadisticas() {
+        int tamanio;
+        synchronized (this) {
+            tamanio = entradas.size();
+        }
+        return new CacheStats(nombre, aciertos.sum(), fallos.sum(), desalojos.sum(), tamanio, 0, 0);
+    }
+}
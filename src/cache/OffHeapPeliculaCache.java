@@ -0,0 +1,315 @@
+package cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import model.PeliculaValue;
+
+/**
+ * Caché de películas fuera del heap (segundo nivel)
+ *
+ * Responsabilidades:
+ * - Guardar las películas serializadas en slabs de ByteBuffer directos, que
+ *   el recolector de basura no recorre
+ * - Ubicarlas por ID con un índice de direccionamiento abierto (sondeo
+ *   lineal sobre arreglos de primitivos, sin un objeto por entrada)
+ * - Desalojar por slab: al llenarse todos, se recicla el más antiguo y se
+ *   quitan del índice las entradas que contenía
+ * - Descartar las entradas que superan su tiempo de vida (opcional)
+ * - Informar aciertos, fallos, desalojos y memoria ocupada
+ *
+ * Características:
+ * - Los slabs se escriben en anillo (como un log): reemplazar una entrada
+ *   deja sus bytes viejos como basura hasta que se recicle su slab
+ * - Formato de registro: id (int), largo del contenido (short), segundo de
+ *   carga (int, desde la creación de la caché), anio, duracion (short),
+ *   genero (byte) y titulo y director en UTF-8 con su largo (short)
+ * - Una entrada vencida cuenta como fallo; sus bytes se liberan al
+ *   reemplazarla o al reciclar su slab
+ * - Thread-safe: lecturas en paralelo, escrituras exclusivas
+ *
+ */
+
+public final class OffHeapPeliculaCache {
+
+    private static final int CABECERA = 6;           // id + largo del contenido
+    private static final int MAX_SLABS = 1 << 15;    // 15 bits de la ubicación
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final int tamanioSlab;
+    private final long ttlNanos;            // 0 = sin vencimiento
+    private final long origen = System.nanoTime();
+    private final ByteBuffer[] slabs;
+    private final int[] usado;              // Bytes escritos en cada slab
+    private int slabActual = -1;
+    private int asignados;
+
+    // Índice: ids[i] == 0 marca una celda libre (los IDs son positivos)
+    private int[] ids = new int[CAPACIDAD_INICIAL];
+    private long[] ubicaciones = new long[CAPACIDAD_INICIAL]; // slab << 48 | offset << 16 | largo
+    private int entradas;
+    private long bytesVivos;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private long desalojos;
+
+    /**
+     * @param capacidadBytes Memoria máxima fuera del heap
+     * @param tamanioSlab Bytes por slab (la memoria se reserva de a un slab)
+     */
+    public OffHeapPeliculaCache(long capacidadBytes, int tamanioSlab) {
+        this(capacidadBytes, tamanioSlab, 0);
+    }
+
+    /**
+     * @param capacidadBytes Memoria máxima fuera del heap
+     * @param tamanioSlab Bytes por slab (la memoria se reserva de a un slab)
+     * @param ttlMillis Tiempo de vida de cada entrada desde que se guarda
+     *        (0 = sin vencimiento; se mide en segundos enteros, redondeando
+     *        la edad hacia arriba)
+     */
+    public OffHeapPeliculaCache(long capacidadBytes, int tamanioSlab, long ttlMillis) {
+        if (tamanioSlab < 1024 || capacidadBytes < tamanioSlab || ttlMillis < 0) {
+            throw new IllegalArgumentException("Capacidad, tamaño de slab o tiempo de vida inválido.");
+        }
+        int cantidad = (int) Math.min(MAX_SLABS, capacidadBytes / tamanioSlab);
+        this.tamanioSlab = tamanioSlab;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.slabs = new ByteBuffer[cantidad];
+        this.usado = new int[cantidad];
+    }
+
+    /**
+     * @return La película, o null si no está
+     */
+    public PeliculaValue get(int id) {
+        lock.readLock().lock();
+        try {
+            int i = buscar(id);
+            if (i < 0 || vencida(ubicaciones[i])) {
+                fallos.increment();
+                return null;
+            }
+            aciertos.increment();
+            return leer(ubicaciones[i]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda (o reemplaza) una película
+     */
+    public void put(PeliculaValue v) {
+        if (v.id() <= 0) return;
+        byte[] titulo = v.titulo().getBytes(StandardCharsets.UTF_8);
+        byte[] director = v.director().getBytes(StandardCharsets.UTF_8);
+        int contenido = 4 + 2 + 2 + 1 + 2 + titulo.length + 2 + director.length;
+        int largo = CABECERA + contenido;
+        if (largo > tamanioSlab || contenido > Short.MAX_VALUE) return; // No cabe: no se cachea
+
+        lock.writeLock().lock();
+        try {
+            quitar(v.id());
+            if (slabActual < 0 || usado[slabActual] + largo > tamanioSlab) avanzar();
+            ByteBuffer slab = slabs[slabActual];
+            int offset = usado[slabActual];
+            int pos = offset;
+            slab.putInt(pos, v.id());
+            slab.putShort(pos + 4, (short) contenido);
+            slab.putInt(pos + 6, segundoActual());
+            slab.putShort(pos + 10, v.anio());
+            slab.putShort(pos + 12, v.duracion());
+            slab.put(pos + 14, v.generoOrdinal());
+            pos += 15;
+            slab.putShort(pos, (short) titulo.length);
+            slab.put(pos + 2, titulo);
+            pos += 2 + titulo.length;
+            slab.putShort(pos, (short) director.length);
+            slab.put(pos + 2, director);
+            usado[slabActual] += largo;
+            insertar(v.id(), (long) slabActual << 48 | (long) offset << 16 | largo);
+            bytesVivos += largo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita una película (si estaba)
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            quitar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía la caché; la memoria reservada se conserva para reusarla
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids = new int[CAPACIDAD_INICIAL];
+            ubicaciones = new long[CAPACIDAD_INICIAL];
+            entradas = 0;
+            bytesVivos = 0;
+            Arrays.fill(usado, 0);
+            slabActual = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CacheStats estadisticas() {
+        lock.readLock().lock();
+        try {
+            return new CacheStats("off-heap", aciertos.sum(), fallos.sum(), desalojos, entradas,
+                    bytesVivos, (long) asignados * tamanioSlab);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Slabs
+
+    /**
+     * Pasa al siguiente slab del anillo: lo reserva si aún no existe o, si
+     * ya se dio toda la vuelta, recicla el más antiguo
+     */
+    private void avanzar() {
+        int siguiente = (slabActual + 1) % slabs.length;
+        if (slabs[siguiente] == null) {
+            slabs[siguiente] = ByteBuffer.allocateDirect(tamanioSlab);
+            asignados++;
+        } else {
+            reciclar(siguiente);
+        }
+        usado[siguiente] = 0;
+        slabActual = siguiente;
+    }
+
+    /**
+     * Quita del índice las entradas que todavía apuntan al slab
+     */
+    private void reciclar(int indiceSlab) {
+        ByteBuffer slab = slabs[indiceSlab];
+        for (int pos = 0; pos < usado[indiceSlab]; ) {
+            int id = slab.getInt(pos);
+            int largo = CABECERA + slab.getShort(pos + 4);
+            int i = buscar(id);
+            if (i >= 0 && ubicaciones[i] == ((long) indiceSlab << 48 | (long) pos << 16 | largo)) {
+                borrarCelda(i);
+                bytesVivos -= largo;
+                desalojos++;
+            }
+            pos += largo;
+        }
+    }
+
+    private PeliculaValue leer(long ubicacion) {
+        ByteBuffer slab = slabs[(int) (ubicacion >>> 48)];
+        int pos = (int) (ubicacion >>> 16);
+        int id = slab.getInt(pos);
+        short anio = slab.getShort(pos + 10);
+        short duracion = slab.getShort(pos + 12);
+        byte genero = slab.get(pos + 14);
+        pos += 15;
+        byte[] titulo = new byte[slab.getShort(pos)];
+        slab.get(pos + 2, titulo);
+        pos += 2 + titulo.length;
+        byte[] director = new byte[slab.getShort(pos)];
+        slab.get(pos + 2, director);
+        return new PeliculaValue(id, new String(titulo, StandardCharsets.UTF_8),
+                new String(director, StandardCharsets.UTF_8), anio, duracion, genero);
+    }
+
+    /**
+     * @return true si la entrada superó el tiempo de vida
+     */
+    private boolean vencida(long ubicacion) {
+        if (ttlNanos == 0) return false;
+        int cargada = slabs[(int) (ubicacion >>> 48)].getInt((int) (ubicacion >>> 16) + 6);
+        // Edad en segundos enteros + 1: nunca se subestima
+        return TimeUnit.SECONDS.toNanos(segundoActual() - cargada + 1L) > ttlNanos;
+    }
+
+    private int segundoActual() {
+        return (int) TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - origen);
+    }
+
+    // ---------------------------------------------------------------------
+    // Índice (sondeo lineal con borrado por desplazamiento, sin lápidas)
+
+    private int celdaIdeal(int id, int mascara) {
+        return (id * 0x9E3779B9) >>> 7 & mascara;
+    }
+
+    /**
+     * @return Celda del ID, o -1 si no está
+     */
+    private int buscar(int id) {
+        int mascara = ids.length - 1;
+        for (int i = celdaIdeal(id, mascara); ; i = (i + 1) & mascara) {
+            if (ids[i] == id) return i;
+            if (ids[i] == 0) return -1;
+        }
+    }
+
+    private void insertar(int id, long ubicacion) {
+        if ((entradas + 1) * 4L > ids.length * 3L) crecer();
+        int mascara = ids.length - 1;
+        int i = celdaIdeal(id, mascara);
+        while (ids[i] != 0) i = (i + 1) & mascara;
+        ids[i] = id;
+        ubicaciones[i] = ubicacion;
+        entradas++;
+    }
+
+    private void quitar(int id) {
+        int i = buscar(id);
+        if (i < 0) return;
+        bytesVivos -= ubicaciones[i] & 0xFFFF;
+        borrarCelda(i);
+    }
+
+    /**
+     * Vacía la celda y corre hacia atrás las entradas siguientes del mismo
+     * tramo que quedarían inalcanzables
+     */
+    private void borrarCelda(int libre) {
+        int mascara = ids.length - 1;
+        for (int j = (libre + 1) & mascara; ids[j] != 0; j = (j + 1) & mascara) {
+            int ideal = celdaIdeal(ids[j], mascara);
+            boolean alcanzable = libre <= j ? (ideal > libre && ideal <= j) : (ideal > libre || ideal <= j);
+            if (!alcanzable) {
+                ids[libre] = ids[j];
+                ubicaciones[libre] = ubicaciones[j];
+                libre = j;
+            }
+        }
+        ids[libre] = 0;
+        ubicaciones[libre] = 0;
+        entradas--;
+    }
+
+    private void crecer() {
+        int[] viejosIds = ids;
+        long[] viejasUbicaciones = ubicaciones;
+        ids = new int[viejosIds.length * 2];
+        ubicaciones = new long[viejosIds.length * 2];
+        entradas = 0;
+        for (int i = 0; i < viejosIds.length; i++) {
+            if (viejosIds[i] != 0) insertar(viejosIds[i], viejasUbicaciones[i]);
+        }
+    }
+}
@@ -1,7 +1,16 @@
 package controller;
 
+import dao.PeliculaCriteria;
+import db.CancellationToken;
+import event.PeliculaEvent;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import javax.swing.*;
 import model.*;
 import service.*;
@@ -26,6 +35,16 @@ public class MainController {
     private final PeliculaService service;  // Referencia al servicio de negocio
     private final AtomicBoolean saving = new AtomicBoolean(false);  // Control de concurrencia
 
+    private static final int TAMANIO_PAGINA = 200; // Filas por consulta en el panel listar
+    // Columna de la tabla del panel listar -> campo del ORDER BY
+    private static final PeliculaCriteria.Campo[] CAMPO_POR_COLUMNA = {
+        PeliculaCriteria.Campo.ID, PeliculaCriteria.Campo.TITULO, PeliculaCriteria.Campo.DIRECTOR,
+        PeliculaCriteria.Campo.ANIO, PeliculaCriteria.Campo.DURACION, PeliculaCriteria.Campo.GENERO
+    };
+    private Supplier<PeliculaCriteria> filtroListar = PeliculaCriteria::create; // Filtro activo del panel listar
+    private CancellationToken cargaListar; // Consulta en curso del panel listar (solo se usa en el EDT)
+    private List<PeliculaEvent> eventosDuranteCarga; // Cambios recibidos mientras carga; null = sin carga (EDT)
+
     /**
      * Constructor del controlador principal
      *
@@ -35,6 +54,7 @@ public class MainController {
     public MainController(MainFrame view, PeliculaService service) {
         this.view = view;
         this.service = service;
+        view.setOnPanelCreado(this::bindPanel); // Paneles creados de forma diferida
         bind(); // Configura los listeners de eventos
         init(); // Inicializacion adicional
     }
@@ -49,8 +69,8 @@ public class MainController {
     }
 
     /**
-     * Configura los listeners para los eventos de la interfaz Vincula los
-     * componentes de UI con sus respectivos manejadores
+     * Configura los listeners de la toolbar. Los de cada panel se conectan en
+     * bindPanel cuando la vista construye el panel por primera vez
      */
     private void bind() {
         // Navegación entre paneles
@@ -76,12 +96,32 @@ public class MainController {
         // Botón "Listar" - Mostrar panel de listar películas
         view.getBtnListar().addActionListener(e -> {
             view.mostrarPanel("LISTAR");
-            onListarTodas(); // Cargar todas las películas al entrar
+            // Al entrar se recarga; mientras está abierto la mantienen al día los eventos del servicio
+            onListarTodas();
         });
+    }
+
+    /**
+     * Vincula los componentes de un panel recién creado con sus manejadores
+     *
+     * @param nombre Nombre del panel en la vista
+     */
+    private void bindPanel(String nombre) {
+        switch (nombre) {
+            case "AGREGAR" -> bindFormPanel();
+            case "MODIFICAR" -> bindModificarPanel();
+            case "ELIMINAR" -> bindEliminarPanel();
+            case "LISTAR" -> bindListarPanel();
+            default -> logger.warning("Panel sin listeners: " + nombre);
+        }
+    }
 
+    private void bindFormPanel() {
         // Agregar película
         view.getFormPanel().getBtnGuardar().addActionListener(e -> onSave());
+    }
 
+    private void bindModificarPanel() {
         // Modificar película
         ModificarPeliculaPanel modPanel = view.getModificarPanel();
 
@@ -103,7 +143,9 @@ public class MainController {
             modPanel.limpiarBusqueda();
             System.out.println("Búsqueda limpiada en panel MODIFICAR");
         });
+    }
 
+    private void bindEliminarPanel() {
         // Eliminar película
         EliminarPeliculaPanel delPanel = view.getEliminarPanel();
 
@@ -125,7 +167,9 @@ public class MainController {
             delPanel.limpiarBusqueda();
             System.out.println("Búsqueda limpiada en panel ELIMINAR");
         });
+    }
 
+    private void bindListarPanel() {
         // Listar películas
         ListarPeliculasPanel listarPanel = view.getListarPanel();
 
@@ -141,14 +185,60 @@ public class MainController {
             onListarTodas();
         });
 
+        // Botón "Cargar más" - Siguiente página a partir de la última fila (keyset)
+        listarPanel.getBtnCargarMas().addActionListener(e -> cargarPaginaListar(true));
+
+        // Botón "Cancelar" - Detiene la consulta en curso (también en el servidor)
+        listarPanel.getBtnCancelar().addActionListener(e -> {
+            if (cargaListar != null) cargaListar.cancel();
+        });
+
+        // Clic en el encabezado: se vuelve a consultar con el nuevo ORDER BY
         listarPanel.getTable().getRowSorter().addRowSorterListener(e -> {
             if (e.getType() == javax.swing.event.RowSorterEvent.Type.SORT_ORDER_CHANGED) {
                 System.out.println("Ordenamiento cambiado");
-                // Actualizar contador después del ordenamiento
-                listarPanel.actualizarContador(listarPanel.getTable().getRowCount());
+                cargarPaginaListar(false);
             }
         });
 
+        // Cambios confirmados: se corrigen solo las filas afectadas, en lotes en el EDT
+        service.eventos().suscribirEnLotes(PeliculaEvent.class, SwingUtilities::invokeLater, this::aplicarEventos);
+    }
+
+    /**
+     * Aplica a la tabla del panel listar un lote de cambios confirmados:
+     * cada película se quita, se reubica o se inserta según el filtro y el
+     * orden activos (con la collation de la tabla, la misma del ORDER BY),
+     * sin volver a consultar la base
+     *
+     * Durante una carga los cambios se guardan y se aplican al terminar: la
+     * página que llega pudo leerse antes de que se confirmaran
+     *
+     * @param eventos Cambios en orden de confirmación (se ejecuta en el EDT)
+     */
+    private void aplicarEventos(List<PeliculaEvent> eventos) {
+        if (eventosDuranteCarga != null) {
+            eventosDuranteCarga.addAll(eventos);
+            return;
+        }
+        ListarPeliculasPanel panel = view.getListarPanel();
+        PeliculaCriteria criterio;
+        try {
+            criterio = filtroListar.get()
+                    .ordenarPor(CAMPO_POR_COLUMNA[panel.getColumnaOrden()], panel.isOrdenDescendente());
+        } catch (Exception ex) {
+            logger.warning("No se pudieron aplicar los cambios a la tabla: " + ex.getMessage());
+            return;
+        }
+        for (PeliculaEvent evento : eventos) {
+            Pelicula nueva = switch (evento) {
+                case PeliculaEvent.Creada c -> c.valor().toPelicula();
+                case PeliculaEvent.Modificada m -> m.valor().toPelicula();
+                case PeliculaEvent.Eliminada el -> null;
+            };
+            if (nueva != null && !criterio.matches(nueva)) nueva = null; // Ya no pasa el filtro
+            panel.aplicarCambio(evento.id(), nueva, criterio.comparator());
+        }
     }
 
     /**
@@ -217,48 +307,74 @@ public class MainController {
             return;
         }
 
-        try {
-            List<Pelicula> resultados = service.findByTitle(busqueda);
+        // La búsqueda difusa puede construir el índice de trigramas: fuera del EDT
+        panel.getBtnBuscar().setEnabled(false);
+        new SwingWorker<List<Pelicula>, Void>() {
+            private boolean aproximados;
+
+            @Override
+            protected List<Pelicula> doInBackground() throws Exception {
+                List<Pelicula> exactos = service.findByTitle(busqueda);
+                if (!exactos.isEmpty()) return exactos;
+                // Sin coincidencia exacta: títulos parecidos (errores de tipeo, acentos)
+                aproximados = true;
+                return service.findByTitleFuzzy(busqueda, 10);
+            }
 
-            if (resultados.isEmpty()) {
-                JOptionPane.showMessageDialog(view, "No se encontraron películas con ese título.",
-                        "Búsqueda", JOptionPane.INFORMATION_MESSAGE);
-                return;
+            @Override
+            protected void done() {
+                panel.getBtnBuscar().setEnabled(true);
+                try {
+                    mostrarBusquedaModificar(panel, get(), aproximados);
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(view, ex.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
             }
+        }.execute();
+    }
 
-            if (resultados.size() == 1) {
-                // Un solo resultado, cargar directamente
-                panel.cargarPelicula(resultados.get(0));
-                JOptionPane.showMessageDialog(view, "Película encontrada y cargada.", "Éxito",
-                        JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // Múltiples resultados, mostrar selección
-                String[] opciones = resultados.stream()
-                        .map(p -> p.getId() + " - " + p.getTitulo() + " (" + p.getAnio() + ")")
-                        .toArray(String[]::new);
-
-                String seleccion = (String) JOptionPane.showInputDialog(view,
-                        "Seleccione la película a modificar:",
-                        "Múltiples resultados",
-                        JOptionPane.QUESTION_MESSAGE,
-                        null,
-                        opciones,
-                        opciones[0]);
-
-                if (seleccion != null) {
-                    int idSeleccionado = Integer.parseInt(seleccion.split(" - ")[0]);
-                    Pelicula seleccionada = resultados.stream()
-                            .filter(p -> p.getId() == idSeleccionado)
-                            .findFirst()
-                            .orElse(null);
-
-                    if (seleccionada != null) {
-                        panel.cargarPelicula(seleccionada);
-                    }
+    /**
+     * Carga el único resultado exacto o muestra la lista para elegir
+     */
+    private void mostrarBusquedaModificar(ModificarPeliculaPanel panel, List<Pelicula> resultados, boolean aproximados) {
+        if (resultados.isEmpty()) {
+            JOptionPane.showMessageDialog(view, "No se encontraron películas con ese título.",
+                    "Búsqueda", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        if (resultados.size() == 1 && !aproximados) {
+            // Un solo resultado, cargar directamente
+            panel.cargarPelicula(resultados.get(0));
+            JOptionPane.showMessageDialog(view, "Película encontrada y cargada.", "Éxito",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            // Múltiples resultados (o aproximados, a confirmar), mostrar selección
+            String[] opciones = resultados.stream()
+                    .map(p -> p.getId() + " - " + p.getTitulo() + " (" + p.getAnio() + ")")
+                    .toArray(String[]::new);
+
+            String seleccion = (String) JOptionPane.showInputDialog(view,
+                    aproximados ? "No hay coincidencias exactas. ¿Quiso decir...?" : "Seleccione la película a modificar:",
+                    aproximados ? "Títulos parecidos" : "Múltiples resultados",
+                    JOptionPane.QUESTION_MESSAGE,
+                    null,
+                    opciones,
+                    opciones[0]);
+
+            if (seleccion != null) {
+                int idSeleccionado = Integer.parseInt(seleccion.split(" - ")[0]);
+                Pelicula seleccionada = resultados.stream()
+                        .filter(p -> p.getId() == idSeleccionado)
+                        .findFirst()
+                        .orElse(null);
+
+                if (seleccionada != null) {
+                    panel.cargarPelicula(seleccionada);
                 }
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(view, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
@@ -299,10 +415,7 @@ public class MainController {
                     JOptionPane.YES_NO_OPTION);
 
             if (confirmacion == JOptionPane.YES_OPTION) {
-                service.update(p);
-                JOptionPane.showMessageDialog(view, "Película modificada exitosamente.", "Éxito",
-                        JOptionPane.INFORMATION_MESSAGE);
-                panel.limpiarFormulario();
+                alConfirmar(service.updateAsync(p), "Película modificada exitosamente.", panel::limpiarFormulario);
             }
 
         } catch (IllegalArgumentException ex) {
@@ -358,12 +471,11 @@ public class MainController {
                     JOptionPane.WARNING_MESSAGE);
 
             if (confirmacion == JOptionPane.YES_OPTION) {
-                service.delete(panel.getPeliculaId());
-                JOptionPane.showMessageDialog(view, "Película eliminada exitosamente.", "Éxito",
-                        JOptionPane.INFORMATION_MESSAGE);
-
-                panel.limpiarFormulario();
-                System.out.println("Película eliminada: ID= " + panel.getPeliculaId());
+                int id = panel.getPeliculaId();
+                alConfirmar(service.deleteAsync(id), "Película eliminada exitosamente.", () -> {
+                    panel.limpiarFormulario();
+                    System.out.println("Película eliminada: ID= " + id);
+                });
             } else {
                 System.out.println("Eliminación cancelada por el usuario.");
             }
@@ -373,53 +485,137 @@ public class MainController {
         }
     }
 
-    private void onListarTodas() {
-        try {
-            System.out.println("Iniciando carga de todas las películas...");
-            List<Pelicula> peliculas = service.findAll();
-            System.out.println("Películas obtenidas del service: " + peliculas.size());
-
-            // DEBUG: Imprimir cada película
-            for (Pelicula p : peliculas) {
-                System.out.println("- " + p.getId() + ": " + p.getTitulo() + " (" + p.getAnio() + ") - " + p.getGenero());
+    /**
+     * Informa el resultado de una escritura recién cuando se confirma en la
+     * base (en modo write-behind, al aplicarse el lote)
+     *
+     * @param escritura Acuse de recibo del servicio
+     * @param exito Mensaje a mostrar si se confirmó
+     * @param despues Acción en el EDT tras confirmarse
+     */
+    private void alConfirmar(CompletableFuture<Void> escritura, String exito, Runnable despues) {
+        escritura.whenComplete((ok, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                JOptionPane.showMessageDialog(view, exito, "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                despues.run();
+            } else {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                JOptionPane.showMessageDialog(view, causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
             }
+        }));
+    }
 
-            view.getListarPanel().cargarPeliculas(peliculas);
-            System.out.println("Cargadas " + peliculas.size() + " películas en la tabla");
-        } catch (Exception ex) {
-            logger.severe("Error al cargar películas: " + ex.getMessage());
-            JOptionPane.showMessageDialog(view, "Error al cargar películas: " + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-        }
+    private void onListarTodas() {
+        System.out.println("Iniciando carga de todas las películas...");
+        filtroListar = PeliculaCriteria::create;
+        cargarPaginaListar(false);
     }
 
     private void onAplicarFiltros() {
         ListarPeliculasPanel panel = view.getListarPanel();
 
-        try {
-            String genero = panel.getGeneroSeleccionado();
-            int anioDesde = panel.getAnioDesde();
-            int anioHasta = panel.getAnioHasta();
-
-            System.out.println("Aplicando filtros - Género: " + genero + ", Rango: " + anioDesde + "-" + anioHasta);
+        String genero = panel.getGeneroSeleccionado();
+        int anioDesde = panel.getAnioDesde();
+        int anioHasta = panel.getAnioHasta();
 
-            // Validar rango de años
-            if (anioDesde > anioHasta) {
-                JOptionPane.showMessageDialog(view,
-                        "El año 'desde' no puede ser mayor que el año 'hasta'.",
-                        "Error en filtros", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        System.out.println("Aplicando filtros - Género: " + genero + ", Rango: " + anioDesde + "-" + anioHasta);
 
-            List<Pelicula> peliculasFiltradas = service.findWithFilters(genero, anioDesde, anioHasta);
-            panel.cargarPeliculas(peliculasFiltradas);
-
-            System.out.println("Filtros aplicados exitosamente. Resultados: " + peliculasFiltradas.size());
+        // Validar rango de años
+        if (anioDesde > anioHasta) {
+            JOptionPane.showMessageDialog(view,
+                    "El año 'desde' no puede ser mayor que el año 'hasta'.",
+                    "Error en filtros", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
+        try {
+            service.criterioFiltros(genero, anioDesde, anioHasta); // Valida el género antes de fijar el filtro
+            filtroListar = () -> service.criterioFiltros(genero, anioDesde, anioHasta);
+            cargarPaginaListar(false);
         } catch (Exception ex) {
             System.err.println("Error al aplicar filtros: " + ex.getMessage());
             JOptionPane.showMessageDialog(view, "Error al aplicar filtros: " + ex.getMessage(),
                     "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
+
+    /**
+     * Consulta una página del panel listar con el filtro activo y el orden
+     * del encabezado resueltos en la base de datos
+     *
+     * La consulta corre fuera del EDT y se puede cancelar con "Cancelar";
+     * una carga nueva cancela la que estaba en curso.
+     *
+     * @param continuar true para agregar la página siguiente a la última fila
+     * cargada (keyset), false para recargar desde el inicio
+     */
+    private void cargarPaginaListar(boolean continuar) {
+        ListarPeliculasPanel panel = view.getListarPanel();
+        PeliculaCriteria criterio;
+        try {
+            criterio = filtroListar.get()
+                    .ordenarPor(CAMPO_POR_COLUMNA[panel.getColumnaOrden()], panel.isOrdenDescendente())
+                    .limite(TAMANIO_PAGINA);
+            if (continuar) criterio.despuesDe(panel.getUltimaCargada());
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(view, "Error al cargar películas: " + ex.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        if (cargaListar != null) cargaListar.cancel();
+        CancellationToken token = new CancellationToken();
+        cargaListar = token;
+        if (eventosDuranteCarga == null) eventosDuranteCarga = new ArrayList<>();
+        panel.setCargando(true, "Cargando…");
+
+        new SwingWorker<List<Pelicula>, Void>() {
+            @Override
+            protected List<Pelicula> doInBackground() throws Exception {
+                return service.findBy(criterio, token);
+            }
+
+            @Override
+            protected void done() {
+                if (cargaListar != token) return; // La reemplazó una carga más nueva (que aplicará los eventos)
+                cargaListar = null;
+                try {
+                    mostrar();
+                } finally {
+                    List<PeliculaEvent> pendientes = eventosDuranteCarga;
+                    eventosDuranteCarga = null;
+                    if (!pendientes.isEmpty()) aplicarEventos(pendientes);
+                }
+            }
+
+            private void mostrar() {
+                try {
+                    List<Pelicula> pagina = get();
+                    if (continuar) {
+                        panel.agregarPeliculas(pagina);
+                    } else {
+                        panel.cargarPeliculas(pagina);
+                    }
+                    panel.setCargando(false, "");
+                    panel.setHayMas(pagina.size() == TAMANIO_PAGINA);
+                    System.out.println("Cargadas " + pagina.size() + " películas en la tabla");
+                } catch (ExecutionException ex) {
+                    Throwable causa = ex.getCause();
+                    // Cancelada: la tabla conserva lo que tenía; "Cargar más" sigue valiendo al continuar
+                    panel.setCargando(false, causa instanceof CancellationToken.CancelledException
+                            ? "Carga cancelada." : "");
+                    panel.setHayMas(continuar);
+                    if (causa instanceof CancellationToken.CancelledException) return;
+                    String msg = causa instanceof SQLTimeoutException
+                            ? "La consulta tardó demasiado y se canceló. Pruebe con un filtro más acotado."
+                            : "Error al cargar películas: " + causa.getMessage();
+                    logger.severe(msg);
+                    JOptionPane.showMessageDialog(view, msg, "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
 }
@@ -0,0 +1,281 @@
+package dao;
+
+import cache.CacheStats;
+import cache.LruCache;
+import cache.OffHeapPeliculaCache;
+import db.CancellationToken;
+import db.TransactionOptions;
+import db.UnitOfWork;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import model.Genero;
+import model.Pelicula;
+import model.PeliculaValue;
+
+/**
+ * Decorador de IPeliculaDAO con caché de dos niveles para findById
+ *
+ * Responsabilidades:
+ * - Resolver findById con una caché LRU en el heap (las más usadas) y, por
+ *   debajo, una caché fuera del heap (OffHeapPeliculaCache) para catálogos
+ *   grandes sin aumentar las pausas del GC
+ * - Cargar en el segundo nivel las filas que devuelven los listados (solo si
+ *   esos listados se leen del primario)
+ * - Invalidar ambos niveles en cada modificación o baja hecha a través de
+ *   este DAO
+ *
+ * Características:
+ * - Un contador de invalidaciones evita que una lectura lenta vuelva a
+ *   cachear un valor que una modificación concurrente ya reemplazó
+ * - Dentro de inTransaction no se lee ni se carga la caché (la transacción
+ *   puede deshacerse); al terminar se vuelven a invalidar sus IDs
+ * - Con réplicas de lectura, la caché se carga solo con lecturas del
+ *   primario (lecturasPrimario): una fila atrasada de una réplica no queda
+ *   cacheada; los listados se siguen sirviendo desde las réplicas sin cachear
+ * - Cada entrada vence a los ttlMillis de cargada, así los cambios hechos
+ *   por otros procesos directamente en la base se ven a lo sumo con ese atraso
+ *
+ * Implementa: IPeliculaDAO
+ *
+ */
+
+public class CachingPeliculaDAO implements IPeliculaDAO {
+
+    private final IPeliculaDAO dao;
+    private final IPeliculaDAO lecturasPrimario;            // Fuente de las cargas de la caché
+    private final boolean cachearListados;
+    private final LruCache<Integer, PeliculaValue> heap;    // null = sin primer nivel
+    private final OffHeapPeliculaCache offHeap;             // null = sin segundo nivel
+    private final AtomicLong invalidaciones = new AtomicLong();
+    private final ThreadLocal<Set<Integer>> transaccion = new ThreadLocal<>(); // IDs modificados en la transacción
+
+    /**
+     * @param dao DAO a decorar
+     * @param entradasHeap Capacidad del primer nivel (0 = sin primer nivel)
+     * @param offHeap Segundo nivel (null = sin segundo nivel)
+     */
+    public CachingPeliculaDAO(IPeliculaDAO dao, int entradasHeap, OffHeapPeliculaCache offHeap) {
+        this(dao, null, entradasHeap, 0, offHeap);
+    }
+
+    /**
+     * @param dao DAO a decorar
+     * @param lecturasPrimario DAO que lee siempre del primario, usado para
+     *        cargar la caché cuando dao lee de réplicas (null = dao ya lee del
+     *        primario)
+     * @param entradasHeap Capacidad del primer nivel (0 = sin primer nivel)
+     * @param ttlMillis Tiempo de vida de las entradas del primer nivel (0 = sin
+     *        vencimiento; el del segundo nivel se configura al crearlo)
+     * @param offHeap Segundo nivel (null = sin segundo nivel)
+     */
+    public CachingPeliculaDAO(IPeliculaDAO dao, IPeliculaDAO lecturasPrimario, int entradasHeap,
+            long ttlMillis, OffHeapPeliculaCache offHeap) {
+        this.dao = dao;
+        this.lecturasPrimario = lecturasPrimario != null ? lecturasPrimario : dao;
+        this.cachearListados = lecturasPrimario == null;
+        this.heap = entradasHeap > 0 ? new LruCache<>("heap", entradasHeap, ttlMillis) : null;
+        this.offHeap = offHeap;
+    }
+
+    @Override
+    public int create(Pelicula p) throws SQLException {
+        return dao.create(p);
+    }
+
+    @Override
+    public Pelicula findById(int id) throws SQLException {
+        if (transaccion.get() != null) return dao.findById(id);
+        PeliculaValue v = heap != null ? heap.get(id) : null;
+        if (v == null && offHeap != null) {
+            v = offHeap.get(id);
+            if (v != null && heap != null) heap.put(id, v);
+        }
+        if (v != null) return v.toPelicula();
+
+        long version = invalidaciones.get();
+        Pelicula p = lecturasPrimario.findById(id);
+        if (p != null) guardar(PeliculaValue.of(p), version, true);
+        return p;
+    }
+
+    /**
+     * Resuelve desde la caché los IDs que estén y busca el resto en un solo
+     * llamado al DAO (cargándolos en ambos niveles)
+     */
+    @Override
+    public List<Pelicula> findByIds(List<Integer> ids) throws SQLException {
+        if (transaccion.get() != null) return dao.findByIds(ids);
+        List<Pelicula> out = new ArrayList<>(ids.size());
+        List<Integer> faltantes = new ArrayList<>();
+        for (int id : ids) {
+            PeliculaValue v = heap != null ? heap.get(id) : null;
+            if (v == null && offHeap != null) v = offHeap.get(id);
+            if (v != null) out.add(v.toPelicula());
+            else faltantes.add(id);
+        }
+        if (faltantes.isEmpty()) return out;
+        long version = invalidaciones.get();
+        for (Pelicula p : lecturasPrimario.findByIds(faltantes)) {
+            guardar(PeliculaValue.of(p), version, true);
+            out.add(p);
+        }
+        return out;
+    }
+
+    @Override
+    public List<Pelicula> findAll() throws SQLException {
+        long version = invalidaciones.get();
+        return guardarTodas(dao.findAll(), version);
+    }
+
+    @Override
+    public List<Pelicula> findByTitleLike(String query) throws SQLException {
+        long version = invalidaciones.get();
+        return guardarTodas(dao.findByTitleLike(query), version);
+    }
+
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) throws SQLException {
+        long version = invalidaciones.get();
+        return guardarTodas(dao.findByFilters(genero, anioDesde, anioHasta), version);
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) throws SQLException {
+        long version = invalidaciones.get();
+        return guardarTodas(dao.findBy(criteria), version);
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException {
+        long version = invalidaciones.get();
+        return guardarTodas(dao.findBy(criteria, token), version);
+    }
+
+    @Override
+    public List<Pelicula> findPage(int offset, int limite) throws SQLException {
+        long version = invalidaciones.get();
+        return guardarTodas(dao.findPage(offset, limite), version);
+    }
+
+    @Override
+    public void update(Pelicula p) throws SQLException {
+        Integer id = p.getId(); // Un backend con shards puede asignarle otro ID al moverla
+        try {
+            dao.update(p);
+        } finally {
+            invalidar(id); // También si falló: no se sabe si llegó a aplicarse
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        try {
+            dao.delete(id);
+        } finally {
+            invalidar(id);
+        }
+    }
+
+    @Override
+    public void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        List<Integer> ids = new ArrayList<>(updates.size());
+        for (Pelicula p : updates) ids.add(p.getId());
+        try {
+            dao.applyBatch(updates, deletes);
+        } finally {
+            for (int id : ids) invalidar(id);
+            for (int id : deletes) invalidar(id);
+        }
+    }
+
+    @Override
+    public void importBatch(List<Pelicula> peliculas) throws SQLException {
+        try {
+            dao.importBatch(peliculas);
+        } finally {
+            for (Pelicula p : peliculas) invalidar(p.getId());
+        }
+    }
+
+    @Override
+    public <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException {
+        if (transaccion.get() != null) return dao.inTransaction(opciones, trabajo);
+        Set<Integer> modificadas = new HashSet<>();
+        transaccion.set(modificadas);
+        try {
+            return dao.inTransaction(opciones, trabajo);
+        } finally {
+            transaccion.remove();
+            // Una lectura de otro hilo pudo cachear el valor previo al commit
+            for (int id : modificadas) invalidar(id);
+        }
+    }
+
+    /**
+     * @return Estadísticas de cada nivel, del más rápido al más lento
+     */
+    public List<CacheStats> estadisticas() {
+        List<CacheStats> out = new ArrayList<>(2);
+        if (heap != null) out.add(heap.estadisticas());
+        if (offHeap != null) out.add(offHeap.estadisticas());
+        return out;
+    }
+
+    /**
+     * @param max Cantidad máxima
+     * @return IDs del primer nivel, del más reciente al más antiguo (para
+     *         precargarlos en el próximo arranque)
+     */
+    public List<Integer> idsCalientes(int max) {
+        return heap == null ? new ArrayList<>() : heap.clavesRecientes(max);
+    }
+
+    /**
+     * Vacía ambos niveles (ej. tras modificar la base por fuera de la aplicación)
+     */
+    public void limpiar() {
+        invalidaciones.incrementAndGet();
+        if (heap != null) heap.clear();
+        if (offHeap != null) offHeap.clear();
+    }
+
+    private List<Pelicula> guardarTodas(List<Pelicula> peliculas, long version) {
+        if (offHeap == null || !cachearListados || transaccion.get() != null) return peliculas;
+        for (Pelicula p : peliculas) {
+            if (invalidaciones.get() != version) break;
+            guardar(PeliculaValue.of(p), version, false);
+        }
+        return peliculas;
+    }
+
+    /**
+     * Cachea el valor leído si ninguna invalidación ocurrió desde la lectura;
+     * si ocurre mientras se guarda, lo quita
+     *
+     * @param enHeap true para cargarlo también en el primer nivel
+     */
+    private void guardar(PeliculaValue v, long version, boolean enHeap) {
+        if (transaccion.get() != null || invalidaciones.get() != version) return;
+        if (enHeap && heap != null) heap.put(v.id(), v);
+        if (offHeap != null) offHeap.put(v);
+        if (invalidaciones.get() != version) quitar(v.id());
+    }
+
+    private void invalidar(Integer id) {
+        if (id == null) return;
+        Set<Integer> modificadas = transaccion.get();
+        if (modificadas != null) modificadas.add(id);
+        invalidaciones.incrementAndGet();
+        quitar(id);
+    }
+
+    private void quitar(int id) {
+        if (heap != null) heap.remove(id);
+        if (offHeap != null) offHeap.remove(id);
+    }
+}
@@ -0,0 +1,58 @@
+package dao;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import model.Pelicula;
+
+/**
+ * Restricciones de la tabla Cartelera (ScriptSQL.sql) para los DAO que no
+ * usan MySQL
+ *
+ * Responsabilidades:
+ * - Rechazar lo mismo que rechazaría la tabla: columnas NOT NULL, largo de
+ *   los VARCHAR y los CHECK chk_anio_min y chk_dur
+ * - Usar los mismos tipos de excepción y mensajes que el driver de MySQL,
+ *   así el servicio las trata igual con cualquier backend
+ *
+ * Características:
+ * - La restricción única uq_titulo_anio la verifica cada DAO con su índice
+ *   (ver InMemoryPeliculaDAO.claveUnica)
+ *
+ */
+
+final class CarteleraConstraints {
+
+    static final int LARGO_TITULO = 150;   // titulo VARCHAR(150)
+    static final int LARGO_DIRECTOR = 50;  // director VARCHAR(50)
+
+    private CarteleraConstraints() {}
+
+    /**
+     * @param p Fila a insertar o modificar
+     * @throws SQLException Si viola alguna restricción de la tabla
+     */
+    static void verificar(Pelicula p) throws SQLException {
+        noNulo(p.getTitulo(), "titulo");
+        noNulo(p.getDirector(), "director");
+        noNulo(p.getGenero(), "genero");
+        if (p.getTitulo().length() > LARGO_TITULO) {
+            throw new SQLDataException("Data too long for column 'titulo'", "22001", 1406);
+        }
+        if (p.getDirector().length() > LARGO_DIRECTOR) {
+            throw new SQLDataException("Data too long for column 'director'", "22001", 1406);
+        }
+        if (p.getAnio() < 1900) {
+            throw new SQLIntegrityConstraintViolationException("Check constraint 'chk_anio_min' is violated.", "23000", 3819);
+        }
+        if (p.getDuracion() < 1 || p.getDuracion() > 999) {
+            throw new SQLIntegrityConstraintViolationException("Check constraint 'chk_dur' is violated.", "23000", 3819);
+        }
+    }
+
+    private static void noNulo(Object valor, String columna) throws SQLException {
+        if (valor == null) {
+            throw new SQLIntegrityConstraintViolationException("Column '" + columna + "' cannot be null", "23000", 1048);
+        }
+    }
+}
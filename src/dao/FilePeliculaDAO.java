@@ -0,0 +1,302 @@
+package dao;
+
+import db.CancellationToken;
+import db.TransactionOptions;
+import db.UnitOfWork;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import journal.ChangeJournal;
+import journal.JournalEntry;
+import model.Genero;
+import model.Pelicula;
+import model.PeliculaValue;
+
+/**
+ * DAO embebido: Cartelera en memoria persistida en archivos locales
+ *
+ * Responsabilidades:
+ * - Funcionar sin servidor de base de datos (desarrollo, pruebas y
+ *   benchmarks): abre en milisegundos y no tiene dependencias externas
+ * - Persistir cada alta, modificación y baja en un ChangeJournal antes de
+ *   confirmarla al llamador; al abrir, reconstruir el catálogo con el último
+ *   snapshot más la cola del diario
+ * - Respetar las mismas restricciones que la tabla Cartelera (delegando en
+ *   InMemoryPeliculaDAO)
+ *
+ * Características:
+ * - Las consultas se resuelven en memoria; las escrituras se serializan
+ * - Si falla la escritura en disco, el cambio en memoria se deshace y el
+ *   llamador recibe una SQLException (como un commit fallido)
+ * - Al cerrar (y al abrir, si la cola del diario es larga) guarda un
+ *   snapshot y borra los segmentos que ya cubre
+ * - Un archivo de bloqueo impide que dos procesos abran el mismo directorio
+ *
+ * Implementa: IPeliculaDAO
+ *
+ */
+
+public final class FilePeliculaDAO implements IPeliculaDAO, AutoCloseable {
+
+    private static final int TAMANIO_SEGMENTO = 4 << 20;
+    private static final int COLA_MAX = 10_000; // Eventos tras el snapshot que disparan uno nuevo al abrir
+
+    private final InMemoryPeliculaDAO memoria = new InMemoryPeliculaDAO();
+    private final ChangeJournal journal;
+    private final FileChannel archivoBloqueo;
+    private final FileLock bloqueo;
+
+    /**
+     * Abre (o crea) el almacenamiento en un directorio
+     *
+     * @param dir Directorio de los datos
+     * @param sincronizar true para forzar cada cambio a disco (más lento);
+     *        false sobrevive a un cierre abrupto de la aplicación pero no a
+     *        un corte de energía
+     * @throws SQLException Si el directorio está en uso, dañado o no se puede leer
+     */
+    public FilePeliculaDAO(Path dir, boolean sincronizar) throws SQLException {
+        try {
+            Files.createDirectories(dir);
+            archivoBloqueo = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new SQLException("No se pudo abrir " + dir + ": " + e.getMessage(), e);
+        }
+        try {
+            bloqueo = bloquear(archivoBloqueo);
+            if (bloqueo == null) throw new IOException("el directorio está en uso por otro proceso");
+            journal = new ChangeJournal(dir, TAMANIO_SEGMENTO, sincronizar);
+            if (cargar() > COLA_MAX) checkpoint();
+        } catch (IOException | SQLException e) {
+            cerrarSinError();
+            throw e instanceof SQLException s ? s : new SQLException("No se pudo abrir " + dir + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized int create(Pelicula p) throws SQLException {
+        int id = memoria.create(p);
+        try {
+            journal.append(JournalEntry.Tipo.CREATE, id, PeliculaValue.of(p).withId(id));
+        } catch (IOException e) {
+            memoria.delete(id);
+            throw errorEscritura(e);
+        }
+        return id;
+    }
+
+    @Override
+    public Pelicula findById(int id) {
+        return memoria.findById(id);
+    }
+
+    @Override
+    public List<Pelicula> findAll() {
+        return memoria.findAll();
+    }
+
+    @Override
+    public List<Pelicula> findByTitleLike(String query) {
+        return memoria.findByTitleLike(query);
+    }
+
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) {
+        return memoria.findByFilters(genero, anioDesde, anioHasta);
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) {
+        return memoria.findBy(criteria);
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException {
+        token.throwIfCancelled();
+        return memoria.findBy(criteria);
+    }
+
+    @Override
+    public synchronized void update(Pelicula p) throws SQLException {
+        Pelicula previa = memoria.findById(p.getId());
+        memoria.update(p);
+        try {
+            journal.append(JournalEntry.Tipo.UPDATE, p.getId(), PeliculaValue.of(p));
+        } catch (IOException e) {
+            memoria.update(previa);
+            throw errorEscritura(e);
+        }
+    }
+
+    @Override
+    public synchronized void delete(int id) throws SQLException {
+        Pelicula previa = memoria.findById(id);
+        memoria.delete(id);
+        try {
+            journal.append(JournalEntry.Tipo.DELETE, id, null);
+        } catch (IOException e) {
+            memoria.importBatch(List.of(previa));
+            throw errorEscritura(e);
+        }
+    }
+
+    /**
+     * Aplica el lote en memoria (entero o nada) y lo escribe en el diario; si
+     * falla la escritura restaura la memoria y anula en el diario lo ya
+     * escrito, como importBatch
+     */
+    @Override
+    public synchronized void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        List<Pelicula> previas = new ArrayList<>(updates.size() + deletes.size());
+        for (Pelicula p : updates) previas.add(memoria.findById(p.getId()));
+        for (int id : deletes) previas.add(memoria.findById(id));
+        memoria.applyBatch(updates, deletes);
+
+        int escritas = 0;
+        try {
+            for (Pelicula p : updates) {
+                journal.append(JournalEntry.Tipo.UPDATE, p.getId(), PeliculaValue.of(p));
+                escritas++;
+            }
+            for (int id : deletes) {
+                journal.append(JournalEntry.Tipo.DELETE, id, null);
+                escritas++;
+            }
+        } catch (IOException e) {
+            // En orden inverso al aplicado: una modificación pudo tomar la clave que liberó la anterior
+            memoria.importBatch(previas.subList(updates.size(), previas.size()));
+            memoria.applyBatch(previas.subList(0, updates.size()).reversed(), List.of());
+            try {
+                for (int i = 0; i < escritas; i++) {
+                    Pelicula previa = previas.get(i);
+                    journal.append(i < updates.size() ? JournalEntry.Tipo.UPDATE : JournalEntry.Tipo.CREATE,
+                            previa.getId(), PeliculaValue.of(previa));
+                }
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw errorEscritura(e);
+        }
+    }
+
+    @Override
+    public synchronized void importBatch(List<Pelicula> peliculas) throws SQLException {
+        memoria.importBatch(peliculas);
+        int escritas = 0;
+        try {
+            for (Pelicula p : peliculas) {
+                journal.append(JournalEntry.Tipo.CREATE, p.getId(), PeliculaValue.of(p));
+                escritas++;
+            }
+        } catch (IOException e) {
+            // Las ya escritas quedan en el diario: se anulan con bajas
+            for (Pelicula p : peliculas) memoria.delete(p.getId());
+            try {
+                for (int i = 0; i < escritas; i++) {
+                    journal.append(JournalEntry.Tipo.DELETE, peliculas.get(i).getId(), null);
+                }
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw errorEscritura(e);
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo con el DAO bloqueado. Como en InMemoryPeliculaDAO
+     * no hay rollback: el trabajo debe validar antes de escribir
+     */
+    @Override
+    public synchronized <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException {
+        return trabajo.run();
+    }
+
+    /**
+     * Guarda un snapshot del catálogo y borra los segmentos que cubre (el
+     * activo se sella antes: al abrir no hay cola que recorrer)
+     *
+     * @throws SQLException Si falla la escritura
+     */
+    public synchronized void checkpoint() throws SQLException {
+        try {
+            journal.sellar();
+        } catch (IOException e) {
+            throw errorEscritura(e);
+        }
+        try (ChangeJournal.Checkpoint cp = journal.iniciarCheckpoint()) {
+            for (Pelicula p : memoria.findAll()) cp.put(PeliculaValue.of(p));
+            cp.commit();
+            journal.compactar(0);
+        } catch (IOException e) {
+            throw errorEscritura(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        try {
+            checkpoint();
+        } finally {
+            cerrarSinError();
+        }
+    }
+
+    /**
+     * Reconstruye el catálogo en memoria desde el diario
+     *
+     * @return Eventos aplicados después del último snapshot
+     */
+    private int cargar() throws IOException, SQLException {
+        Map<Integer, PeliculaValue> catalogo = new HashMap<>();
+        long[] seqInicial = {-1};
+        int[] cola = {0};
+        boolean desdeSnapshot = journal.replay(e -> {
+            if (seqInicial[0] < 0) seqInicial[0] = e.seq();
+            if (e.seq() > seqInicial[0]) cola[0]++;
+            if (e.tipo() == JournalEntry.Tipo.DELETE) catalogo.remove(e.id());
+            else catalogo.put(e.id(), e.valor());
+        });
+        if (!desdeSnapshot) cola[0]++; // Sin snapshot, el primer evento también es cola
+        List<Pelicula> peliculas = new ArrayList<>(catalogo.size());
+        for (PeliculaValue v : catalogo.values()) peliculas.add(v.toPelicula());
+        memoria.importBatch(peliculas);
+        return cola[0];
+    }
+
+    /**
+     * @return El bloqueo, o null si otro proceso (o este mismo) ya lo tiene
+     */
+    private static FileLock bloquear(FileChannel canal) throws IOException {
+        try {
+            return canal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static SQLException errorEscritura(IOException e) {
+        return new SQLException("No se pudo guardar el cambio en disco: " + e.getMessage(), e);
+    }
+
+    private void cerrarSinError() {
+        try {
+            if (journal != null) journal.close();
+        } catch (IOException e) {
+            System.err.println("Error cerrando el diario de Cartelera: " + e.getMessage());
+        }
+        try {
+            archivoBloqueo.close(); // Libera también el bloqueo
+        } catch (IOException e) {
+            System.err.println("Error liberando el bloqueo de Cartelera: " + e.getMessage());
+        }
+    }
+}
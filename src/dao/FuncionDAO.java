@@ -0,0 +1,169 @@
+package dao;
+
+import db.ConnectionProvider;
+import db.DatabaseConnection;
+import db.QueryTimeout;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import model.Funcion;
+
+/**
+ * Implementación concreta del DAO para la entidad Función
+ * 
+ * Responsabilidades:
+ * - Persistir las funciones en la tabla FUNCION de MySQL
+ * - Guardar la programación de una semana en una sola transacción
+ * - Acotar cada sentencia con el timeout de su tipo de operación (QueryTimeout)
+ * 
+ * Implementa: IFuncionDAO
+ * Utiliza: DatabaseConnection para obtener conexiones
+ * 
+ */
+
+public class FuncionDAO implements IFuncionDAO {
+    
+    private final ConnectionProvider connections;
+    
+    /**
+     * Constructor por defecto: usa la base de datos configurada en DatabaseConnection
+     */
+    public FuncionDAO() {
+        this(DatabaseConnection::get);
+    }
+    
+    /**
+     * @param connections Proveedor de conexiones a utilizar
+     */
+    public FuncionDAO(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+    
+    @Override
+    public int create(Funcion f) throws SQLException {
+        final String sql = "INSERT INTO Funcion (pelicula_id, sala, inicio, fin) VALUES (?,?,?,?)";
+        
+        try (Connection cn = connections.get();
+                PreparedStatement ps = cn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            
+            ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+            asignar(ps, f);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) return keys.getInt(1);
+            }
+        }
+        throw new SQLException("No se pudo recuperar el ID generado.");
+    }
+    
+    @Override
+    public void createBatch(List<Funcion> funciones) throws SQLException {
+        final String sql = "INSERT INTO Funcion (pelicula_id, sala, inicio, fin) VALUES (?,?,?,?)";
+        
+        try (Connection cn = connections.get()) {
+            cn.setAutoCommit(false);
+            try (PreparedStatement ps = cn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                
+                ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+                for (Funcion f : funciones) {
+                    asignar(ps, f);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> ids = new ArrayList<>(funciones.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getInt(1));
+                }
+                if (ids.size() != funciones.size()) {
+                    throw new SQLException("No se pudieron recuperar los IDs generados.");
+                }
+                cn.commit();
+                for (int i = 0; i < funciones.size(); i++) funciones.get(i).setId(ids.get(i));
+            } catch (SQLException e) {
+                cn.rollback();
+                throw e;
+            } finally {
+                cn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    @Override
+    public Funcion findById(int id) throws SQLException {
+        final String sql = "SELECT * FROM Funcion WHERE id = ?";
+        
+        try (Connection cn = connections.get();
+                PreparedStatement ps = cn.prepareStatement(sql)) {
+            
+            ps.setQueryTimeout(QueryTimeout.LECTURA.segundos);
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapear(rs) : null;
+            }
+        }
+    }
+    
+    @Override
+    public void delete(int id) throws SQLException {
+        final String sql = "DELETE FROM Funcion WHERE id = ?";
+        
+        try (Connection cn = connections.get();
+                PreparedStatement ps = cn.prepareStatement(sql)) {
+            
+            ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+            ps.setInt(1, id);
+            ps.executeUpdate();
+        }
+    }
+    
+    /**
+     * Usa idx_inicio; la condición sobre fin descarta las que terminaron antes
+     */
+    @Override
+    public List<Funcion> findEntre(LocalDateTime desde, LocalDateTime hasta) throws SQLException {
+        final String sql = "SELECT * FROM Funcion WHERE inicio < ? AND fin > ? ORDER BY sala, inicio";
+        
+        try (Connection cn = connections.get();
+                PreparedStatement ps = cn.prepareStatement(sql)) {
+            
+            ps.setQueryTimeout(QueryTimeout.LISTADO.segundos);
+            ps.setObject(1, hasta);
+            ps.setObject(2, desde);
+            return listar(ps);
+        }
+    }
+    
+    @Override
+    public List<Funcion> findByPelicula(int peliculaId) throws SQLException {
+        final String sql = "SELECT * FROM Funcion WHERE pelicula_id = ? ORDER BY inicio";
+        
+        try (Connection cn = connections.get();
+                PreparedStatement ps = cn.prepareStatement(sql)) {
+            
+            ps.setQueryTimeout(QueryTimeout.LECTURA.segundos);
+            ps.setInt(1, peliculaId);
+            return listar(ps);
+        }
+    }
+    
+    private static void asignar(PreparedStatement ps, Funcion f) throws SQLException {
+        ps.setInt(1, f.getPeliculaId());
+        ps.setInt(2, f.getSala());
+        ps.setObject(3, f.getInicio());
+        ps.setObject(4, f.getFin());
+    }
+    
+    private static List<Funcion> listar(PreparedStatement ps) throws SQLException {
+        List<Funcion> funciones = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) funciones.add(mapear(rs));
+        }
+        return funciones;
+    }
+    
+    private static Funcion mapear(ResultSet rs) throws SQLException {
+        return new Funcion(rs.getInt("id"), rs.getInt("pelicula_id"), rs.getInt("sala"),
+                rs.getObject("inicio", LocalDateTime.class), rs.getObject("fin", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,61 @@
+package dao;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import model.Funcion;
+
+/**
+ * Interfaz para el Data Access Object (DAO) de Funciones
+ * 
+ * Responsabilidades:
+ * - Definir el contrato de persistencia de las funciones programadas
+ * - Permitir diferentes implementaciones (MySQL o memoria)
+ * 
+ * Características:
+ * - No valida solapamientos: es responsabilidad de FuncionService
+ * 
+ * Patrón: Data Access Object (DAO)
+ * 
+ */
+
+public interface IFuncionDAO {
+    
+    /**
+     * Crea una nueva función
+     * 
+     * @param f Función a persistir (con el fin ya calculado)
+     * @return int ID generado por la base de datos
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    int create(Funcion f) throws SQLException;
+    
+    /**
+     * Crea todas las funciones en una sola transacción (todas o ninguna) y
+     * les asigna sus IDs
+     * 
+     * @param funciones Funciones a persistir
+     * @throws SQLException Si alguna falla (no se guarda ninguna)
+     */
+    void createBatch(List<Funcion> funciones) throws SQLException;
+    
+    Funcion findById(int id) throws SQLException;
+    void delete(int id) throws SQLException;
+    
+    /**
+     * Busca las funciones que ocupan alguna sala dentro del rango
+     * 
+     * @param desde Inicio del rango (inclusive)
+     * @param hasta Fin del rango (exclusivo)
+     * @return Funciones con inicio &lt; hasta y fin &gt; desde, por sala e inicio
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    List<Funcion> findEntre(LocalDateTime desde, LocalDateTime hasta) throws SQLException;
+    
+    /**
+     * @param peliculaId ID de la película
+     * @return Funciones de la película, por inicio
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    List<Funcion> findByPelicula(int peliculaId) throws SQLException;
+}
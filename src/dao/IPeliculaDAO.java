@@ -1,6 +1,12 @@
 package dao;
 
+import db.CancellationToken;
+import db.TransactionOptions;
+import db.UnitOfWork;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
 import java.util.List;
+import model.Genero;
 import model.Pelicula;
 import java.sql.SQLException;
 
@@ -32,7 +38,148 @@ public interface IPeliculaDAO {
     Pelicula findById(int id) throws SQLException;
     List<Pelicula> findAll() throws SQLException;
     List<Pelicula> findByTitleLike(String query) throws SQLException;
+    
+    /**
+     * Modifica una película existente
+     * 
+     * Un backend con shards puede moverla de nodo al cambiar su clave de
+     * shard; en ese caso le asigna un ID nuevo, que queda en p.
+     * 
+     * @param p Película con ID y los nuevos datos
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
     void update(Pelicula p) throws SQLException;
     void delete(int id) throws SQLException;
     
+    /**
+     * Busca películas por género y rango de años, ordenadas por título
+     * 
+     * @param genero Género a filtrar (null = todos los géneros)
+     * @param anioDesde Año inicial del rango (inclusive)
+     * @param anioHasta Año final del rango (inclusive)
+     * @return List de películas que cumplen el filtro
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) throws SQLException;
+    
+    /**
+     * Busca películas según un criterio compuesto (filtros, orden y límite)
+     * 
+     * La implementación por defecto filtra findAll en memoria; las
+     * implementaciones JDBC lo resuelven en una única consulta parametrizada.
+     * 
+     * @param criteria Criterio de búsqueda
+     * @return List de películas que cumplen el criterio, en el orden pedido
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    default List<Pelicula> findBy(PeliculaCriteria criteria) throws SQLException {
+        return criteria.apply(findAll());
+    }
+    
+    /**
+     * Busca según un criterio compuesto pudiendo cancelar la consulta
+     * 
+     * La implementación por defecto solo comprueba el token antes y después
+     * de buscar; las implementaciones JDBC cancelan la sentencia en curso.
+     * 
+     * @param criteria Criterio de búsqueda
+     * @param token Token con el que el llamador puede cancelar la consulta
+     * @return List de películas que cumplen el criterio, en el orden pedido
+     * @throws SQLException Si falla la consulta o se canceló
+     *         (CancellationToken.CancelledException)
+     */
+    default List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException {
+        token.throwIfCancelled();
+        List<Pelicula> resultado = findBy(criteria);
+        token.throwIfCancelled();
+        return resultado;
+    }
+    
+    /**
+     * Obtiene una página del catálogo ordenado por título
+     * 
+     * La implementación por defecto recorta el resultado de findAll; las
+     * implementaciones JDBC usan LIMIT/OFFSET.
+     * 
+     * @param offset Cantidad de películas a saltar
+     * @param limite Cantidad máxima de películas a devolver
+     * @return List con la página solicitada (vacía si se pasa del final)
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    default List<Pelicula> findPage(int offset, int limite) throws SQLException {
+        List<Pelicula> todas = findAll();
+        int desde = Math.min(offset, todas.size());
+        return todas.subList(desde, Math.min(todas.size(), desde + limite));
+    }
+    
+    /**
+     * Busca varias películas por ID
+     * 
+     * La implementación por defecto las busca una por una; las
+     * implementaciones JDBC usan IN en lotes.
+     * 
+     * @param ids IDs a buscar
+     * @return Las películas encontradas (los IDs inexistentes se omiten), sin
+     *         orden garantizado
+     * @throws SQLException Si falla la consulta
+     */
+    default List<Pelicula> findByIds(List<Integer> ids) throws SQLException {
+        List<Pelicula> out = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Pelicula p = findById(id);
+            if (p != null) out.add(p);
+        }
+        return out;
+    }
+    
+    /**
+     * Aplica un lote de modificaciones y eliminaciones como una unidad
+     * 
+     * La implementación por defecto las aplica una a una dentro de
+     * inTransaction, así que es atómica solo si el backend deshace la
+     * transacción; los backends sin rollback la sobrescriben. Las
+     * implementaciones JDBC las agrupan en una sola transacción (group commit).
+     * 
+     * @param updates Películas a modificar (con ID)
+     * @param deletes IDs de películas a eliminar
+     * @throws SQLException Si alguna operación del lote falla (no se aplica ninguna)
+     */
+    default void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        inTransaction(TransactionOptions.DEFAULT, () -> {
+            for (Pelicula p : updates) update(p);
+            for (int id : deletes) delete(id);
+            return null;
+        });
+    }
+    
+    /**
+     * Inserta películas conservando sus IDs (migración entre backends)
+     * 
+     * El lote se aplica entero o no se aplica; un ID o un (titulo, anio) ya
+     * existente lo rechaza.
+     * 
+     * @param peliculas Películas con ID
+     * @throws SQLException Si alguna fila viola una restricción o el backend
+     *         no permite fijar los IDs
+     */
+    default void importBatch(List<Pelicula> peliculas) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Este backend no permite importar con IDs.");
+    }
+    
+    /**
+     * Ejecuta varias operaciones de este DAO como una unidad de trabajo
+     * 
+     * Las implementaciones JDBC usan una sola conexión y confirman o
+     * deshacen todo junto; la implementación por defecto ejecuta el trabajo
+     * sin transacción (ej. entre shards no hay atomicidad).
+     * 
+     * @param opciones Aislamiento y solo lectura
+     * @param trabajo Operaciones a ejecutar
+     * @return Resultado del trabajo
+     * @throws SQLException Si falla alguna operación
+     */
+    default <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException {
+        return trabajo.run();
+    }
+    
 }
@@ -0,0 +1,37 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import model.Reserva;
+
+/**
+ * Interfaz para el Data Access Object (DAO) de asientos vendidos
+ * 
+ * Responsabilidades:
+ * - Persistir ventas y devoluciones en lotes (group commit)
+ * - Leer los asientos vendidos de una función al abrir su mapa
+ * 
+ * Patrón: Data Access Object (DAO)
+ * 
+ */
+
+public interface IReservaDAO {
+    
+    /**
+     * Guarda las ventas y borra las devoluciones en una sola transacción
+     * 
+     * @param ventas Asientos vendidos
+     * @param devoluciones Asientos devueltos
+     * @throws SQLException Si alguna falla (no se aplica ninguna), por ejemplo
+     *         un asiento ya vendido por otro proceso o la devolución de uno
+     *         que no estaba vendido
+     */
+    void applyBatch(List<Reserva> ventas, List<Reserva> devoluciones) throws SQLException;
+    
+    /**
+     * @param funcionId ID de la función
+     * @return Asientos vendidos de la función
+     * @throws SQLException Si ocurre error en la operación de base de datos
+     */
+    List<Integer> findAsientos(int funcionId) throws SQLException;
+}
@@ -0,0 +1,101 @@
+package dao;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Funcion;
+
+/**
+ * Implementación en memoria del DAO de funciones
+ *
+ * Responsabilidades:
+ * - Servir como almacenamiento para pruebas, benchmarks y los backends sin
+ *   servidor (memory, file)
+ * - Respetar los CHECK de la tabla FUNCION (sala &gt;= 1, fin &gt; inicio)
+ * - Guardar copias: los llamadores no alteran el estado interno
+ *
+ * Características:
+ * - No verifica la clave foránea a Cartelera ni persiste entre ejecuciones
+ * - Las consultas por rango recorren todas las funciones (el índice por
+ *   sala lo mantiene FuncionService)
+ *
+ * Implementa: IFuncionDAO
+ *
+ */
+
+public class InMemoryFuncionDAO implements IFuncionDAO {
+
+    static final Comparator<Funcion> POR_SALA_E_INICIO =
+            Comparator.comparingInt(Funcion::getSala).thenComparing(Funcion::getInicio).thenComparing(Funcion::getId);
+
+    private final Map<Integer, Funcion> funciones = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    @Override
+    public int create(Funcion f) throws SQLException {
+        verificar(f);
+        int id = nextId.getAndIncrement();
+        funciones.put(id, copia(f, id));
+        return id;
+    }
+
+    @Override
+    public synchronized void createBatch(List<Funcion> lote) throws SQLException {
+        for (Funcion f : lote) verificar(f); // Todas o ninguna
+        for (Funcion f : lote) f.setId(create(f));
+    }
+
+    @Override
+    public Funcion findById(int id) {
+        Funcion f = funciones.get(id);
+        return f == null ? null : copia(f, id);
+    }
+
+    @Override
+    public void delete(int id) {
+        funciones.remove(id);
+    }
+
+    @Override
+    public List<Funcion> findEntre(LocalDateTime desde, LocalDateTime hasta) {
+        List<Funcion> out = new ArrayList<>();
+        for (Funcion f : funciones.values()) {
+            if (f.getInicio().isBefore(hasta) && f.getFin().isAfter(desde)) out.add(copia(f, f.getId()));
+        }
+        out.sort(POR_SALA_E_INICIO);
+        return out;
+    }
+
+    @Override
+    public List<Funcion> findByPelicula(int peliculaId) {
+        List<Funcion> out = new ArrayList<>();
+        for (Funcion f : funciones.values()) {
+            if (f.getPeliculaId() == peliculaId) out.add(copia(f, f.getId()));
+        }
+        out.sort(Comparator.comparing(Funcion::getInicio).thenComparing(Funcion::getId));
+        return out;
+    }
+
+    private static void verificar(Funcion f) throws SQLException {
+        if (f.getInicio() == null || f.getFin() == null) {
+            String columna = f.getInicio() == null ? "inicio" : "fin";
+            throw new SQLIntegrityConstraintViolationException("Column '" + columna + "' cannot be null", "23000", 1048);
+        }
+        if (f.getSala() < 1) {
+            throw new SQLIntegrityConstraintViolationException("Check constraint 'chk_sala' is violated.", "23000", 3819);
+        }
+        if (!f.getFin().isAfter(f.getInicio())) {
+            throw new SQLIntegrityConstraintViolationException("Check constraint 'chk_funcion_rango' is violated.", "23000", 3819);
+        }
+    }
+
+    private static Funcion copia(Funcion f, int id) {
+        return new Funcion(id, f.getPeliculaId(), f.getSala(), f.getInicio(), f.getFin());
+    }
+}
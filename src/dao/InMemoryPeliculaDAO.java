@@ -0,0 +1,426 @@
+package dao;
+
+import db.TransactionOptions;
+import db.UnitOfWork;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import model.Genero;
+import model.Pelicula;
+import model.PeliculaValue;
+
+/**
+ * Implementación en memoria del DAO de películas
+ *
+ * Responsabilidades:
+ * - Servir como base de datos embebida para pruebas y benchmarks, y como
+ *   almacenamiento de FilePeliculaDAO
+ * - Respetar las restricciones de la tabla Cartelera: la única (titulo, anio),
+ *   NOT NULL, largos y CHECK (ver CarteleraConstraints)
+ * - Guardar valores inmutables (PeliculaValue) y devolver beans nuevos, para
+ *   que los llamadores no alteren el estado interno
+ * - Mantener índices secundarios: por título (orden de findAll y búsqueda
+ *   por prefijo), por año (rangos) y por género
+ *
+ * Características:
+ * - Las lecturas no toman bloqueos: escalan con la cantidad de núcleos
+ * - Cada índice guarda el mismo PeliculaValue que el mapa principal; una
+ *   entrada solo es vigente si el mapa principal tiene ese mismo objeto, así
+ *   las entradas a medio actualizar se descartan sin bloquear
+ * - Las escrituras de un mismo ID se serializan en su entrada del mapa
+ *   principal; la restricción única se verifica con putIfAbsent (atómico)
+ * - Las consultas son débilmente consistentes, como los iteradores de
+ *   java.util.concurrent: una fila modificada durante la consulta puede
+ *   aparecer con el valor anterior o con el nuevo
+ *
+ * Implementa: IPeliculaDAO
+ *
+ */
+
+public class InMemoryPeliculaDAO implements IPeliculaDAO {
+
+    // Orden equivalente al ORDER BY titulo de MySQL (sin distinguir mayúsculas ni acentos)
+    static final Comparator<Pelicula> POR_TITULO =
+            Comparator.comparing(Pelicula::getTitulo, TextCollation.ORDEN)
+                      .thenComparing(Pelicula::getId);
+
+    /**
+     * Clave del índice por título, con el mismo orden que POR_TITULO
+     */
+    private record ClaveTitulo(String titulo, int id) {
+        static final Comparator<ClaveTitulo> ORDEN =
+                Comparator.comparing(ClaveTitulo::titulo, TextCollation.ORDEN)
+                          .thenComparingInt(ClaveTitulo::id);
+
+        static ClaveTitulo de(PeliculaValue v) {
+            return new ClaveTitulo(v.titulo(), v.id());
+        }
+    }
+
+    private final Map<Integer, PeliculaValue> peliculas = new ConcurrentHashMap<>();
+    private final Map<String, Integer> claves = new ConcurrentHashMap<>(); // (titulo, anio) -> id
+    private final NavigableMap<ClaveTitulo, PeliculaValue> porTitulo = new ConcurrentSkipListMap<>(ClaveTitulo.ORDEN);
+    private final NavigableMap<Integer, Map<Integer, PeliculaValue>> porAnio = new ConcurrentSkipListMap<>();
+    private final Map<Genero, Map<Integer, PeliculaValue>> porGenero = new EnumMap<>(Genero.class);
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    // Las escrituras sueltas comparten el bloqueo; lotes y transacciones lo toman exclusivo
+    private final ReentrantReadWriteLock escrituras = new ReentrantReadWriteLock();
+
+    public InMemoryPeliculaDAO() {
+        for (Genero g : Genero.values()) porGenero.put(g, new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public int create(Pelicula p) throws SQLException {
+        CarteleraConstraints.verificar(p);
+        String clave = claveUnica(p.getTitulo(), p.getAnio());
+        escrituras.readLock().lock();
+        try {
+            int id = nextId.getAndIncrement(); // Como AUTO_INCREMENT, un alta rechazada consume su ID
+            if (claves.putIfAbsent(clave, id) != null) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry for key 'uq_titulo_anio'");
+            }
+            PeliculaValue v = PeliculaValue.of(p).withId(id);
+            indexar(v);
+            peliculas.put(id, v);
+            return id;
+        } finally {
+            escrituras.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Pelicula findById(int id) {
+        PeliculaValue v = peliculas.get(id);
+        return v == null ? null : v.toPelicula();
+    }
+
+    @Override
+    public List<Pelicula> findAll() {
+        List<Pelicula> out = new ArrayList<>(peliculas.size());
+        for (PeliculaValue v : porTitulo.values()) {
+            if (vigente(v)) out.add(v.toPelicula());
+        }
+        return out;
+    }
+
+    @Override
+    public List<Pelicula> findByTitleLike(String query) {
+        String q = TextCollation.normalizar(query);
+        List<Pelicula> out = new ArrayList<>();
+        for (PeliculaValue v : porTitulo.values()) {
+            if (TextCollation.contiene(v.titulo(), q) && vigente(v)) out.add(v.toPelicula());
+        }
+        return out;
+    }
+
+    /**
+     * Películas cuyo título empieza con el prefijo (sin distinguir
+     * mayúsculas ni acentos, como el orden del índice), ordenadas por
+     * título; recorre solo ese tramo del índice
+     *
+     * @param prefijo Comienzo del título
+     * @return Lista de películas encontradas
+     */
+    public List<Pelicula> findByTitlePrefix(String prefijo) {
+        String p = TextCollation.normalizar(prefijo);
+        List<Pelicula> out = new ArrayList<>();
+        for (Map.Entry<ClaveTitulo, PeliculaValue> e
+                : porTitulo.tailMap(new ClaveTitulo(prefijo, Integer.MIN_VALUE), true).entrySet()) {
+            if (!TextCollation.normalizar(e.getValue().titulo()).startsWith(p)) break;
+            if (vigente(e.getValue())) out.add(e.getValue().toPelicula());
+        }
+        return out;
+    }
+
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) {
+        if (anioDesde > anioHasta) return new ArrayList<>();
+        Collection<Map<Integer, PeliculaValue>> anios = porAnio.subMap(anioDesde, true, anioHasta, true).values();
+        List<Pelicula> out = new ArrayList<>();
+        if (genero != null && porGenero.get(genero).size() < contar(anios)) {
+            // El género es más selectivo que el rango de años
+            for (PeliculaValue v : porGenero.get(genero).values()) {
+                if (v.anio() >= anioDesde && v.anio() <= anioHasta && vigente(v)) out.add(v.toPelicula());
+            }
+        } else {
+            for (Map<Integer, PeliculaValue> anio : anios) {
+                for (PeliculaValue v : anio.values()) {
+                    if ((genero == null || v.genero() == genero) && vigente(v)) out.add(v.toPelicula());
+                }
+            }
+        }
+        out.sort(POR_TITULO);
+        return out;
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) {
+        String clave = criteria.claveExacta();
+        if (clave != null) {
+            // Título y año exactos: se resuelve con el mapa de la restricción única
+            Integer id = claves.get(clave);
+            PeliculaValue v = id == null ? null : peliculas.get(id);
+            Pelicula p = v == null ? null : v.toPelicula();
+            return p != null && criteria.matches(p) ? criteria.recortar(new ArrayList<>(List.of(p))) : new ArrayList<>();
+        }
+        List<Pelicula> out = new ArrayList<>();
+        for (PeliculaValue v : candidatos(criteria.anioMinimo(), criteria.anioMaximo())) {
+            Pelicula p = v.toPelicula();
+            if (criteria.matches(p) && vigente(v)) out.add(p);
+        }
+        out.sort(criteria.comparator());
+        return criteria.recortar(out);
+    }
+
+    @Override
+    public List<Pelicula> findPage(int offset, int limite) {
+        List<Pelicula> out = new ArrayList<>(Math.max(0, Math.min(limite, peliculas.size())));
+        int saltadas = 0;
+        for (PeliculaValue v : porTitulo.values()) {
+            if (out.size() >= limite) break;
+            if (!vigente(v)) continue;
+            if (saltadas < offset) saltadas++;
+            else out.add(v.toPelicula());
+        }
+        return out;
+    }
+
+    @Override
+    public void update(Pelicula p) throws SQLException {
+        CarteleraConstraints.verificar(p);
+        int id = p.getId();
+        PeliculaValue nuevo = PeliculaValue.of(p);
+        String claveNueva = claveUnica(p.getTitulo(), p.getAnio());
+        SQLException[] error = new SQLException[1];
+        PeliculaValue[] anterior = new PeliculaValue[1];
+        escrituras.readLock().lock();
+        try {
+            peliculas.computeIfPresent(id, (k, actual) -> {
+                String claveAnterior = claveUnica(actual.titulo(), actual.anio());
+                if (!claveNueva.equals(claveAnterior)) {
+                    if (claves.putIfAbsent(claveNueva, id) != null) {
+                        error[0] = new SQLIntegrityConstraintViolationException("Duplicate entry for key 'uq_titulo_anio'");
+                        return actual;
+                    }
+                    claves.remove(claveAnterior, id);
+                }
+                // Las entradas nuevas se agregan antes de publicar el valor y las
+                // viejas se quitan después: una lectura siempre encuentra una vigente
+                indexar(nuevo);
+                anterior[0] = actual;
+                return nuevo;
+            });
+            if (error[0] != null) throw error[0];
+            if (anterior[0] == null) {
+                throw new SQLException("No se encontró la película con ID: " + id);
+            }
+            // Bajo el bloqueo de la entrada: otra modificación del mismo ID pudo
+            // haber reemplazado el valor entretanto
+            peliculas.compute(id, (k, actual) -> {
+                desindexar(anterior[0], actual);
+                return actual;
+            });
+        } finally {
+            escrituras.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        PeliculaValue[] anterior = new PeliculaValue[1];
+        escrituras.readLock().lock();
+        try {
+            peliculas.computeIfPresent(id, (k, actual) -> {
+                claves.remove(claveUnica(actual.titulo(), actual.anio()), id);
+                desindexar(actual, null);
+                anterior[0] = actual;
+                return null;
+            });
+        } finally {
+            escrituras.readLock().unlock();
+        }
+        if (anterior[0] == null) {
+            throw new SQLException("No se encontró la película con ID: " + id);
+        }
+    }
+
+    /**
+     * Aplica el lote excluyendo las demás escrituras; si una operación falla
+     * deshace las anteriores en orden inverso, así el lote se aplica entero o
+     * no se aplica
+     */
+    @Override
+    public void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        escrituras.writeLock().lock();
+        try {
+            List<PeliculaValue> previas = new ArrayList<>(updates.size() + deletes.size());
+            try {
+                for (Pelicula p : updates) {
+                    PeliculaValue antes = peliculas.get(p.getId());
+                    update(p);
+                    previas.add(antes);
+                }
+                for (int id : deletes) {
+                    PeliculaValue antes = peliculas.get(id);
+                    delete(id);
+                    previas.add(antes);
+                }
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    deshacer(previas, updates.size());
+                } catch (SQLException | RuntimeException ex) {
+                    e.addSuppressed(ex);
+                }
+                throw e;
+            }
+        } finally {
+            escrituras.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restaura los valores previos de las operaciones ya aplicadas de un lote
+     *
+     * @param previas Valor anterior de cada operación aplicada, en orden
+     * @param modificaciones Cuántas de las primeras fueron modificaciones
+     */
+    private void deshacer(List<PeliculaValue> previas, int modificaciones) throws SQLException {
+        for (int i = previas.size() - 1; i >= 0; i--) {
+            PeliculaValue v = previas.get(i);
+            if (i < modificaciones) update(v.toPelicula());
+            else importBatch(List.of(v.toPelicula()));
+        }
+    }
+
+    /**
+     * Valida todo el lote antes de insertar: se aplica entero o nada. Excluye
+     * las demás escrituras mientras dura
+     */
+    @Override
+    public void importBatch(List<Pelicula> lote) throws SQLException {
+        escrituras.writeLock().lock();
+        try {
+            Map<String, Integer> nuevas = new HashMap<>();
+            Set<Integer> ids = new HashSet<>();
+            for (Pelicula p : lote) {
+                CarteleraConstraints.verificar(p);
+                if (p.getId() == null || p.getId() <= 0) {
+                    throw new SQLException("La película a importar no tiene ID.");
+                }
+                String clave = claveUnica(p.getTitulo(), p.getAnio());
+                if (peliculas.containsKey(p.getId()) || !ids.add(p.getId())) {
+                    throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + p.getId() + "' for key 'PRIMARY'");
+                }
+                if (claves.containsKey(clave) || nuevas.putIfAbsent(clave, p.getId()) != null) {
+                    throw new SQLIntegrityConstraintViolationException("Duplicate entry for key 'uq_titulo_anio'");
+                }
+            }
+            claves.putAll(nuevas);
+            for (Pelicula p : lote) {
+                PeliculaValue v = PeliculaValue.of(p);
+                indexar(v);
+                peliculas.put(v.id(), v);
+                nextId.accumulateAndGet(v.id() + 1, Math::max);
+            }
+        } finally {
+            escrituras.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo excluyendo las demás escrituras. Las lecturas no se
+     * bloquean (pueden ver estados intermedios) y no hay rollback: el trabajo
+     * debe validar antes de escribir
+     */
+    @Override
+    public <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException {
+        escrituras.writeLock().lock();
+        try {
+            return trabajo.run();
+        } finally {
+            escrituras.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Normaliza (titulo, anio) igual que la collation por defecto de MySQL:
+     * sin distinguir mayúsculas ni acentos
+     *
+     * @param titulo Título de la película
+     * @param anio Año de la película
+     * @return Clave de la restricción uq_titulo_anio
+     */
+    public static String claveUnica(String titulo, int anio) {
+        return normalizarTitulo(titulo) + '|' + anio;
+    }
+
+    static String normalizarTitulo(String titulo) {
+        return TextCollation.normalizar(titulo.trim());
+    }
+
+    /**
+     * @return true si el valor sigue siendo el publicado para su ID
+     */
+    private boolean vigente(PeliculaValue v) {
+        return peliculas.get(v.id()) == v;
+    }
+
+    private void indexar(PeliculaValue v) {
+        porTitulo.put(ClaveTitulo.de(v), v);
+        porAnio.computeIfAbsent((int) v.anio(), a -> new ConcurrentHashMap<>()).put(v.id(), v);
+        porGenero.get(v.genero()).put(v.id(), v);
+    }
+
+    /**
+     * Quita las entradas de un valor reemplazado, salvo las que comparte con
+     * el valor actual (ya las sobrescribió)
+     *
+     * @param viejo Valor reemplazado o eliminado
+     * @param actual Valor publicado para el mismo ID (null si se eliminó)
+     */
+    private void desindexar(PeliculaValue viejo, PeliculaValue actual) {
+        // Un título que la collation considera igual comparte la entrada del
+        // índice, que indexar(actual) ya reemplazó: quitarla perdería la fila
+        ClaveTitulo clave = ClaveTitulo.de(viejo);
+        if (actual == null || ClaveTitulo.ORDEN.compare(clave, ClaveTitulo.de(actual)) != 0) porTitulo.remove(clave);
+        if (actual == null || actual.anio() != viejo.anio()) {
+            Map<Integer, PeliculaValue> anio = porAnio.get((int) viejo.anio());
+            if (anio != null) anio.remove(viejo.id());
+        }
+        if (actual == null || actual.genero() != viejo.genero()) porGenero.get(viejo.genero()).remove(viejo.id());
+    }
+
+    /**
+     * Valores candidatos para un rango de años (todos si no hay cotas); el
+     * llamador descarta los no vigentes
+     */
+    private Collection<PeliculaValue> candidatos(Integer desde, Integer hasta) {
+        if (desde == null && hasta == null) return peliculas.values();
+        int min = desde == null ? Integer.MIN_VALUE : desde;
+        int max = hasta == null ? Integer.MAX_VALUE : hasta;
+        List<PeliculaValue> out = new ArrayList<>();
+        if (min > max) return out;
+        for (Map<Integer, PeliculaValue> anio : porAnio.subMap(min, true, max, true).values()) out.addAll(anio.values());
+        return out;
+    }
+
+    private static int contar(Collection<Map<Integer, PeliculaValue>> anios) {
+        int total = 0;
+        for (Map<Integer, PeliculaValue> anio : anios) total += anio.size();
+        return total;
+    }
+}
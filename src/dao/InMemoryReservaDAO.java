@@ -0,0 +1,62 @@
+package dao;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import model.Reserva;
+
+/**
+ * Implementación en memoria del DAO de asientos vendidos
+ *
+ * Responsabilidades:
+ * - Servir como almacenamiento para pruebas y benchmarks
+ * - Respetar la clave primaria (funcion_id, asiento) de la tabla RESERVA
+ *
+ * Características:
+ * - Cada lote se aplica completo o no se aplica
+ * - Thread-safe: los lotes se serializan
+ *
+ * Implementa: IReservaDAO
+ *
+ */
+
+public class InMemoryReservaDAO implements IReservaDAO {
+
+    private final Set<Reserva> vendidas = new HashSet<>();
+
+    @Override
+    public synchronized void applyBatch(List<Reserva> ventas, List<Reserva> devoluciones) throws SQLException {
+        Set<Reserva> devueltas = new HashSet<>(devoluciones);
+        for (Reserva r : devueltas) {
+            if (!vendidas.contains(r)) throw new SQLException("El lote contiene un asiento no vendido.");
+        }
+        Set<Reserva> lote = new HashSet<>();
+        for (Reserva r : ventas) {
+            if (!lote.add(r) || (vendidas.contains(r) && !devueltas.contains(r))) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + r.funcionId() + "-"
+                        + r.asiento() + "' for key 'PRIMARY'", "23000", 1062);
+            }
+        }
+        vendidas.removeAll(devoluciones);
+        vendidas.addAll(ventas);
+    }
+
+    @Override
+    public synchronized List<Integer> findAsientos(int funcionId) {
+        List<Integer> out = new ArrayList<>();
+        for (Reserva r : vendidas) {
+            if (r.funcionId() == funcionId) out.add(r.asiento());
+        }
+        return out;
+    }
+
+    /**
+     * @return Cantidad total de asientos vendidos
+     */
+    public synchronized int total() {
+        return vendidas.size();
+    }
+}
@@ -0,0 +1,485 @@
+package dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * Criterio de búsqueda tipado sobre la tabla Cartelera
+ *
+ * Responsabilidades:
+ * - Combinar (AND) filtros sobre los campos de Pelicula, orden y límite
+ *   sin agregar un método nuevo a IPeliculaDAO por cada búsqueda
+ * - Compilarse a una única sentencia SQL parametrizada
+ * - Evaluarse en memoria con la misma semántica (textos comparados con
+ *   TextCollation, sin distinguir mayúsculas ni acentos; ENUM ordenado por
+ *   su posición) para DAOs no JDBC
+ *
+ * Características:
+ * - El SQL depende solo de la "forma" del criterio (qué filtros hay, cuántos
+ *   géneros, qué orden, si hay límite); se cachea por forma y los valores
+ *   viajan siempre como parámetros
+ * - El orden termina siempre en id para que sea total y estable, lo que
+ *   permite continuar por keyset (despuesDe) en vez de usar OFFSET
+ *
+ * Ejemplo:
+ *   PeliculaCriteria.create()
+ *       .generos(Genero.Drama, Genero.Romance)
+ *       .anioEntre(1990, 2010)
+ *       .duracionHasta(120)
+ *       .ordenarPor(Campo.ANIO, true)
+ *       .limite(50);
+ *
+ */
+
+public final class PeliculaCriteria {
+
+    /**
+     * Campos por los que se puede ordenar
+     */
+    public enum Campo {
+        ID("id", Comparator.comparing(Pelicula::getId)),
+        TITULO("titulo", Comparator.comparing(Pelicula::getTitulo, TextCollation.ORDEN)),
+        DIRECTOR("director", Comparator.comparing(Pelicula::getDirector, TextCollation.ORDEN)),
+        ANIO("anio", Comparator.comparingInt(Pelicula::getAnio)),
+        DURACION("duracion", Comparator.comparingInt(Pelicula::getDuracion)),
+        GENERO("genero", Comparator.comparing(Pelicula::getGenero)); // ENUM de MySQL ordena por posición
+
+        final String columna;
+        final Comparator<Pelicula> comparador;
+
+        Campo(String columna, Comparator<Pelicula> comparador) {
+            this.columna = columna;
+            this.comparador = comparador;
+        }
+
+        /**
+         * Expresión para comparar en el keyset: un ENUM comparado con texto
+         * se compara como cadena, así que genero se compara por su posición
+         * (la misma que usa ORDER BY)
+         */
+        String expresionKeyset() {
+            return this == GENERO ? "genero+0" : columna;
+        }
+
+        void bindKeyset(PreparedStatement ps, int i, Pelicula p) throws SQLException {
+            switch (this) {
+                case ID -> ps.setInt(i, p.getId());
+                case TITULO -> ps.setString(i, p.getTitulo());
+                case DIRECTOR -> ps.setString(i, p.getDirector());
+                case ANIO -> ps.setInt(i, p.getAnio());
+                case DURACION -> ps.setInt(i, p.getDuracion());
+                case GENERO -> ps.setInt(i, p.getGenero().ordinal() + 1);
+            }
+        }
+    }
+
+    private record Orden(Campo campo, boolean descendente) {}
+
+    private static final ConcurrentHashMap<String, String> SQL_POR_FORMA = new ConcurrentHashMap<>();
+
+    private String tituloContiene;
+    private String fragmento; // tituloContiene normalizado, para matches
+    private String titulo; // Exacto, normalizado como la collation de MySQL
+    private String director;
+    private Set<Genero> generos;
+    private Integer anioDesde, anioHasta;
+    private Integer duracionDesde, duracionHasta;
+    private final List<Orden> orden = new ArrayList<>();
+    private int limite = -1; // -1 = sin límite
+    private int offset = 0;
+    private Pelicula despuesDe; // Última fila de la página anterior (keyset)
+    private Comparator<Pelicula> comparador; // Cacheado; se invalida al cambiar el orden
+
+    private PeliculaCriteria() {
+    }
+
+    /**
+     * @return Criterio vacío (todas las películas ordenadas por título)
+     */
+    public static PeliculaCriteria create() {
+        return new PeliculaCriteria();
+    }
+
+    /**
+     * Título que contiene el texto (sin distinguir mayúsculas ni acentos)
+     */
+    public PeliculaCriteria tituloContiene(String texto) {
+        this.tituloContiene = texto == null || texto.isBlank() ? null : texto.trim();
+        this.fragmento = tituloContiene == null ? null : TextCollation.normalizar(tituloContiene);
+        return this;
+    }
+
+    /**
+     * Título exacto (sin distinguir mayúsculas ni acentos); usa el índice
+     * uq_titulo_anio
+     */
+    public PeliculaCriteria titulo(String titulo) {
+        this.titulo = titulo == null || titulo.isBlank() ? null : titulo.trim();
+        return this;
+    }
+
+    /**
+     * Director exacto (sin distinguir mayúsculas ni acentos)
+     */
+    public PeliculaCriteria director(String director) {
+        this.director = director == null || director.isBlank() ? null : director.trim();
+        return this;
+    }
+
+    /**
+     * Uno o varios géneros; sin argumentos o null = todos
+     */
+    public PeliculaCriteria generos(Genero... generos) {
+        if (generos == null || generos.length == 0) {
+            this.generos = null;
+        } else {
+            EnumSet<Genero> set = EnumSet.noneOf(Genero.class);
+            for (Genero g : generos) if (g != null) set.add(g);
+            this.generos = set.isEmpty() ? null : set;
+        }
+        return this;
+    }
+
+    public PeliculaCriteria anioDesde(int anio) {
+        this.anioDesde = anio;
+        return this;
+    }
+
+    public PeliculaCriteria anioHasta(int anio) {
+        this.anioHasta = anio;
+        return this;
+    }
+
+    public PeliculaCriteria anioEntre(int desde, int hasta) {
+        return anioDesde(desde).anioHasta(hasta);
+    }
+
+    public PeliculaCriteria duracionDesde(int minutos) {
+        this.duracionDesde = minutos;
+        return this;
+    }
+
+    public PeliculaCriteria duracionHasta(int minutos) {
+        this.duracionHasta = minutos;
+        return this;
+    }
+
+    public PeliculaCriteria duracionEntre(int desde, int hasta) {
+        return duracionDesde(desde).duracionHasta(hasta);
+    }
+
+    /**
+     * Agrega un campo de orden (se aplican en el orden en que se agregan)
+     *
+     * @param campo Campo a ordenar
+     * @param descendente true para orden descendente
+     */
+    public PeliculaCriteria ordenarPor(Campo campo, boolean descendente) {
+        if (campo == null) {
+            throw new IllegalArgumentException("El campo de orden es obligatorio.");
+        }
+        orden.removeIf(o -> o.campo() == campo);
+        orden.add(new Orden(campo, descendente));
+        comparador = null;
+        return this;
+    }
+
+    /**
+     * Cantidad máxima de películas a devolver
+     */
+    public PeliculaCriteria limite(int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que 0.");
+        }
+        this.limite = limite;
+        return this;
+    }
+
+    /**
+     * Cantidad de películas a saltar
+     */
+    public PeliculaCriteria offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("El offset no puede ser negativo.");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Continúa después de la última película de la página anterior (keyset)
+     *
+     * A diferencia de offset, la base de datos salta directo a la posición
+     * por el índice, sin leer ni descartar las filas anteriores.
+     *
+     * @param ultima Última película recibida con este mismo orden (null = desde el inicio)
+     */
+    public PeliculaCriteria despuesDe(Pelicula ultima) {
+        if (ultima != null && ultima.getId() == null) {
+            throw new IllegalArgumentException("La película de continuación debe tener ID.");
+        }
+        this.despuesDe = ultima;
+        return this;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Evalúa los filtros sobre una película (sin orden ni límite)
+     *
+     * @param p Película a evaluar
+     * @return true si cumple todos los filtros
+     */
+    public boolean matches(Pelicula p) {
+        // Primero las comparaciones baratas, después las de texto
+        if (generos != null && !generos.contains(p.getGenero())) return false;
+        if (anioDesde != null && p.getAnio() < anioDesde) return false;
+        if (anioHasta != null && p.getAnio() > anioHasta) return false;
+        if (duracionDesde != null && p.getDuracion() < duracionDesde) return false;
+        if (duracionHasta != null && p.getDuracion() > duracionHasta) return false;
+        if (director != null && !TextCollation.iguales(p.getDirector(), director)) return false;
+        if (fragmento != null && !TextCollation.contiene(p.getTitulo(), fragmento)) return false;
+        if (titulo != null && !InMemoryPeliculaDAO.normalizarTitulo(p.getTitulo())
+                .equals(InMemoryPeliculaDAO.normalizarTitulo(titulo))) {
+            return false;
+        }
+        return despuesDe == null || comparator().compare(p, despuesDe) > 0;
+    }
+
+    /**
+     * @return Clave de uq_titulo_anio si el criterio pide un título y un año
+     * exactos (a lo sumo una fila), o null en otro caso
+     */
+    String claveExacta() {
+        return titulo != null && anioDesde != null && anioDesde.equals(anioHasta)
+                ? InMemoryPeliculaDAO.claveUnica(titulo, anioDesde) : null;
+    }
+
+    /**
+     * @return Año mínimo pedido, o null si no hay cota inferior
+     */
+    Integer anioMinimo() {
+        return anioDesde;
+    }
+
+    /**
+     * @return Año máximo pedido, o null si no hay cota superior
+     */
+    Integer anioMaximo() {
+        return anioHasta;
+    }
+
+    /**
+     * @return Comparador equivalente al ORDER BY compilado (desempata por id)
+     */
+    public Comparator<Pelicula> comparator() {
+        if (comparador == null) {
+            Comparator<Pelicula> c = null;
+            for (Orden o : ordenEfectivo()) {
+                Comparator<Pelicula> campo = o.descendente() ? o.campo().comparador.reversed() : o.campo().comparador;
+                c = c == null ? campo : c.thenComparing(campo);
+            }
+            comparador = c;
+        }
+        return comparador;
+    }
+
+    /**
+     * Aplica el criterio completo (filtro, orden, offset y límite) en memoria
+     *
+     * @param peliculas Películas candidatas
+     * @return Nueva lista con el resultado
+     */
+    public List<Pelicula> apply(List<Pelicula> peliculas) {
+        List<Pelicula> out = new ArrayList<>();
+        for (Pelicula p : peliculas) if (matches(p)) out.add(p);
+        out.sort(comparator());
+        return recortar(out);
+    }
+
+    /**
+     * Aplica offset y límite a una lista ya filtrada y ordenada
+     */
+    List<Pelicula> recortar(List<Pelicula> ordenadas) {
+        int desde = Math.min(offset, ordenadas.size());
+        int hasta = limite < 0 ? ordenadas.size() : (int) Math.min(ordenadas.size(), (long) desde + limite);
+        return desde == 0 && hasta == ordenadas.size() ? ordenadas : new ArrayList<>(ordenadas.subList(desde, hasta));
+    }
+
+    /**
+     * Copia con offset 0 y límite offset + límite: lo que debe aportar cada
+     * shard para que el recorte global sea correcto
+     *
+     * El ID del keyset es global (idLocal * shards + indice); se traduce al
+     * umbral local equivalente, que conserva el orden dentro del shard.
+     *
+     * @param indice Índice del shard
+     * @param shards Cantidad de shards
+     */
+    PeliculaCriteria paraShard(int indice, int shards) {
+        PeliculaCriteria c = copia();
+        c.offset = 0;
+        c.limite = limite < 0 ? -1 : Math.addExact(offset, limite);
+        if (despuesDe != null) {
+            boolean idDescendente = ordenEfectivo().stream()
+                    .anyMatch(o -> o.campo() == Campo.ID && o.descendente());
+            int base = despuesDe.getId() - indice;
+            // ASC: idLocal > floor(base / n)  <=>  idGlobal > id;  DESC: idLocal < ceil(base / n)
+            int idLocal = idDescendente ? Math.ceilDiv(base, shards) : Math.floorDiv(base, shards);
+            c.despuesDe = new Pelicula(idLocal, despuesDe.getTitulo(), despuesDe.getDirector(),
+                    despuesDe.getAnio(), despuesDe.getDuracion(), despuesDe.getGenero());
+        }
+        return c;
+    }
+
+    /**
+     * SQL parametrizado para la forma de este criterio (cacheado)
+     */
+    String toSql() {
+        return SQL_POR_FORMA.computeIfAbsent(forma(), f -> compilar());
+    }
+
+    /**
+     * Asigna los valores en el mismo orden en que compilar() emite los '?'
+     *
+     * @throws SQLException Si falla la asignación de parámetros
+     */
+    void bind(PreparedStatement ps) throws SQLException {
+        int i = 1;
+        if (tituloContiene != null) ps.setString(i++, "%" + escaparLike(tituloContiene) + "%");
+        if (titulo != null) ps.setString(i++, titulo);
+        if (director != null) ps.setString(i++, director);
+        if (generos != null) {
+            for (Genero g : generos) ps.setString(i++, g.name());
+        }
+        if (anioDesde != null) ps.setInt(i++, anioDesde);
+        if (anioHasta != null) ps.setInt(i++, anioHasta);
+        if (duracionDesde != null) ps.setInt(i++, duracionDesde);
+        if (duracionHasta != null) ps.setInt(i++, duracionHasta);
+        if (despuesDe != null) {
+            List<Orden> efectivo = ordenEfectivo();
+            for (int k = 0; k < efectivo.size(); k++) {
+                for (int j = 0; j <= k; j++) efectivo.get(j).campo().bindKeyset(ps, i++, despuesDe);
+            }
+        }
+        if (paginado()) {
+            ps.setInt(i++, limite < 0 ? Integer.MAX_VALUE : limite);
+            ps.setInt(i, offset);
+        }
+    }
+
+    private String compilar() {
+        List<String> where = new ArrayList<>();
+        if (tituloContiene != null) where.add("titulo LIKE ?");
+        if (titulo != null) where.add("titulo = ?");
+        if (director != null) where.add("director = ?");
+        if (generos != null) where.add("genero IN (" + String.join(",", Collections.nCopies(generos.size(), "?")) + ")");
+        if (anioDesde != null) where.add("anio >= ?");
+        if (anioHasta != null) where.add("anio <= ?");
+        if (duracionDesde != null) where.add("duracion >= ?");
+        if (duracionHasta != null) where.add("duracion <= ?");
+        List<Orden> efectivo = ordenEfectivo();
+        if (despuesDe != null) where.add(keyset(efectivo));
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM Cartelera");
+        if (!where.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", where));
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < efectivo.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(efectivo.get(i).campo().columna).append(efectivo.get(i).descendente() ? " DESC" : "");
+        }
+        if (paginado()) sql.append(" LIMIT ? OFFSET ?");
+        return sql.toString();
+    }
+
+    /**
+     * Predicado "fila posterior a la última" para un orden con direcciones
+     * mixtas: (c1 > ?) OR (c1 = ? AND c2 > ?) OR ... (con < en las DESC)
+     */
+    private static String keyset(List<Orden> efectivo) {
+        List<String> terminos = new ArrayList<>();
+        for (int k = 0; k < efectivo.size(); k++) {
+            StringBuilder t = new StringBuilder("(");
+            for (int j = 0; j < k; j++) t.append(efectivo.get(j).campo().expresionKeyset()).append(" = ? AND ");
+            Orden o = efectivo.get(k);
+            t.append(o.campo().expresionKeyset()).append(o.descendente() ? " < ?" : " > ?").append(')');
+            terminos.add(t.toString());
+        }
+        return "(" + String.join(" OR ", terminos) + ")";
+    }
+
+    /**
+     * Firma de la forma: filtros presentes, cantidad de géneros, orden y límite
+     */
+    private String forma() {
+        StringBuilder f = new StringBuilder(24);
+        f.append(tituloContiene != null ? 'T' : '-')
+         .append(titulo != null ? '=' : '-')
+         .append(director != null ? 'D' : '-')
+         .append(generos != null ? generos.size() : 0)
+         .append(anioDesde != null ? 'a' : '-')
+         .append(anioHasta != null ? 'A' : '-')
+         .append(duracionDesde != null ? 'd' : '-')
+         .append(duracionHasta != null ? 'D' : '-')
+         .append(despuesDe != null ? 'K' : '-')
+         .append(paginado() ? 'L' : '-');
+        for (Orden o : orden) f.append(o.campo().ordinal()).append(o.descendente() ? '-' : '+');
+        return f.toString();
+    }
+
+    private boolean paginado() {
+        return limite >= 0 || offset > 0;
+    }
+
+    /**
+     * Orden pedido; por defecto título, y siempre con id al final
+     */
+    private List<Orden> ordenEfectivo() {
+        List<Orden> efectivo = new ArrayList<>(orden);
+        if (efectivo.isEmpty()) efectivo.add(new Orden(Campo.TITULO, false));
+        if (efectivo.stream().noneMatch(o -> o.campo() == Campo.ID)) efectivo.add(new Orden(Campo.ID, false));
+        return efectivo;
+    }
+
+    private PeliculaCriteria copia() {
+        PeliculaCriteria c = new PeliculaCriteria();
+        c.tituloContiene = tituloContiene;
+        c.fragmento = fragmento;
+        c.titulo = titulo;
+        c.director = director;
+        c.generos = generos;
+        c.anioDesde = anioDesde;
+        c.anioHasta = anioHasta;
+        c.duracionDesde = duracionDesde;
+        c.duracionHasta = duracionHasta;
+        c.orden.addAll(orden);
+        c.limite = limite;
+        c.offset = offset;
+        c.despuesDe = despuesDe;
+        return c;
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    public String toString() {
+        return "PeliculaCriteria[" + compilar() + "]";
+    }
+}
@@ -1,6 +1,11 @@
 package dao;
 
+import db.CancellationToken;
+import db.ConnectionProvider;
 import db.DatabaseConnection;
+import db.QueryTimeout;
+import db.TransactionOptions;
+import db.UnitOfWork;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,14 +20,53 @@ import model.Pelicula;
  * - Manejar la persistencia en base de datos MySQL
  * - Gestionar transacciones y recursos JDBC
  * - Recuperar IDs auto-generados
+ * - Acotar cada sentencia con el timeout de su tipo de operación (QueryTimeout)
+ *   y cancelar en el servidor las consultas cuyo token se cancela
  * 
  * Implementa: IPeliculaDAO
- * Utiliza: DatabaseConnection para obtener conexiones
+ * Utiliza: DatabaseConnection para obtener conexiones y PeliculaRowMapper
+ * para convertir filas en objetos
  * 
  */
 
 public class PeliculaDAO implements IPeliculaDAO {
     
+    private static final int LOTE_IN = 500; // IDs por consulta en findByIds
+    
+    private final ConnectionProvider connections; // Conexiones para escrituras
+    private final ConnectionProvider reads;       // Conexiones para consultas de solo lectura
+    private final UnitOfWork unitOfWork;          // Conexión ligada al hilo dentro de inTransaction
+    
+    /**
+     * Constructor por defecto: usa la base de datos configurada en DatabaseConnection
+     */
+    public PeliculaDAO() {
+        this(DatabaseConnection::get);
+    }
+    
+    /**
+     * Constructor que permite apuntar el DAO a otro nodo (ej. un shard)
+     * 
+     * @param connections Proveedor de conexiones a utilizar
+     */
+    public PeliculaDAO(ConnectionProvider connections) {
+        this(connections, connections);
+    }
+    
+    /**
+     * Constructor con separación de lecturas y escrituras (ej. réplicas)
+     * 
+     * @param connections Proveedor de conexiones para create/update/delete
+     * @param reads Proveedor de conexiones para findById, findAll, búsquedas y filtros
+     */
+    public PeliculaDAO(ConnectionProvider connections, ConnectionProvider reads) {
+        // Fuera de una transacción cada operación abre su conexión (autocommit);
+        // dentro, todas usan la conexión de la unidad de trabajo
+        this.unitOfWork = new UnitOfWork(connections, reads);
+        this.connections = unitOfWork::writeConnection;
+        this.reads = unitOfWork::readConnection;
+    }
+    
     /**
      * Crea una nueva película en la base de datos
      * 
@@ -42,11 +86,12 @@ public class PeliculaDAO implements IPeliculaDAO {
     final String sql =
         "INSERT INTO Cartelera (titulo, director, anio, duracion, genero) VALUES (?,?,?,?,?)";
 
-    try (Connection cn = DatabaseConnection.get();
+    try (Connection cn = connections.get();
         // Opción A: pedir las keys por nombre de columna (más fiable en MariaDB)
         PreparedStatement ps = cn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
         // Establece parámetros del PreparedStatement
+        ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
         ps.setString(1, p.getTitulo());
         ps.setString(2, p.getDirector());
         ps.setInt(3, p.getAnio());
@@ -82,30 +127,84 @@ public class PeliculaDAO implements IPeliculaDAO {
     public Pelicula findById(int id) throws SQLException{
         final String sql = "SELECT * FROM Cartelera WHERE id = ?";
         
-        try(Connection cn = DatabaseConnection.get();
+        try(Connection cn = reads.get();
                 PreparedStatement ps = cn.prepareStatement(sql)){
             
+            ps.setQueryTimeout(QueryTimeout.LECTURA.segundos);
             ps.setInt(1, id);
             try(ResultSet rs = ps.executeQuery()){
                 if(rs.next()){
-                    return resultSetToPelicula(rs);
+                    return PeliculaRowMapper.of(rs).map(rs);
                 }
             }
         }
         return null;
     }
     
+    /**
+     * Busca las películas con WHERE id IN (...) en lotes de LOTE_IN IDs
+     */
+    @Override
+    public List<Pelicula> findByIds(List<Integer> ids) throws SQLException{
+        List<Pelicula> peliculas = new ArrayList<>(ids.size());
+        
+        try(Connection cn = reads.get()){
+            for (int desde = 0; desde < ids.size(); desde += LOTE_IN) {
+                List<Integer> lote = ids.subList(desde, Math.min(ids.size(), desde + LOTE_IN));
+                String sql = "SELECT * FROM Cartelera WHERE id IN (" + "?,".repeat(lote.size() - 1) + "?)";
+                try(PreparedStatement ps = cn.prepareStatement(sql)){
+                    
+                    ps.setQueryTimeout(QueryTimeout.LECTURA.segundos);
+                    for (int i = 0; i < lote.size(); i++) {
+                        ps.setInt(i + 1, lote.get(i));
+                    }
+                    try(ResultSet rs = ps.executeQuery()){
+                        PeliculaRowMapper mapper = PeliculaRowMapper.of(rs);
+                        while(rs.next()){
+                            peliculas.add(mapper.map(rs));
+                        }
+                    }
+                }
+            }
+        }
+        return peliculas;
+    }
+    
     @Override
     public List<Pelicula> findAll() throws SQLException{
         final String sql = "SELECT * FROM Cartelera ORDER BY titulo";
         List<Pelicula> peliculas = new ArrayList<>();
         
-        try(Connection cn = DatabaseConnection.get();
-                Statement st = cn.createStatement();
-                ResultSet rs = st.executeQuery(sql)){
+        try(Connection cn = reads.get();
+                Statement st = cn.createStatement()){
             
-            while(rs.next()){
-                peliculas.add(resultSetToPelicula(rs));
+            st.setQueryTimeout(QueryTimeout.LISTADO.segundos);
+            try(ResultSet rs = st.executeQuery(sql)){
+                PeliculaRowMapper mapper = PeliculaRowMapper.of(rs);
+                while(rs.next()){
+                    peliculas.add(mapper.map(rs));
+                }
+            }
+        }
+        return peliculas;
+    }
+    
+    @Override
+    public List<Pelicula> findPage(int offset, int limite) throws SQLException{
+        final String sql = "SELECT * FROM Cartelera ORDER BY titulo, id LIMIT ? OFFSET ?";
+        List<Pelicula> peliculas = new ArrayList<>();
+        
+        try(Connection cn = reads.get();
+                PreparedStatement ps = cn.prepareStatement(sql)){
+            
+            ps.setQueryTimeout(QueryTimeout.LISTADO.segundos);
+            ps.setInt(1, limite);
+            ps.setInt(2, offset);
+            try(ResultSet rs = ps.executeQuery()){
+                PeliculaRowMapper mapper = PeliculaRowMapper.of(rs);
+                while(rs.next()){
+                    peliculas.add(mapper.map(rs));
+                }
             }
         }
         return peliculas;
@@ -117,13 +216,15 @@ public class PeliculaDAO implements IPeliculaDAO {
         
         List<Pelicula> peliculas = new ArrayList<>();
         
-        try(Connection cn = DatabaseConnection.get();
+        try(Connection cn = reads.get();
                 PreparedStatement ps = cn.prepareStatement(sql)){
             
+            ps.setQueryTimeout(QueryTimeout.LISTADO.segundos);
             ps.setString(1, "%" + query + "%");
             try(ResultSet rs = ps.executeQuery()){
+                PeliculaRowMapper mapper = PeliculaRowMapper.of(rs);
                 while(rs.next()){
-                    peliculas.add(resultSetToPelicula(rs));
+                    peliculas.add(mapper.map(rs));
                 }
             }
         }
@@ -134,9 +235,10 @@ public class PeliculaDAO implements IPeliculaDAO {
     public void update(Pelicula p) throws SQLException{
         final String sql ="UPDATE Cartelera SET titulo = ?, director = ?, anio = ?, duracion = ?, genero = ? WHERE id = ?";
         
-        try(Connection cn = DatabaseConnection.get();
+        try(Connection cn = connections.get();
                 PreparedStatement ps = cn.prepareStatement(sql)){
             
+            ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
             ps.setString(1, p.getTitulo());
             ps.setString(2, p.getDirector());
             ps.setInt(3, p.getAnio());
@@ -155,9 +257,10 @@ public class PeliculaDAO implements IPeliculaDAO {
     public void delete(int id) throws SQLException{
         final String sql = "DELETE FROM Cartelera WHERE id = ?";
         
-        try(Connection cn = DatabaseConnection.get();
+        try(Connection cn = connections.get();
                 PreparedStatement ps = cn.prepareStatement(sql)){
             
+            ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
             ps.setInt(1, id);
             int affectedRows = ps.executeUpdate();
             if(affectedRows == 0){
@@ -166,17 +269,144 @@ public class PeliculaDAO implements IPeliculaDAO {
         }
     }
     
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) throws SQLException{
+        return findBy(PeliculaCriteria.create().generos(genero).anioEntre(anioDesde, anioHasta));
+    }
+    
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) throws SQLException{
+        return findBy(criteria, new CancellationToken());
+    }
+    
+    /**
+     * Ejecuta el criterio como una sola consulta; el SQL de cada forma de
+     * criterio se compila una vez y los valores van como parámetros.
+     * Cancelar el token cancela la sentencia en el servidor y corta la
+     * lectura de las filas ya recibidas
+     */
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException{
+        List<Pelicula> peliculas = new ArrayList<>();
+        
+        try(Connection cn = reads.get();
+                PreparedStatement ps = cn.prepareStatement(criteria.toSql())){
+            
+            CancellationToken.Registro registro = token.registrar(ps);
+            try{
+                ps.setQueryTimeout(QueryTimeout.LISTADO.segundos);
+                criteria.bind(ps);
+                try(ResultSet rs = ps.executeQuery()){
+                    PeliculaRowMapper mapper = PeliculaRowMapper.of(rs);
+                    while(rs.next()){
+                        if ((peliculas.size() & 255) == 0) token.throwIfCancelled();
+                        peliculas.add(mapper.map(rs));
+                    }
+                }
+            } finally {
+                registro.close(); // Antes de cerrar la sentencia
+            }
+        } catch (SQLException e) {
+            throw token.traducir(e);
+        }
+        return peliculas;
+    }
+    
     /**
-     * Convierte un ResultSet a objeto Película
+     * Aplica el lote en una única transacción con sentencias en batch
+     * 
+     * Si cualquier fila no existe o viola una restricción se hace rollback
+     * de todo el lote.
      */
-    private Pelicula resultSetToPelicula(ResultSet rs) throws SQLException{
-        return new Pelicula(
-            rs.getInt("id"),
-            rs.getString("titulo"),
-            rs.getString("director"),
-            rs.getInt("anio"),
-            rs.getInt("duracion"),
-            Genero.valueOf(rs.getString("genero"))
-        );
+    @Override
+    public void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException{
+        final String sqlUpdate = "UPDATE Cartelera SET titulo = ?, director = ?, anio = ?, duracion = ?, genero = ? WHERE id = ?";
+        final String sqlDelete = "DELETE FROM Cartelera WHERE id = ?";
+        
+        try(Connection cn = connections.get()){
+            cn.setAutoCommit(false);
+            try(PreparedStatement psUpdate = cn.prepareStatement(sqlUpdate);
+                    PreparedStatement psDelete = cn.prepareStatement(sqlDelete)){
+                
+                psUpdate.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+                psDelete.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+                for (Pelicula p : updates) {
+                    psUpdate.setString(1, p.getTitulo());
+                    psUpdate.setString(2, p.getDirector());
+                    psUpdate.setInt(3, p.getAnio());
+                    psUpdate.setInt(4, p.getDuracion());
+                    psUpdate.setString(5, p.getGenero().name());
+                    psUpdate.setInt(6, p.getId());
+                    psUpdate.addBatch();
+                }
+                for (int id : deletes) {
+                    psDelete.setInt(1, id);
+                    psDelete.addBatch();
+                }
+                
+                verificarLote(psUpdate.executeBatch());
+                verificarLote(psDelete.executeBatch());
+                cn.commit();
+            } catch (SQLException e) {
+                cn.rollback();
+                throw e;
+            } finally {
+                cn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    /**
+     * Inserta el lote conservando los IDs en una sola transacción
+     * 
+     * El AUTO_INCREMENT de la tabla avanza solo más allá del mayor ID insertado.
+     */
+    @Override
+    public void importBatch(List<Pelicula> peliculas) throws SQLException{
+        final String sql = "INSERT INTO Cartelera (id, titulo, director, anio, duracion, genero) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try(Connection cn = connections.get()){
+            cn.setAutoCommit(false);
+            try(PreparedStatement ps = cn.prepareStatement(sql)){
+                
+                ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+                for (Pelicula p : peliculas) {
+                    ps.setInt(1, p.getId());
+                    ps.setString(2, p.getTitulo());
+                    ps.setString(3, p.getDirector());
+                    ps.setInt(4, p.getAnio());
+                    ps.setInt(5, p.getDuracion());
+                    ps.setString(6, p.getGenero().name());
+                    ps.addBatch();
+                }
+                
+                verificarLote(ps.executeBatch());
+                cn.commit();
+            } catch (SQLException e) {
+                cn.rollback();
+                throw e;
+            } finally {
+                cn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    /**
+     * Ejecuta el trabajo en una transacción sobre una sola conexión
+     * 
+     * Dentro del trabajo, todos los métodos de este DAO (incluso las
+     * consultas) usan esa conexión; applyBatch se une a la transacción.
+     */
+    @Override
+    public <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException{
+        return unitOfWork.inTransaction(opciones, trabajo);
+    }
+    
+    private static void verificarLote(int[] affectedRows) throws SQLException{
+        for (int n : affectedRows) {
+            if (n == 0) {
+                throw new SQLException("El lote contiene una película inexistente.");
+            }
+        }
     }
 }
@@ -0,0 +1,182 @@
+package dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import model.DirectorPool;
+import model.Genero;
+import model.Pelicula;
+import model.PeliculaValue;
+
+/**
+ * Mapeador compilado de filas de Cartelera
+ *
+ * Responsabilidades:
+ * - Resolver los índices de columna una sola vez por forma de ResultSet
+ *   (en vez de buscar cada columna por nombre en cada fila)
+ * - Decodificar el ENUM genero con una tabla precalculada, sin valueOf
+ * - Entregar filas como Pelicula, como PeliculaValue o como flyweight
+ *   reutilizable para consumidores en streaming
+ *
+ * Características:
+ * - Los mapeadores se cachean por la lista de etiquetas de columna
+ * - Inmutable y thread-safe: se comparte entre consultas y hilos
+ *
+ */
+
+public final class PeliculaRowMapper {
+
+    private static final ConcurrentHashMap<String, PeliculaRowMapper> POR_FORMA = new ConcurrentHashMap<>();
+
+    // Tabla de géneros indexada por (largo * 7 + primera letra) & 63
+    private static final Genero[] TABLA_GENEROS = new Genero[64];
+
+    static {
+        for (Genero g : Genero.values()) {
+            int slot = slotGenero(g.name());
+            if (TABLA_GENEROS[slot] != null) {
+                // Si un género nuevo colisiona hay que ajustar la función de slot
+                throw new IllegalStateException("Colisión en la tabla de géneros: " + g + " / " + TABLA_GENEROS[slot]);
+            }
+            TABLA_GENEROS[slot] = g;
+        }
+    }
+
+    private final int colId, colTitulo, colDirector, colAnio, colDuracion, colGenero;
+
+    private PeliculaRowMapper(ResultSetMetaData md) throws SQLException {
+        int id = 0, titulo = 0, director = 0, anio = 0, duracion = 0, genero = 0;
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            switch (md.getColumnLabel(i).toLowerCase(Locale.ROOT)) {
+                case "id" -> id = i;
+                case "titulo" -> titulo = i;
+                case "director" -> director = i;
+                case "anio" -> anio = i;
+                case "duracion" -> duracion = i;
+                case "genero" -> genero = i;
+                default -> { /* Columnas extra se ignoran */ }
+            }
+        }
+        if (id == 0 || titulo == 0 || director == 0 || anio == 0 || duracion == 0 || genero == 0) {
+            throw new SQLException("El ResultSet no contiene todas las columnas de Cartelera.");
+        }
+        this.colId = id;
+        this.colTitulo = titulo;
+        this.colDirector = director;
+        this.colAnio = anio;
+        this.colDuracion = duracion;
+        this.colGenero = genero;
+    }
+
+    /**
+     * Obtiene el mapeador para la forma del ResultSet (cacheado)
+     *
+     * @param rs ResultSet a mapear
+     * @return PeliculaRowMapper con los índices ya resueltos
+     * @throws SQLException Si faltan columnas o falla la lectura de metadatos
+     */
+    public static PeliculaRowMapper of(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        StringBuilder forma = new StringBuilder();
+        for (int i = 1; i <= md.getColumnCount(); i++) forma.append(md.getColumnLabel(i)).append(',');
+        PeliculaRowMapper mapper = POR_FORMA.get(forma.toString());
+        if (mapper == null) {
+            mapper = new PeliculaRowMapper(md);
+            PeliculaRowMapper previo = POR_FORMA.putIfAbsent(forma.toString(), mapper);
+            if (previo != null) mapper = previo;
+        }
+        return mapper;
+    }
+
+    /**
+     * Mapea la fila actual a un bean Pelicula
+     *
+     * @param rs ResultSet posicionado en una fila
+     * @return Pelicula nueva
+     * @throws SQLException Si falla la lectura
+     */
+    public Pelicula map(ResultSet rs) throws SQLException {
+        return new Pelicula(rs.getInt(colId), rs.getString(colTitulo), DirectorPool.intern(rs.getString(colDirector)),
+                rs.getInt(colAnio), rs.getInt(colDuracion), genero(rs.getString(colGenero)));
+    }
+
+    /**
+     * Mapea la fila actual al valor compacto e inmutable
+     *
+     * @param rs ResultSet posicionado en una fila
+     * @return PeliculaValue nuevo
+     * @throws SQLException Si falla la lectura
+     */
+    public PeliculaValue mapValue(ResultSet rs) throws SQLException {
+        return PeliculaValue.of(rs.getInt(colId), rs.getString(colTitulo), rs.getString(colDirector),
+                rs.getInt(colAnio), rs.getInt(colDuracion), genero(rs.getString(colGenero)));
+    }
+
+    /**
+     * Recorre el ResultSet entregando siempre la misma instancia de fila
+     *
+     * La fila solo es válida durante la llamada al consumidor; quien necesite
+     * retenerla debe copiarla (ej. con {@link Row#toValue()}).
+     *
+     * @param rs ResultSet a recorrer desde la posición actual
+     * @param consumidor Recibe la fila flyweight
+     * @throws SQLException Si falla la lectura
+     */
+    public void forEach(ResultSet rs, Consumer<Row> consumidor) throws SQLException {
+        Row fila = new Row();
+        while (rs.next()) {
+            fila.id = rs.getInt(colId);
+            fila.titulo = rs.getString(colTitulo);
+            fila.director = DirectorPool.intern(rs.getString(colDirector));
+            fila.anio = rs.getInt(colAnio);
+            fila.duracion = rs.getInt(colDuracion);
+            fila.genero = genero(rs.getString(colGenero));
+            consumidor.accept(fila);
+        }
+    }
+
+    /**
+     * Decodifica el ENUM de la base de datos con la tabla precalculada
+     *
+     * @param nombre Valor de la columna genero
+     * @return Genero correspondiente
+     * @throws SQLException Si el valor no es un género conocido
+     */
+    static Genero genero(String nombre) throws SQLException {
+        if (nombre != null && !nombre.isEmpty()) {
+            Genero g = TABLA_GENEROS[slotGenero(nombre)];
+            if (g != null && g.name().equals(nombre)) return g;
+        }
+        throw new SQLException("Género desconocido en la base de datos: " + nombre);
+    }
+
+    private static int slotGenero(String nombre) {
+        return (nombre.length() * 7 + nombre.charAt(0)) & 63;
+    }
+
+    /**
+     * Fila reutilizable (flyweight) para consumidores en streaming
+     */
+    public static final class Row {
+        private int id, anio, duracion;
+        private String titulo, director;
+        private Genero genero;
+
+        public int getId() { return id; }
+        public String getTitulo() { return titulo; }
+        public String getDirector() { return director; }
+        public int getAnio() { return anio; }
+        public int getDuracion() { return duracion; }
+        public Genero getGenero() { return genero; }
+
+        /**
+         * @return PeliculaValue copia inmutable de la fila actual
+         */
+        public PeliculaValue toValue() {
+            return PeliculaValue.of(id, titulo, director, anio, duracion, genero);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package dao;
+
+import db.ConnectionProvider;
+import db.DatabaseConnection;
+import db.QueryTimeout;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import model.Reserva;
+
+/**
+ * Implementación concreta del DAO de asientos vendidos
+ * 
+ * Responsabilidades:
+ * - Persistir los lotes de ventas y devoluciones en la tabla RESERVA con
+ *   un solo commit por lote
+ * - Acotar cada sentencia con el timeout de su tipo de operación (QueryTimeout)
+ * 
+ * Implementa: IReservaDAO
+ * Utiliza: DatabaseConnection para obtener conexiones
+ * 
+ */
+
+public class ReservaDAO implements IReservaDAO {
+    
+    private final ConnectionProvider connections;
+    
+    /**
+     * Constructor por defecto: usa la base de datos configurada en DatabaseConnection
+     */
+    public ReservaDAO() {
+        this(DatabaseConnection::get);
+    }
+    
+    /**
+     * @param connections Proveedor de conexiones a utilizar
+     */
+    public ReservaDAO(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+    
+    /**
+     * Las devoluciones se aplican primero: un asiento devuelto y revendido
+     * en el mismo lote no choca con la clave primaria
+     */
+    @Override
+    public void applyBatch(List<Reserva> ventas, List<Reserva> devoluciones) throws SQLException {
+        final String borrar = "DELETE FROM Reserva WHERE funcion_id = ? AND asiento = ?";
+        final String insertar = "INSERT INTO Reserva (funcion_id, asiento) VALUES (?, ?)";
+        
+        try (Connection cn = connections.get()) {
+            cn.setAutoCommit(false);
+            try {
+                ejecutar(cn, borrar, devoluciones);
+                ejecutar(cn, insertar, ventas);
+                cn.commit();
+            } catch (SQLException e) {
+                cn.rollback();
+                throw e;
+            } finally {
+                cn.setAutoCommit(true);
+            }
+        }
+    }
+    
+    @Override
+    public List<Integer> findAsientos(int funcionId) throws SQLException {
+        final String sql = "SELECT asiento FROM Reserva WHERE funcion_id = ?";
+        
+        try (Connection cn = connections.get();
+                PreparedStatement ps = cn.prepareStatement(sql)) {
+            
+            ps.setQueryTimeout(QueryTimeout.LECTURA.segundos);
+            ps.setInt(1, funcionId);
+            List<Integer> asientos = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) asientos.add(rs.getInt(1));
+            }
+            return asientos;
+        }
+    }
+    
+    private static void ejecutar(Connection cn, String sql, List<Reserva> reservas) throws SQLException {
+        if (reservas.isEmpty()) return;
+        try (PreparedStatement ps = cn.prepareStatement(sql)) {
+            
+            ps.setQueryTimeout(QueryTimeout.ESCRITURA.segundos);
+            for (Reserva r : reservas) {
+                ps.setInt(1, r.funcionId());
+                ps.setInt(2, r.asiento());
+                ps.addBatch();
+            }
+            for (int n : ps.executeBatch()) {
+                if (n == 0) throw new SQLException("El lote contiene un asiento no vendido.");
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package dao;
+
+import db.CancellationToken;
+import db.CircuitBreaker;
+import db.RetryPolicy;
+import db.TransactionOptions;
+import db.UnitOfWork;
+import java.awt.EventQueue;
+import java.sql.SQLException;
+import java.util.List;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * Decorador de IPeliculaDAO que reintenta los errores transitorios
+ *
+ * Responsabilidades:
+ * - Reintentar con backoff y jitter las lecturas y modificaciones
+ *   idempotentes ante errores de conexión o conflictos de concurrencia
+ * - Reintentar las operaciones no idempotentes (create, delete, lotes y
+ *   transacciones) solo cuando es seguro: la conexión no llegó a abrirse o
+ *   el servidor deshizo la transacción por deadlock
+ * - No reintentar cuando el circuito está abierto ni cuando el llamador
+ *   canceló la operación: el error llega al llamador sin esperas
+ * - No reintentar en el hilo de eventos de Swing: las esperas congelarían la
+ *   interfaz; el error llega al usuario, que puede volver a intentar
+ *
+ * Características:
+ * - Dentro de inTransaction las operaciones no se reintentan una a una (la
+ *   conexión de la transacción ya no sirve): se reintenta la transacción
+ *   completa
+ * - El circuit breaker va en el proveedor de conexiones del DAO envuelto;
+ *   este decorador solo decide cuándo volver a intentar
+ *
+ */
+
+public class ResilientPeliculaDAO implements IPeliculaDAO {
+
+    private final IPeliculaDAO dao;
+    private final RetryPolicy politica;
+    private final ThreadLocal<Boolean> enTransaccion = new ThreadLocal<>();
+
+    /**
+     * @param dao DAO a decorar
+     * @param politica Cantidad de intentos y esperas
+     */
+    public ResilientPeliculaDAO(IPeliculaDAO dao, RetryPolicy politica) {
+        this.dao = dao;
+        this.politica = politica;
+    }
+
+    @Override
+    public int create(Pelicula p) throws SQLException {
+        return ejecutar(false, () -> dao.create(p));
+    }
+
+    @Override
+    public Pelicula findById(int id) throws SQLException {
+        return ejecutar(true, () -> dao.findById(id));
+    }
+
+    @Override
+    public List<Pelicula> findByIds(List<Integer> ids) throws SQLException {
+        return ejecutar(true, () -> dao.findByIds(ids));
+    }
+
+    @Override
+    public List<Pelicula> findAll() throws SQLException {
+        return ejecutar(true, dao::findAll);
+    }
+
+    @Override
+    public List<Pelicula> findByTitleLike(String query) throws SQLException {
+        return ejecutar(true, () -> dao.findByTitleLike(query));
+    }
+
+    @Override
+    public void update(Pelicula p) throws SQLException {
+        ejecutar(true, () -> {
+            dao.update(p);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        // No idempotente: repetirlo tras un corte ambiguo daría "No se encontró"
+        ejecutar(false, () -> {
+            dao.delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) throws SQLException {
+        return ejecutar(true, () -> dao.findByFilters(genero, anioDesde, anioHasta));
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) throws SQLException {
+        return ejecutar(true, () -> dao.findBy(criteria));
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException {
+        return ejecutar(true, () -> {
+            token.throwIfCancelled();
+            return dao.findBy(criteria, token);
+        });
+    }
+
+    @Override
+    public List<Pelicula> findPage(int offset, int limite) throws SQLException {
+        return ejecutar(true, () -> dao.findPage(offset, limite));
+    }
+
+    @Override
+    public void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        ejecutar(false, () -> {
+            dao.applyBatch(updates, deletes);
+            return null;
+        });
+    }
+
+    @Override
+    public void importBatch(List<Pelicula> peliculas) throws SQLException {
+        ejecutar(false, () -> {
+            dao.importBatch(peliculas);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException {
+        if (enTransaccion.get() != null) return dao.inTransaction(opciones, trabajo);
+        return ejecutar(false, () -> {
+            enTransaccion.set(Boolean.TRUE);
+            try {
+                return dao.inTransaction(opciones, trabajo);
+            } finally {
+                enTransaccion.remove();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la operación reintentando según la política
+     *
+     * @param idempotente true si repetirla no cambia el resultado
+     */
+    private <T> T ejecutar(boolean idempotente, UnitOfWork.Work<T> operacion) throws SQLException {
+        if (enTransaccion.get() != null || EventQueue.isDispatchThread()) return operacion.run();
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.run();
+            } catch (SQLException e) {
+                if (intento >= politica.getIntentos() || !reintentable(e, idempotente)) throw e;
+                try {
+                    Thread.sleep(politica.espera(intento));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static boolean reintentable(SQLException e, boolean idempotente) {
+        if (e instanceof CircuitBreaker.OpenException || e instanceof CancellationToken.CancelledException) return false;
+        if (idempotente) return RetryPolicy.esTransitoria(e);
+        return RetryPolicy.sinEfectos(e) || RetryPolicy.esConflicto(e);
+    }
+}
@@ -0,0 +1,123 @@
+package dao;
+
+import db.CancellationToken;
+import db.Session;
+import db.TransactionOptions;
+import db.UnitOfWork;
+import java.sql.SQLException;
+import java.util.List;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * Decorador de IPeliculaDAO que ejecuta cada llamada en nombre de una Session
+ *
+ * Responsabilidades:
+ * - Ligar la sesión a la llamada para que ReplicaRouter registre sus
+ *   escrituras y envíe sus lecturas al primario durante la ventana de
+ *   read-your-writes
+ *
+ * Características:
+ * - No cambia el resultado de ninguna operación; sin réplicas configuradas
+ *   la sesión no tiene efecto
+ *
+ * Implementa: IPeliculaDAO
+ *
+ */
+
+public class SessionPeliculaDAO implements IPeliculaDAO {
+
+    private final IPeliculaDAO dao;
+    private final Session sesion;
+
+    /**
+     * @param dao DAO a decorar
+     * @param sesion Sesión en cuyo nombre se ejecutan las llamadas
+     */
+    public SessionPeliculaDAO(IPeliculaDAO dao, Session sesion) {
+        this.dao = dao;
+        this.sesion = sesion;
+    }
+
+    @Override
+    public int create(Pelicula p) throws SQLException {
+        return sesion.ejecutar(() -> dao.create(p));
+    }
+
+    @Override
+    public Pelicula findById(int id) throws SQLException {
+        return sesion.ejecutar(() -> dao.findById(id));
+    }
+
+    @Override
+    public List<Pelicula> findAll() throws SQLException {
+        return sesion.ejecutar(dao::findAll);
+    }
+
+    @Override
+    public List<Pelicula> findByTitleLike(String query) throws SQLException {
+        return sesion.ejecutar(() -> dao.findByTitleLike(query));
+    }
+
+    @Override
+    public void update(Pelicula p) throws SQLException {
+        sesion.ejecutar(() -> {
+            dao.update(p);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        sesion.ejecutar(() -> {
+            dao.delete(id);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) throws SQLException {
+        return sesion.ejecutar(() -> dao.findByFilters(genero, anioDesde, anioHasta));
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) throws SQLException {
+        return sesion.ejecutar(() -> dao.findBy(criteria));
+    }
+
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException {
+        return sesion.ejecutar(() -> dao.findBy(criteria, token));
+    }
+
+    @Override
+    public List<Pelicula> findPage(int offset, int limite) throws SQLException {
+        return sesion.ejecutar(() -> dao.findPage(offset, limite));
+    }
+
+    @Override
+    public List<Pelicula> findByIds(List<Integer> ids) throws SQLException {
+        return sesion.ejecutar(() -> dao.findByIds(ids));
+    }
+
+    @Override
+    public void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        sesion.ejecutar(() -> {
+            dao.applyBatch(updates, deletes);
+            return null;
+        });
+    }
+
+    @Override
+    public void importBatch(List<Pelicula> peliculas) throws SQLException {
+        sesion.ejecutar(() -> {
+            dao.importBatch(peliculas);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T inTransaction(TransactionOptions opciones, UnitOfWork.Work<T> trabajo) throws SQLException {
+        return sesion.ejecutar(() -> dao.inTransaction(opciones, trabajo));
+    }
+}
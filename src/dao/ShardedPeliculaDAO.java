@@ -0,0 +1,458 @@
+package dao;
+
+import db.CancellationToken;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+import model.Genero;
+import model.Pelicula;
+
+/**
+ * DAO que reparte la Cartelera entre varios nodos de base de datos (shards)
+ *
+ * Responsabilidades:
+ * - Enrutar create por clave de shard y update/delete/findById por ID
+ * - Aplicar lotes (applyBatch) enteros o nada entre todos los shards
+ * - Consultar todos los shards en paralelo (scatter-gather) en las búsquedas
+ * - Mezclar los resultados ordenados de cada shard en un único orden por título
+ *
+ * Características:
+ * - Los IDs globales codifican el shard: idGlobal = idLocal * shards + indice
+ * - La clave por defecto es (titulo, anio), así la restricción única de cada
+ *   shard sigue garantizando que no haya duplicados en todo el catálogo; si
+ *   una modificación cambia la clave de shard, la fila se mueve al nuevo
+ *   shard y recibe un ID global nuevo
+ * - Cada shard es un IPeliculaDAO, por lo que puede probarse con varias
+ *   instancias de InMemoryPeliculaDAO como sustitutos embebidos
+ * - La paginación por offset no escala con la profundidad: cada shard
+ *   entrega sus primeras offset + limite filas y la mezcla descarta las
+ *   anteriores al offset, así que una página cuesta O(shards × (offset +
+ *   limite)) filas leídas, transferidas y mezcladas. Para recorrer el
+ *   catálogo se pagina por keyset (PeliculaCriteria.despuesDe): cada shard
+ *   arranca en su índice y aporta a lo sumo limite filas por página
+ *
+ * Implementa: IPeliculaDAO
+ *
+ */
+
+public class ShardedPeliculaDAO implements IPeliculaDAO {
+
+    private final List<IPeliculaDAO> shards;
+    private final ToIntFunction<Pelicula> shardKey; // Clave de enrutamiento de escrituras
+    private final ExecutorService pool;
+    // Las modificaciones y bajas comparten el bloqueo; mover una fila lo toma exclusivo
+    private final ReadWriteLock movimientos = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor con la clave por defecto (titulo, anio)
+     *
+     * @param shards DAOs de cada nodo, en orden fijo (el índice forma parte del ID)
+     */
+    public ShardedPeliculaDAO(List<IPeliculaDAO> shards) {
+        this(shards, p -> InMemoryPeliculaDAO.claveUnica(p.getTitulo(), p.getAnio()).hashCode());
+    }
+
+    /**
+     * Constructor con una clave de shard personalizada
+     *
+     * @param shards DAOs de cada nodo, en orden fijo (el índice forma parte del ID)
+     * @param shardKey Función que calcula la clave de enrutamiento de una película
+     */
+    public ShardedPeliculaDAO(List<IPeliculaDAO> shards, ToIntFunction<Pelicula> shardKey) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un shard.");
+        }
+        this.shards = List.copyOf(shards);
+        this.shardKey = shardKey;
+        this.pool = Executors.newFixedThreadPool(this.shards.size(), r -> {
+            Thread t = new Thread(r, "shard-query");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public int create(Pelicula p) throws SQLException {
+        int shard = shardDe(p);
+        IPeliculaDAO dao = shards.get(shard);
+        int localId = dao.create(p);
+        try {
+            return idGlobal(localId, shard);
+        } catch (SQLException e) {
+            // Una fila sin ID global no podría modificarse ni borrarse
+            try {
+                dao.delete(localId);
+            } catch (SQLException | RuntimeException ex) {
+                e.addSuppressed(ex);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Pelicula findById(int id) throws SQLException {
+        Pelicula p = shards.get(shardDeId(id)).findById(idLocal(id));
+        if (p != null) p.setId(id);
+        return p;
+    }
+
+    @Override
+    public List<Pelicula> findAll() throws SQLException {
+        return scatterGather((dao, shard) -> dao.findAll());
+    }
+
+    @Override
+    public List<Pelicula> findByTitleLike(String query) throws SQLException {
+        return scatterGather((dao, shard) -> dao.findByTitleLike(query));
+    }
+
+    @Override
+    public List<Pelicula> findByFilters(Genero genero, int anioDesde, int anioHasta) throws SQLException {
+        return scatterGather((dao, shard) -> dao.findByFilters(genero, anioDesde, anioHasta));
+    }
+
+    /**
+     * Cada shard aporta sus primeras offset + limite filas; tras la mezcla
+     * global se descartan las anteriores al offset (costo proporcional al
+     * offset, ver la documentación de la clase)
+     */
+    @Override
+    public List<Pelicula> findPage(int offset, int limite) throws SQLException {
+        List<Pelicula> primeras = scatterGather((dao, shard) -> dao.findPage(0, Math.addExact(offset, limite)));
+        int desde = Math.min(offset, primeras.size());
+        return primeras.subList(desde, Math.min(primeras.size(), desde + limite));
+    }
+
+    /**
+     * Cada shard ejecuta el criterio con offset 0 y límite offset + límite
+     * (y el keyset traducido a su ID local); se mezclan con el mismo orden
+     * del criterio y se recorta globalmente. Con despuesDe en lugar de
+     * offset cada shard aporta solo límite filas
+     */
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria) throws SQLException {
+        return findBy(criteria, new CancellationToken());
+    }
+
+    /**
+     * Todos los shards comparten el token: cancelarlo cancela la consulta
+     * en cada nodo
+     */
+    @Override
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws SQLException {
+        return criteria.recortar(scatterGather(
+                (dao, shard) -> dao.findBy(criteria.paraShard(shard, shards.size()), token), criteria.comparator()));
+    }
+
+    /**
+     * Si la nueva clave pertenece a otro shard, la fila se mueve (ver mover)
+     * y p queda con su nuevo ID global
+     */
+    @Override
+    public void update(Pelicula p) throws SQLException {
+        int id = p.getId();
+        int shard = shardDeId(id);
+        int destino = shardDe(p);
+        if (destino != shard) {
+            mover(p, shard, destino);
+            return;
+        }
+        movimientos.readLock().lock();
+        p.setId(idLocal(id));
+        try {
+            shards.get(shard).update(p);
+        } finally {
+            p.setId(id);
+            movimientos.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(int id) throws SQLException {
+        movimientos.readLock().lock();
+        try {
+            shards.get(shardDeId(id)).delete(idLocal(id));
+        } finally {
+            movimientos.readLock().unlock();
+        }
+    }
+
+    /**
+     * Mueve una fila al shard de su nueva clave: primero la inserta en el
+     * destino (su restricción única rechaza un (titulo, anio) repetido en
+     * todo el catálogo, igual que un create) y después la borra del origen;
+     * si el borrado falla, deshace la inserción
+     *
+     * No es atómico entre nodos: una caída entre ambos pasos deja la fila en
+     * los dos shards, con la clave anterior en el origen.
+     *
+     * @param p Película con los nuevos datos y su ID global actual; recibe el nuevo
+     */
+    private void mover(Pelicula p, int origen, int destino) throws SQLException {
+        int id = p.getId();
+        movimientos.writeLock().lock();
+        try {
+            IPeliculaDAO fuente = shards.get(origen);
+            IPeliculaDAO nuevo = shards.get(destino);
+            if (fuente.findById(idLocal(id)) == null) {
+                throw new SQLException("No existe la película con ID " + id + " para modificar.");
+            }
+            int localNuevo = nuevo.create(p);
+            int idNuevo;
+            try {
+                idNuevo = idGlobal(localNuevo, destino);
+                fuente.delete(idLocal(id));
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    nuevo.delete(localNuevo);
+                } catch (SQLException | RuntimeException ex) {
+                    e.addSuppressed(ex);
+                }
+                throw e;
+            }
+            p.setId(idNuevo);
+        } finally {
+            movimientos.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica la parte de cada shard con su propio applyBatch (entera o nada
+     * en ese nodo) y después mueve las filas cuya nueva clave pertenece a
+     * otro shard; si un paso falla restaura los ya confirmados en orden
+     * inverso con los valores leídos antes de aplicarlos, así el lote se
+     * aplica entero o no se aplica. Excluye las demás escrituras mientras dura
+     *
+     * No es atómico ante caídas: si el proceso termina antes de restaurar,
+     * los shards ya confirmados conservan su parte.
+     */
+    @Override
+    public void applyBatch(List<Pelicula> updates, List<Integer> deletes) throws SQLException {
+        List<List<Pelicula>> modificaciones = porShard();
+        List<List<Integer>> bajas = porShard();
+        List<Pelicula> movidas = new ArrayList<>();
+        for (Pelicula p : updates) {
+            int shard = shardDeId(p.getId());
+            if (shardDe(p) != shard) {
+                movidas.add(p);
+            } else {
+                modificaciones.get(shard).add(new Pelicula(idLocal(p.getId()), p.getTitulo(),
+                        p.getDirector(), p.getAnio(), p.getDuracion(), p.getGenero()));
+            }
+        }
+        for (int id : deletes) bajas.get(shardDeId(id)).add(idLocal(id));
+
+        movimientos.writeLock().lock();
+        try {
+            Deque<Compensacion> deshacer = new ArrayDeque<>();
+            try {
+                for (int i = 0; i < shards.size(); i++) {
+                    List<Pelicula> mods = modificaciones.get(i);
+                    if (mods.isEmpty() && bajas.get(i).isEmpty()) continue;
+                    IPeliculaDAO dao = shards.get(i);
+                    List<Integer> idsModificados = new ArrayList<>(mods.size());
+                    for (Pelicula p : mods) idsModificados.add(p.getId());
+                    List<Pelicula> previasMods = leer(dao, idsModificados);
+                    List<Pelicula> previasBajas = leer(dao, bajas.get(i));
+                    dao.applyBatch(mods, bajas.get(i));
+                    deshacer.push(() -> {
+                        dao.importBatch(previasBajas);
+                        dao.applyBatch(previasMods.reversed(), List.of());
+                    });
+                }
+                for (Pelicula p : movidas) {
+                    int id = p.getId();
+                    int origen = shardDeId(id);
+                    Pelicula previa = shards.get(origen).findById(idLocal(id));
+                    mover(p, origen, shardDe(p));
+                    int destino = shardDeId(p.getId());
+                    int localNuevo = idLocal(p.getId());
+                    deshacer.push(() -> {
+                        shards.get(destino).delete(localNuevo);
+                        shards.get(origen).importBatch(List.of(previa));
+                        p.setId(id);
+                    });
+                }
+            } catch (SQLException | RuntimeException e) {
+                while (!deshacer.isEmpty()) {
+                    try {
+                        deshacer.pop().run();
+                    } catch (SQLException | RuntimeException ex) {
+                        e.addSuppressed(ex);
+                    }
+                }
+                throw e;
+            }
+        } finally {
+            movimientos.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lee las filas de un shard en el orden de los IDs (omite las inexistentes)
+     */
+    private static List<Pelicula> leer(IPeliculaDAO dao, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return List.of();
+        Map<Integer, Pelicula> porId = new HashMap<>();
+        for (Pelicula p : dao.findByIds(ids)) porId.put(p.getId(), p);
+        List<Pelicula> out = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Pelicula p = porId.get(id);
+            if (p != null) out.add(p);
+        }
+        return out;
+    }
+
+    private <T> List<List<T>> porShard() {
+        List<List<T>> partes = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) partes.add(new ArrayList<>());
+        return partes;
+    }
+
+    /**
+     * Agrupa los IDs por shard y consulta cada shard en paralelo
+     */
+    @Override
+    public List<Pelicula> findByIds(List<Integer> ids) throws SQLException {
+        List<List<Integer>> porShard = porShard();
+        for (int id : ids) porShard.get(shardDeId(id)).add(idLocal(id));
+        return scatterGather((dao, shard) -> porShard.get(shard).isEmpty()
+                ? new ArrayList<>() : dao.findByIds(porShard.get(shard)));
+    }
+
+    /**
+     * Reparte el lote por ID: cada película va al shard que codifica su ID
+     * global. Los IDs menores a la cantidad de shards no tienen ID local
+     * válido y se rechazan. Cada shard aplica su parte entera o nada, pero no hay atomicidad
+     * entre shards
+     */
+    @Override
+    public void importBatch(List<Pelicula> peliculas) throws SQLException {
+        List<List<Pelicula>> partes = porShard();
+        for (Pelicula p : peliculas) {
+            if (p.getId() == null || idLocal(p.getId()) <= 0) {
+                throw new SQLException("ID inválido para importar en shards: " + p.getId());
+            }
+            partes.get(shardDeId(p.getId())).add(new Pelicula(idLocal(p.getId()), p.getTitulo(),
+                    p.getDirector(), p.getAnio(), p.getDuracion(), p.getGenero()));
+        }
+        for (int i = 0; i < shards.size(); i++) {
+            if (!partes.get(i).isEmpty()) shards.get(i).importBatch(partes.get(i));
+        }
+    }
+
+    private List<Pelicula> scatterGather(ShardQuery query) throws SQLException {
+        return scatterGather(query, InMemoryPeliculaDAO.POR_TITULO);
+    }
+
+    /**
+     * Ejecuta la consulta en todos los shards en paralelo y mezcla los
+     * resultados (ya ordenados según orden en cada shard) con un k-way merge
+     */
+    private List<Pelicula> scatterGather(ShardQuery query, Comparator<Pelicula> orden) throws SQLException {
+        List<Future<List<Pelicula>>> futuros = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            IPeliculaDAO dao = shards.get(i);
+            int shard = i;
+            futuros.add(pool.submit(() -> query.run(dao, shard)));
+        }
+
+        List<List<Pelicula>> parciales = new ArrayList<>(shards.size());
+        int total = 0;
+        for (int i = 0; i < futuros.size(); i++) {
+            List<Pelicula> parcial;
+            try {
+                parcial = esperar(futuros.get(i));
+            } catch (SQLException e) {
+                // El resultado ya no sirve: se liberan los demás nodos
+                for (Future<List<Pelicula>> f : futuros) f.cancel(true);
+                throw e;
+            }
+            for (Pelicula p : parcial) p.setId(idGlobal(p.getId(), i));
+            parciales.add(parcial);
+            total += parcial.size();
+        }
+        return mezclar(parciales, total, orden);
+    }
+
+    private static List<Pelicula> mezclar(List<List<Pelicula>> parciales, int total, Comparator<Pelicula> orden) {
+        // Cada entrada del heap: {indice de shard, posición dentro de su lista}
+        Comparator<int[]> porCursor = Comparator.comparing(c -> parciales.get(c[0]).get(c[1]), orden);
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, parciales.size()), porCursor);
+        for (int i = 0; i < parciales.size(); i++) {
+            if (!parciales.get(i).isEmpty()) heap.add(new int[]{i, 0});
+        }
+
+        List<Pelicula> out = new ArrayList<>(total);
+        while (!heap.isEmpty()) {
+            int[] cursor = heap.poll();
+            List<Pelicula> lista = parciales.get(cursor[0]);
+            out.add(lista.get(cursor[1]));
+            if (++cursor[1] < lista.size()) heap.add(cursor);
+        }
+        return out;
+    }
+
+    private static List<Pelicula> esperar(Future<List<Pelicula>> futuro) throws SQLException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Consulta a shards interrumpida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            throw new SQLException("Error consultando un shard: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private int shardDe(Pelicula p) {
+        return Math.floorMod(shardKey.applyAsInt(p), shards.size());
+    }
+
+    private int shardDeId(int idGlobal) {
+        return Math.floorMod(idGlobal, shards.size());
+    }
+
+    private int idLocal(int idGlobal) {
+        return idGlobal / shards.size();
+    }
+
+    /**
+     * @throws SQLException Si el ID local es demasiado grande para codificar
+     *         el shard en un int
+     */
+    private int idGlobal(int idLocal, int shard) throws SQLException {
+        try {
+            return Math.addExact(Math.multiplyExact(idLocal, shards.size()), shard);
+        } catch (ArithmeticException e) {
+            throw new SQLException("El ID " + idLocal + " del shard " + shard
+                    + " no cabe en un ID global con " + shards.size() + " shards.", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardQuery {
+        List<Pelicula> run(IPeliculaDAO dao, int shard) throws SQLException;
+    }
+
+    /**
+     * Restauración de un paso ya confirmado de applyBatch
+     */
+    @FunctionalInterface
+    private interface Compensacion {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,70 @@
+package dao;
+
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Comparación de textos equivalente a la collation de la tabla Cartelera
+ *
+ * Responsabilidades:
+ * - Ordenar como ORDER BY sobre utf8mb4 (utf8mb4_0900_ai_ci): sin distinguir
+ *   mayúsculas ni acentos
+ * - Comparar por igualdad y por contenido (=, LIKE '%texto%') con la misma
+ *   semántica
+ *
+ * Características:
+ * - El orden usa un Collator en fuerza PRIMARY (ignora acentos y
+ *   mayúsculas); un Collator no es seguro entre hilos, así que cada hilo
+ *   usa su propia copia
+ * - Igualdad y contenido comparan el texto normalizado (sin marcas
+ *   diacríticas y en minúsculas), que es lo que guarda uq_titulo_anio
+ * - Es una aproximación de la collation de MySQL: coincide en letras,
+ *   acentos y mayúsculas, pero no en todos los signos de puntuación
+ *
+ */
+
+public final class TextCollation {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}");
+
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator c = Collator.getInstance(Locale.ROOT);
+        c.setStrength(Collator.PRIMARY);
+        c.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return c;
+    });
+
+    /**
+     * Orden de ORDER BY sobre una columna de texto
+     */
+    public static final Comparator<String> ORDEN = (a, b) -> COLLATOR.get().compare(a, b);
+
+    private TextCollation() {
+    }
+
+    /**
+     * @return Texto sin acentos y en minúsculas (la forma que compara MySQL)
+     */
+    public static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return true si los textos son iguales para la collation (=)
+     */
+    public static boolean iguales(String a, String b) {
+        return normalizar(a).equals(normalizar(b));
+    }
+
+    /**
+     * @param fragmento Texto buscado, ya normalizado
+     * @return true si el texto lo contiene (LIKE '%fragmento%')
+     */
+    public static boolean contiene(String texto, String fragmento) {
+        return normalizar(texto).contains(fragmento);
+    }
+}
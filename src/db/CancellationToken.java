@@ -0,0 +1,100 @@
+package db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Señal de cancelación de una operación de larga duración
+ *
+ * Responsabilidades:
+ * - Permitir que quien inició la operación (ej. la interfaz) la cancele
+ *   desde otro hilo
+ * - Cancelar en el servidor las sentencias JDBC en curso (Statement.cancel)
+ *   para que la consulta deje de consumir recursos de la base de datos
+ * - Dejar que el DAO corte también el recorrido de filas ya recibidas
+ *
+ * Características:
+ * - Un token por operación; una vez cancelado queda cancelado
+ * - Thread-safe: varias sentencias (ej. una por shard) pueden registrarse
+ *   a la vez; una sentencia registrada tras cancelar se cancela al instante
+ *
+ */
+
+public final class CancellationToken {
+
+    /**
+     * La operación se interrumpió porque se canceló el token
+     * (SQLState 70100, el mismo que usa MySQL para consultas interrumpidas)
+     */
+    public static final class CancelledException extends SQLException {
+        private static final long serialVersionUID = 1L;
+
+        CancelledException(Throwable causa) {
+            super("Operación cancelada.", "70100", causa);
+        }
+    }
+
+    /**
+     * Registro de una sentencia; cerrarlo la quita del token
+     */
+    public interface Registro extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private volatile boolean cancelado;
+    private final Set<Statement> sentencias = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cancela la operación y las sentencias registradas
+     */
+    public void cancel() {
+        cancelado = true;
+        for (Statement st : sentencias) {
+            try {
+                st.cancel();
+            } catch (SQLException e) {
+                // La sentencia pudo terminar o cerrarse entre tanto
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelado;
+    }
+
+    /**
+     * @throws CancelledException Si el token fue cancelado
+     */
+    public void throwIfCancelled() throws CancelledException {
+        if (cancelado) throw new CancelledException(null);
+    }
+
+    /**
+     * Asocia una sentencia al token mientras se ejecuta
+     *
+     * @param st Sentencia a cancelar si se cancela el token
+     * @return Registro a cerrar al terminar la sentencia (try-with-resources)
+     * @throws CancelledException Si el token ya estaba cancelado
+     */
+    public Registro registrar(Statement st) throws CancelledException {
+        sentencias.add(st);
+        if (cancelado) {
+            sentencias.remove(st);
+            throw new CancelledException(null);
+        }
+        return () -> sentencias.remove(st);
+    }
+
+    /**
+     * Traduce el error de una sentencia cancelada por este token
+     *
+     * @param e Error producido por la sentencia
+     * @return CancelledException si el token fue cancelado; si no, el mismo error
+     */
+    public SQLException traducir(SQLException e) {
+        return cancelado && !(e instanceof CancelledException) ? new CancelledException(e) : e;
+    }
+}
@@ -0,0 +1,185 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker sobre la apertura de conexiones a un nodo
+ *
+ * Responsabilidades:
+ * - Contar los fallos de conexión seguidos y abrir el circuito al llegar al
+ *   umbral: mientras está abierto, pedir una conexión falla de inmediato
+ *   en lugar de esperar el timeout del driver
+ * - Sondear el nodo en segundo plano y cerrar el circuito cuando responde
+ * - Notificar cada cambio de estado (ej. para mostrarlo en la interfaz)
+ *
+ * Características:
+ * - El estado SEMI_ABIERTO dura lo que tarda la sonda: la prueba la hace el
+ *   hilo de sondeo, nunca una operación del usuario
+ * - Solo cuentan los errores de conexión (clase 08); un error de SQL o de
+ *   credenciales no abre el circuito
+ * - Las conexiones que no se pudieron abrir se informan con SQLState 08001
+ *   (la operación no llegó al servidor y se puede reintentar)
+ *
+ */
+
+public final class CircuitBreaker implements AutoCloseable {
+
+    /**
+     * Estado del circuito
+     */
+    public enum Estado { CERRADO, ABIERTO, SEMI_ABIERTO }
+
+    /**
+     * Rechazo inmediato mientras el circuito está abierto
+     */
+    public static final class OpenException extends SQLTransientConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        OpenException(String nombre) {
+            super("Sin conexión a " + nombre + ". Se reintentará automáticamente.", "08001");
+        }
+    }
+
+    private static final int TIMEOUT_SONDA_S = 2;
+
+    private final String nombre;
+    private final ConnectionProvider sonda;
+    private final int umbral;
+    private final AtomicReference<Estado> estado = new AtomicReference<>(Estado.CERRADO);
+    private final AtomicInteger fallosSeguidos = new AtomicInteger();
+    private final List<Consumer<Estado>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService sondeo;
+
+    /**
+     * @param nombre Nombre del nodo (para mensajes)
+     * @param sonda Proveedor usado para comprobar si el nodo volvió
+     * @param umbral Fallos de conexión seguidos que abren el circuito
+     * @param sondeoMillis Intervalo entre sondeos mientras está abierto
+     */
+    public CircuitBreaker(String nombre, ConnectionProvider sonda, int umbral, long sondeoMillis) {
+        if (umbral < 1 || sondeoMillis < 1) {
+            throw new IllegalArgumentException("Umbral o intervalo de sondeo inválido.");
+        }
+        this.nombre = nombre;
+        this.sonda = sonda;
+        this.umbral = umbral;
+        this.sondeo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "circuit-probe-" + nombre);
+            t.setDaemon(true);
+            return t;
+        });
+        sondeo.scheduleWithFixedDelay(this::sondear, sondeoMillis, sondeoMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Envuelve un proveedor para que pase por el circuito
+     *
+     * @param proveedor Proveedor de conexiones del nodo
+     * @return ConnectionProvider que falla de inmediato con el circuito abierto
+     */
+    public ConnectionProvider proteger(ConnectionProvider proveedor) {
+        return () -> {
+            if (estado.get() != Estado.CERRADO) throw new OpenException(nombre);
+            try {
+                Connection cn = proveedor.get();
+                fallosSeguidos.set(0);
+                return cn;
+            } catch (SQLException e) {
+                if (!RetryPolicy.esConexion(e)) throw e;
+                if (fallosSeguidos.incrementAndGet() >= umbral) abrir();
+                throw new SQLTransientConnectionException("No se pudo conectar a " + nombre + ": "
+                        + e.getMessage(), "08001", e.getErrorCode(), e);
+            }
+        };
+    }
+
+    /**
+     * Abre el circuito sin esperar al umbral (ej. falló la prueba inicial)
+     */
+    public void abrir() {
+        Estado previo = estado.getAndSet(Estado.ABIERTO);
+        if (previo == Estado.CERRADO) {
+            System.err.println("Circuito de " + nombre + " abierto: sin conexión, sondeando en segundo plano.");
+            notificar(Estado.ABIERTO);
+        }
+    }
+
+    /**
+     * Prueba el nodo de inmediato y abre el circuito si no responde (ej. al
+     * iniciar la aplicación, para no esperar a que fallen las operaciones)
+     *
+     * @return true si el nodo respondió
+     */
+    public boolean probar() {
+        boolean ok = responde();
+        if (!ok) abrir();
+        return ok;
+    }
+
+    public Estado getEstado() {
+        return estado.get();
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Registra un listener de cambios de estado (se invoca desde el hilo que
+     * produjo el cambio)
+     *
+     * @param listener Recibe el nuevo estado
+     */
+    public void addListener(Consumer<Estado> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Con el circuito abierto, prueba una conexión y lo cierra si responde
+     */
+    private void sondear() {
+        if (!estado.compareAndSet(Estado.ABIERTO, Estado.SEMI_ABIERTO)) return;
+        notificar(Estado.SEMI_ABIERTO);
+        boolean ok = responde();
+        Estado nuevo = ok ? Estado.CERRADO : Estado.ABIERTO;
+        if (ok) {
+            fallosSeguidos.set(0);
+            System.out.println("Circuito de " + nombre + " cerrado: conexión recuperada.");
+        }
+        estado.set(nuevo);
+        notificar(nuevo);
+    }
+
+    private boolean responde() {
+        try (Connection cn = sonda.get()) {
+            return cn.isValid(TIMEOUT_SONDA_S);
+        } catch (SQLException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void notificar(Estado nuevo) {
+        for (Consumer<Estado> l : listeners) {
+            try {
+                l.accept(nuevo);
+            } catch (RuntimeException e) {
+                System.err.println("Error en listener del circuito: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sondeo.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fuente de conexiones JDBC
+ *
+ * Responsabilidades:
+ * - Abstraer el origen de las conexiones usadas por los DAO
+ * - Permitir apuntar un DAO a un nodo distinto del configurado por defecto
+ *
+ * Características:
+ * - Interfaz funcional: DatabaseConnection::get cumple el contrato
+ *
+ */
+
+@FunctionalInterface
+public interface ConnectionProvider {
+
+    /**
+     * Obtiene una conexión abierta
+     *
+     * @return Connection objeto de conexión JDBC
+     * @throws SQLException Si ocurre error al establecer la conexión
+     */
+    Connection get() throws SQLException;
+}
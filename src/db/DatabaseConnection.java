@@ -3,6 +3,9 @@ package db;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 /**
  * Clase de utilidad para la gestión de conexiones a la base de datos
@@ -17,6 +20,10 @@ import java.sql.SQLException;
  * - Clase final para evitar herencia
  * - Contructor privado para evitar instanciación
  * - Método estáticos para acceso global
+ * - Nodos adicionales (shards) configurables con -Dcine.db.shards=url1,url2
+ * - Réplicas de lectura configurables con -Dcine.db.replicas=url1,url2
+ * - Timeout de conexión acotado (-Dcine.db.connect.ms) y circuit breaker
+ *   con reintentos configurables (-Dcine.db.circuito.*, -Dcine.db.reintentos.*)
  * 
  */
 
@@ -25,6 +32,22 @@ public final class DatabaseConnection {
     private static final String URL = "jdbc:mysql://localhost:3306/Cine_DB";
     private static final String USER = "root";
     private static final String PASS = "";
+    // Lista de URLs de los shards separadas por coma (vacía = un solo nodo)
+    private static final String SHARDS = System.getProperty("cine.db.shards", "");
+    // Réplicas de solo lectura del primario y cómo repartir las lecturas; la
+    // ventana de read-your-writes solo se usa si el primario no tiene GTID
+    private static final String REPLICAS = System.getProperty("cine.db.replicas", "");
+    private static final String ESTRATEGIA = System.getProperty("cine.db.replicas.estrategia", "ROUND_ROBIN");
+    private static final long VENTANA_RYW_MS = Long.getLong("cine.db.replicas.ryw.ms", 5000);
+    private static final long HEALTH_CHECK_MS = Long.getLong("cine.db.replicas.health.ms", 10000);
+    // Resiliencia: cuánto esperar al abrir una conexión, cuándo abrir el
+    // circuito, cada cuánto sondear y cómo reintentar
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("cine.db.connect.ms", 3000);
+    private static final int FALLOS_CIRCUITO = Integer.getInteger("cine.db.circuito.fallos", 3);
+    private static final long SONDEO_MS = Long.getLong("cine.db.circuito.sondeo.ms", 2000);
+    private static final int REINTENTOS = Integer.getInteger("cine.db.reintentos", 3);
+    private static final long REINTENTO_BASE_MS = Long.getLong("cine.db.reintentos.base.ms", 100);
+    private static final long REINTENTO_MAX_MS = Long.getLong("cine.db.reintentos.max.ms", 1000);
 
     // Constructor privado para evitar instanciación
     private DatabaseConnection(){}
@@ -36,7 +59,85 @@ public final class DatabaseConnection {
      * @throws SQLException Si ocurre error al establecer la conexión
      */
     public static Connection get() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        return get(URL);
+    }
+    
+    /**
+     * Obtiene una conexión a un nodo específico con las mismas credenciales
+     * 
+     * @param url URL JDBC del nodo
+     * @return Connection objeto de conexión JDBC
+     * @throws SQLException Si ocurre error al establecer la conexión
+     */
+    public static Connection get(String url) throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", USER);
+        props.setProperty("password", PASS);
+        // Sin esto el driver puede esperar minutos a un servidor caído
+        props.setProperty("connectTimeout", String.valueOf(CONNECT_TIMEOUT_MS));
+        return DriverManager.getConnection(url, props);
+    }
+    
+    /**
+     * Crea un proveedor de conexiones fijo a una URL
+     * 
+     * @param url URL JDBC del nodo
+     * @return ConnectionProvider que abre conexiones contra esa URL
+     */
+    public static ConnectionProvider forUrl(String url) {
+        return () -> get(url);
+    }
+    
+    /**
+     * Obtiene las URLs de los shards configurados
+     * 
+     * @return List con las URLs, vacía si no hay shards configurados
+     */
+    public static List<String> shardUrls() {
+        return splitUrls(SHARDS);
+    }
+    
+    /**
+     * Crea el enrutador de lecturas/escrituras con las réplicas configuradas
+     * 
+     * @param primary Proveedor de conexiones del primario (ej. protegido por
+     *        su circuit breaker)
+     * @return ReplicaRouter sobre el primario, o null si no hay réplicas configuradas
+     */
+    public static ReplicaRouter replicaRouter(ConnectionProvider primary) {
+        List<String> urls = splitUrls(REPLICAS);
+        if (urls.isEmpty()) return null;
+        
+        List<ConnectionProvider> replicas = new ArrayList<>();
+        for (String url : urls) replicas.add(forUrl(url));
+        return new ReplicaRouter(primary, replicas,
+                ReplicaRouter.Estrategia.valueOf(ESTRATEGIA), VENTANA_RYW_MS, HEALTH_CHECK_MS);
+    }
+    
+    /**
+     * Crea el circuit breaker de un nodo con la configuración global
+     * 
+     * @param nombre Nombre del nodo (para mensajes y la interfaz)
+     * @param nodo Proveedor de conexiones del nodo (también usado como sonda)
+     * @return CircuitBreaker que sondea el nodo mientras está abierto
+     */
+    public static CircuitBreaker circuitBreaker(String nombre, ConnectionProvider nodo) {
+        return new CircuitBreaker(nombre, nodo, FALLOS_CIRCUITO, SONDEO_MS);
+    }
+    
+    /**
+     * @return Política de reintentos configurada
+     */
+    public static RetryPolicy retryPolicy() {
+        return new RetryPolicy(REINTENTOS, REINTENTO_BASE_MS, REINTENTO_MAX_MS);
+    }
+    
+    private static List<String> splitUrls(String lista) {
+        List<String> urls = new ArrayList<>();
+        for (String url : lista.split(",")) {
+            if (!url.isBlank()) urls.add(url.trim());
+        }
+        return urls;
     }
     
     /**
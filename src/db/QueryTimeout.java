@@ -0,0 +1,29 @@
+package db;
+
+/**
+ * Timeout de las sentencias según el tipo de operación
+ *
+ * Responsabilidades:
+ * - Acotar cuánto puede ejecutarse una sentencia en el servidor
+ *   (Statement.setQueryTimeout) para que una consulta lenta no bloquee la
+ *   aplicación indefinidamente
+ *
+ * Características:
+ * - Cada tipo se configura con -Dcine.db.timeout.<tipo>.s (0 = sin límite)
+ * - LECTURA: búsquedas por clave; LISTADO: recorridos, filtros y LIKE;
+ *   ESCRITURA: altas, modificaciones, bajas y lotes
+ *
+ */
+
+public enum QueryTimeout {
+    LECTURA("lectura", 5),
+    LISTADO("listado", 30),
+    ESCRITURA("escritura", 15);
+
+    /** Segundos permitidos a cada sentencia de este tipo */
+    public final int segundos;
+
+    QueryTimeout(String nombre, int porDefecto) {
+        this.segundos = Integer.getInteger("cine.db.timeout." + nombre + ".s", porDefecto);
+    }
+}
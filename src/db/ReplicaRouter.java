@@ -0,0 +1,330 @@
+package db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enrutador de conexiones con separación de lecturas y escrituras
+ *
+ * Responsabilidades:
+ * - Enviar las escrituras al nodo primario
+ * - Repartir las lecturas entre réplicas (round-robin o menor carga)
+ * - Garantizar read-your-writes: tras una escritura, las lecturas de la misma
+ *   Session (en cualquier hilo) solo van a una réplica que ya aplicó la
+ *   posición del primario que incluye esa escritura; si ninguna la alcanzó,
+ *   van al primario
+ * - Verificar periódicamente la salud de las réplicas y hacer failover
+ *
+ * Características:
+ * - La posición es el gtid_executed del primario, capturado en la primera
+ *   lectura tras cada escritura confirmada; cada réplica se compara con
+ *   GTID_SUBSET y recuerda la última posición que alcanzó, así una sesión
+ *   al día no paga consultas extra
+ * - Si el primario no usa GTID (gtid_mode=OFF) no hay posición que
+ *   comparar: la sesión lee del primario durante una ventana fija tras
+ *   escribir, que es solo una aproximación (una réplica con más retraso que
+ *   la ventana devuelve datos anteriores a la escritura)
+ * - Si no hay réplicas sanas, las lecturas caen al primario
+ * - Una réplica caída vuelve con el health check o, si está desactivado,
+ *   cuando una lectura la reintenta tras una espera
+ * - La carga de cada réplica se mide con las conexiones abiertas en curso
+ * - Una lectura fuera de toda Session (ej. la precarga de cachés) no tiene
+ *   escrituras propias que esperar y va a las réplicas
+ *
+ */
+
+public final class ReplicaRouter implements AutoCloseable {
+
+    /**
+     * Estrategia de selección de réplica para las lecturas
+     */
+    public enum Estrategia { ROUND_ROBIN, LEAST_LOADED }
+
+    private static final long REINTENTO_NANOS = TimeUnit.SECONDS.toNanos(30); // Espera antes de reintentar una réplica caída
+
+    private final ConnectionProvider primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Estrategia estrategia;
+    private final long ventanaNanos; // Read-your-writes sin GTID
+    private final AtomicInteger turno = new AtomicInteger();
+    private final AtomicLong capturas = new AtomicLong(); // Secuencia de las posiciones capturadas
+    private volatile boolean conGtid = true; // false = el primario no usa GTID
+    private final ScheduledExecutorService healthCheck;
+
+    /**
+     * Constructor del enrutador
+     *
+     * @param primary Proveedor de conexiones del nodo primario
+     * @param replicas Proveedores de conexiones de las réplicas
+     * @param estrategia Estrategia de balanceo de lecturas
+     * @param ventanaMillis Tiempo tras una escritura en que la Session lee del
+     *        primario si este no usa GTID
+     * @param healthCheckMillis Intervalo entre verificaciones de salud (0 = desactivado)
+     */
+    public ReplicaRouter(ConnectionProvider primary, List<ConnectionProvider> replicas,
+            Estrategia estrategia, long ventanaMillis, long healthCheckMillis) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.estrategia = estrategia;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMillis);
+
+        if (healthCheckMillis > 0 && !this.replicas.isEmpty()) {
+            healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "replica-health-check");
+                t.setDaemon(true);
+                return t;
+            });
+            healthCheck.scheduleWithFixedDelay(this::verificarReplicas,
+                    healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+        } else {
+            healthCheck = null;
+        }
+    }
+
+    /**
+     * Proveedor para operaciones de escritura: siempre el primario
+     *
+     * @return ConnectionProvider que marca la Session actual como escritora
+     */
+    public ConnectionProvider writer() {
+        return () -> {
+            Session sesion = Session.actual();
+            if (sesion != null) sesion.registrarEscritura();
+            return primary.get();
+        };
+    }
+
+    /**
+     * Proveedor para operaciones de solo lectura
+     *
+     * @return ConnectionProvider que elige una réplica sana o el primario
+     */
+    public ConnectionProvider reader() {
+        return this::conexionLectura;
+    }
+
+    private Connection conexionLectura() throws SQLException {
+        Session sesion = Session.actual();
+        Session.Posicion requerida = null;
+        if (sesion != null) {
+            if (sesion.escribioEnEstaLlamada()) return primary.get(); // Su escritura aún no terminó
+            requerida = posicionRequerida(sesion);
+            if (requerida != null && requerida.gtid() == null) {
+                if (sesion.escribioDentroDe(ventanaNanos)) return primary.get();
+                requerida = null;
+            }
+        }
+
+        int n = replicas.size();
+        int inicio = elegirInicio();
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((inicio + i) % n);
+            if (!r.sana.get() && !r.tocaReintentar()) continue;
+            Connection c = null;
+            try {
+                c = r.abrir();
+                if (r.sana.compareAndSet(false, true)) System.out.println("Réplica " + r.nombre + " recuperada.");
+                if (requerida == null || r.alcanzo(requerida, c)) return c;
+                cerrar(c); // Atrasada: se prueba la siguiente
+            } catch (SQLException e) {
+                // Failover: se marca caída y se intenta con la siguiente
+                cerrar(c);
+                r.marcarCaida();
+                System.err.println("Réplica " + r.nombre + " no disponible: " + e.getMessage());
+            }
+        }
+        return primary.get();
+    }
+
+    /**
+     * Posición que debe haber aplicado una réplica para servir a la sesión:
+     * la ya capturada si cubre todas sus escrituras confirmadas o, si no,
+     * una nueva leída del primario
+     *
+     * @return null si la sesión nunca escribió; una posición sin gtid si el
+     *         primario no usa GTID o no se pudo leer
+     */
+    private Session.Posicion posicionRequerida(Session sesion) {
+        long confirmadas = sesion.confirmadas();
+        if (confirmadas == 0) return null;
+        Session.Posicion actual = sesion.posicion();
+        if (actual != null && actual.cubiertas() >= confirmadas) return actual;
+        // La secuencia se toma antes de leer: la posición leída incluye todo
+        // lo confirmado hasta aquí, y las capturas posteriores también
+        long secuencia = capturas.incrementAndGet();
+        Session.Posicion nueva = new Session.Posicion(confirmadas, secuencia, gtidPrimario());
+        sesion.posicion(nueva);
+        return nueva;
+    }
+
+    /**
+     * @return gtid_executed del primario, o null si no usa GTID o no se pudo leer
+     */
+    private String gtidPrimario() {
+        if (!conGtid) return null;
+        try (Connection c = primary.get(); Statement st = c.createStatement()) {
+            st.setQueryTimeout(QueryTimeout.LECTURA.segundos);
+            try (ResultSet rs = st.executeQuery("SELECT @@GLOBAL.gtid_executed")) {
+                String gtid = rs.next() ? rs.getString(1) : null;
+                if (gtid == null || gtid.isBlank()) {
+                    conGtid = false;
+                    System.out.println("El primario no usa GTID: read-your-writes por ventana de "
+                            + TimeUnit.NANOSECONDS.toMillis(ventanaNanos) + " ms.");
+                    return null;
+                }
+                return gtid;
+            }
+        } catch (SQLException e) {
+            // Sin posición esta vez: la lectura usa la ventana
+            System.err.println("No se pudo leer la posición del primario: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void cerrar(Connection c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (SQLException ignorada) {
+            // La réplica ya se descarta
+        }
+    }
+
+    private int elegirInicio() {
+        int n = replicas.size();
+        if (n == 0) return 0;
+        if (estrategia == Estrategia.ROUND_ROBIN) {
+            return Math.floorMod(turno.getAndIncrement(), n);
+        }
+        int mejor = -1;
+        int menorCarga = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get(i);
+            int carga = r.enUso.get();
+            if (r.sana.get() && carga < menorCarga) {
+                mejor = i;
+                menorCarga = carga;
+            }
+        }
+        return mejor < 0 ? 0 : mejor;
+    }
+
+    /**
+     * Verifica todas las réplicas y reincorpora las que se recuperaron
+     */
+    private void verificarReplicas() {
+        for (Replica r : replicas) {
+            boolean ok;
+            try (Connection c = r.provider.get()) {
+                ok = c.isValid(2);
+            } catch (SQLException e) {
+                ok = false;
+            }
+            if (!ok) r.caidaDesde.set(System.nanoTime());
+            if (r.sana.getAndSet(ok) != ok) {
+                System.out.println("Réplica " + r.nombre + (ok ? " recuperada." : " marcada como caída."));
+            }
+        }
+    }
+
+    /**
+     * Número de réplicas actualmente sanas
+     *
+     * @return int réplicas disponibles para lectura
+     */
+    public int replicasSanas() {
+        int sanas = 0;
+        for (Replica r : replicas) if (r.sana.get()) sanas++;
+        return sanas;
+    }
+
+    @Override
+    public void close() {
+        if (healthCheck != null) healthCheck.shutdownNow();
+    }
+
+    /**
+     * Estado de una réplica: salud, conexiones en uso y posición alcanzada
+     */
+    private static final class Replica {
+        final String nombre;
+        final ConnectionProvider provider;
+        final AtomicBoolean sana = new AtomicBoolean(true);
+        final AtomicLong caidaDesde = new AtomicLong(); // nanoTime del último fallo (o reintento)
+        final AtomicInteger enUso = new AtomicInteger();
+        final AtomicLong alcanzada = new AtomicLong(); // Mayor secuencia de posición confirmada
+
+        Replica(String nombre, ConnectionProvider provider) {
+            this.nombre = nombre;
+            this.provider = provider;
+        }
+
+        void marcarCaida() {
+            caidaDesde.set(System.nanoTime());
+            sana.set(false);
+        }
+
+        /**
+         * @return true si pasó la espera desde que se marcó caída; solo un
+         *         hilo por espera obtiene true
+         */
+        boolean tocaReintentar() {
+            long desde = caidaDesde.get();
+            long ahora = System.nanoTime();
+            return ahora - desde >= REINTENTO_NANOS && caidaDesde.compareAndSet(desde, ahora);
+        }
+
+        /**
+         * @param c Conexión abierta a esta réplica
+         * @return true si la réplica ya aplicó la posición
+         * @throws SQLException Si falla la consulta a la réplica
+         */
+        boolean alcanzo(Session.Posicion posicion, Connection c) throws SQLException {
+            if (alcanzada.get() >= posicion.secuencia()) return true;
+            try (PreparedStatement ps = c.prepareStatement("SELECT GTID_SUBSET(?, @@GLOBAL.gtid_executed)")) {
+                ps.setQueryTimeout(QueryTimeout.LECTURA.segundos);
+                ps.setString(1, posicion.gtid());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != 1) return false;
+                }
+            }
+            alcanzada.accumulateAndGet(posicion.secuencia(), Math::max);
+            return true;
+        }
+
+        /**
+         * Abre una conexión que descuenta la carga de la réplica al cerrarse
+         */
+        Connection abrir() throws SQLException {
+            Connection real = provider.get();
+            enUso.incrementAndGet();
+            AtomicBoolean cerrada = new AtomicBoolean(false);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && cerrada.compareAndSet(false, true)) {
+                            enUso.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(real, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package db;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Política de reintentos ante errores transitorios de la base de datos
+ *
+ * Responsabilidades:
+ * - Clasificar los errores por SQLState: de conexión (clase 08), conflictos
+ *   de concurrencia (clase 40, deadlock y espera de bloqueo de MySQL) y el
+ *   resto, que no se reintenta
+ * - Calcular la espera entre intentos con backoff exponencial y jitter
+ *
+ * Características:
+ * - "Full jitter": la espera es aleatoria entre 0 y base * 2^(intento-1)
+ *   (con tope), así los clientes que fallaron juntos no reintentan juntos
+ * - Los timeouts de consulta no se consideran transitorios: reintentarlos
+ *   solo multiplicaría la espera del usuario
+ * - Inmutable y thread-safe
+ *
+ */
+
+public final class RetryPolicy {
+
+    // Códigos de error de MySQL: deadlock y timeout esperando un bloqueo
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    private final int intentos;
+    private final long baseMillis;
+    private final long maxMillis;
+
+    /**
+     * @param intentos Cantidad total de intentos (1 = sin reintentos)
+     * @param baseMillis Espera base antes del segundo intento
+     * @param maxMillis Tope de la espera entre intentos
+     */
+    public RetryPolicy(int intentos, long baseMillis, long maxMillis) {
+        if (intentos < 1 || baseMillis < 0 || maxMillis < baseMillis) {
+            throw new IllegalArgumentException("Parámetros de reintento inválidos.");
+        }
+        this.intentos = intentos;
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    /**
+     * @param intento Número del intento que acaba de fallar (desde 1)
+     * @return Milisegundos a esperar antes del siguiente intento
+     */
+    public long espera(int intento) {
+        long techo = Math.min(maxMillis, baseMillis << Math.min(20, intento - 1));
+        return ThreadLocalRandom.current().nextLong(techo + 1);
+    }
+
+    /**
+     * @return true si el error indica que la conexión se perdió o no se pudo abrir
+     */
+    public static boolean esConexion(SQLException e) {
+        for (SQLException s : causas(e)) {
+            if (s instanceof SQLTransientConnectionException || s instanceof SQLNonTransientConnectionException
+                    || s instanceof SQLRecoverableException) return true;
+            if (s.getSQLState() != null && s.getSQLState().startsWith("08")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true si el servidor deshizo la transacción por un conflicto de
+     * concurrencia (deadlock, serialización o espera de bloqueo)
+     */
+    public static boolean esConflicto(SQLException e) {
+        for (SQLException s : causas(e)) {
+            if (s instanceof SQLTransactionRollbackException) return true;
+            if (s.getSQLState() != null && s.getSQLState().startsWith("40")) return true;
+            if (s.getErrorCode() == ER_LOCK_DEADLOCK || s.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true si vale la pena reintentar una operación idempotente
+     */
+    public static boolean esTransitoria(SQLException e) {
+        if (e instanceof SQLTimeoutException) return false;
+        return esConexion(e) || esConflicto(e) || e instanceof SQLTransientException;
+    }
+
+    /**
+     * @return true si la conexión nunca llegó a abrirse (SQLState 08001):
+     * la operación no se envió y se puede reintentar aunque no sea idempotente
+     */
+    public static boolean sinEfectos(SQLException e) {
+        for (SQLException s : causas(e)) {
+            if ("08001".equals(s.getSQLState())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * La excepción y las SQLException de su cadena de causas
+     */
+    private static List<SQLException> causas(SQLException e) {
+        List<SQLException> out = new ArrayList<>();
+        for (Throwable t = e; t != null && out.size() < 8; t = t.getCause()) {
+            if (t instanceof SQLException s) out.add(s);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,147 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sesión de un usuario de la base: recuerda sus escrituras para que sus
+ * lecturas posteriores vean lo que escribió (read-your-writes)
+ *
+ * Responsabilidades:
+ * - Contar las escrituras confirmadas de la sesión
+ * - Guardar la posición del primario (GTID) que cubre esas escrituras, para
+ *   que ReplicaRouter solo lea de réplicas que ya la aplicaron
+ * - Registrar el momento de la última escritura, para la ventana de
+ *   respaldo cuando el primario no expone GTID
+ *
+ * Características:
+ * - La sesión es un objeto explícito que se pasa a quien opera en su nombre
+ *   (PeliculaService), no la identidad del hilo: las escrituras y lecturas
+ *   de una misma sesión pueden correr en hilos distintos (SwingWorker,
+ *   hilos virtuales de la API, precarga)
+ * - Solo durante una llamada al DAO la sesión queda ligada al hilo que la
+ *   ejecuta (ejecutar), para que el enrutador la encuentre sin cambiar la
+ *   firma de los DAO; es el mismo mecanismo que usa UnitOfWork
+ * - La escritura se marca al pedir la conexión y de nuevo al terminar la
+ *   llamada, así la ventana cuenta desde el commit; solo al terminar la
+ *   llamada cuenta como confirmada (una escritura en curso en otro hilo no
+ *   obliga a esperarla)
+ *
+ */
+
+public final class Session {
+
+    private static final ThreadLocal<Llamada> ACTUAL = new ThreadLocal<>();
+
+    private final AtomicLong ultimaEscritura = new AtomicLong(); // nanoTime; 0 = nunca escribió
+    private final AtomicLong confirmadas = new AtomicLong(); // Escrituras de llamadas ya terminadas
+    private volatile Posicion posicion; // null = aún sin capturar
+
+    /**
+     * Posición del primario que incluye escrituras de la sesión
+     *
+     * @param cubiertas Escrituras confirmadas que la posición incluye
+     * @param secuencia Orden de captura en el enrutador: una posición
+     *        capturada después incluye todo lo que incluye una anterior
+     * @param gtid gtid_executed del primario (null = el primario no usa GTID)
+     */
+    record Posicion(long cubiertas, long secuencia, String gtid) {}
+
+    /**
+     * Llamada en curso en un hilo y cuántas conexiones de escritura pidió
+     */
+    private static final class Llamada {
+        final Session sesion;
+        long escrituras;
+
+        Llamada(Session sesion) {
+            this.sesion = sesion;
+        }
+    }
+
+    /**
+     * Ejecuta una llamada al DAO en nombre de esta sesión
+     *
+     * @param trabajo Llamada a ejecutar
+     * @return Resultado de la llamada
+     * @throws SQLException Si la llamada falla
+     */
+    public <T> T ejecutar(UnitOfWork.Work<T> trabajo) throws SQLException {
+        Llamada anterior = ACTUAL.get();
+        if (anterior != null && anterior.sesion == this) return trabajo.run(); // Llamada anidada de la misma sesión
+        Llamada llamada = new Llamada(this);
+        ACTUAL.set(llamada);
+        try {
+            return trabajo.run();
+        } finally {
+            if (anterior == null) ACTUAL.remove();
+            else ACTUAL.set(anterior);
+            if (llamada.escrituras > 0) {
+                ultimaEscritura.set(ahora()); // Desde el commit
+                confirmadas.addAndGet(llamada.escrituras);
+            }
+        }
+    }
+
+    /**
+     * @return Sesión en cuyo nombre corre la llamada actual, o null
+     */
+    static Session actual() {
+        Llamada llamada = ACTUAL.get();
+        return llamada == null ? null : llamada.sesion;
+    }
+
+    /**
+     * @return true si la llamada en curso de esta sesión ya pidió una
+     *         conexión de escritura (sus lecturas deben ver esa escritura
+     *         aunque todavía no cuente como confirmada)
+     */
+    boolean escribioEnEstaLlamada() {
+        Llamada llamada = ACTUAL.get();
+        return llamada != null && llamada.sesion == this && llamada.escrituras > 0;
+    }
+
+    /**
+     * Registra que la sesión pidió una conexión para escribir
+     */
+    void registrarEscritura() {
+        Llamada llamada = ACTUAL.get();
+        if (llamada != null && llamada.sesion == this) llamada.escrituras++;
+        ultimaEscritura.set(ahora());
+    }
+
+    /**
+     * @return Escrituras de la sesión cuya llamada ya terminó
+     */
+    long confirmadas() {
+        return confirmadas.get();
+    }
+
+    /**
+     * @return Última posición capturada, o null
+     */
+    Posicion posicion() {
+        return posicion;
+    }
+
+    /**
+     * Guarda una posición capturada, salvo que ya haya una más reciente
+     */
+    synchronized void posicion(Posicion nueva) {
+        if (posicion == null || nueva.secuencia() > posicion.secuencia()) posicion = nueva;
+    }
+
+    /**
+     * @param ventanaNanos Ventana de read-your-writes
+     * @return true si la sesión escribió hace menos de la ventana
+     */
+    boolean escribioDentroDe(long ventanaNanos) {
+        long ultima = ultimaEscritura.get();
+        return ultima != 0 && ahora() - ultima < ventanaNanos;
+    }
+
+    private static long ahora() {
+        long t = System.nanoTime();
+        return t == 0 ? 1 : t; // 0 se reserva para "nunca escribió"
+    }
+}
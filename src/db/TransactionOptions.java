@@ -0,0 +1,41 @@
+package db;
+
+import java.sql.Connection;
+
+/**
+ * Opciones de una transacción (unidad de trabajo)
+ *
+ * Responsabilidades:
+ * - Elegir el nivel de aislamiento (null = el de la conexión, REPEATABLE
+ *   READ en InnoDB)
+ * - Marcar la transacción como de solo lectura: el driver lo informa al
+ *   servidor (START TRANSACTION READ ONLY) y puede enviarse a una réplica
+ *
+ * @param isolation Nivel de aislamiento, o null para no cambiarlo
+ * @param readOnly true si la unidad de trabajo solo consulta
+ */
+
+public record TransactionOptions(Isolation isolation, boolean readOnly) {
+
+    /** Lectura y escritura con el aislamiento por defecto */
+    public static final TransactionOptions DEFAULT = new TransactionOptions(null, false);
+
+    /** Solo lectura con el aislamiento por defecto (instantánea consistente en InnoDB) */
+    public static final TransactionOptions READ_ONLY = new TransactionOptions(null, true);
+
+    /**
+     * Niveles de aislamiento de JDBC
+     */
+    public enum Isolation {
+        READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+        REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+        final int nivel;
+
+        Isolation(int nivel) {
+            this.nivel = nivel;
+        }
+    }
+}
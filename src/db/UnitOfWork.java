@@ -0,0 +1,137 @@
+package db;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Unidad de trabajo: una conexión ligada al hilo durante una transacción
+ *
+ * Responsabilidades:
+ * - Abrir una sola conexión para varias operaciones del DAO y confirmarlas
+ *   o deshacerlas juntas
+ * - Entregar esa misma conexión a las escrituras y a las lecturas del
+ *   ámbito (read-your-writes dentro de la transacción)
+ * - Fuera de un ámbito, delegar en los proveedores originales (autocommit)
+ *
+ * Características:
+ * - Dentro del ámbito, close/commit/rollback/setAutoCommit de la conexión
+ *   entregada no hacen nada: los controla la unidad de trabajo, así los
+ *   métodos del DAO no cambian (siguen usando try-with-resources)
+ * - Los ámbitos anidados se unen a la transacción en curso
+ * - Las transacciones de solo lectura usan el proveedor de lecturas
+ *
+ */
+
+public class UnitOfWork {
+
+    private final ConnectionProvider writes;
+    private final ConnectionProvider reads;
+    private final ThreadLocal<Connection> actual = new ThreadLocal<>();
+
+    /**
+     * Operación que se ejecuta dentro de la transacción
+     *
+     * @param <T> Tipo del resultado
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * @param writes Proveedor de conexiones para escrituras
+     * @param reads Proveedor de conexiones para lecturas
+     */
+    public UnitOfWork(ConnectionProvider writes, ConnectionProvider reads) {
+        this.writes = writes;
+        this.reads = reads;
+    }
+
+    /**
+     * @return Conexión para escribir: la de la transacción en curso o una nueva
+     * @throws SQLException Si falla la conexión
+     */
+    public Connection writeConnection() throws SQLException {
+        Connection cn = actual.get();
+        return cn != null ? ligada(cn) : writes.get();
+    }
+
+    /**
+     * @return Conexión para leer: la de la transacción en curso o una nueva
+     * @throws SQLException Si falla la conexión
+     */
+    public Connection readConnection() throws SQLException {
+        Connection cn = actual.get();
+        return cn != null ? ligada(cn) : reads.get();
+    }
+
+    /**
+     * Ejecuta el trabajo en una transacción sobre una sola conexión
+     *
+     * @param opciones Aislamiento y solo lectura
+     * @param trabajo Operaciones del DAO a ejecutar como unidad
+     * @return Resultado del trabajo
+     * @throws SQLException Si falla alguna operación (tras hacer rollback)
+     */
+    public <T> T inTransaction(TransactionOptions opciones, Work<T> trabajo) throws SQLException {
+        if (actual.get() != null) {
+            return trabajo.run(); // Se une a la transacción en curso
+        }
+        try (Connection cn = opciones.readOnly() ? reads.get() : writes.get()) {
+            int aislamientoPrevio = cn.getTransactionIsolation();
+            if (opciones.isolation() != null) cn.setTransactionIsolation(opciones.isolation().nivel);
+            if (opciones.readOnly()) cn.setReadOnly(true);
+            cn.setAutoCommit(false);
+            actual.set(cn);
+            try {
+                T resultado = trabajo.run();
+                cn.commit();
+                return resultado;
+            } catch (Throwable e) {
+                cn.rollback();
+                throw e;
+            } finally {
+                actual.remove();
+                cn.setAutoCommit(true);
+                if (opciones.readOnly()) cn.setReadOnly(false);
+                if (opciones.isolation() != null) cn.setTransactionIsolation(aislamientoPrevio);
+            }
+        }
+    }
+
+    /**
+     * @return true si el hilo actual está dentro de una transacción
+     */
+    public boolean inTransaction() {
+        return actual.get() != null;
+    }
+
+    /**
+     * Vista de la conexión de la transacción que ignora el control
+     * transaccional y el cierre
+     */
+    private static Connection ligada(Connection real) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close", "commit", "setAutoCommit" -> {
+                            return null;
+                        }
+                        case "rollback" -> {
+                            if (method.getParameterCount() == 0) return null; // rollback(Savepoint) sí se delega
+                        }
+                        case "getAutoCommit" -> {
+                            return false;
+                        }
+                        default -> { }
+                    }
+                    try {
+                        return method.invoke(real, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
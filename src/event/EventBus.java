@@ -0,0 +1,102 @@
+package event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Bus de eventos en proceso (publicar/suscribir) con suscripciones tipadas
+ *
+ * Responsabilidades:
+ * - Entregar cada evento publicado a los suscriptores de su clase (o de una
+ *   superclase/interfaz)
+ * - Entregar de inmediato, en el hilo que publica, o en lotes a través de un
+ *   Executor (ej. SwingUtilities::invokeLater para la interfaz)
+ *
+ * Características:
+ * - En la entrega por lotes, los eventos que llegan mientras hay una entrega
+ *   pendiente se suman a ella: ante una ráfaga de cambios el Executor recibe
+ *   una sola tarea, y el suscriptor recibe los eventos en orden de publicación
+ * - Un suscriptor que lanza una excepción no afecta a los demás
+ * - Thread-safe: se puede publicar desde cualquier hilo
+ *
+ */
+
+public final class EventBus {
+
+    /**
+     * Suscripción activa; close la cancela
+     */
+    public interface Suscripcion extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final List<Suscriptor<?>> suscriptores = new CopyOnWriteArrayList<>();
+
+    /**
+     * Suscribe un listener que recibe cada evento en el hilo que lo publica
+     *
+     * @param tipo Clase de los eventos a recibir
+     * @param listener Receptor (debe ser rápido: demora al que publica)
+     * @return Suscripción para cancelarla
+     */
+    public <E> Suscripcion suscribir(Class<E> tipo, Consumer<? super E> listener) {
+        return agregar(new Suscriptor<>(tipo, listener));
+    }
+
+    /**
+     * Suscribe un listener que recibe los eventos agrupados, ejecutado por
+     * el Executor indicado
+     *
+     * @param tipo Clase de los eventos a recibir
+     * @param executor Dónde se ejecuta la entrega (ej. SwingUtilities::invokeLater)
+     * @param listener Receptor de cada lote (nunca vacío)
+     * @return Suscripción para cancelarla
+     */
+    public <E> Suscripcion suscribirEnLotes(Class<E> tipo, Executor executor, Consumer<List<E>> listener) {
+        Queue<E> pendientes = new ConcurrentLinkedQueue<>();
+        AtomicBoolean programada = new AtomicBoolean();
+        Runnable entregar = () -> {
+            programada.set(false); // Lo que llegue desde aquí programa otra entrega
+            List<E> lote = new ArrayList<>();
+            for (E e; (e = pendientes.poll()) != null; ) lote.add(e);
+            if (!lote.isEmpty()) listener.accept(lote);
+        };
+        return agregar(new Suscriptor<>(tipo, e -> {
+            pendientes.add(e);
+            if (programada.compareAndSet(false, true)) executor.execute(entregar);
+        }));
+    }
+
+    /**
+     * Publica un evento a todos los suscriptores de su tipo
+     *
+     * @param evento Evento a publicar
+     */
+    public void publicar(Object evento) {
+        for (Suscriptor<?> s : suscriptores) {
+            try {
+                s.entregar(evento);
+            } catch (RuntimeException e) {
+                System.err.println("Error en suscriptor de " + evento.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Suscripcion agregar(Suscriptor<?> s) {
+        suscriptores.add(s);
+        return () -> suscriptores.remove(s);
+    }
+
+    private record Suscriptor<E>(Class<E> tipo, Consumer<? super E> listener) {
+        void entregar(Object evento) {
+            if (tipo.isInstance(evento)) listener.accept(tipo.cast(evento));
+        }
+    }
+}
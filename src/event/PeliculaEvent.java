@@ -0,0 +1,41 @@
+package event;
+
+import model.PeliculaValue;
+
+/**
+ * Cambio confirmado en la Cartelera
+ *
+ * Los suscriptores pueden escuchar todos los cambios (PeliculaEvent.class) o
+ * solo un tipo (ej. PeliculaEvent.Eliminada.class).
+ *
+ */
+public sealed interface PeliculaEvent {
+
+    /**
+     * @return ID de la película afectada
+     */
+    int id();
+
+    /**
+     * Alta de una película
+     *
+     * @param id ID asignado
+     * @param valor Datos de la película
+     */
+    record Creada(int id, PeliculaValue valor) implements PeliculaEvent {}
+
+    /**
+     * Modificación de una película
+     *
+     * @param id ID de la película
+     * @param valor Datos tras la modificación
+     */
+    record Modificada(int id, PeliculaValue valor) implements PeliculaEvent {}
+
+    /**
+     * Baja de una película
+     *
+     * @param id ID de la película eliminada
+     */
+    record Eliminada(int id) implements PeliculaEvent {}
+}
@@ -0,0 +1,589 @@
+package journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import model.PeliculaValue;
+
+/**
+ * Diario de cambios (append-only) de Cartelera en archivos mapeados a memoria
+ *
+ * Responsabilidades:
+ * - Agregar eventos de alta, modificación y baja con número de secuencia,
+ *   fecha y autor (registro de auditoría)
+ * - Repartir el diario en segmentos de tamaño fijo: al llenarse uno se sella
+ *   y se abre el siguiente
+ * - Guardar checkpoints (snapshot del catálogo completo hasta una secuencia)
+ *   y reconstruir el catálogo con el último snapshot más la cola del diario
+ * - Compactar: borrar los segmentos ya cubiertos por un snapshot que
+ *   superaron el tiempo de retención
+ *
+ * Características:
+ * - Formato de registro: largo (int), CRC32C del contenido (int), contenido;
+ *   un largo 0 marca el final del segmento (los archivos nacen en ceros)
+ * - Al abrir, un registro incompleto o con CRC inválido al final del último
+ *   segmento (corte durante la escritura) se descarta; en un segmento
+ *   sellado es un error
+ * - Los snapshots se escriben en un archivo temporal con CRC y se publican
+ *   con un rename atómico
+ * - Thread-safe: append se sincroniza sobre el diario; lecturas, checkpoints
+ *   y compactación se serializan entre sí sin bloquear los append
+ *
+ */
+
+public final class ChangeJournal implements AutoCloseable {
+
+    private static final int MAGIC_SEGMENTO = 0x434A3031; // "CJ01"
+    private static final int MAGIC_SNAPSHOT = 0x434A5331; // "CJS1"
+    private static final int CABECERA = 8;                // magic + reservado
+    private static final int MAX_REGISTRO = 4096;
+    private static final String EXT_SEGMENTO = ".seg";
+    private static final String PREFIJO_SNAPSHOT = "snapshot-";
+    private static final JournalEntry.Tipo[] TIPOS = JournalEntry.Tipo.values();
+
+    private final Path dir;
+    private final int tamanioSegmento;
+    private final boolean sincronizar;
+    private final String autor;
+    private final Object mantenimiento = new Object(); // Lecturas, checkpoints y compactación
+
+    // Protegidos por this
+    private FileChannel canal;
+    private MappedByteBuffer activo;
+    private long ultimoSeq;
+    private final ByteBuffer registro = ByteBuffer.allocate(MAX_REGISTRO);
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Abre (o crea) el diario en un directorio
+     *
+     * @param dir Directorio de los segmentos y snapshots
+     * @param tamanioSegmento Bytes por segmento
+     * @param sincronizar true para forzar cada registro a disco (más lento);
+     *        false deja que el sistema operativo escriba las páginas
+     * @throws IOException Si no se puede abrir o el diario está dañado
+     */
+    public ChangeJournal(Path dir, int tamanioSegmento, boolean sincronizar) throws IOException {
+        if (tamanioSegmento < CABECERA + MAX_REGISTRO) {
+            throw new IllegalArgumentException("Segmento demasiado chico: " + tamanioSegmento);
+        }
+        this.dir = dir;
+        this.tamanioSegmento = tamanioSegmento;
+        this.sincronizar = sincronizar;
+        this.autor = System.getProperty("user.name", "desconocido");
+        Files.createDirectories(dir);
+
+        List<Path> segmentos = segmentos();
+        if (segmentos.isEmpty()) {
+            long base = seqSnapshot(ultimoSnapshot());
+            abrirSegmento(base + 1, true);
+            ultimoSeq = base;
+        } else {
+            Path ultimo = segmentos.get(segmentos.size() - 1);
+            abrirSegmento(primerSeq(ultimo), false);
+            recuperarCola(primerSeq(ultimo) - 1);
+        }
+    }
+
+    /**
+     * Agrega un evento al diario
+     *
+     * @param tipo Tipo de cambio
+     * @param id ID de la película
+     * @param valor Estado tras el cambio (null en las bajas)
+     * @return Número de secuencia asignado
+     * @throws IOException Si falla la escritura
+     */
+    public synchronized long append(JournalEntry.Tipo tipo, int id, PeliculaValue valor) throws IOException {
+        if (canal == null) throw new IOException("El diario está cerrado.");
+        long seq = ultimoSeq + 1;
+        registro.clear();
+        registro.putLong(seq).putLong(System.currentTimeMillis()).put((byte) tipo.ordinal()).putInt(id);
+        if (valor != null) {
+            registro.putShort(valor.anio()).putShort(valor.duracion()).put(valor.generoOrdinal());
+            putTexto(registro, valor.titulo());
+            putTexto(registro, valor.director());
+        } else {
+            registro.putShort((short) 0).putShort((short) 0).put((byte) -1);
+        }
+        putTexto(registro, autor);
+        registro.flip();
+
+        int largo = registro.remaining();
+        if (activo.remaining() < 8 + largo + 4) { // + 4: el largo 0 que cierra el segmento
+            sellarYRotar(seq);
+        }
+        crc.reset();
+        crc.update(registro.duplicate());
+        // El largo se escribe al final: un lector concurrente nunca ve un registro a medias
+        int inicio = activo.position();
+        activo.position(inicio + 4);
+        activo.putInt((int) crc.getValue());
+        activo.put(registro);
+        activo.putInt(inicio, largo);
+        if (sincronizar) activo.force();
+        ultimoSeq = seq;
+        return seq;
+    }
+
+    /**
+     * @return Secuencia del último evento agregado (0 si el diario está vacío)
+     */
+    public synchronized long ultimoSeq() {
+        return ultimoSeq;
+    }
+
+    /**
+     * Recorre los eventos del diario a partir de una secuencia (auditoría)
+     *
+     * @param desdeSeq Primera secuencia a entregar
+     * @param destino Recibe los eventos en orden
+     * @throws IOException Si falla la lectura, el diario está dañado o la
+     *         secuencia pedida ya se compactó
+     */
+    public void leer(long desdeSeq, Consumer<JournalEntry> destino) throws IOException {
+        synchronized (mantenimiento) {
+            leerSegmentos(desdeSeq, ultimoSeq(), destino);
+        }
+    }
+
+    /**
+     * Entrega el catálogo como eventos: primero el último snapshot (como
+     * altas) y después la cola del diario posterior al snapshot
+     *
+     * Aplicar los eventos en orden (altas y modificaciones como upsert, bajas
+     * como eliminación) deja el catálogo tal como estaba en el último append.
+     *
+     * @param destino Recibe los eventos en orden
+     * @return true si partió de un snapshot (el resultado es el catálogo
+     *         completo); false si solo hay cambios desde que se creó el diario
+     * @throws IOException Si falla la lectura o el diario está dañado
+     */
+    public boolean replay(Consumer<JournalEntry> destino) throws IOException {
+        synchronized (mantenimiento) {
+            long hasta = ultimoSeq();
+            Path snapshot = ultimoSnapshot();
+            long base = 0;
+            if (snapshot != null) base = leerSnapshot(snapshot, destino);
+            leerSegmentos(base + 1, hasta, destino);
+            return snapshot != null;
+        }
+    }
+
+    /**
+     * Reconstruye el catálogo en memoria con replay
+     *
+     * @return Películas por ID (vacío si no hay snapshot ni eventos)
+     * @throws IOException Si falla la lectura o el diario está dañado
+     */
+    public Map<Integer, PeliculaValue> reconstruir() throws IOException {
+        Map<Integer, PeliculaValue> catalogo = new HashMap<>();
+        replay(e -> {
+            if (e.tipo() == JournalEntry.Tipo.DELETE) catalogo.remove(e.id());
+            else catalogo.put(e.id(), e.valor());
+        });
+        return catalogo;
+    }
+
+    /**
+     * @return true si existe un snapshot (replay devuelve el catálogo completo)
+     */
+    public boolean tieneSnapshot() throws IOException {
+        synchronized (mantenimiento) {
+            return ultimoSnapshot() != null;
+        }
+    }
+
+    /**
+     * @return Registros agregados después del último snapshot (los que un
+     *         replay debe aplicar sobre él; todos si no hay snapshot)
+     */
+    public long registrosSinCheckpoint() throws IOException {
+        long base;
+        synchronized (mantenimiento) {
+            base = seqSnapshot(ultimoSnapshot());
+        }
+        return ultimoSeq() - base;
+    }
+
+    /**
+     * Comienza un checkpoint: las películas que se le pasen forman el
+     * snapshot del catálogo a la secuencia actual
+     *
+     * El llamador debe pasar el catálogo leído después de iniciar el
+     * checkpoint; los cambios concurrentes quedan además en la cola del
+     * diario y replay los vuelve a aplicar (son idempotentes).
+     *
+     * @return Checkpoint a completar con put y confirmar con commit
+     * @throws IOException Si no se puede crear el archivo temporal
+     */
+    public Checkpoint iniciarCheckpoint() throws IOException {
+        return new Checkpoint(ultimoSeq());
+    }
+
+    /**
+     * Borra los segmentos sellados cubiertos por el último snapshot cuya
+     * última escritura es anterior a la retención
+     *
+     * @param retencionMillis Antigüedad mínima para borrar (auditoría)
+     * @return Cantidad de segmentos borrados
+     * @throws IOException Si falla el borrado
+     */
+    public int compactar(long retencionMillis) throws IOException {
+        synchronized (mantenimiento) {
+            long base = seqSnapshot(ultimoSnapshot());
+            long limite = System.currentTimeMillis() - retencionMillis;
+            List<Path> segmentos = segmentos();
+            int borrados = 0;
+            // El último segmento es el activo: nunca se borra
+            for (int i = 0; i < segmentos.size() - 1; i++) {
+                Path s = segmentos.get(i);
+                boolean cubierto = primerSeq(segmentos.get(i + 1)) - 1 <= base;
+                if (!cubierto || Files.getLastModifiedTime(s).toMillis() > limite) break;
+                Files.delete(s);
+                borrados++;
+            }
+            return borrados;
+        }
+    }
+
+    /**
+     * Sella el segmento activo aunque no esté lleno, para que un checkpoint
+     * posterior lo cubra y compactar pueda borrarlo
+     *
+     * @throws IOException Si falla la escritura
+     */
+    public synchronized void sellar() throws IOException {
+        if (canal == null) throw new IOException("El diario está cerrado.");
+        if (activo.position() > CABECERA) sellarYRotar(ultimoSeq + 1);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal == null) return;
+        activo.force();
+        canal.close();
+        canal = null;
+        activo = null;
+    }
+
+    /**
+     * Snapshot en construcción; close sin commit lo descarta
+     */
+    public final class Checkpoint implements AutoCloseable {
+        private final long seq;
+        private final Path temporal;
+        private final CheckedOutputStream checked;
+        private final DataOutputStream out;
+        private boolean confirmado;
+
+        private Checkpoint(long seq) throws IOException {
+            this.seq = seq;
+            this.temporal = Files.createTempFile(dir, PREFIJO_SNAPSHOT, ".tmp");
+            this.checked = new CheckedOutputStream(Files.newOutputStream(temporal), new CRC32C());
+            this.out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16));
+            out.writeInt(MAGIC_SNAPSHOT);
+            out.writeLong(seq);
+        }
+
+        /**
+         * Agrega una película al snapshot
+         */
+        public void put(PeliculaValue v) throws IOException {
+            out.writeBoolean(true);
+            out.writeInt(v.id());
+            out.writeShort(v.anio());
+            out.writeShort(v.duracion());
+            out.writeByte(v.generoOrdinal());
+            escribirTexto(out, v.titulo());
+            escribirTexto(out, v.director());
+        }
+
+        /**
+         * Publica el snapshot y borra los anteriores
+         */
+        public void commit() throws IOException {
+            out.writeBoolean(false);
+            out.flush();
+            long valor = checked.getChecksum().getValue();
+            out.writeLong(valor);
+            out.close();
+            synchronized (mantenimiento) {
+                Path destino = dir.resolve(String.format("%s%020d.snap", PREFIJO_SNAPSHOT, seq));
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                confirmado = true;
+                for (Path anterior : snapshots()) {
+                    if (!anterior.equals(destino)) Files.deleteIfExists(anterior);
+                }
+            }
+        }
+
+        /**
+         * @return Secuencia del diario que cubre este snapshot
+         */
+        public long getSeq() {
+            return seq;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!confirmado) {
+                out.close();
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Segmentos
+
+    private void abrirSegmento(long primerSeq, boolean nuevo) throws IOException {
+        Path archivo = dir.resolve(String.format("%020d%s", primerSeq, EXT_SEGMENTO));
+        canal = nuevo
+                ? FileChannel.open(archivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activo = canal.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(tamanioSegmento, canal.size()));
+        if (nuevo) {
+            activo.putInt(MAGIC_SEGMENTO).putInt(0);
+        } else if (activo.getInt(0) != MAGIC_SEGMENTO) {
+            throw new IOException("Segmento inválido: " + archivo);
+        }
+        activo.position(CABECERA);
+    }
+
+    private void sellarYRotar(long siguienteSeq) throws IOException {
+        activo.force();
+        canal.close();
+        abrirSegmento(siguienteSeq, true);
+    }
+
+    /**
+     * Ubica el final del segmento activo; descarta un registro final dañado
+     */
+    private void recuperarCola(long seqAnterior) throws IOException {
+        ultimoSeq = seqAnterior;
+        ByteBuffer vista = activo.duplicate();
+        vista.position(CABECERA);
+        while (true) {
+            int inicio = vista.position();
+            JournalEntry e = siguiente(vista);
+            if (e == null) {
+                if (vista.position() != inicio) { // Registro dañado: se limpia desde ahí
+                    System.err.println("Diario: registro incompleto descartado en " + inicio);
+                    for (int i = inicio; i < activo.limit(); i++) activo.put(i, (byte) 0);
+                    activo.force();
+                }
+                activo.position(inicio);
+                return;
+            }
+            ultimoSeq = e.seq();
+        }
+    }
+
+    private void leerSegmentos(long desde, long hasta, Consumer<JournalEntry> destino) throws IOException {
+        if (desde > hasta) return;
+        List<Path> segmentos = segmentos();
+        if (segmentos.isEmpty() || primerSeq(segmentos.get(0)) > desde) {
+            throw new IOException("El diario ya no contiene la secuencia " + desde + " (compactada).");
+        }
+        for (int i = 0; i < segmentos.size(); i++) {
+            if (i + 1 < segmentos.size() && primerSeq(segmentos.get(i + 1)) <= desde) continue;
+            try (FileChannel fc = FileChannel.open(segmentos.get(i), StandardOpenOption.READ)) {
+                ByteBuffer vista = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+                vista.position(CABECERA);
+                while (true) {
+                    int inicio = vista.position();
+                    JournalEntry e = siguiente(vista);
+                    if (e == null) {
+                        boolean esActivo = i == segmentos.size() - 1;
+                        if (vista.position() != inicio && !esActivo) {
+                            throw new IOException("Diario dañado en " + segmentos.get(i) + " posición " + inicio);
+                        }
+                        break;
+                    }
+                    if (e.seq() > hasta) return;
+                    if (e.seq() >= desde) destino.accept(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee el registro en la posición actual
+     *
+     * @return El evento, o null al final; si el registro está dañado devuelve
+     *         null y deja la posición avanzada
+     */
+    private static JournalEntry siguiente(ByteBuffer vista) {
+        if (vista.remaining() < 8) return null;
+        int inicio = vista.position();
+        int largo = vista.getInt(inicio);
+        if (largo == 0) return null;
+        vista.position(inicio + 1); // Marca de dañado si algo no cuadra
+        if (largo < 0 || largo > MAX_REGISTRO || largo > vista.limit() - inicio - 8) return null;
+        int esperado = vista.getInt(inicio + 4);
+        ByteBuffer contenido = vista.duplicate().position(inicio + 8).limit(inicio + 8 + largo);
+        CRC32C c = new CRC32C();
+        c.update(contenido.duplicate());
+        if ((int) c.getValue() != esperado) return null;
+
+        long seq = contenido.getLong();
+        long timestamp = contenido.getLong();
+        JournalEntry.Tipo tipo = TIPOS[contenido.get()];
+        int id = contenido.getInt();
+        short anio = contenido.getShort();
+        short duracion = contenido.getShort();
+        byte genero = contenido.get();
+        PeliculaValue valor = null;
+        if (tipo != JournalEntry.Tipo.DELETE) {
+            valor = new PeliculaValue(id, getTexto(contenido), getTexto(contenido), anio, duracion, genero);
+        }
+        String quien = getTexto(contenido);
+        vista.position(inicio + 8 + largo);
+        return new JournalEntry(seq, timestamp, tipo, id, valor, quien);
+    }
+
+    private List<Path> segmentos() throws IOException {
+        return listar(p -> p.getFileName().toString().endsWith(EXT_SEGMENTO));
+    }
+
+    private static long primerSeq(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        return Long.parseLong(nombre.substring(0, nombre.length() - EXT_SEGMENTO.length()));
+    }
+
+    // ---------------------------------------------------------------------
+    // Snapshots
+
+    private List<Path> snapshots() throws IOException {
+        return listar(p -> p.getFileName().toString().startsWith(PREFIJO_SNAPSHOT)
+                && p.getFileName().toString().endsWith(".snap"));
+    }
+
+    private Path ultimoSnapshot() throws IOException {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private static long seqSnapshot(Path snapshot) {
+        if (snapshot == null) return 0;
+        String nombre = snapshot.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO_SNAPSHOT.length(), nombre.length() - ".snap".length()));
+    }
+
+    /**
+     * Entrega las películas del snapshot como altas
+     *
+     * @return Secuencia que cubre el snapshot
+     */
+    private long leerSnapshot(Path snapshot, Consumer<JournalEntry> destino) throws IOException {
+        long tamanio = Files.size(snapshot);
+        try (InputStream archivo = Files.newInputStream(snapshot)) {
+            CheckedInputStream checked = new CheckedInputStream(
+                    new BufferedInputStream(limitado(archivo, tamanio - 8), 1 << 16), new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC_SNAPSHOT) throw new IOException("Snapshot inválido: " + snapshot);
+            long seq = in.readLong();
+            long timestamp = Files.getLastModifiedTime(snapshot).toMillis();
+            List<JournalEntry> lote = new ArrayList<>();
+            while (in.readBoolean()) {
+                int id = in.readInt();
+                short anio = in.readShort();
+                short duracion = in.readShort();
+                byte genero = in.readByte();
+                PeliculaValue v = new PeliculaValue(id, leerTexto(in), leerTexto(in), anio, duracion, genero);
+                lote.add(new JournalEntry(seq, timestamp, JournalEntry.Tipo.CREATE, id, v, autor));
+                if (lote.size() == 4096) {
+                    lote.forEach(destino);
+                    lote.clear();
+                }
+            }
+            long calculado = checked.getChecksum().getValue();
+            long guardado = new DataInputStream(archivo).readLong();
+            if (calculado != guardado) throw new IOException("Snapshot dañado (CRC): " + snapshot);
+            lote.forEach(destino);
+            return seq;
+        } catch (EOFException e) {
+            throw new IOException("Snapshot truncado: " + snapshot, e);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Utilidades
+
+    private List<Path> listar(Predicate<Path> filtro) throws IOException {
+        try (Stream<Path> archivos = Files.list(dir)) {
+            return archivos.filter(filtro).sorted().toList();
+        }
+    }
+
+    private static void putTexto(ByteBuffer b, String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        b.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getTexto(ByteBuffer b) {
+        byte[] bytes = new byte[b.getShort() & 0xFFFF];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escribirTexto(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Vista de los primeros n bytes (el contenido del snapshot sin el CRC final)
+     */
+    private static InputStream limitado(InputStream in, long n) {
+        return new InputStream() {
+            private long restantes = n;
+
+            @Override
+            public int read() throws IOException {
+                if (restantes <= 0) return -1;
+                int b = in.read();
+                if (b >= 0) restantes--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                if (restantes <= 0) return -1;
+                int leidos = in.read(buf, off, (int) Math.min(len, restantes));
+                if (leidos > 0) restantes -= leidos;
+                return leidos;
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package journal;
+
+import model.PeliculaValue;
+
+/**
+ * Evento del diario de cambios de Cartelera
+ *
+ * Responsabilidades:
+ * - Registrar qué se cambió (alta, modificación o baja), cuándo y quién
+ * - Llevar el estado completo de la película tras el cambio, así aplicar
+ *   los eventos en orden reconstruye el catálogo sin consultar la base
+ *
+ * @param seq Número de secuencia (crece de a uno desde 1)
+ * @param timestamp Momento del cambio en milisegundos (epoch)
+ * @param tipo Tipo de cambio
+ * @param id ID de la película
+ * @param valor Estado tras el cambio (null en las bajas)
+ * @param autor Usuario del sistema operativo que hizo el cambio
+ */
+
+public record JournalEntry(long seq, long timestamp, Tipo tipo, int id, PeliculaValue valor, String autor) {
+
+    /**
+     * Tipo de cambio (el ordinal se persiste: no reordenar)
+     */
+    public enum Tipo { CREATE, UPDATE, DELETE }
+}
@@ -0,0 +1,71 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Pool de deduplicación de nombres de directores
+ *
+ * Responsabilidades:
+ * - Compartir una única instancia de String por nombre de director
+ * - Reducir el heap ocupado por catálogos con miles de películas por director
+ *
+ * Características:
+ * - Referencias débiles: un nombre sale del pool cuando ninguna película lo
+ *   usa, así el pool no crece con nombres que solo pasaron por la API o por
+ *   películas ya eliminadas
+ * - Thread-safe: repartido en segmentos sincronizados por hash, para que
+ *   los mapeos de filas en paralelo no compitan por un único candado
+ * - Crece con la cantidad de directores distintos en uso, no con la de películas
+ *
+ */
+
+public final class DirectorPool {
+
+    private static final int SEGMENTOS = 16; // Potencia de 2
+
+    private static final List<Map<String, WeakReference<String>>> POOL = new ArrayList<>(SEGMENTOS);
+
+    static {
+        for (int i = 0; i < SEGMENTOS; i++) POOL.add(new WeakHashMap<>());
+    }
+
+    // Constructor privado para evitar instanciación
+    private DirectorPool(){}
+
+    /**
+     * Obtiene la instancia compartida de un nombre de director
+     *
+     * @param director Nombre del director (puede ser null)
+     * @return String instancia canónica con el mismo contenido
+     */
+    public static String intern(String director) {
+        if (director == null) return null;
+        int h = director.hashCode();
+        Map<String, WeakReference<String>> segmento = POOL.get((h ^ (h >>> 16)) & (SEGMENTOS - 1));
+        synchronized (segmento) {
+            WeakReference<String> ref = segmento.get(director);
+            String existente = ref != null ? ref.get() : null;
+            if (existente != null) return existente;
+            segmento.put(director, new WeakReference<>(director));
+            return director;
+        }
+    }
+
+    /**
+     * @return int Cantidad de nombres distintos en el pool (incluye los que
+     *         aún no se quitaron tras dejar de usarse)
+     */
+    public static int size() {
+        int total = 0;
+        for (Map<String, WeakReference<String>> segmento : POOL) {
+            synchronized (segmento) {
+                total += segmento.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,85 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa una Función (proyección de una película en una sala)
+ * 
+ * Responsabilidades:
+ * - Modelar los datos de una función programada
+ * - Exponer el intervalo [inicio, fin) que ocupa la sala
+ * 
+ * Características:
+ * - Java Bean con getters y setters
+ * - El fin lo calcula FuncionService: inicio + duración de la película +
+ *   tiempo de limpieza de la sala
+ * - Los intervalos son semiabiertos: una función puede empezar en el mismo
+ *   minuto en que termina la anterior
+ * 
+ */
+
+public class Funcion {
+    //Atributos de la entidad
+    private Integer id;             // ID autoincremental de la base de datos
+    private int peliculaId;         // Película que se proyecta
+    private int sala;               // Número de sala
+    private LocalDateTime inicio;   // Comienzo de la proyección
+    private LocalDateTime fin;      // Sala libre (incluye la limpieza)
+    
+    /**
+     * Constructor completo con todos los atributos
+     * 
+     * @param id ID de la función (puede ser null para nuevas funciones)
+     * @param peliculaId ID de la película
+     * @param sala Número de sala
+     * @param inicio Comienzo de la proyección
+     * @param fin Momento en que la sala queda libre
+     */
+    public Funcion(Integer id, int peliculaId, int sala, LocalDateTime inicio, LocalDateTime fin) {
+        this.id = id;
+        this.peliculaId = peliculaId;
+        this.sala = sala;
+        this.inicio = inicio;
+        this.fin = fin;
+    }
+    
+    /**
+     * Constructor para nuevas funciones (sin ID ni fin, que los asigna el servicio)
+     * 
+     * @param peliculaId ID de la película
+     * @param sala Número de sala
+     * @param inicio Comienzo de la proyección
+     */
+    public Funcion(int peliculaId, int sala, LocalDateTime inicio) {
+        this(null, peliculaId, sala, inicio, null);
+    }
+
+    // Getters y Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public int getPeliculaId() { return peliculaId; }
+    public void setPeliculaId(int peliculaId) { this.peliculaId = peliculaId; }
+
+    public int getSala() { return sala; }
+    public void setSala(int sala) { this.sala = sala; }
+
+    public LocalDateTime getInicio() { return inicio; }
+    public void setInicio(LocalDateTime inicio) { this.inicio = inicio; }
+
+    public LocalDateTime getFin() { return fin; }
+    public void setFin(LocalDateTime fin) { this.fin = fin; }
+
+    /**
+     * @return true si ambas funciones ocupan la misma sala en algún momento
+     */
+    public boolean seSuperponeCon(Funcion otra) {
+        return sala == otra.sala && inicio.isBefore(otra.fin) && otra.inicio.isBefore(fin);
+    }
+
+    @Override
+    public String toString() {
+        return "Funcion{id=" + id + ", pelicula=" + peliculaId + ", sala=" + sala
+                + ", inicio=" + inicio + ", fin=" + fin + "}";
+    }
+}
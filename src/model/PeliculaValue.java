@@ -0,0 +1,87 @@
+package model;
+
+/**
+ * Representación compacta e inmutable de una Película
+ * 
+ * Responsabilidades:
+ * - Guardar los datos de una película en caches, índices y colas
+ * - Permitir compartir instancias entre hilos sin copias ni bloqueos
+ * 
+ * Características:
+ * - Record inmutable: campos final, publicación segura sin sincronización
+ * - ID primitivo, año y duración como short, género como ordinal del Enum
+ *   (el orden de Genero coincide con el ENUM de la tabla Cartelera)
+ * - El director se deduplica a través de DirectorPool
+ * - Pelicula sigue siendo el bean mutable que usan la vista y el controlador
+ * 
+ * @param id ID de la película (0 si todavía no fue persistida)
+ * @param titulo Título de la película
+ * @param director Director (instancia compartida del pool)
+ * @param anio Año de estreno
+ * @param duracion Duración en minutos
+ * @param generoOrdinal Ordinal de Genero
+ */
+
+public record PeliculaValue(int id, String titulo, String director, short anio, short duracion, byte generoOrdinal) {
+    
+    private static final Genero[] GENEROS = Genero.values();
+    
+    /**
+     * Constructor compacto: deduplica el director
+     */
+    public PeliculaValue {
+        director = DirectorPool.intern(director);
+    }
+    
+    /**
+     * Crea el valor a partir de datos sueltos
+     * 
+     * @param id ID de la película
+     * @param titulo Título
+     * @param director Director
+     * @param anio Año de estreno (1900-32767)
+     * @param duracion Duración en minutos (1-999)
+     * @param genero Género cinematográfico
+     * @return PeliculaValue inmutable
+     */
+    public static PeliculaValue of(int id, String titulo, String director, int anio, int duracion, Genero genero) {
+        return new PeliculaValue(id, titulo, director, (short) anio, (short) duracion, (byte) genero.ordinal());
+    }
+    
+    /**
+     * Crea el valor a partir del bean mutable
+     * 
+     * @param p Película de origen
+     * @return PeliculaValue con los mismos datos (ID 0 si no tiene)
+     */
+    public static PeliculaValue of(Pelicula p) {
+        return of(p.getId() == null ? 0 : p.getId(), p.getTitulo(), p.getDirector(),
+                p.getAnio(), p.getDuracion(), p.getGenero());
+    }
+    
+    /**
+     * @return Genero Género cinematográfico decodificado del ordinal
+     */
+    public Genero genero() {
+        return GENEROS[generoOrdinal];
+    }
+    
+    /**
+     * Copia con otro ID (ej. tras recibir el ID generado)
+     * 
+     * @param nuevoId ID a asignar
+     * @return PeliculaValue con el nuevo ID
+     */
+    public PeliculaValue withId(int nuevoId) {
+        return new PeliculaValue(nuevoId, titulo, director, anio, duracion, generoOrdinal);
+    }
+    
+    /**
+     * Convierte al bean mutable para la vista o el controlador
+     * 
+     * @return Pelicula nueva con los mismos datos
+     */
+    public Pelicula toPelicula() {
+        return new Pelicula(id == 0 ? null : id, titulo, director, anio, duracion, genero());
+    }
+}
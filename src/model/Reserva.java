@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Asiento vendido de una función
+ * 
+ * Características:
+ * - Inmutable (record): se encola para persistirse en lotes
+ * - (funcionId, asiento) es la clave primaria de la tabla RESERVA
+ * 
+ * @param funcionId ID de la función
+ * @param asiento Número de asiento (desde 0)
+ */
+public record Reserva(int funcionId, int asiento) {}
@@ -0,0 +1,101 @@
+package service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre claves de texto
+ *
+ * Responsabilidades:
+ * - Responder "seguro que no está" o "quizás está" en tiempo constante
+ * - Dimensionarse para una capacidad y una tasa de falsos positivos
+ *
+ * Características:
+ * - Solo admite agregar: las claves eliminadas siguen dando "quizás", lo que
+ *   solo aumenta los falsos positivos (que el llamador verifica)
+ * - Doble hashing (Kirsch-Mitzenmacher) a partir de dos hashes de 64 bits
+ * - Thread-safe sin bloqueos: los bits se marcan con operaciones atómicas
+ *
+ */
+
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long cantidadBits;
+    private final int funciones;
+    private final long capacidad;
+    private final AtomicLong agregadas = new AtomicLong();
+
+    /**
+     * @param capacidad Cantidad esperada de claves
+     * @param falsosPositivos Tasa de falsos positivos deseada (ej. 0.01)
+     */
+    public BloomFilter(long capacidad, double falsosPositivos) {
+        if (capacidad < 1 || falsosPositivos <= 0 || falsosPositivos >= 1) {
+            throw new IllegalArgumentException("Capacidad o tasa de falsos positivos inválida.");
+        }
+        // m = -n ln p / (ln 2)^2 ; k = m/n ln 2
+        long m = (long) Math.ceil(-capacidad * Math.log(falsosPositivos) / (Math.log(2) * Math.log(2)));
+        int palabras = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(palabras);
+        this.cantidadBits = (long) palabras * 64;
+        this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / capacidad * Math.log(2)));
+        this.capacidad = capacidad;
+    }
+
+    /**
+     * Agrega una clave
+     */
+    public void put(String clave) {
+        long h1 = hash1(clave), h2 = hash2(clave);
+        for (int i = 0; i < funciones; i++) {
+            long bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            long mascara = 1L << bit;
+            int palabra = (int) (bit >>> 6);
+            if ((bits.get(palabra) & mascara) == 0) bits.getAndAccumulate(palabra, mascara, (a, b) -> a | b);
+        }
+        agregadas.incrementAndGet();
+    }
+
+    /**
+     * @return false si la clave seguro no fue agregada; true si quizás sí
+     */
+    public boolean mightContain(String clave) {
+        long h1 = hash1(clave), h2 = hash2(clave);
+        for (int i = 0; i < funciones; i++) {
+            long bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true si ya se agregaron más claves que la capacidad (la tasa
+     * de falsos positivos empieza a subir y conviene reconstruirlo)
+     */
+    public boolean saturado() {
+        return agregadas.get() > capacidad;
+    }
+
+    public long getCapacidad() {
+        return capacidad;
+    }
+
+    private static long hash1(String s) {
+        // FNV-1a de 64 bits sobre los caracteres
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long hash2(String s) {
+        // Mezcla (finalizador de SplitMix64) del hashCode; siempre impar para recorrer todos los bits
+        long z = s.hashCode() * 0x9E3779B97F4A7C15L + s.length();
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1;
+    }
+}
@@ -0,0 +1,183 @@
+package service;
+
+import dao.PeliculaCriteria;
+import db.CancellationToken;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import model.Pelicula;
+
+/**
+ * Precarga en segundo plano del conjunto de trabajo habitual
+ *
+ * Responsabilidades:
+ * - Al arrancar, pasar por el servicio (y así cargar en las cachés del DAO)
+ *   las películas más usadas en la ejecución anterior y las de los años más
+ *   recientes
+ * - Leer por lotes y en orden de prioridad: primero los IDs calientes,
+ *   después los años del más nuevo al más viejo
+ * - Informar el avance y poder cancelarse
+ * - Guardar y leer la lista de IDs calientes entre ejecuciones (como el
+ *   volcado del buffer pool de InnoDB)
+ *
+ * Características:
+ * - Un solo hilo daemon de prioridad mínima: no compite con la interfaz ni
+ *   con las consultas del usuario
+ * - Cada lote es una consulta corta; cancelar interrumpe la que está en curso
+ * - Un error (ej. la base se cayó) detiene la precarga sin afectar a la
+ *   aplicación
+ *
+ */
+
+public final class CacheWarmup {
+
+    /**
+     * Avance de la precarga
+     *
+     * @param etapa Qué se está cargando (ej. "año 2024")
+     * @param cargadas Películas cargadas hasta ahora
+     * @param terminado true en el último aviso (completa, cancelada o con error)
+     */
+    public record Progreso(String etapa, int cargadas, boolean terminado) {}
+
+    private static final int LOTE = 500;
+
+    private final PeliculaService service;
+    private final CancellationToken token = new CancellationToken();
+    private final List<Consumer<Progreso>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param service Servicio cuyas lecturas llenan las cachés
+     */
+    public CacheWarmup(PeliculaService service) {
+        this.service = service;
+    }
+
+    /**
+     * Registra un listener de avance (se invoca desde el hilo de la precarga)
+     */
+    public void addListener(Consumer<Progreso> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Lanza la precarga en su propio hilo
+     *
+     * @param idsCalientes IDs a cargar primero, en orden de prioridad
+     * @param aniosRecientes Cantidad de años (desde el actual hacia atrás)
+     * @return Futuro con la cantidad de películas cargadas
+     */
+    public CompletableFuture<Integer> iniciar(List<Integer> idsCalientes, int aniosRecientes) {
+        ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cache-warmup");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        CompletableFuture<Integer> futuro = CompletableFuture.supplyAsync(
+                () -> ejecutar(idsCalientes, aniosRecientes), hilo);
+        hilo.shutdown();
+        return futuro;
+    }
+
+    /**
+     * Detiene la precarga (la consulta en curso se cancela)
+     */
+    public void cancelar() {
+        token.cancel();
+    }
+
+    private int ejecutar(List<Integer> idsCalientes, int aniosRecientes) {
+        int cargadas = 0;
+        String etapa = "IDs frecuentes";
+        try {
+            for (int desde = 0; desde < idsCalientes.size(); desde += LOTE) {
+                token.throwIfCancelled();
+                List<Integer> lote = idsCalientes.subList(desde, Math.min(idsCalientes.size(), desde + LOTE));
+                cargadas += service.findByIds(lote).size();
+                avisar(new Progreso(etapa, cargadas, false));
+            }
+            int actual = Year.now().getValue();
+            for (int anio = actual; anio > actual - aniosRecientes; anio--) {
+                etapa = "año " + anio;
+                Pelicula ultima = null;
+                List<Pelicula> pagina;
+                do {
+                    PeliculaCriteria criterio = PeliculaCriteria.create()
+                            .anioEntre(anio, anio)
+                            .ordenarPor(PeliculaCriteria.Campo.ID, false)
+                            .limite(LOTE)
+                            .despuesDe(ultima);
+                    pagina = service.findBy(criterio, token);
+                    cargadas += pagina.size();
+                    if (!pagina.isEmpty()) ultima = pagina.get(pagina.size() - 1);
+                    avisar(new Progreso(etapa, cargadas, false));
+                } while (pagina.size() == LOTE);
+            }
+            avisar(new Progreso("completa", cargadas, true));
+        } catch (CancellationToken.CancelledException e) {
+            avisar(new Progreso("cancelada", cargadas, true));
+        } catch (Exception e) {
+            System.err.println("Precarga de caché detenida en " + etapa + ": " + e.getMessage());
+            avisar(new Progreso("detenida", cargadas, true));
+        }
+        return cargadas;
+    }
+
+    private void avisar(Progreso progreso) {
+        for (Consumer<Progreso> l : listeners) {
+            try {
+                l.accept(progreso);
+            } catch (RuntimeException e) {
+                System.err.println("Error en listener de precarga: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lee la lista de IDs calientes guardada por la ejecución anterior
+     *
+     * @param archivo Un ID por línea
+     * @return IDs en orden de prioridad (vacía si no existe o está dañado)
+     */
+    public static List<Integer> leerIds(Path archivo) {
+        List<Integer> ids = new ArrayList<>();
+        if (!Files.isRegularFile(archivo)) return ids;
+        try {
+            for (String linea : Files.readAllLines(archivo, StandardCharsets.UTF_8)) {
+                if (!linea.isBlank()) ids.add(Integer.parseInt(linea.trim()));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Lista de IDs calientes ignorada: " + e.getMessage());
+            ids.clear();
+        }
+        return ids;
+    }
+
+    /**
+     * Guarda la lista de IDs calientes (reemplaza la anterior de forma atómica)
+     *
+     * @param archivo Destino
+     * @param ids IDs en orden de prioridad
+     * @throws IOException Si falla la escritura
+     */
+    public static void guardarIds(Path archivo, List<Integer> ids) throws IOException {
+        Path dir = archivo.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temporal = Files.createTempFile(dir, "hot-ids", ".tmp");
+        List<String> lineas = new ArrayList<>(ids.size());
+        for (int id : ids) lineas.add(Integer.toString(id));
+        Files.write(temporal, lineas, StandardCharsets.UTF_8);
+        Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,111 @@
+package service;
+
+import event.EventBus;
+import event.PeliculaEvent;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import journal.ChangeJournal;
+import journal.JournalEntry;
+import model.PeliculaValue;
+
+/**
+ * Registro de los cambios confirmados de PeliculaService
+ *
+ * Responsabilidades:
+ * - Escribir cada alta, modificación y baja confirmada en el diario de
+ *   cambios (si está activado)
+ * - Publicar el PeliculaEvent correspondiente en el bus
+ * - Reconstruir estructuras con replay del diario
+ * - Ordenar por ID la confirmación y su registro (candado)
+ *
+ * Características:
+ * - Un fallo del diario no deshace el cambio (la base es la fuente de verdad)
+ * - Los candados son ReentrantLock: no fijan los hilos virtuales
+ *
+ */
+
+final class ChangeRecorder {
+
+    private static final Logger logger = Logger.getLogger(ChangeRecorder.class.getName());
+
+    private volatile ChangeJournal journal; // null = desactivado
+    private final EventBus eventos = new EventBus(); // Avisa cada cambio confirmado
+    private final Lock[] candadosPorId = candados(64);
+
+    /**
+     * @param journal Diario abierto, o null para desactivarlo
+     */
+    void habilitarJournal(ChangeJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @return Diario activo, o null
+     */
+    ChangeJournal journal() {
+        return journal;
+    }
+
+    /**
+     * @return Bus en el que se publican los cambios
+     */
+    EventBus eventos() {
+        return eventos;
+    }
+
+    /**
+     * Registra un cambio confirmado en el diario y lo publica en el bus
+     */
+    void registrar(JournalEntry.Tipo tipo, int id, PeliculaValue valor) {
+        ChangeJournal diario = journal;
+        if (diario != null) {
+            try {
+                diario.append(tipo, id, valor);
+            } catch (IOException e) {
+                logger.warning("No se pudo registrar el cambio de ID " + id + " en el diario: " + e.getMessage());
+            }
+        }
+        eventos.publicar(switch (tipo) {
+            case CREATE -> new PeliculaEvent.Creada(id, valor);
+            case UPDATE -> new PeliculaEvent.Modificada(id, valor);
+            case DELETE -> new PeliculaEvent.Eliminada(id);
+        });
+    }
+
+    /**
+     * Reconstruye desde el diario (último checkpoint más la cola) sin
+     * consultar la base
+     *
+     * @return false si no hay diario, no tiene checkpoint o no se pudo leer
+     *         (el llamador recorre la base)
+     */
+    boolean replay(Consumer<JournalEntry> destino) {
+        ChangeJournal diario = journal;
+        if (diario == null) return false;
+        try {
+            return diario.tieneSnapshot() && diario.replay(destino);
+        } catch (IOException e) {
+            logger.warning("No se pudo leer el diario de cambios: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Candado de las escrituras síncronas de un ID: se toma desde antes de
+     * confirmar hasta después de registrar el cambio, así dos cambios del
+     * mismo ID llegan al diario y a los suscriptores en el orden en que se
+     * confirmaron (el write-behind ya los confirma y registra en orden)
+     */
+    Lock candado(int id) {
+        return candadosPorId[Math.floorMod(id, candadosPorId.length)];
+    }
+
+    private static Lock[] candados(int cantidad) {
+        Lock[] out = new Lock[cantidad];
+        for (int i = 0; i < cantidad; i++) out[i] = new ReentrantLock();
+        return out;
+    }
+}
@@ -0,0 +1,115 @@
+package service;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Filtro de claves (titulo, anio) existentes para el pre-chequeo de
+ * duplicados de PeliculaService
+ *
+ * Responsabilidades:
+ * - Responder "seguro que no existe" sin consultar la base
+ * - Registrar las claves nuevas de las altas y modificaciones confirmadas
+ * - Reconstruirse con el doble de capacidad cuando se llena
+ *
+ * Características:
+ * - Hasta la primera carga no descarta ni confirma nada (cargado() es false)
+ * - Las claves registradas durante una carga entran también en el filtro
+ *   nuevo, así no se pierden
+ *
+ */
+
+final class DuplicateKeyFilter {
+
+    private static final Logger logger = Logger.getLogger(DuplicateKeyFilter.class.getName());
+
+    private static final long CAPACIDAD_INICIAL = 1_000_000; // Claves iniciales del filtro
+    private static final double FALSOS_POSITIVOS = 0.01;
+
+    /**
+     * Fuente de todas las claves del catálogo
+     */
+    @FunctionalInterface
+    interface Claves {
+        void recorrer(Consumer<String> destino) throws SQLException;
+    }
+
+    private volatile Claves fuente;               // La de la última carga (para reconstruir)
+    private volatile BloomFilter filtro;          // null = aún no cargado
+    private volatile BloomFilter enConstruccion;  // Recibe las claves nuevas mientras se carga
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean(false);
+    private final Object cargaLock = new Object(); // Serializa las cargas
+
+    /**
+     * Carga el filtro con todas las claves del catálogo; si no alcanza la
+     * capacidad se repite con el doble
+     *
+     * @param claves Recorre las claves del catálogo (también en las
+     *        reconstrucciones posteriores)
+     * @throws SQLException Si falla la lectura del catálogo
+     */
+    void cargar(Claves claves) throws SQLException {
+        synchronized (cargaLock) {
+            fuente = claves;
+            BloomFilter anterior = filtro;
+            long capacidad = anterior == null ? CAPACIDAD_INICIAL : anterior.getCapacidad() * 2;
+            try {
+                BloomFilter nuevo;
+                do {
+                    nuevo = new BloomFilter(capacidad, FALSOS_POSITIVOS);
+                    enConstruccion = nuevo;
+                    claves.recorrer(nuevo::put);
+                    capacidad *= 2;
+                } while (nuevo.saturado());
+                // Primero se publica el nuevo y después se deja de alimentarlo (ver registrar)
+                filtro = nuevo;
+            } finally {
+                enConstruccion = null;
+            }
+        }
+    }
+
+    /**
+     * @return true si el filtro ya se cargó
+     */
+    boolean cargado() {
+        return filtro != null;
+    }
+
+    /**
+     * @return true si el filtro está cargado y la clave quizás existe (hay
+     *         que verificarla en la base)
+     */
+    boolean podriaExistir(String clave) {
+        BloomFilter f = filtro;
+        return f != null && f.mightContain(clave);
+    }
+
+    /**
+     * Registra una clave nueva; si el filtro se llenó lo reconstruye en
+     * segundo plano con el doble de capacidad
+     */
+    void registrar(String clave) {
+        // Se lee primero el filtro en construcción: si ya es null, filtro ya es el nuevo
+        BloomFilter nuevo = enConstruccion;
+        BloomFilter actual = filtro;
+        if (nuevo != null) nuevo.put(clave);
+        if (actual != null && actual != nuevo) {
+            actual.put(clave);
+            if (actual.saturado() && reconstruyendo.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        cargar(fuente);
+                    } catch (SQLException e) {
+                        logger.warning("No se pudo reconstruir el filtro de duplicados: " + e.getMessage());
+                    } finally {
+                        reconstruyendo.set(false);
+                    }
+                });
+            }
+        }
+    }
+}
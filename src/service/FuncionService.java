@@ -0,0 +1,328 @@
+package service;
+
+import dao.IFuncionDAO;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import model.Funcion;
+import model.Pelicula;
+
+/**
+ * Servicio de aplicación para la programación de funciones
+ *
+ * Responsabilidades:
+ * - Validar cada función (película existente, sala, inicio) y calcular su
+ *   fin: inicio + duración de la película + limpieza de la sala
+ * - Impedir que dos funciones ocupen la misma sala al mismo tiempo, con un
+ *   IntervalTree por sala (detección en O(log n))
+ * - Validar la programación de una semana completa en paralelo (una tarea
+ *   por sala) y guardarla en una sola transacción
+ *
+ * Características:
+ * - El índice se carga la primera vez que se usa, con las funciones desde
+ *   el comienzo del día; no se programan funciones anteriores a ese momento
+ * - Las escrituras se serializan entre sí (validar y guardar es atómico
+ *   para este proceso); las consultas de agenda y las validaciones sin
+ *   guardar corren en paralelo
+ * - Las funciones creadas por otros procesos directamente en la base no se
+ *   ven hasta volver a cargar el índice (cargarIndice)
+ * - Al crearse habilita en PeliculaService los controles de bajas y
+ *   cambios de duración de películas con funciones
+ *
+ */
+
+public class FuncionService {
+
+    /**
+     * Solapamiento detectado
+     *
+     * @param funcion Función propuesta
+     * @param con Función con la que choca (ya programada o de la misma propuesta)
+     */
+    public record Conflicto(Funcion funcion, Funcion con) {}
+
+    public static final Duration LIMPIEZA_POR_DEFECTO = Duration.ofMinutes(15);
+    private static final LocalDateTime SIN_LIMITE = LocalDateTime.of(9999, 12, 31, 23, 59); // Máximo de DATETIME
+
+    private final IFuncionDAO dao;
+    private final PeliculaService peliculas;
+    private final Duration limpieza;
+    private final Map<Integer, IntervalTree<Funcion>> salas = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LocalDateTime ventanaDesde; // null = índice sin cargar (protegido por lock)
+
+    /**
+     * @param dao DAO de funciones
+     * @param peliculas Servicio de películas (duraciones)
+     */
+    public FuncionService(IFuncionDAO dao, PeliculaService peliculas) {
+        this(dao, peliculas, LIMPIEZA_POR_DEFECTO);
+    }
+
+    /**
+     * @param dao DAO de funciones
+     * @param peliculas Servicio de películas (duraciones)
+     * @param limpieza Tiempo que la sala queda ocupada tras cada proyección
+     */
+    public FuncionService(IFuncionDAO dao, PeliculaService peliculas, Duration limpieza) {
+        this.dao = dao;
+        this.peliculas = peliculas;
+        this.limpieza = limpieza;
+        peliculas.habilitarFunciones(dao);
+    }
+
+    /**
+     * (Re)carga el índice con las funciones que terminan después de desde
+     *
+     * @param desde Primer momento en que se pueden programar funciones
+     * @throws Exception Si falla la lectura
+     */
+    public void cargarIndice(LocalDateTime desde) throws Exception {
+        lock.writeLock().lock();
+        try {
+            salas.clear();
+            for (Funcion f : dao.findEntre(desde, SIN_LIMITE)) indexar(f);
+            ventanaDesde = desde;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Programa una función
+     *
+     * @param f Función a programar (película, sala e inicio); se le asignan
+     *          el fin y el ID
+     * @return int ID generado por la base de datos
+     * @throws IllegalArgumentException Si es inválida o se solapa con otra
+     * @throws Exception Si falla la persistencia
+     */
+    public int programar(Funcion f) throws Exception {
+        validar(f);
+        Pelicula p = peliculas.findById(f.getPeliculaId()); // Lanza si no existe
+        f.setFin(calcularFin(f, p));
+        cargarIndiceSiFalta();
+
+        lock.writeLock().lock();
+        try {
+            verificarVentana(f);
+            IntervalTree<Funcion> agenda = salas.get(f.getSala());
+            Funcion otra = agenda == null ? null : agenda.primerSolapado(segundos(f.getInicio()), segundos(f.getFin()));
+            if (otra != null) throw new IllegalArgumentException(describir(new Conflicto(f, otra)));
+            f.setId(dao.create(f));
+            indexar(f);
+            return f.getId();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Valida la programación completa y, si no hay conflictos, la guarda en
+     * una sola transacción
+     *
+     * @param funciones Funciones de la semana; se les asignan el fin y el ID
+     * @throws IllegalArgumentException Si alguna es inválida o se solapa
+     *         (no se guarda ninguna)
+     * @throws Exception Si falla la persistencia
+     */
+    public void programarSemana(List<Funcion> funciones) throws Exception {
+        completar(funciones);
+        lock.writeLock().lock();
+        try {
+            for (Funcion f : funciones) verificarVentana(f);
+            List<Conflicto> conflictos = conflictos(funciones);
+            if (!conflictos.isEmpty()) {
+                throw new IllegalArgumentException(conflictos.size() + " conflicto(s) en la programación. Primero: "
+                        + describir(conflictos.get(0)));
+            }
+            dao.createBatch(funciones);
+            for (Funcion f : funciones) indexar(f);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Valida la programación sin guardarla
+     *
+     * @param funciones Funciones propuestas; se les asigna el fin
+     * @return Conflictos encontrados, por sala e inicio (vacía = válida)
+     * @throws IllegalArgumentException Si alguna es inválida
+     * @throws Exception Si falla la lectura de las películas o del índice
+     */
+    public List<Conflicto> validarSemana(List<Funcion> funciones) throws Exception {
+        completar(funciones);
+        lock.readLock().lock();
+        try {
+            for (Funcion f : funciones) verificarVentana(f);
+            return conflictos(funciones);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cancela una función programada
+     *
+     * @param id ID de la función
+     * @throws Exception Si falla la persistencia
+     */
+    public void cancelar(int id) throws Exception {
+        lock.writeLock().lock();
+        try {
+            Funcion f = dao.findById(id);
+            if (f == null) return;
+            dao.delete(id);
+            IntervalTree<Funcion> agenda = salas.get(f.getSala());
+            if (agenda != null) agenda.quitar(segundos(f.getInicio()), id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Funciones de la sala que ocupan algún momento de [desde, hasta), por inicio
+     * @throws Exception Si falla la carga del índice
+     */
+    public List<Funcion> agendaSala(int sala, LocalDateTime desde, LocalDateTime hasta) throws Exception {
+        cargarIndiceSiFalta();
+        lock.readLock().lock();
+        try {
+            List<Funcion> out = new ArrayList<>();
+            IntervalTree<Funcion> agenda = salas.get(sala);
+            if (agenda != null) {
+                for (Funcion f : agenda.solapados(segundos(desde), segundos(hasta))) out.add(copia(f));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Funciones de todas las salas en [desde, hasta), leídas de la base
+     * @throws Exception Si falla la lectura
+     */
+    public List<Funcion> findEntre(LocalDateTime desde, LocalDateTime hasta) throws Exception {
+        return dao.findEntre(desde, hasta);
+    }
+
+    // ---------------------------------------------------------------------
+
+    /**
+     * Valida los datos y calcula el fin de cada función, buscando todas las
+     * películas en una sola consulta; carga el índice si hace falta
+     */
+    private void completar(List<Funcion> funciones) throws Exception {
+        for (Funcion f : funciones) validar(f);
+        List<Integer> ids = funciones.stream().map(Funcion::getPeliculaId).distinct().collect(Collectors.toList());
+        Map<Integer, Pelicula> porId = new HashMap<>();
+        for (Pelicula p : peliculas.findByIds(ids)) porId.put(p.getId(), p);
+        for (Funcion f : funciones) {
+            Pelicula p = porId.get(f.getPeliculaId());
+            if (p == null) {
+                throw new IllegalArgumentException("No existe la película con ID " + f.getPeliculaId() + ".");
+            }
+            f.setFin(calcularFin(f, p));
+        }
+        cargarIndiceSiFalta();
+    }
+
+    /**
+     * Busca los solapamientos de las propuestas con lo ya programado y entre
+     * sí, en paralelo por sala. Quien llama tiene tomado el lock
+     */
+    private List<Conflicto> conflictos(List<Funcion> funciones) {
+        Map<Integer, List<Funcion>> porSala = funciones.stream().collect(Collectors.groupingBy(Funcion::getSala));
+        return porSala.entrySet().parallelStream()
+                .flatMap(e -> conflictosSala(salas.get(e.getKey()), e.getValue()).stream())
+                .sorted(Comparator.comparing((Conflicto c) -> c.funcion().getSala())
+                        .thenComparing(c -> c.funcion().getInicio()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Conflicto> conflictosSala(IntervalTree<Funcion> agenda, List<Funcion> propuestas) {
+        List<Conflicto> out = new ArrayList<>();
+        IntervalTree<Funcion> nuevas = new IntervalTree<>();
+        for (int i = 0; i < propuestas.size(); i++) {
+            Funcion f = propuestas.get(i);
+            long inicio = segundos(f.getInicio()), fin = segundos(f.getFin());
+            if (agenda != null) {
+                for (Funcion otra : agenda.solapados(inicio, fin)) out.add(new Conflicto(f, copia(otra)));
+            }
+            for (Funcion otra : nuevas.solapados(inicio, fin)) out.add(new Conflicto(f, otra));
+            nuevas.insertar(inicio, fin, i, f); // Sin ID todavía: desempata la posición
+        }
+        return out;
+    }
+
+    private void cargarIndiceSiFalta() throws Exception {
+        lock.readLock().lock();
+        try {
+            if (ventanaDesde != null) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (ventanaDesde == null) cargarIndice(LocalDate.now().atStartOfDay());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void validar(Funcion f) {
+        if (f.getInicio() == null) {
+            throw new IllegalArgumentException("El inicio de la función es obligatorio.");
+        }
+        if (f.getSala() < 1) {
+            throw new IllegalArgumentException("La sala debe ser mayor o igual a 1.");
+        }
+    }
+
+    /**
+     * Quien llama tiene tomado el lock (y el índice ya está cargado)
+     */
+    private void verificarVentana(Funcion f) {
+        if (f.getInicio().isBefore(ventanaDesde)) {
+            throw new IllegalArgumentException("No se pueden programar funciones antes de " + ventanaDesde + ".");
+        }
+    }
+
+    private LocalDateTime calcularFin(Funcion f, Pelicula p) {
+        return f.getInicio().plusMinutes(p.getDuracion()).plus(limpieza);
+    }
+
+    /**
+     * Guarda una copia: el llamador puede seguir modificando su objeto
+     */
+    private void indexar(Funcion f) {
+        salas.computeIfAbsent(f.getSala(), s -> new IntervalTree<>())
+             .insertar(segundos(f.getInicio()), segundos(f.getFin()), f.getId(), copia(f));
+    }
+
+    private static Funcion copia(Funcion f) {
+        return new Funcion(f.getId(), f.getPeliculaId(), f.getSala(), f.getInicio(), f.getFin());
+    }
+
+    private static long segundos(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static String describir(Conflicto c) {
+        Funcion con = c.con();
+        return "La función de la sala " + c.funcion().getSala() + " a las " + c.funcion().getInicio()
+                + " se superpone con " + (con.getId() != null ? "la función " + con.getId() : "otra de la propuesta")
+                + " (" + con.getInicio() + " - " + con.getFin() + ").";
+    }
+}
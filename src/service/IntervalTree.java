@@ -0,0 +1,198 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árbol de intervalos semiabiertos [inicio, fin) para detectar solapamientos
+ *
+ * Responsabilidades:
+ * - Guardar intervalos con un valor asociado, ordenados por (inicio, id)
+ * - Responder si un intervalo se solapa con alguno guardado en O(log n), y
+ *   listar todos los que se solapan en O(log n + k)
+ *
+ * Características:
+ * - Árbol AVL aumentado: cada nodo guarda el mayor fin de su subárbol, así
+ *   la búsqueda descarta subárboles enteros que terminan antes del intervalo
+ * - Los intervalos que solo se tocan en un extremo no se solapan
+ * - No es thread-safe: quien lo usa sincroniza los accesos
+ *
+ * @param <V> Tipo del valor asociado a cada intervalo
+ */
+
+public final class IntervalTree<V> {
+
+    private static final class Nodo<V> {
+        final long inicio;
+        final long fin;
+        final int id;
+        final V valor;
+        Nodo<V> izq, der;
+        int altura = 1;
+        long maxFin;
+
+        Nodo(long inicio, long fin, int id, V valor) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.id = id;
+            this.valor = valor;
+            this.maxFin = fin;
+        }
+    }
+
+    private Nodo<V> raiz;
+    private int tamanio;
+
+    /**
+     * Agrega un intervalo (o lo reemplaza si ya hay uno con el mismo inicio e id)
+     *
+     * @param inicio Comienzo (inclusive)
+     * @param fin Final (exclusivo, mayor que inicio)
+     * @param id Desempata intervalos con el mismo inicio
+     * @param valor Valor asociado
+     */
+    public void insertar(long inicio, long fin, int id, V valor) {
+        if (fin <= inicio) throw new IllegalArgumentException("Intervalo vacío: [" + inicio + ", " + fin + ")");
+        raiz = insertar(raiz, new Nodo<>(inicio, fin, id, valor));
+    }
+
+    /**
+     * Quita el intervalo con ese inicio e id
+     *
+     * @return true si estaba
+     */
+    public boolean quitar(long inicio, int id) {
+        int antes = tamanio;
+        raiz = quitar(raiz, inicio, id);
+        return tamanio < antes;
+    }
+
+    /**
+     * @return El valor de algún intervalo que se solapa con [inicio, fin), o
+     *         null si no hay ninguno (O(log n))
+     */
+    public V primerSolapado(long inicio, long fin) {
+        Nodo<V> n = raiz;
+        while (n != null) {
+            if (n.inicio < fin && inicio < n.fin) return n.valor;
+            // Si a la izquierda alguno termina después de inicio pero no se
+            // solapa, empieza en fin o después, y también los de la derecha:
+            // basta con seguir una sola rama
+            n = n.izq != null && n.izq.maxFin > inicio ? n.izq : n.der;
+        }
+        return null;
+    }
+
+    /**
+     * @return Valores de todos los intervalos que se solapan con [inicio, fin),
+     *         por inicio
+     */
+    public List<V> solapados(long inicio, long fin) {
+        List<V> out = new ArrayList<>();
+        solapados(raiz, inicio, fin, out);
+        return out;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public void limpiar() {
+        raiz = null;
+        tamanio = 0;
+    }
+
+    // ---------------------------------------------------------------------
+
+    private void solapados(Nodo<V> n, long inicio, long fin, List<V> out) {
+        if (n == null || n.maxFin <= inicio) return; // Todo el subárbol termina antes
+        solapados(n.izq, inicio, fin, out);
+        if (n.inicio >= fin) return; // Este y los de la derecha empiezan después
+        if (inicio < n.fin) out.add(n.valor);
+        solapados(n.der, inicio, fin, out);
+    }
+
+    private static int comparar(long inicio, int id, Nodo<?> n) {
+        int c = Long.compare(inicio, n.inicio);
+        return c != 0 ? c : Integer.compare(id, n.id);
+    }
+
+    private Nodo<V> insertar(Nodo<V> n, Nodo<V> nuevo) {
+        if (n == null) {
+            tamanio++;
+            return nuevo;
+        }
+        int c = comparar(nuevo.inicio, nuevo.id, n);
+        if (c == 0) { // Reemplazo: conserva los hijos
+            nuevo.izq = n.izq;
+            nuevo.der = n.der;
+            return actualizar(nuevo);
+        }
+        if (c < 0) n.izq = insertar(n.izq, nuevo);
+        else n.der = insertar(n.der, nuevo);
+        return balancear(n);
+    }
+
+    private Nodo<V> quitar(Nodo<V> n, long inicio, int id) {
+        if (n == null) return null;
+        int c = comparar(inicio, id, n);
+        if (c < 0) {
+            n.izq = quitar(n.izq, inicio, id);
+        } else if (c > 0) {
+            n.der = quitar(n.der, inicio, id);
+        } else {
+            tamanio--;
+            if (n.izq == null) return n.der;
+            if (n.der == null) return n.izq;
+            // Reemplaza por el menor de la derecha
+            Nodo<V> sucesor = n.der;
+            while (sucesor.izq != null) sucesor = sucesor.izq;
+            tamanio++; // quitar lo vuelve a descontar
+            sucesor.der = quitar(n.der, sucesor.inicio, sucesor.id);
+            sucesor.izq = n.izq;
+            return balancear(sucesor);
+        }
+        return balancear(n);
+    }
+
+    private static int altura(Nodo<?> n) {
+        return n == null ? 0 : n.altura;
+    }
+
+    private static <V> Nodo<V> actualizar(Nodo<V> n) {
+        n.altura = 1 + Math.max(altura(n.izq), altura(n.der));
+        long max = n.fin;
+        if (n.izq != null) max = Math.max(max, n.izq.maxFin);
+        if (n.der != null) max = Math.max(max, n.der.maxFin);
+        n.maxFin = max;
+        return n;
+    }
+
+    private static <V> Nodo<V> balancear(Nodo<V> n) {
+        actualizar(n);
+        int factor = altura(n.izq) - altura(n.der);
+        if (factor > 1) {
+            if (altura(n.izq.izq) < altura(n.izq.der)) n.izq = rotarIzquierda(n.izq);
+            return rotarDerecha(n);
+        }
+        if (factor < -1) {
+            if (altura(n.der.der) < altura(n.der.izq)) n.der = rotarDerecha(n.der);
+            return rotarIzquierda(n);
+        }
+        return n;
+    }
+
+    private static <V> Nodo<V> rotarDerecha(Nodo<V> n) {
+        Nodo<V> h = n.izq;
+        n.izq = h.der;
+        h.der = actualizar(n);
+        return actualizar(h);
+    }
+
+    private static <V> Nodo<V> rotarIzquierda(Nodo<V> n) {
+        Nodo<V> h = n.der;
+        n.der = h.izq;
+        h.izq = actualizar(n);
+        return actualizar(h);
+    }
+}
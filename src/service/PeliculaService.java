@@ -1,11 +1,29 @@
 package service;
 
-import dao.PeliculaDAO;
+import dao.IFuncionDAO;
+import dao.IPeliculaDAO;
+import dao.InMemoryPeliculaDAO;
+import dao.PeliculaCriteria;
+import dao.SessionPeliculaDAO;
+import db.CancellationToken;
+import db.Session;
+import db.TransactionOptions;
+import event.EventBus;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.time.Year;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import journal.ChangeJournal;
+import journal.JournalEntry;
+import model.Genero;
 import model.Pelicula;
+import model.PeliculaValue;
 
 /**
  * Servicio de aplicación para la gestión de películas
@@ -14,18 +32,139 @@ import model.Pelicula;
  * de persistir - Coordinar operaciones con el DAO - Manejar excepciones de
  * negocio
  *
+ * Los índices en memoria (TitleSearch, DuplicateKeyFilter, SimilarFilms) y
+ * el registro de cambios (ChangeRecorder) son colaboradores: el servicio
+ * decide cuándo se cargan y les avisa cada cambio confirmado.
+ *
  */
-public class PeliculaService {
+public class PeliculaService implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(PeliculaService.class.getName());
+
+    private final IPeliculaDAO dao; // DAO para operaciones de persistencia
+    private volatile WriteBehindQueue writeBehind; // null = escrituras síncronas
+    private volatile IFuncionDAO funciones; // Funciones programadas; null = sin programación
+    private final ChangeRecorder cambios = new ChangeRecorder();       // Diario, eventos y orden por ID
+    private final TitleSearch titulos = new TitleSearch();             // Búsqueda difusa
+    private final DuplicateKeyFilter claves = new DuplicateKeyFilter(); // (titulo, anio) existentes
+    private final SimilarFilms similares = new SimilarFilms(MAX_SIMILARES); // "También te puede gustar"
+    
+    private static final double SIMILITUD_MINIMA = 0.3; // Umbral de trigramas (como pg_trgm)
+    private static final int LOTE_INDICE = 5000;       // Filas por consulta al construir los índices
+    private static final int MAX_SIMILARES = 20;       // K del índice de similares
+
+    /**
+     * Constructor que inyecta el DAO, con una sesión propia
+     *
+     * @param dao Implementación de IPeliculaDAO (un nodo, shards o memoria)
+     */
+    public PeliculaService(IPeliculaDAO dao) {
+        this(dao, new Session());
+    }
+
+    /**
+     * Constructor que inyecta el DAO y la sesión en cuyo nombre opera
+     *
+     * Todas las operaciones del servicio, desde cualquier hilo (EDT,
+     * SwingWorker, API, write-behind), corren en esa sesión: con réplicas
+     * de lectura, cada lectura ve las escrituras previas del servicio.
+     *
+     * @param dao Implementación de IPeliculaDAO (un nodo, shards o memoria)
+     * @param sesion Sesión de lectura/escritura
+     */
+    public PeliculaService(IPeliculaDAO dao, Session sesion) {
+        this.dao = new SessionPeliculaDAO(dao, sesion);
+    }
+
+    /**
+     * Activa el modo write-behind: update y delete se encolan y se aplican
+     * en lotes con group commit
+     *
+     * @param tamanioLote Cantidad de mutaciones que dispara un flush
+     * @param maxDemoraMillis Tiempo máximo que una mutación espera en la cola
+     */
+    public synchronized void habilitarWriteBehind(int tamanioLote, long maxDemoraMillis) {
+        if (writeBehind == null) {
+            writeBehind = new WriteBehindQueue(dao, tamanioLote, maxDemoraMillis);
+        }
+    }
+
+    /**
+     * Activa el diario de cambios: cada alta, modificación y baja confirmada
+     * se registra con fecha y autor
+     *
+     * Con un checkpoint en el diario, el índice de títulos y el filtro de
+     * duplicados se reconstruyen con replay en lugar de recorrer la base.
+     * El diario refleja la base mientras todas las escrituras pasen por este
+     * servicio; si no, esas estructuras solo quedan aproximadas (la búsqueda
+     * difusa igual relee cada resultado y el índice único sigue validando).
+     *
+     * @param journal Diario abierto (lo cierra quien lo creó)
+     */
+    public synchronized void habilitarJournal(ChangeJournal journal) {
+        cambios.habilitarJournal(journal);
+    }
 
-    private final PeliculaDAO dao; // DAO para operaciones de persistencia
+    /**
+     * Activa los controles sobre las funciones programadas: no se puede
+     * eliminar una película con funciones ni cambiar la duración de una con
+     * funciones sin terminar (su fin se calculó con la duración anterior)
+     *
+     * Lo llama FuncionService al crearse; en MySQL la clave foránea de
+     * FUNCION impide además la baja aunque las funciones las cree otro proceso.
+     *
+     * @param funciones DAO de funciones
+     */
+    public void habilitarFunciones(IFuncionDAO funciones) {
+        this.funciones = funciones;
+    }
 
     /**
-     * Constructor que inyecta el DAO
+     * Bus en el que se publica un PeliculaEvent por cada alta, modificación
+     * y baja confirmada (con write-behind, cuando se aplica en la base)
      *
-     * @param dao Implementación de PeliculaDAO
+     * @return Bus de eventos del servicio
+     */
+    public EventBus eventos() {
+        return cambios.eventos();
+    }
+
+    /**
+     * Guarda en el diario un checkpoint con el catálogo actual leído de la
+     * base, para que los replay posteriores no necesiten la base
+     *
+     * @throws SQLException Si falla la lectura del catálogo
+     * @throws IOException Si falla la escritura del snapshot
+     */
+    public void checkpointJournal() throws SQLException, IOException {
+        ChangeJournal diario = cambios.journal();
+        if (diario == null) return;
+        flushPendientes();
+        try (ChangeJournal.Checkpoint checkpoint = diario.iniciarCheckpoint()) {
+            IOException[] error = new IOException[1];
+            recorrerCatalogo(p -> {
+                if (error[0] != null) return;
+                try {
+                    checkpoint.put(PeliculaValue.of(p));
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) throw error[0];
+            checkpoint.commit();
+        }
+    }
+
+    /**
+     * Drena las mutaciones pendientes y libera los recursos del servicio
      */
-    public PeliculaService(PeliculaDAO dao) {
-        this.dao = dao;
+    @Override
+    public synchronized void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+            writeBehind = null;
+        }
+        similares.close();
     }
 
     /**
@@ -59,10 +198,30 @@ public class PeliculaService {
             throw new IllegalArgumentException("La duración debe estar entre 1 y 999.");
         }
 
+        // Pre-chequeo de duplicados: si el filtro dice "seguro que no" se inserta
+        // directo; si dice "quizás" se verifica con una consulta por el índice
+        // único en vez de pagar un INSERT fallido
+        String clave = InMemoryPeliculaDAO.claveUnica(p.getTitulo(), p.getAnio());
+        boolean verificar = claves.podriaExistir(clave);
+
         try {
-            // Delegar la persistencia al DAO
-            int id = dao.create(p);
+            // Delegar la persistencia al DAO (verificación e inserción en una sola conexión)
+            int id = !verificar ? dao.create(p) : dao.inTransaction(TransactionOptions.DEFAULT, () -> {
+                if (existeOtra(p.getTitulo(), p.getAnio(), null)) {
+                    throw new IllegalArgumentException("Ya existe una película con el mismo TÍTULO y AÑO.");
+                }
+                return dao.create(p);
+            });
             p.setId(id);
+            titulos.indexar(id, p.getTitulo());
+            claves.registrar(clave);
+            Lock candado = cambios.candado(id);
+            candado.lock();
+            try {
+                cambios.registrar(JournalEntry.Tipo.CREATE, id, PeliculaValue.of(p));
+            } finally {
+                candado.unlock();
+            }
             return id;
         } catch (java.sql.SQLIntegrityConstraintViolationException dup) {
             // Manejar violación del constraint única (título + año)
@@ -70,6 +229,76 @@ public class PeliculaService {
         }
     }
 
+    /**
+     * Carga el filtro de duplicados con las claves (titulo, anio) de todo el
+     * catálogo: con replay del diario si tiene checkpoint o recorriendo la
+     * base por ID en lotes (keyset)
+     *
+     * Se llama al iniciar la aplicación; hasta que termina, add no hace
+     * pre-chequeo. Las altas concurrentes se registran también en el filtro
+     * nuevo, así no se pierden claves durante la carga.
+     *
+     * @throws SQLException Si falla la lectura del catálogo
+     */
+    public void cargarFiltroDuplicados() throws SQLException {
+        claves.cargar(this::cargarClaves);
+    }
+
+    private void cargarClaves(Consumer<String> destino) throws SQLException {
+        boolean desdeDiario = cambios.replay(e -> {
+            if (e.valor() != null) destino.accept(InMemoryPeliculaDAO.claveUnica(e.valor().titulo(), e.valor().anio()));
+        });
+        if (!desdeDiario) {
+            recorrerCatalogo(p -> destino.accept(InMemoryPeliculaDAO.claveUnica(p.getTitulo(), p.getAnio())));
+        }
+    }
+
+    /**
+     * Registra una modificación confirmada; si el backend movió la película
+     * de shard (ID nuevo) se registra como baja del ID anterior y alta del nuevo
+     */
+    private void registrarModificacion(int idAnterior, PeliculaValue valor) {
+        if (valor.id() == idAnterior) {
+            cambios.registrar(JournalEntry.Tipo.UPDATE, idAnterior, valor);
+            return;
+        }
+        titulos.indexar(idAnterior, null);
+        titulos.indexar(valor.id(), valor.titulo());
+        cambios.registrar(JournalEntry.Tipo.DELETE, idAnterior, null);
+        cambios.registrar(JournalEntry.Tipo.CREATE, valor.id(), valor);
+    }
+
+    /**
+     * Recorre todo el catálogo por ID en lotes (keyset), en una transacción
+     * de solo lectura: una sola conexión y una instantánea consistente
+     */
+    private void recorrerCatalogo(Consumer<Pelicula> destino) throws SQLException {
+        dao.inTransaction(TransactionOptions.READ_ONLY, () -> {
+            Pelicula ultima = null;
+            List<Pelicula> lote;
+            do {
+                lote = dao.findBy(PeliculaCriteria.create()
+                        .ordenarPor(PeliculaCriteria.Campo.ID, false)
+                        .limite(LOTE_INDICE)
+                        .despuesDe(ultima));
+                lote.forEach(destino);
+                if (!lote.isEmpty()) ultima = lote.get(lote.size() - 1);
+            } while (lote.size() == LOTE_INDICE);
+            return null;
+        });
+    }
+
+    /**
+     * @param excluirId ID que no cuenta como duplicado (la propia película al modificar), o null
+     * @return true si otra película ya tiene ese (titulo, anio)
+     */
+    private boolean existeOtra(String titulo, int anio, Integer excluirId) throws SQLException {
+        for (Pelicula p : dao.findBy(PeliculaCriteria.create().titulo(titulo).anioEntre(anio, anio).limite(2))) {
+            if (!p.getId().equals(excluirId)) return true;
+        }
+        return false;
+    }
+
     /**
     *   Busca una película por ID
     *   @param id ID de la película a buscar
@@ -80,6 +309,7 @@ public class PeliculaService {
             throw new IllegalArgumentException("ID inválido.");
         }
 
+        flushPendientes();
         Pelicula pelicula = dao.findById(id);
         if (pelicula == null) {
             throw new IllegalArgumentException("No se encontró la pelicula con ID: " + id);
@@ -87,10 +317,45 @@ public class PeliculaService {
         return pelicula;
     } 
 
+    /**
+     * Busca varias películas por ID en una sola pasada (ej. precarga de caché)
+     *
+     * @param ids IDs a buscar
+     * @return Las películas encontradas, sin orden garantizado
+     * @throws Exception Si falla la consulta
+     */
+    public List<Pelicula> findByIds(List<Integer> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs es obligatoria.");
+        }
+        flushPendientes();
+        return dao.findByIds(ids);
+    }
+
     public List<Pelicula> findAll() throws Exception {
+        flushPendientes();
         return dao.findAll();
     }
 
+    /**
+     * Obtiene una página del catálogo ordenado por título
+     *
+     * @param pagina Número de página (desde 0)
+     * @param tamanio Películas por página (1-1000)
+     * @return Lista con las películas de la página
+     * @throws Exception Si los parámetros son inválidos o falla la consulta
+     */
+    public List<Pelicula> findPage(int pagina, int tamanio) throws Exception {
+        if (pagina < 0) {
+            throw new IllegalArgumentException("La página no puede ser negativa.");
+        }
+        if (tamanio < 1 || tamanio > 1000) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y 1000.");
+        }
+        flushPendientes();
+        return dao.findPage(Math.multiplyExact(pagina, tamanio), tamanio);
+    }
+
     /**
      * Filtra películas por género y rango de años
      *
@@ -100,80 +365,415 @@ public class PeliculaService {
      * @return Lista de películas filtradas
      * @throws SQLException Si ocurre un error en la consulta
      */
-public List<Pelicula> findWithFilters(String genero, int anioDesde, int anioHasta) throws Exception {
-    System.out.println("Aplicando filtros - Género: " + genero + ", Años: " + anioDesde + "-" + anioHasta);
-
-    try {
-        List<Pelicula> todasLasPeliculas = dao.findAll();
-        System.out.println("Total películas en BD: " + todasLasPeliculas.size());
-
-        List<Pelicula> resultado = todasLasPeliculas.stream()
-                .filter(p -> {
-                    // Filtro por género - flexible
-                    boolean generoMatch;
-                    if ("Todos".equals(genero)) {
-                        generoMatch = true; // Si es "TODOS", acepta cualquier género
-                    } else {
-                        generoMatch = p.getGenero().toString().equals(genero);
-                    }
-                    
-                    // Filtro por rango de años - flexible
-                    boolean anioMatch;
-                    if (anioDesde == 1900 && anioHasta == 2030) {
-                        anioMatch = true; // Rango completo = sin filtro de año
-                    } else {
-                        anioMatch = p.getAnio() >= anioDesde && p.getAnio() <= anioHasta;
-                    }
-                    
-                    // DEBUG: Imprimir evaluación
-                    System.out.println("Película: " + p.getTitulo() + 
-                        " - Género: " + p.getGenero() + " (" + generoMatch + ")" +
-                        ", Año: " + p.getAnio() + " (" + anioMatch + ")" +
-                        " - Resultado: " + (generoMatch && anioMatch));
-                    
-                    return generoMatch && anioMatch;
-                })
-                .collect(Collectors.toList());
-
-            System.out.println("Películas filtradas: " + resultado.size());
-            return resultado;
-            
-        } catch (Exception e) {
-            System.err.println("Error al filtrar películas: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+    public List<Pelicula> findWithFilters(String genero, int anioDesde, int anioHasta) throws Exception {
+        // El filtro se resuelve en la base de datos (o en cada shard) en vez de
+        // traer todo el catálogo y filtrarlo en memoria
+        PeliculaCriteria criterio = criterioFiltros(genero, anioDesde, anioHasta);
+        flushPendientes();
+        List<Pelicula> resultado = dao.findBy(criterio);
+        logger.fine(() -> "Filtro " + criterio + ": " + resultado.size() + " películas");
+        return resultado;
+    }
+    
+    /**
+     * Busca películas con un criterio compuesto (filtros, orden y límite)
+     * resuelto en una sola consulta
+     *
+     * @param criteria Criterio de búsqueda
+     * @return Lista de películas en el orden pedido
+     * @throws Exception Si el criterio es nulo o falla la consulta
+     */
+    public List<Pelicula> findBy(PeliculaCriteria criteria) throws Exception {
+        return findBy(criteria, new CancellationToken());
+    }
+    
+    /**
+     * Igual que findBy, pero la consulta se puede cancelar desde otro hilo
+     * (ej. el botón "Cancelar" de la vista)
+     *
+     * @param criteria Criterio de búsqueda
+     * @param token Token que cancela la consulta en curso
+     * @return Lista de películas en el orden pedido
+     * @throws Exception Si el criterio es nulo, falla la consulta o se canceló
+     *         (CancellationToken.CancelledException)
+     */
+    public List<Pelicula> findBy(PeliculaCriteria criteria, CancellationToken token) throws Exception {
+        if (criteria == null || token == null) {
+            throw new IllegalArgumentException("El criterio de búsqueda es obligatorio.");
         }
+        flushPendientes();
+        return dao.findBy(criteria, token);
+    }
+    
+    /**
+     * Arma el criterio de los filtros de la vista, para completarlo con
+     * orden, límite o continuación antes de pasarlo a findBy
+     *
+     * @param genero Género a filtrar ("Todos" = sin filtro)
+     * @param anioDesde Año inicial del rango
+     * @param anioHasta Año final del rango
+     * @return PeliculaCriteria con los filtros
+     */
+    public PeliculaCriteria criterioFiltros(String genero, int anioDesde, int anioHasta) {
+        return PeliculaCriteria.create()
+                .generos(parseGenero(genero))
+                .anioEntre(anioDesde, anioHasta);
+    }
+
+    /**
+     * Arma el criterio de la búsqueda por título (como findByTitle, ordenada
+     * por título), para recorrerla por páginas con findBy
+     *
+     * @param query Texto que debe contener el título
+     * @return PeliculaCriteria con el filtro y el orden
+     */
+    public PeliculaCriteria criterioTitulo(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("El término de búsqueda no puede estar vacío.");
+        }
+        return PeliculaCriteria.create()
+                .tituloContiene(query.trim())
+                .ordenarPor(PeliculaCriteria.Campo.TITULO, false);
+    }
+    
+    /**
+     * Convierte el género seleccionado en la vista a Enum
+     *
+     * @param genero Nombre del género, sin distinguir mayúsculas ("Todos" = sin filtro)
+     * @return Genero correspondiente, o null para no filtrar por género
+     */
+    private static Genero parseGenero(String genero) {
+        if (genero == null || "Todos".equalsIgnoreCase(genero)) {
+            return null;
+        }
+        for (Genero g : Genero.values()) {
+            if (g.name().equalsIgnoreCase(genero)) return g;
+        }
+        throw new IllegalArgumentException("Género inválido: " + genero);
     }
     
         public List<Pelicula> findByTitle(String query) throws Exception {
         if (query == null || query.trim().isEmpty()) {
             throw new IllegalArgumentException("El término de búsqueda no puede estar vacío.");
         }
+        flushPendientes();
         return dao.findByTitleLike(query.trim());
     }
 
+    /**
+     * Búsqueda tolerante a errores de tipeo y acentos ("Suenos de Campus")
+     *
+     * Usa un índice de trigramas en memoria que se construye en la primera
+     * búsqueda y se mantiene al día con add/update/delete de este servicio.
+     *
+     * @param query Texto a buscar
+     * @param k Cantidad máxima de resultados (1-100)
+     * @return Películas ordenadas de más a menos parecida
+     * @throws Exception Si la búsqueda es inválida o falla la consulta
+     */
+    public List<Pelicula> findByTitleFuzzy(String query, int k) throws Exception {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("El término de búsqueda no puede estar vacío.");
+        }
+        if (k < 1 || k > 100) {
+            throw new IllegalArgumentException("La cantidad de resultados debe estar entre 1 y 100.");
+        }
+        cargarIndiceTitulos();
+
+        List<Pelicula> resultado = new ArrayList<>(k);
+        for (TrigramTitleIndex.Coincidencia c : titulos.buscar(query.trim(), k, SIMILITUD_MINIMA)) {
+            Pelicula p = dao.findById(c.id());
+            if (p != null) resultado.add(p);
+        }
+        return resultado;
+    }
+
+    /**
+     * Películas parecidas a una dada (mismo género, mismo director, años
+     * cercanos), de la más a la menos parecida
+     *
+     * Usa un índice precalculado que se construye en la primera consulta y
+     * se mantiene al día con los eventos del servicio: cada consulta es una
+     * búsqueda en un mapa, sin ir a la base.
+     *
+     * @param id ID de la película
+     * @param k Cantidad máxima de resultados (1-20)
+     * @return Películas similares (vacía si no hay ninguna parecida o si la
+     *         película es tan nueva que el índice aún no la incorporó)
+     * @throws Exception Si los datos son inválidos o falla la carga del índice
+     */
+    public List<Pelicula> findSimilares(int id, int k) throws Exception {
+        if (id <= 0) {
+            throw new IllegalArgumentException("ID inválido.");
+        }
+        if (k < 1 || k > MAX_SIMILARES) {
+            throw new IllegalArgumentException("La cantidad de resultados debe estar entre 1 y " + MAX_SIMILARES + ".");
+        }
+        cargarIndiceSimilares();
+
+        int[] ids = similares.similares(id);
+        if (ids == null) {
+            // Recién creada: el índice la incorpora cuando el actualizador procesa su evento
+            if (dao.findById(id) != null) return new ArrayList<>();
+            throw new IllegalArgumentException("No se encontró la pelicula con ID: " + id);
+        }
+        List<Pelicula> resultado = new ArrayList<>(Math.min(k, ids.length));
+        for (int i = 0; i < ids.length && resultado.size() < k; i++) {
+            PeliculaValue v = similares.valor(ids[i]);
+            if (v != null) resultado.add(v.toPelicula()); // null: eliminada mientras se leía
+        }
+        return resultado;
+    }
+
+    /**
+     * Construye el índice de similares con todo el catálogo (en paralelo);
+     * desde entonces lo mantienen al día los eventos del servicio
+     */
+    private void cargarIndiceSimilares() throws SQLException {
+        if (similares.cargado()) return;
+        flushPendientes();
+        similares.cargar(cambios.eventos(), () -> {
+            List<PeliculaValue> catalogo = new ArrayList<>();
+            recorrerCatalogo(p -> catalogo.add(PeliculaValue.of(p)));
+            return catalogo;
+        });
+    }
+
+    /**
+     * Carga todo el catálogo en el índice de trigramas: con replay del diario
+     * si tiene checkpoint o, si no, recorriendo la base por ID en lotes
+     * (keyset) para no traerla entera a memoria
+     */
+    private void cargarIndiceTitulos() throws SQLException {
+        if (titulos.cargado()) return;
+        flushPendientes();
+        titulos.cargar(nuevo -> {
+            boolean desdeDiario = cambios.replay(e -> {
+                if (e.tipo() == JournalEntry.Tipo.DELETE) nuevo.remove(e.id());
+                else nuevo.put(e.id(), e.valor().titulo());
+            });
+            if (!desdeDiario) recorrerCatalogo(p -> nuevo.put(p.getId(), p.getTitulo()));
+        });
+    }
+
+    /**
+     * Modifica una película
+     *
+     * En modo write-behind la modificación se encola y un error al aplicarla
+     * solo queda en el log; quien necesite el resultado usa updateAsync.
+     *
+     * @param p Película con ID y los nuevos datos
+     * @throws Exception Si los datos son inválidos o falla la persistencia
+     */
     public void update(Pelicula p) throws Exception {
         validateMovieData(p);
+        if (writeBehind != null) {
+            // Write-behind: se confirma de forma asíncrona, los errores se registran
+            updateAsync(p).whenComplete((ok, error) -> {
+                if (error != null) {
+                    logger.warning("Error aplicando modificación de ID " + p.getId() + ": " + error.getMessage());
+                }
+            });
+            return;
+        }
         try {
-            validateMovieData(p);
-            dao.update(p);
+            // Verificación de duplicados y modificación en una sola transacción
+            String clave = InMemoryPeliculaDAO.claveUnica(p.getTitulo(), p.getAnio());
+            boolean verificar = claves.podriaExistir(clave);
+            int anterior = p.getId();
+            Lock candado = cambios.candado(anterior);
+            candado.lock();
+            try {
+                verificarDuracion(p);
+                dao.inTransaction(TransactionOptions.DEFAULT, () -> {
+                    if (dao.findById(p.getId()) == null) {
+                        throw new IllegalArgumentException("No se encontró la película con ID: " + p.getId());
+                    }
+                    if (verificar && existeOtra(p.getTitulo(), p.getAnio(), p.getId())) {
+                        throw new IllegalArgumentException("Ya existe otra película con el mismo Título y Año.");
+                    }
+                    dao.update(p);
+                    return null;
+                });
+                titulos.indexar(p.getId(), p.getTitulo());
+                claves.registrar(clave);
+                registrarModificacion(anterior, PeliculaValue.of(p));
+            } finally {
+                candado.unlock();
+            }
         } catch (java.sql.SQLIntegrityConstraintViolationException dup) {
             throw new IllegalArgumentException("Ya existe otra película con el mismo Título y Año.");
         }
     }
 
+    /**
+     * Modifica una película devolviendo un acuse de recibo durable
+     *
+     * En modo write-behind la modificación se encola (fusionándose con otras
+     * pendientes del mismo ID); si no, se aplica de inmediato. La existencia,
+     * los duplicados y la duración se verifican antes de encolar; el índice
+     * de títulos y el filtro de duplicados se actualizan al confirmarse.
+     *
+     * @param p Película con los nuevos datos
+     * @return CompletableFuture que se completa cuando el cambio está confirmado en la BD
+     */
+    public CompletableFuture<Void> updateAsync(Pelicula p) {
+        validateMovieData(p);
+        WriteBehindQueue cola = writeBehind;
+        if (cola != null) {
+            String clave = InMemoryPeliculaDAO.claveUnica(p.getTitulo(), p.getAnio());
+            try {
+                // Verificar antes de encolar: el lote solo atrapa los duplicados en la base
+                if (dao.findById(p.getId()) == null) {
+                    throw new IllegalArgumentException("No se encontró la película con ID: " + p.getId());
+                }
+                if ((!claves.cargado() || claves.podriaExistir(clave)) && existeOtra(p.getTitulo(), p.getAnio(), p.getId())) {
+                    throw new IllegalArgumentException("Ya existe otra película con el mismo Título y Año.");
+                }
+                verificarDuracion(p);
+            } catch (SQLException | RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            // Se registra al confirmarse el lote, con los datos tal como se encolaron
+            PeliculaValue valor = PeliculaValue.of(p);
+            return cola.enqueueUpdate(p).thenAccept(id -> {
+                titulos.indexar(id, valor.titulo());
+                claves.registrar(clave);
+                registrarModificacion(valor.id(), valor.withId(id));
+            });
+        }
+        try {
+            update(p);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Elimina una película
+     *
+     * En modo write-behind la eliminación se encola y un error al aplicarla
+     * solo queda en el log; quien necesite el resultado usa deleteAsync.
+     *
+     * @param id ID de la película
+     * @throws Exception Si no existe o falla la persistencia
+     */
     public void delete(int id) throws Exception {
         if (id <= 0) {
             throw new IllegalArgumentException("ID inválido.");
         }
+        WriteBehindQueue cola = writeBehind;
+        if (cola != null) {
+            encolarEliminacion(cola, id).whenComplete((ok, error) -> {
+                if (error != null) {
+                    logger.warning("Error aplicando eliminación de ID " + id + ": " + error.getMessage());
+                }
+            });
+            return;
+        }
+        eliminar(id);
+    }
 
-        // Verificar que la película existe antes de eliminar
-        Pelicula pelicula = dao.findById(id);
-        if (pelicula == null) {
+    /**
+     * Elimina una película devolviendo un acuse de recibo durable
+     *
+     * En modo write-behind la eliminación se encola; si no, se aplica de
+     * inmediato.
+     *
+     * @param id ID de la película
+     * @return CompletableFuture que se completa cuando la eliminación está
+     *         confirmada en la BD (o falla si no existe o no se pudo aplicar)
+     */
+    public CompletableFuture<Void> deleteAsync(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("ID inválido.");
+        }
+        try {
+            WriteBehindQueue cola = writeBehind;
+            if (cola != null) return encolarEliminacion(cola, id);
+            eliminar(id);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<Void> encolarEliminacion(WriteBehindQueue cola, int id) throws SQLException {
+        flushPendientes();
+        // Verificar que la película existe antes de encolar la eliminación
+        if (dao.findById(id) == null) {
             throw new IllegalArgumentException("No se encontró la película con ID: " + id);
         }
+        verificarSinFunciones(id);
+        return cola.enqueueDelete(id).thenRun(() -> {
+            titulos.indexar(id, null);
+            cambios.registrar(JournalEntry.Tipo.DELETE, id, null);
+        });
+    }
+
+    private void eliminar(int id) throws SQLException {
+        flushPendientes();
+        Lock candado = cambios.candado(id);
+        candado.lock();
+        try {
+            // Verificación y eliminación en una sola transacción (una conexión)
+            dao.inTransaction(TransactionOptions.DEFAULT, () -> {
+                if (dao.findById(id) == null) {
+                    throw new IllegalArgumentException("No se encontró la película con ID: " + id);
+                }
+                verificarSinFunciones(id);
+                dao.delete(id);
+                return null;
+            });
+            titulos.indexar(id, null);
+            cambios.registrar(JournalEntry.Tipo.DELETE, id, null);
+        } catch (java.sql.SQLIntegrityConstraintViolationException fk) {
+            // fk_funcion_pelicula: funciones creadas por otro proceso
+            throw new IllegalArgumentException("No se puede eliminar la película: tiene funciones programadas.");
+        } finally {
+            candado.unlock();
+        }
+    }
 
-        dao.delete(id);
+    /**
+     * Rechaza la baja de una película con funciones (con MySQL la impediría
+     * la clave foránea con un error del driver; los otros backends no la tienen)
+     */
+    private void verificarSinFunciones(int id) throws SQLException {
+        IFuncionDAO f = funciones;
+        if (f == null) return;
+        int cantidad = f.findByPelicula(id).size();
+        if (cantidad > 0) {
+            throw new IllegalArgumentException("No se puede eliminar la película: tiene " + cantidad
+                    + (cantidad == 1 ? " función programada." : " funciones programadas."));
+        }
+    }
+
+    /**
+     * Rechaza cambiar la duración de una película con funciones sin
+     * terminar: su fin y la ocupación de la sala dependen de la duración
+     */
+    private void verificarDuracion(Pelicula p) throws SQLException {
+        IFuncionDAO f = funciones;
+        if (f == null) return;
+        Pelicula actual = dao.findById(p.getId());
+        if (actual == null || actual.getDuracion() == p.getDuracion()) return;
+        LocalDateTime ahora = LocalDateTime.now();
+        if (f.findByPelicula(p.getId()).stream().anyMatch(x -> x.getFin().isAfter(ahora))) {
+            throw new IllegalArgumentException(
+                    "No se puede cambiar la duración: la película tiene funciones programadas.");
+        }
+    }
+
+    /**
+     * En modo write-behind aplica lo pendiente antes de leer, para que las
+     * consultas vean las modificaciones ya aceptadas (con la cola vacía no
+     * espera a ningún otro flush, ver WriteBehindQueue.flush)
+     */
+    private void flushPendientes() {
+        WriteBehindQueue cola = writeBehind;
+        if (cola != null) cola.flush();
     }
 
     private void validateMovieData(Pelicula p
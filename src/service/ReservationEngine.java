@@ -0,0 +1,379 @@
+package service;
+
+import dao.IReservaDAO;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Reserva;
+
+/**
+ * Motor de reserva de asientos por función
+ *
+ * Responsabilidades:
+ * - Retener asientos (elegidos o los primeros libres) durante un tiempo
+ *   limitado mientras el comprador paga
+ * - Confirmar la venta de una retención vigente o cancelarla; las que
+ *   vencen se liberan solas
+ * - Persistir ventas y devoluciones en segundo plano, en lotes con un
+ *   commit por lote (como WriteBehindQueue)
+ *
+ * Características:
+ * - Sin bloqueos en el camino del comprador: los asientos se ocupan con CAS
+ *   sobre el SeatMap de la función y cada retención pasa de RETENIDA a
+ *   CONFIRMADA o LIBERADA con un solo CAS, así una confirmación y un
+ *   vencimiento simultáneos no pueden ganar los dos
+ * - Todas las retenciones duran lo mismo: la cola de vencimientos está
+ *   ordenada por creación y el barrido solo mira su cabeza
+ * - La venta está asegurada cuando se completa el futuro de confirmar: si
+ *   falla porque otro proceso ya vendió el asiento (violación de la clave),
+ *   el futuro falla y el asiento sigue ocupado; ante cualquier otro error el
+ *   futuro falla y los asientos se liberan (si la venta llegó a guardarse
+ *   igual, la clave de la tabla impide venderlos dos veces)
+ * - Un asiento devuelto vuelve a estar libre recién cuando la devolución
+ *   está confirmada en la base
+ *
+ */
+
+public final class ReservationEngine implements AutoCloseable {
+
+    /**
+     * Asientos retenidos por un comprador
+     */
+    public static final class Retencion {
+        private static final int RETENIDA = 0, CONFIRMADA = 1, LIBERADA = 2;
+
+        private final int funcionId;
+        private final int[] asientos;
+        private final long vence; // System.nanoTime()
+        private final AtomicInteger estado = new AtomicInteger(RETENIDA);
+
+        private Retencion(int funcionId, int[] asientos, long vence) {
+            this.funcionId = funcionId;
+            this.asientos = asientos;
+            this.vence = vence;
+        }
+
+        public int funcionId() {
+            return funcionId;
+        }
+
+        public int[] asientos() {
+            return asientos.clone();
+        }
+
+        /**
+         * @return true si todavía se puede confirmar
+         */
+        public boolean vigente() {
+            return estado.get() == RETENIDA && System.nanoTime() - vence < 0;
+        }
+    }
+
+    /**
+     * Venta o devolución a la espera de persistirse
+     */
+    private record Pendiente(List<Reserva> reservas, boolean devolucion, CompletableFuture<Void> future) {}
+
+    private static final long BARRIDO_MILLIS = 250; // Frecuencia del barrido de vencimientos
+
+    private final IReservaDAO dao;
+    private final long retencionNanos;
+    private final int tamanioLote;
+    private final Map<Integer, SeatMap> mapas = new ConcurrentHashMap<>();
+    private final Queue<Retencion> porVencer = new ConcurrentLinkedQueue<>(); // Orden de creación = de vencimiento
+    private final Queue<Pendiente> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cantidadPendientes = new AtomicInteger();
+    private final AtomicBoolean flushProgramado = new AtomicBoolean();
+    private final Object flushLock = new Object(); // Serializa los flush para mantener el orden
+    private final ScheduledExecutorService tareas; // Un hilo: barridos y flush serializados
+    private volatile boolean cerrado;
+
+    /**
+     * @param dao DAO de asientos vendidos
+     * @param retencion Tiempo que un comprador tiene para confirmar
+     * @param tamanioLote Cantidad de operaciones que dispara un flush inmediato
+     * @param maxDemoraMillis Tiempo máximo que una operación espera en la cola
+     */
+    public ReservationEngine(IReservaDAO dao, Duration retencion, int tamanioLote, long maxDemoraMillis) {
+        if (retencion.isNegative() || retencion.isZero() || tamanioLote < 1 || maxDemoraMillis < 1) {
+            throw new IllegalArgumentException("Retención, tamaño de lote y demora deben ser positivos.");
+        }
+        this.dao = dao;
+        this.retencionNanos = retencion.toNanos();
+        this.tamanioLote = tamanioLote;
+        this.tareas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservas");
+            t.setDaemon(true);
+            return t;
+        });
+        tareas.scheduleWithFixedDelay(this::vencer, BARRIDO_MILLIS, BARRIDO_MILLIS, TimeUnit.MILLISECONDS);
+        tareas.scheduleWithFixedDelay(this::flushSilencioso, maxDemoraMillis, maxDemoraMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prepara el mapa de asientos de una función con las ventas ya guardadas
+     * (si ya estaba abierta no hace nada)
+     *
+     * @param funcionId ID de la función
+     * @param capacidad Asientos de la sala
+     * @throws SQLException Si falla la lectura de las ventas
+     */
+    public void abrir(int funcionId, int capacidad) throws SQLException {
+        if (mapas.containsKey(funcionId)) return;
+        SeatMap mapa = new SeatMap(capacidad);
+        List<Integer> vendidos = dao.findAsientos(funcionId);
+        if (!vendidos.isEmpty() && !mapa.ocupar(vendidos.stream().mapToInt(Integer::intValue).toArray())) {
+            throw new SQLException("Asientos vendidos inválidos para la función " + funcionId + ".");
+        }
+        mapas.putIfAbsent(funcionId, mapa);
+    }
+
+    /**
+     * Retiene los asientos elegidos (todos o ninguno)
+     *
+     * @param funcionId ID de una función abierta
+     * @param asientos Asientos elegidos
+     * @return La retención, o null si alguno ya está ocupado
+     */
+    public Retencion retener(int funcionId, int... asientos) {
+        if (asientos.length == 0) throw new IllegalArgumentException("Debe elegir al menos un asiento.");
+        if (!mapa(funcionId).ocupar(asientos)) return null;
+        return registrar(funcionId, asientos.clone());
+    }
+
+    /**
+     * Retiene los primeros asientos libres
+     *
+     * @param funcionId ID de una función abierta
+     * @param cantidad Asientos a retener
+     * @param desde Asiento preferido (la búsqueda sigue desde ahí)
+     * @return La retención, o null si no quedan suficientes libres
+     */
+    public Retencion retenerLibres(int funcionId, int cantidad, int desde) {
+        if (cantidad < 1) throw new IllegalArgumentException("Debe retener al menos un asiento.");
+        int[] asientos = mapa(funcionId).ocuparLibres(cantidad, desde);
+        return asientos == null ? null : registrar(funcionId, asientos);
+    }
+
+    /**
+     * Confirma la venta de una retención vigente
+     *
+     * @return Futuro que se completa cuando la venta está guardada en la base
+     */
+    public CompletableFuture<Void> confirmar(Retencion r) {
+        if (System.nanoTime() - r.vence >= 0) liberar(r); // Vencida aunque el barrido no haya pasado
+        if (!r.estado.compareAndSet(Retencion.RETENIDA, Retencion.CONFIRMADA)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("La retención venció o fue cancelada."));
+        }
+        List<Reserva> ventas = new ArrayList<>(r.asientos.length);
+        for (int a : r.asientos) ventas.add(new Reserva(r.funcionId, a));
+        return encolar(new Pendiente(ventas, false, new CompletableFuture<>()));
+    }
+
+    /**
+     * Cancela una retención y libera sus asientos (no hace nada si ya se
+     * confirmó, canceló o venció)
+     */
+    public void cancelar(Retencion r) {
+        liberar(r);
+    }
+
+    /**
+     * Devuelve asientos vendidos
+     *
+     * @param funcionId ID de una función abierta
+     * @param asientos Asientos vendidos a devolver
+     * @return Futuro que se completa cuando la devolución está guardada; recién
+     *         entonces los asientos quedan libres
+     */
+    public CompletableFuture<Void> devolver(int funcionId, int... asientos) {
+        SeatMap mapa = mapa(funcionId);
+        int[] copia = asientos.clone();
+        List<Reserva> devoluciones = new ArrayList<>(copia.length);
+        for (int a : copia) devoluciones.add(new Reserva(funcionId, a));
+        return encolar(new Pendiente(devoluciones, true, new CompletableFuture<>()))
+                .thenRun(() -> mapa.liberar(copia));
+    }
+
+    /**
+     * @return Asientos libres de una función abierta (ni retenidos ni vendidos)
+     */
+    public int libres(int funcionId) {
+        return mapa(funcionId).libres();
+    }
+
+    /**
+     * Guarda de inmediato las operaciones pendientes
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Pendiente> tanda = new ArrayList<>();
+            Set<Reserva> claves = new HashSet<>();
+            for (Pendiente p; (p = pendientes.poll()) != null; ) {
+                cantidadPendientes.decrementAndGet();
+                // Un asiento que se repite en la tanda (vendido y devuelto) corta el lote para respetar el orden
+                boolean repetido = false;
+                for (Reserva r : p.reservas()) repetido |= claves.contains(r);
+                if (repetido) {
+                    aplicar(tanda);
+                    tanda = new ArrayList<>();
+                    claves.clear();
+                }
+                tanda.add(p);
+                claves.addAll(p.reservas());
+            }
+            aplicar(tanda);
+        }
+    }
+
+    /**
+     * @return Ventas y devoluciones a la espera de ser guardadas
+     */
+    public int pendientes() {
+        return cantidadPendientes.get();
+    }
+
+    /**
+     * Detiene los barridos y guarda lo pendiente
+     */
+    @Override
+    public void close() {
+        if (cerrado) return;
+        cerrado = true;
+        tareas.shutdown();
+        try {
+            tareas.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // ---------------------------------------------------------------------
+
+    private SeatMap mapa(int funcionId) {
+        SeatMap mapa = mapas.get(funcionId);
+        if (mapa == null) throw new IllegalArgumentException("La función " + funcionId + " no está abierta.");
+        return mapa;
+    }
+
+    private Retencion registrar(int funcionId, int[] asientos) {
+        Retencion r = new Retencion(funcionId, asientos, System.nanoTime() + retencionNanos);
+        porVencer.add(r);
+        return r;
+    }
+
+    private void liberar(Retencion r) {
+        if (r.estado.compareAndSet(Retencion.RETENIDA, Retencion.LIBERADA)) {
+            mapas.get(r.funcionId).liberar(r.asientos);
+        }
+    }
+
+    /**
+     * Libera las retenciones vencidas; las confirmadas o canceladas solo se
+     * quitan de la cola
+     */
+    private void vencer() {
+        long ahora = System.nanoTime();
+        for (Retencion r; (r = porVencer.peek()) != null && ahora - r.vence >= 0; ) {
+            porVencer.poll();
+            liberar(r);
+        }
+    }
+
+    private CompletableFuture<Void> encolar(Pendiente p) {
+        if (cerrado) {
+            return CompletableFuture.failedFuture(new IllegalStateException("El motor de reservas está cerrado."));
+        }
+        // Se cuenta antes de encolar: flush descuenta cada operación que saca
+        int cantidad = cantidadPendientes.incrementAndGet();
+        pendientes.add(p);
+        if (cerrado) {
+            flush(); // close() pudo hacer su último flush antes de que se agregara
+            return p.future();
+        }
+        if (cantidad >= tamanioLote && flushProgramado.compareAndSet(false, true)) {
+            try {
+                tareas.execute(() -> {
+                    flushProgramado.set(false);
+                    flushSilencioso();
+                });
+            } catch (RejectedExecutionException e) {
+                flushProgramado.set(false); // Se está cerrando: close() guardará lo pendiente
+            }
+        }
+        return p.future();
+    }
+
+    private void aplicar(List<Pendiente> tanda) {
+        if (tanda.isEmpty()) return;
+        List<Reserva> ventas = new ArrayList<>();
+        List<Reserva> devoluciones = new ArrayList<>();
+        for (Pendiente p : tanda) (p.devolucion() ? devoluciones : ventas).addAll(p.reservas());
+        try {
+            dao.applyBatch(ventas, devoluciones);
+            for (Pendiente p : tanda) p.future().complete(null);
+        } catch (SQLException loteFallido) {
+            // Se aísla la operación culpable aplicando una a una
+            for (Pendiente p : tanda) {
+                try {
+                    dao.applyBatch(p.devolucion() ? List.of() : p.reservas(), p.devolucion() ? p.reservas() : List.of());
+                    p.future().complete(null);
+                } catch (SQLException ex) {
+                    fallar(p, ex);
+                }
+            }
+        } catch (RuntimeException ex) {
+            for (Pendiente p : tanda) fallar(p, ex);
+        }
+    }
+
+    /**
+     * Falla el futuro de una operación que no se pudo guardar; una venta
+     * libera sus asientos salvo que ya estén vendidos en la base (una
+     * devolución fallida los deja vendidos, como siguen en la base)
+     */
+    private void fallar(Pendiente p, Exception ex) {
+        if (!p.devolucion() && !yaVendido(ex)) {
+            Reserva primera = p.reservas().get(0);
+            int[] asientos = p.reservas().stream().mapToInt(Reserva::asiento).toArray();
+            mapas.get(primera.funcionId()).liberar(asientos);
+        }
+        p.future().completeExceptionally(ex);
+    }
+
+    /**
+     * @return true si el error es una violación de la clave de la tabla
+     *         (otro proceso vendió el asiento)
+     */
+    private static boolean yaVendido(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SQLIntegrityConstraintViolationException) return true;
+            if (t instanceof SQLException s && s.getSQLState() != null && s.getSQLState().startsWith("23")) return true;
+        }
+        return false;
+    }
+
+    private void flushSilencioso() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error guardando reservas: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Mapa de asientos de una función como bitmap atómico
+ *
+ * Responsabilidades:
+ * - Marcar cada asiento como libre (0) u ocupado (1: retenido o vendido)
+ * - Ocupar y liberar grupos de asientos sin bloqueos, con compare-and-set
+ *   sobre palabras de 64 asientos
+ * - Buscar asientos libres para una compra sin elegir butaca
+ *
+ * Características:
+ * - Ocupa un bit por asiento (una sala de 500 butacas cabe en 8 longs)
+ * - Todos los asientos de una misma palabra se ocupan con un solo CAS; si
+ *   el grupo abarca varias palabras y una falla, se liberan las anteriores
+ *   (todo o nada)
+ * - Sin bloqueos: un comprador que pierde el CAS reintenta con el valor
+ *   nuevo o falla si su asiento ya fue tomado, nunca espera a otro hilo
+ *
+ */
+
+public final class SeatMap {
+
+    private final int capacidad;
+    private final AtomicLongArray palabras;
+
+    /**
+     * @param capacidad Cantidad de asientos (numerados desde 0)
+     */
+    public SeatMap(int capacidad) {
+        if (capacidad < 1) throw new IllegalArgumentException("La capacidad debe ser positiva.");
+        this.capacidad = capacidad;
+        this.palabras = new AtomicLongArray((capacidad + 63) >>> 6);
+    }
+
+    public int capacidad() {
+        return capacidad;
+    }
+
+    /**
+     * Ocupa todos los asientos o ninguno
+     *
+     * @param asientos Asientos a ocupar (sin repetidos)
+     * @return true si quedaron ocupados por este llamador
+     */
+    public boolean ocupar(int[] asientos) {
+        long[] mascaras = mascaras(asientos);
+        for (int w = 0; w < mascaras.length; w++) {
+            if (mascaras[w] != 0 && !ocuparPalabra(w, mascaras[w])) {
+                for (int v = 0; v < w; v++) {
+                    if (mascaras[v] != 0) liberarPalabra(v, mascaras[v]);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Libera los asientos (deben estar ocupados por quien llama)
+     */
+    public void liberar(int[] asientos) {
+        long[] mascaras = mascaras(asientos);
+        for (int w = 0; w < mascaras.length; w++) {
+            if (mascaras[w] != 0) liberarPalabra(w, mascaras[w]);
+        }
+    }
+
+    /**
+     * Ocupa los primeros asientos libres que encuentra a partir de desde
+     * (dando la vuelta); los compradores que empiezan en puntos distintos
+     * compiten menos por la misma palabra
+     *
+     * @param cantidad Asientos a ocupar
+     * @param desde Asiento donde empieza la búsqueda
+     * @return Asientos ocupados, o null si no quedan suficientes libres
+     */
+    public int[] ocuparLibres(int cantidad, int desde) {
+        int[] out = new int[cantidad];
+        int n = 0;
+        int palabrasTotales = palabras.length();
+        int inicio = Math.floorMod(desde, capacidad) >>> 6;
+        for (int k = 0; k < palabrasTotales && n < cantidad; k++) {
+            int w = (inicio + k) % palabrasTotales;
+            while (n < cantidad) {
+                long actual = palabras.get(w);
+                long libres = ~actual & mascaraValida(w);
+                if (libres == 0) break;
+                long tomar = 0;
+                for (int i = n; i < cantidad && libres != 0; i++) {
+                    long bit = Long.lowestOneBit(libres);
+                    tomar |= bit;
+                    libres &= ~bit;
+                }
+                if (palabras.compareAndSet(w, actual, actual | tomar)) {
+                    for (long t = tomar; t != 0; t &= t - 1) out[n++] = (w << 6) + Long.numberOfTrailingZeros(t);
+                }
+            }
+        }
+        if (n < cantidad) {
+            liberar(Arrays.copyOf(out, n));
+            return null;
+        }
+        return out;
+    }
+
+    /**
+     * @return true si el asiento está retenido o vendido
+     */
+    public boolean ocupado(int asiento) {
+        verificar(asiento);
+        return (palabras.get(asiento >>> 6) & 1L << asiento) != 0;
+    }
+
+    /**
+     * @return Asientos libres en este momento
+     */
+    public int libres() {
+        int ocupados = 0;
+        for (int w = 0; w < palabras.length(); w++) ocupados += Long.bitCount(palabras.get(w));
+        return capacidad - ocupados;
+    }
+
+    // ---------------------------------------------------------------------
+
+    private boolean ocuparPalabra(int w, long mascara) {
+        while (true) {
+            long actual = palabras.get(w);
+            if ((actual & mascara) != 0) return false; // Alguno ya está ocupado
+            if (palabras.compareAndSet(w, actual, actual | mascara)) return true;
+        }
+    }
+
+    private void liberarPalabra(int w, long mascara) {
+        while (true) {
+            long actual = palabras.get(w);
+            if (palabras.compareAndSet(w, actual, actual & ~mascara)) return;
+        }
+    }
+
+    private long[] mascaras(int[] asientos) {
+        long[] mascaras = new long[palabras.length()];
+        for (int a : asientos) {
+            verificar(a);
+            if ((mascaras[a >>> 6] & 1L << a) != 0) {
+                throw new IllegalArgumentException("Asiento repetido: " + a);
+            }
+            mascaras[a >>> 6] |= 1L << a; // El desplazamiento de long usa los 6 bits bajos
+        }
+        return mascaras;
+    }
+
+    /**
+     * Bits de la palabra que corresponden a asientos existentes
+     */
+    private long mascaraValida(int w) {
+        int resto = capacidad - (w << 6);
+        return resto >= 64 ? -1L : (1L << resto) - 1;
+    }
+
+    private void verificar(int asiento) {
+        if (asiento < 0 || asiento >= capacidad) {
+            throw new IllegalArgumentException("Asiento fuera de rango: " + asiento);
+        }
+    }
+}
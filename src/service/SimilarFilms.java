@@ -0,0 +1,110 @@
+package service;
+
+import event.EventBus;
+import event.PeliculaEvent;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import model.PeliculaValue;
+
+/**
+ * Películas similares de PeliculaService ("también te puede gustar")
+ *
+ * Responsabilidades:
+ * - Construir el SimilarityIndex con todo el catálogo en la primera consulta
+ * - Mantenerlo al día con los eventos del servicio
+ * - Liberar el hilo y la suscripción al cerrar
+ *
+ * Características:
+ * - La suscripción se hace antes de leer el catálogo: un cambio confirmado
+ *   durante la carga se aplica después, en un hilo propio y en lotes, así
+ *   las escrituras no esperan al índice
+ *
+ */
+
+final class SimilarFilms implements AutoCloseable {
+
+    /**
+     * Fuente del catálogo para la construcción del índice
+     */
+    @FunctionalInterface
+    interface Carga {
+        Collection<PeliculaValue> leer() throws SQLException;
+    }
+
+    private final SimilarityIndex indice;
+    private volatile boolean cargado;
+    private ExecutorService actualizador; // Aplica los eventos al índice (protegido por indice)
+    private EventBus.Suscripcion suscripcion; // Del índice a los eventos (protegido por indice)
+
+    /**
+     * @param k Cantidad de similares que guarda cada película
+     */
+    SimilarFilms(int k) {
+        this.indice = new SimilarityIndex(k);
+    }
+
+    /**
+     * @return true si el índice ya se construyó
+     */
+    boolean cargado() {
+        return cargado;
+    }
+
+    /**
+     * Construye el índice y lo suscribe a los eventos (no hace nada si ya
+     * está cargado)
+     *
+     * @param eventos Bus de cambios confirmados del servicio
+     * @param carga Lee todo el catálogo
+     * @throws SQLException Si falla la lectura del catálogo
+     */
+    void cargar(EventBus eventos, Carga carga) throws SQLException {
+        if (cargado) return;
+        synchronized (indice) {
+            if (cargado) return;
+            actualizador = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "indice-similares");
+                t.setDaemon(true);
+                return t;
+            });
+            EventBus.Suscripcion s = eventos.suscribirEnLotes(PeliculaEvent.class, actualizador, indice::aplicar);
+            try {
+                indice.construir(carga.leer());
+            } catch (SQLException | RuntimeException e) {
+                s.close();
+                actualizador.shutdown();
+                actualizador = null;
+                throw e;
+            }
+            suscripcion = s;
+            cargado = true;
+        }
+    }
+
+    /**
+     * @see SimilarityIndex#similares(int)
+     */
+    int[] similares(int id) {
+        return indice.similares(id);
+    }
+
+    /**
+     * @see SimilarityIndex#valor(int)
+     */
+    PeliculaValue valor(int id) {
+        return indice.valor(id);
+    }
+
+    @Override
+    public void close() {
+        synchronized (indice) {
+            if (suscripcion != null) {
+                suscripcion.close();
+                suscripcion = null;
+            }
+            if (actualizador != null) actualizador.shutdown();
+        }
+    }
+}
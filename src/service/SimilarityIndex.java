@@ -0,0 +1,357 @@
+package service;
+
+import event.PeliculaEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import model.Genero;
+import model.PeliculaValue;
+
+/**
+ * Índice precalculado de películas similares ("también te puede gustar")
+ *
+ * Responsabilidades:
+ * - Guardar para cada película sus K más parecidas, para responder en O(1)
+ *   sin recorrer el catálogo
+ * - Puntuar la similitud: mismo género (0.5), mismo director (0.35) y
+ *   cercanía de año (hasta 0.15, decreciente hasta RADIO_ANIOS años)
+ * - Construir el índice en paralelo (una tarea por película) y mantenerlo
+ *   al día con los PeliculaEvent del servicio
+ *
+ * Características:
+ * - Las candidatas salen de índices por (género, año) y por (director,
+ *   género, año): se recorren los años desde el de la película hacia
+ *   afuera y se corta cuando ninguna de las que faltan puede entrar en el
+ *   top-K, así el resultado es exacto sin comparar contra todo el catálogo
+ *   (ni contra todas las películas de un director prolífico)
+ * - A igual puntaje gana el ID menor (resultados deterministas)
+ * - Un cambio recalcula la película, las que la tenían en su lista y las
+ *   que ahora deberían tenerla
+ * - Las consultas no toman bloqueos; los cambios se serializan
+ *
+ */
+
+public final class SimilarityIndex {
+
+    public static final double PESO_GENERO = 0.5;
+    public static final double PESO_DIRECTOR = 0.35;
+    public static final double PESO_ANIO = 0.15;
+    public static final int RADIO_ANIOS = 10;
+
+    /**
+     * Lista de similares de una película
+     *
+     * @param ids IDs de la más parecida a la menos parecida
+     * @param puntajes Puntaje de cada una
+     */
+    private record Vecinos(int[] ids, double[] puntajes) {
+        /**
+         * @return true si la película entraría en la lista (hay lugar o
+         *         supera a la última)
+         */
+        boolean admite(int k, double puntaje, int id) {
+            int n = ids.length;
+            return n < k || mejor(puntaje, id, puntajes[n - 1], ids[n - 1]);
+        }
+    }
+
+    private record Candidata(int id, double puntaje) {}
+
+    private static final NavigableMap<Integer, NavigableSet<Integer>> VACIO = Collections.emptyNavigableMap();
+
+    private final int k;
+
+    // Consultas sin bloqueo
+    private final Map<Integer, PeliculaValue> peliculas = new ConcurrentHashMap<>();
+    private final Map<Integer, Vecinos> vecinos = new ConcurrentHashMap<>();
+
+    // Índices de candidatas y listas inversas (protegidos por this; solo lectura durante construir)
+    private final Map<Genero, NavigableMap<Integer, NavigableSet<Integer>>> porGeneroAnio = new EnumMap<>(Genero.class);
+    private final Map<String, Map<Genero, NavigableMap<Integer, NavigableSet<Integer>>>> porDirector = new HashMap<>();
+    private final Map<Integer, Set<Integer>> citadaPor = new HashMap<>(); // id -> películas que la listan
+    private final Set<Integer> incompletas = new HashSet<>(); // Listas que aceptarían una película lejana
+
+    /**
+     * @param k Cantidad de similares por película
+     */
+    public SimilarityIndex(int k) {
+        if (k < 1) throw new IllegalArgumentException("K debe ser positivo.");
+        this.k = k;
+        for (Genero g : Genero.values()) porGeneroAnio.put(g, new TreeMap<>());
+    }
+
+    /**
+     * @return Similares de la película, de la más a la menos parecida, o
+     *         null si no está en el índice
+     */
+    public int[] similares(int id) {
+        Vecinos v = vecinos.get(id);
+        return v == null ? null : v.ids().clone();
+    }
+
+    /**
+     * @return Valor indexado de la película, o null si no está
+     */
+    public PeliculaValue valor(int id) {
+        return peliculas.get(id);
+    }
+
+    public int tamanio() {
+        return peliculas.size();
+    }
+
+    /**
+     * Reemplaza el contenido por el catálogo dado y calcula todas las listas
+     * en paralelo
+     *
+     * @param catalogo Todas las películas
+     */
+    public synchronized void construir(Collection<PeliculaValue> catalogo) {
+        peliculas.clear();
+        vecinos.clear();
+        citadaPor.clear();
+        incompletas.clear();
+        porDirector.clear();
+        for (NavigableMap<Integer, NavigableSet<Integer>> anios : porGeneroAnio.values()) anios.clear();
+        for (PeliculaValue v : catalogo) {
+            peliculas.put(v.id(), v);
+            indexar(v);
+        }
+        // Los índices no cambian durante el cálculo: cada tarea solo los lee
+        peliculas.keySet().parallelStream().forEach(id -> vecinos.put(id, calcular(peliculas.get(id))));
+        for (Map.Entry<Integer, Vecinos> e : vecinos.entrySet()) registrarCitas(e.getKey(), null, e.getValue());
+    }
+
+    /**
+     * Aplica un lote de cambios confirmados
+     *
+     * @param eventos Cambios en orden de confirmación
+     */
+    public synchronized void aplicar(List<? extends PeliculaEvent> eventos) {
+        for (PeliculaEvent e : eventos) {
+            PeliculaValue nuevo = switch (e) {
+                case PeliculaEvent.Creada c -> c.valor();
+                case PeliculaEvent.Modificada m -> m.valor();
+                case PeliculaEvent.Eliminada el -> null;
+            };
+            aplicar(e.id(), nuevo);
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Cambios incrementales (con el lock tomado)
+
+    private void aplicar(int id, PeliculaValue nuevo) {
+        PeliculaValue anterior = peliculas.get(id);
+        if (anterior != null) desindexar(anterior);
+        Set<Integer> afectadas = new HashSet<>(citadaPor.getOrDefault(id, Set.of()));
+        if (nuevo == null) {
+            peliculas.remove(id);
+            registrarCitas(id, vecinos.remove(id), null);
+            incompletas.remove(id);
+        } else {
+            peliculas.put(id, nuevo);
+            indexar(nuevo);
+            afectadas.add(id);
+            afectadas.addAll(quienesLaAdmiten(nuevo));
+        }
+        for (int q : afectadas) {
+            PeliculaValue v = peliculas.get(q);
+            if (v != null) recalcular(v);
+        }
+    }
+
+    /**
+     * Películas cuya lista debería incluir a p: las del mismo director y
+     * género, las del mismo género dentro del radio y las listas incompletas
+     * (las únicas que aceptarían una película de puntaje 0.5 o menor)
+     */
+    private Set<Integer> quienesLaAdmiten(PeliculaValue p) {
+        Set<Integer> out = new HashSet<>();
+        List<Integer> candidatas = new ArrayList<>(incompletas);
+        Map<Genero, NavigableMap<Integer, NavigableSet<Integer>>> delDirector = porDirector.get(clave(p.director()));
+        if (delDirector != null) {
+            for (NavigableSet<Integer> ids : delDirector.getOrDefault(p.genero(), VACIO).values()) candidatas.addAll(ids);
+        }
+        NavigableMap<Integer, NavigableSet<Integer>> anios = porGeneroAnio.get(p.genero());
+        for (NavigableSet<Integer> ids : anios.subMap(p.anio() - RADIO_ANIOS, true, p.anio() + RADIO_ANIOS, true).values()) {
+            candidatas.addAll(ids);
+        }
+        for (int q : candidatas) {
+            if (q == p.id()) continue;
+            Vecinos v = vecinos.get(q);
+            PeliculaValue otra = peliculas.get(q);
+            if (v != null && otra != null && v.admite(k, puntaje(otra, p), p.id())) out.add(q);
+        }
+        return out;
+    }
+
+    private void recalcular(PeliculaValue p) {
+        Vecinos nuevos = calcular(p);
+        registrarCitas(p.id(), vecinos.put(p.id(), nuevos), nuevos);
+    }
+
+    /**
+     * Actualiza las listas inversas y el conjunto de incompletas al cambiar
+     * la lista de una película
+     */
+    private void registrarCitas(int id, Vecinos antes, Vecinos despues) {
+        if (antes != null) {
+            for (int q : antes.ids()) {
+                Set<Integer> s = citadaPor.get(q);
+                if (s != null && s.remove(id) && s.isEmpty()) citadaPor.remove(q);
+            }
+        }
+        if (despues != null) {
+            for (int q : despues.ids()) citadaPor.computeIfAbsent(q, x -> new HashSet<>()).add(id);
+            // Llena solo con películas del mismo género más cercanas: una lejana (0.5) no entra
+            int n = despues.ids().length;
+            if (n < k || despues.puntajes()[n - 1] <= PESO_GENERO) incompletas.add(id);
+            else incompletas.remove(id);
+        }
+    }
+
+    private void indexar(PeliculaValue v) {
+        porGeneroAnio.get(v.genero()).computeIfAbsent((int) v.anio(), a -> new TreeSet<>()).add(v.id());
+        porDirector.computeIfAbsent(clave(v.director()), d -> new EnumMap<>(Genero.class))
+                   .computeIfAbsent(v.genero(), g -> new TreeMap<>())
+                   .computeIfAbsent((int) v.anio(), a -> new TreeSet<>()).add(v.id());
+    }
+
+    private void desindexar(PeliculaValue v) {
+        quitar(porGeneroAnio.get(v.genero()), v);
+        Map<Genero, NavigableMap<Integer, NavigableSet<Integer>>> delDirector = porDirector.get(clave(v.director()));
+        if (delDirector == null) return;
+        NavigableMap<Integer, NavigableSet<Integer>> anios = delDirector.get(v.genero());
+        if (anios != null && quitar(anios, v) && anios.isEmpty()) {
+            delDirector.remove(v.genero());
+            if (delDirector.isEmpty()) porDirector.remove(clave(v.director()));
+        }
+    }
+
+    private static boolean quitar(NavigableMap<Integer, NavigableSet<Integer>> anios, PeliculaValue v) {
+        NavigableSet<Integer> ids = anios.get((int) v.anio());
+        if (ids == null || !ids.remove(v.id())) return false;
+        if (ids.isEmpty()) anios.remove((int) v.anio());
+        return true;
+    }
+
+    // ---------------------------------------------------------------------
+    // Cálculo de una lista (solo lee los índices)
+
+    private Vecinos calcular(PeliculaValue p) {
+        // Peor candidata primero: menor puntaje y, a igual puntaje, mayor ID
+        PriorityQueue<Candidata> top = new PriorityQueue<>(k + 1, (a, b) -> mejor(a.puntaje(), a.id(), b.puntaje(), b.id()) ? 1
+                : mejor(b.puntaje(), b.id(), a.puntaje(), a.id()) ? -1 : 0);
+        String director = clave(p.director());
+        Map<Genero, NavigableMap<Integer, NavigableSet<Integer>>> delDirector = porDirector.getOrDefault(director, Map.of());
+
+        // De mayor a menor puntaje posible, siempre de los años más cercanos a los más lejanos
+        // 1. Mismo director y género (0.85 a 1)
+        recorrer(top, p, null, delDirector.getOrDefault(p.genero(), VACIO), PESO_GENERO + PESO_DIRECTOR, Integer.MAX_VALUE);
+        // 2. Mismo género, otro director (0.5 a 0.65)
+        recorrer(top, p, director, porGeneroAnio.get(p.genero()), PESO_GENERO, Integer.MAX_VALUE);
+        // 3. Mismo director, otro género (0.35 a 0.5)
+        for (Map.Entry<Genero, NavigableMap<Integer, NavigableSet<Integer>>> e : delDirector.entrySet()) {
+            if (e.getKey() != p.genero()) recorrer(top, p, null, e.getValue(), PESO_DIRECTOR, Integer.MAX_VALUE);
+        }
+        // 4. Otro género y director dentro del radio, solo si faltan
+        if (top.size() < k) {
+            for (Genero g : Genero.values()) {
+                if (g != p.genero()) recorrer(top, p, director, porGeneroAnio.get(g), 0, RADIO_ANIOS);
+            }
+        }
+
+        int n = top.size();
+        int[] ids = new int[n];
+        double[] puntajes = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            Candidata c = top.poll();
+            ids[i] = c.id();
+            puntajes[i] = c.puntaje();
+        }
+        return new Vecinos(ids, puntajes);
+    }
+
+    /**
+     * Ofrece las películas de un índice por año, desde el de p hacia afuera,
+     * hasta que ninguna pueda entrar en el top-K
+     *
+     * @param excluirDirector Director ya recorrido aparte, o null
+     * @param base Puntaje por género y director, común a todo el índice
+     */
+    private void recorrer(PriorityQueue<Candidata> top, PeliculaValue p, String excluirDirector,
+            NavigableMap<Integer, NavigableSet<Integer>> anios, double base, int radioMaximo) {
+        if (anios.isEmpty()) return;
+        int anio = p.anio();
+        int hasta = Math.min(radioMaximo, Math.max(anio - anios.firstKey(), anios.lastKey() - anio));
+        for (int d = 0; d <= hasta; d++) {
+            double cota = base + PESO_ANIO * cercania(d); // Puntaje de todas las de esta distancia
+            if (cota <= 0) return;
+            if (top.size() == k && top.peek().puntaje() > cota) return; // Ninguna puede entrar
+            ofrecerAnio(top, p, excluirDirector, anios.get(anio - d), cota);
+            if (d > 0) ofrecerAnio(top, p, excluirDirector, anios.get(anio + d), cota);
+        }
+    }
+
+    private void ofrecerAnio(PriorityQueue<Candidata> top, PeliculaValue p, String excluirDirector,
+            NavigableSet<Integer> ids, double cota) {
+        if (ids == null) return;
+        for (int q : ids) { // En orden de ID: si una no entra por ID, las siguientes tampoco
+            if (q == p.id()) continue;
+            if (excluirDirector != null && clave(peliculas.get(q).director()).equals(excluirDirector)) continue;
+            if (top.size() == k && !mejor(cota, q, top.peek().puntaje(), top.peek().id())) return;
+            ofrecer(top, q, cota);
+        }
+    }
+
+    private void ofrecer(PriorityQueue<Candidata> top, int id, double puntaje) {
+        if (puntaje <= 0) return;
+        if (top.size() < k) {
+            top.add(new Candidata(id, puntaje));
+        } else if (mejor(puntaje, id, top.peek().puntaje(), top.peek().id())) {
+            top.poll();
+            top.add(new Candidata(id, puntaje));
+        }
+    }
+
+    // ---------------------------------------------------------------------
+
+    /**
+     * @return Similitud entre dos películas (0..1, simétrica)
+     */
+    static double puntaje(PeliculaValue a, PeliculaValue b) {
+        double s = 0;
+        if (a.generoOrdinal() == b.generoOrdinal()) s += PESO_GENERO;
+        if (clave(a.director()).equals(clave(b.director()))) s += PESO_DIRECTOR;
+        return s + PESO_ANIO * cercania(Math.abs(a.anio() - b.anio()));
+    }
+
+    /**
+     * @return 1 para el mismo año, decrece linealmente y es 0 más allá del radio
+     */
+    private static double cercania(int distancia) {
+        return distancia > RADIO_ANIOS ? 0 : 1 - distancia / (RADIO_ANIOS + 1.0);
+    }
+
+    private static boolean mejor(double puntaje, int id, double otroPuntaje, int otroId) {
+        return puntaje > otroPuntaje || (puntaje == otroPuntaje && id < otroId);
+    }
+
+    private static String clave(String director) {
+        return director.trim().toLowerCase(Locale.ROOT);
+    }
+}
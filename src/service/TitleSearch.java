@@ -0,0 +1,106 @@
+package service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búsqueda difusa de títulos de PeliculaService
+ *
+ * Responsabilidades:
+ * - Mantener el índice de trigramas al día con los cambios confirmados
+ * - Cargar todo el catálogo en el índice la primera vez que se busca
+ *
+ * Características:
+ * - El índice nuevo se arma sin bloquear a las escrituras, que siguen
+ *   actualizando el actual y además anotan sus cambios; al terminar se
+ *   reaplican esos cambios sobre el nuevo (así una fila leída y modificada
+ *   a la vez queda con su último título) y se publica en un solo paso
+ * - Thread-safe
+ *
+ */
+
+final class TitleSearch {
+
+    /**
+     * Fuente del catálogo para una carga completa
+     */
+    @FunctionalInterface
+    interface Carga {
+        void cargar(TrigramTitleIndex destino) throws SQLException;
+    }
+
+    /**
+     * Título agregado (titulo != null) o quitado del índice mientras se carga
+     */
+    private record Cambio(int id, String titulo) {}
+
+    private volatile TrigramTitleIndex indice = new TrigramTitleIndex();
+    private volatile boolean cargado; // El índice ya incluye todo el catálogo
+    private List<Cambio> cambiosDuranteCarga; // null = sin carga en curso (protegido por indiceLock)
+    private final Object indiceLock = new Object(); // Publicación del índice y registro de cambios
+    private final Object cargaLock = new Object();  // Serializa las cargas
+
+    /**
+     * @return true si el índice ya incluye todo el catálogo
+     */
+    boolean cargado() {
+        return cargado;
+    }
+
+    /**
+     * Carga todo el catálogo en un índice nuevo y lo publica (no hace nada
+     * si ya está cargado)
+     *
+     * @param carga Recorre el catálogo hacia el índice nuevo
+     * @throws SQLException Si falla la lectura del catálogo (el índice
+     *         actual sigue en uso)
+     */
+    void cargar(Carga carga) throws SQLException {
+        if (cargado) return;
+        synchronized (cargaLock) {
+            if (cargado) return;
+            synchronized (indiceLock) {
+                cambiosDuranteCarga = new ArrayList<>();
+            }
+            TrigramTitleIndex nuevo = new TrigramTitleIndex();
+            try {
+                carga.cargar(nuevo);
+            } catch (SQLException | RuntimeException e) {
+                synchronized (indiceLock) {
+                    cambiosDuranteCarga = null;
+                }
+                throw e;
+            }
+            synchronized (indiceLock) {
+                for (Cambio c : cambiosDuranteCarga) {
+                    if (c.titulo() == null) nuevo.remove(c.id());
+                    else nuevo.put(c.id(), c.titulo());
+                }
+                cambiosDuranteCarga = null;
+                indice = nuevo;
+                cargado = true;
+            }
+        }
+    }
+
+    /**
+     * Actualiza el título de una película en el índice
+     *
+     * @param titulo Título nuevo, o null si la película se eliminó
+     */
+    void indexar(int id, String titulo) {
+        synchronized (indiceLock) {
+            if (titulo == null) indice.remove(id);
+            else indice.put(id, titulo);
+            if (cambiosDuranteCarga != null) cambiosDuranteCarga.add(new Cambio(id, titulo));
+        }
+    }
+
+    /**
+     * @see TrigramTitleIndex#search(String, int, double)
+     */
+    List<TrigramTitleIndex.Coincidencia> buscar(String consulta, int k, double similitudMinima) {
+        return indice.search(consulta, k, similitudMinima);
+    }
+}
@@ -0,0 +1,293 @@
+package service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Índice de trigramas sobre los títulos para búsqueda tolerante a errores
+ *
+ * Responsabilidades:
+ * - Descomponer cada título normalizado (sin acentos ni mayúsculas) en
+ *   trigramas, al estilo de pg_trgm: cada palabra con dos espacios delante
+ *   y uno detrás
+ * - Listas invertidas trigrama -> películas para puntuar solo las candidatas
+ *   que comparten algún trigrama con la consulta
+ * - Devolver las K mejores por similitud de Jaccard sobre los trigramas
+ *
+ * Características:
+ * - Memoria compacta: los trigramas se codifican como int (base 37) y las
+ *   listas son arreglos de int; por película solo se guarda su ID y la
+ *   cantidad de trigramas (no el título ni el objeto)
+ * - Las eliminaciones marcan el slot como muerto; cuando los muertos superan
+ *   a los vivos se compactan las listas (sin necesitar los títulos)
+ * - Thread-safe: todas las operaciones se sincronizan sobre el índice
+ *
+ */
+
+public class TrigramTitleIndex {
+
+    private static final int ALFABETO = 37; // espacio, a-z, 0-9
+    private static final int TRIGRAMAS = ALFABETO * ALFABETO * ALFABETO;
+
+    /**
+     * Película encontrada y su similitud con la consulta (0..1)
+     */
+    public record Coincidencia(int id, double similitud) {}
+
+    // Peor coincidencia primero: menor similitud y, a igual similitud, mayor ID
+    private static final Comparator<Coincidencia> PEOR_PRIMERO =
+            Comparator.comparingDouble(Coincidencia::similitud)
+                      .thenComparing(Coincidencia::id, Comparator.reverseOrder());
+
+    private final int[][] postings = new int[TRIGRAMAS][]; // trigrama -> slots
+    private final int[] largoPosting = new int[TRIGRAMAS];
+    private int[] idPorSlot = new int[1024];
+    private short[] trigramasPorSlot = new short[1024]; // 0 = slot eliminado
+    private int slots = 0;
+    private final IdSlotMap slotPorId = new IdSlotMap();
+    private int[] conteo = new int[1024]; // Reutilizado entre consultas (protegido por this)
+
+    /**
+     * Agrega o reemplaza el título de una película
+     *
+     * @param id ID de la película
+     * @param titulo Título a indexar
+     */
+    public synchronized void put(int id, String titulo) {
+        remove(id);
+        int[] trigramas = trigramas(titulo);
+        if (trigramas.length == 0) return;
+
+        int slot = slots++;
+        if (slot == idPorSlot.length) {
+            idPorSlot = Arrays.copyOf(idPorSlot, slot * 2);
+            trigramasPorSlot = Arrays.copyOf(trigramasPorSlot, slot * 2);
+        }
+        idPorSlot[slot] = id;
+        trigramasPorSlot[slot] = (short) Math.min(Short.MAX_VALUE, trigramas.length);
+        slotPorId.put(id, slot);
+        for (int t : trigramas) {
+            int[] lista = postings[t];
+            int n = largoPosting[t];
+            if (lista == null) {
+                lista = postings[t] = new int[4];
+            } else if (n == lista.length) {
+                lista = postings[t] = Arrays.copyOf(lista, n + (n >> 1) + 1);
+            }
+            lista[n] = slot;
+            largoPosting[t] = n + 1;
+        }
+    }
+
+    /**
+     * Quita una película del índice (no hace nada si no estaba)
+     *
+     * @param id ID de la película
+     */
+    public synchronized void remove(int id) {
+        int slot = slotPorId.remove(id);
+        if (slot >= 0) {
+            trigramasPorSlot[slot] = 0;
+            if (slots - slotPorId.size() > Math.max(1024, slotPorId.size())) compactar();
+        }
+    }
+
+    /**
+     * @return Cantidad de películas indexadas
+     */
+    public synchronized int size() {
+        return slotPorId.size();
+    }
+
+    /**
+     * Busca los títulos más parecidos a la consulta
+     *
+     * @param consulta Texto escrito por el usuario (con o sin acentos)
+     * @param k Cantidad máxima de resultados
+     * @param similitudMinima Umbral de similitud (ej. 0.3, como pg_trgm)
+     * @return Coincidencias ordenadas de mayor a menor similitud
+     */
+    public synchronized List<Coincidencia> search(String consulta, int k, double similitudMinima) {
+        int[] q = trigramas(consulta);
+        if (q.length == 0 || k < 1) return List.of();
+        if (conteo.length < slots) conteo = new int[idPorSlot.length];
+
+        // Acumula trigramas compartidos solo para los slots candidatos
+        int[] tocados = new int[64];
+        int nTocados = 0;
+        for (int t : q) {
+            int[] lista = postings[t];
+            for (int i = 0, n = largoPosting[t]; i < n; i++) {
+                int slot = lista[i];
+                if (conteo[slot]++ == 0) {
+                    if (nTocados == tocados.length) tocados = Arrays.copyOf(tocados, nTocados * 2);
+                    tocados[nTocados++] = slot;
+                }
+            }
+        }
+
+        // Top-K con un heap de mínimos por similitud
+        PriorityQueue<Coincidencia> heap = new PriorityQueue<>(k + 1, PEOR_PRIMERO);
+        for (int i = 0; i < nTocados; i++) {
+            int slot = tocados[i];
+            int comunes = conteo[slot];
+            conteo[slot] = 0;
+            int total = trigramasPorSlot[slot];
+            if (total == 0) continue; // Slot eliminado
+            double similitud = (double) comunes / (q.length + total - comunes);
+            if (similitud < similitudMinima) continue;
+            Coincidencia c = new Coincidencia(idPorSlot[slot], similitud);
+            if (heap.size() < k) {
+                heap.add(c);
+            } else if (PEOR_PRIMERO.compare(c, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(c);
+            }
+        }
+
+        List<Coincidencia> out = new ArrayList<>(heap);
+        out.sort(PEOR_PRIMERO.reversed());
+        return out;
+    }
+
+    /**
+     * Renumera los slots vivos y quita los muertos de las listas invertidas
+     */
+    private void compactar() {
+        int[] nuevo = new int[slots];
+        int vivos = 0;
+        for (int s = 0; s < slots; s++) {
+            if (trigramasPorSlot[s] == 0) {
+                nuevo[s] = -1;
+            } else {
+                nuevo[s] = vivos;
+                idPorSlot[vivos] = idPorSlot[s];
+                trigramasPorSlot[vivos] = trigramasPorSlot[s];
+                slotPorId.put(idPorSlot[vivos], vivos);
+                vivos++;
+            }
+        }
+        for (int t = 0; t < TRIGRAMAS; t++) {
+            int[] lista = postings[t];
+            if (lista == null) continue;
+            int n = 0;
+            for (int i = 0; i < largoPosting[t]; i++) {
+                int s = nuevo[lista[i]];
+                if (s >= 0) lista[n++] = s;
+            }
+            largoPosting[t] = n;
+            if (n == 0) postings[t] = null;
+            else if (n < lista.length / 2) postings[t] = Arrays.copyOf(lista, n);
+        }
+        Arrays.fill(trigramasPorSlot, vivos, slots, (short) 0);
+        slots = vivos;
+    }
+
+    /**
+     * Trigramas distintos del título normalizado, codificados en base 37
+     */
+    static int[] trigramas(String texto) {
+        if (texto == null) return new int[0];
+        String base = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        int[] out = new int[base.length() * 2 + 4];
+        int n = 0;
+        int c1 = 0, c2 = 0; // Dos "espacios" al inicio de cada palabra
+        boolean enPalabra = false;
+        for (int i = 0; i <= base.length(); i++) {
+            int c = i < base.length() ? codigo(base.charAt(i)) : 0;
+            if (c == 0) {
+                if (enPalabra) {
+                    out[n++] = (c1 * ALFABETO + c2) * ALFABETO; // Un espacio al final
+                    enPalabra = false;
+                    c1 = c2 = 0;
+                }
+                continue;
+            }
+            enPalabra = true;
+            out[n++] = (c1 * ALFABETO + c2) * ALFABETO + c;
+            c1 = c2;
+            c2 = c;
+        }
+        Arrays.sort(out, 0, n);
+        int distintos = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || out[i] != out[i - 1]) out[distintos++] = out[i];
+        }
+        return Arrays.copyOf(out, distintos);
+    }
+
+    private static int codigo(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a' + 1;
+        if (c >= '0' && c <= '9') return c - '0' + 27;
+        return 0; // Separador
+    }
+
+    /**
+     * Mapa int -> int con direccionamiento abierto (sin boxing)
+     */
+    private static final class IdSlotMap {
+        private int[] claves = new int[2048];
+        private int[] valores = new int[2048];
+        private boolean[] usados = new boolean[2048];
+        private int tamanio = 0;
+
+        void put(int clave, int valor) {
+            if ((tamanio + 1) * 2 > claves.length) crecer();
+            int i = buscar(clave);
+            if (!usados[i]) {
+                usados[i] = true;
+                claves[i] = clave;
+                tamanio++;
+            }
+            valores[i] = valor;
+        }
+
+        /**
+         * @return Valor eliminado, o -1 si la clave no estaba
+         */
+        int remove(int clave) {
+            int i = buscar(clave);
+            if (!usados[i]) return -1;
+            int valor = valores[i];
+            usados[i] = false;
+            tamanio--;
+            // Reubica el resto del cluster (borrado sin tombstones)
+            int mascara = claves.length - 1;
+            for (int j = (i + 1) & mascara; usados[j]; j = (j + 1) & mascara) {
+                int k = claves[j], v = valores[j];
+                usados[j] = false;
+                tamanio--;
+                put(k, v);
+            }
+            return valor;
+        }
+
+        int size() {
+            return tamanio;
+        }
+
+        private int buscar(int clave) {
+            int mascara = claves.length - 1;
+            int i = (clave * 0x9E3779B9) >>> 1 & mascara;
+            while (usados[i] && claves[i] != clave) i = (i + 1) & mascara;
+            return i;
+        }
+
+        private void crecer() {
+            int[] k = claves, v = valores;
+            boolean[] u = usados;
+            claves = new int[k.length * 2];
+            valores = new int[k.length * 2];
+            usados = new boolean[k.length * 2];
+            tamanio = 0;
+            for (int i = 0; i < k.length; i++) if (u[i]) put(k[i], v[i]);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package service;
+
+import dao.IPeliculaDAO;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import model.Pelicula;
+import model.PeliculaValue;
+
+/**
+ * Cola write-behind para modificaciones y eliminaciones de películas
+ *
+ * Responsabilidades:
+ * - Encolar mutaciones y responder de inmediato al llamador
+ * - Fusionar (coalescing) modificaciones repetidas sobre el mismo ID
+ * - Vaciar la cola en lotes con group commit al alcanzar un tamaño o un tiempo
+ * - Confirmar cada mutación con un CompletableFuture tras el commit
+ * - Drenar las mutaciones pendientes al cerrar
+ *
+ * Características:
+ * - Las mutaciones fusionadas comparten el mismo future, que se completa
+ *   con el ID con el que quedó la película (un backend con shards puede
+ *   cambiarlo al moverla)
+ * - Si un lote falla se reintenta operación por operación, para que cada
+ *   future reciba su propio resultado; el reintento supone que applyBatch
+ *   aplica el lote entero o nada, como hacen todos los DAO del proyecto
+ * - Todo future se completa: un error de una operación (SQLException o
+ *   excepción de tiempo de ejecución) solo falla el suyo
+ *
+ */
+
+public final class WriteBehindQueue implements AutoCloseable {
+
+    private final IPeliculaDAO dao;
+    private final int tamanioLote;
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object(); // Serializa los flush para mantener el orden
+    private Map<Integer, Pendiente> pendientes = new LinkedHashMap<>(); // Protegido por this
+    private boolean cerrada = false;
+    private boolean aplicando = false; // Hay un lote sacado de la cola y aún sin aplicar (protegido por this)
+
+    /**
+     * Constructor de la cola
+     *
+     * @param dao DAO sobre el que se aplican los lotes
+     * @param tamanioLote Cantidad de mutaciones que dispara un flush inmediato
+     * @param maxDemoraMillis Tiempo máximo que una mutación espera en la cola
+     */
+    public WriteBehindQueue(IPeliculaDAO dao, int tamanioLote, long maxDemoraMillis) {
+        if (tamanioLote < 1 || maxDemoraMillis < 1) {
+            throw new IllegalArgumentException("Tamaño de lote y demora deben ser positivos.");
+        }
+        this.dao = dao;
+        this.tamanioLote = tamanioLote;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSilencioso, maxDemoraMillis, maxDemoraMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encola la modificación de una película
+     *
+     * @param p Película con los nuevos datos (se toma una instantánea inmutable)
+     * @return CompletableFuture que se completa con el ID final cuando el
+     *         cambio está confirmado en la BD
+     */
+    public CompletableFuture<Integer> enqueueUpdate(Pelicula p) {
+        PeliculaValue copia = PeliculaValue.of(p);
+        CompletableFuture<Integer> future;
+        boolean lleno;
+        synchronized (this) {
+            verificarAbierta();
+            Pendiente actual = pendientes.get(copia.id());
+            if (actual != null && actual.eliminar) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("La película " + copia.id() + " tiene una eliminación pendiente."));
+            }
+            if (actual == null) {
+                actual = new Pendiente();
+                pendientes.put(copia.id(), actual);
+            }
+            actual.pelicula = copia; // Gana la última modificación
+            future = actual.future;
+            lleno = pendientes.size() >= tamanioLote;
+        }
+        if (lleno) dispararFlush();
+        return future;
+    }
+
+    /**
+     * Encola la eliminación de una película (reemplaza modificaciones pendientes)
+     *
+     * @param id ID de la película a eliminar
+     * @return CompletableFuture que se completa (con el ID) cuando la eliminación está confirmada
+     */
+    public CompletableFuture<Integer> enqueueDelete(int id) {
+        CompletableFuture<Integer> future;
+        boolean lleno;
+        synchronized (this) {
+            verificarAbierta();
+            Pendiente actual = pendientes.computeIfAbsent(id, k -> new Pendiente());
+            actual.eliminar = true;
+            actual.pelicula = null;
+            future = actual.future;
+            lleno = pendientes.size() >= tamanioLote;
+        }
+        if (lleno) dispararFlush();
+        return future;
+    }
+
+    /**
+     * Aplica de inmediato todas las mutaciones pendientes
+     *
+     * Con la cola vacía y ningún lote aplicándose vuelve sin esperar a
+     * flushLock: las lecturas lo llaman siempre y no deben serializarse
+     * entre sí cuando no hay nada que aplicar.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (pendientes.isEmpty() && !aplicando) return;
+        }
+        synchronized (flushLock) {
+            Map<Integer, Pendiente> lote;
+            synchronized (this) {
+                if (pendientes.isEmpty()) return;
+                lote = pendientes;
+                pendientes = new LinkedHashMap<>();
+                aplicando = true;
+            }
+            try {
+                aplicar(lote);
+            } finally {
+                synchronized (this) {
+                    aplicando = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cantidad de mutaciones a la espera de ser aplicadas
+     *
+     * @return int tamaño actual de la cola
+     */
+    public synchronized int pendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Detiene el flush periódico y drena las mutaciones pendientes
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (cerrada) return;
+            cerrada = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void aplicar(Map<Integer, Pendiente> lote) {
+        List<Pelicula> updates = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
+        for (Map.Entry<Integer, Pendiente> e : lote.entrySet()) {
+            if (e.getValue().eliminar) {
+                deletes.add(e.getKey());
+            } else {
+                e.getValue().aplicada = e.getValue().pelicula.toPelicula();
+                updates.add(e.getValue().aplicada);
+            }
+        }
+
+        try {
+            dao.applyBatch(updates, deletes);
+            for (Map.Entry<Integer, Pendiente> e : lote.entrySet()) e.getValue().completar(e.getKey());
+        } catch (SQLException | RuntimeException loteFallido) {
+            // El lote no se aplicó: se aísla la operación culpable aplicando una a una
+            for (Map.Entry<Integer, Pendiente> e : lote.entrySet()) {
+                Pendiente p = e.getValue();
+                try {
+                    if (p.eliminar) {
+                        dao.delete(e.getKey());
+                    } else {
+                        p.aplicada = p.pelicula.toPelicula();
+                        dao.update(p.aplicada);
+                    }
+                    p.completar(e.getKey());
+                } catch (SQLException | RuntimeException ex) {
+                    p.future.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private void dispararFlush() {
+        try {
+            flusher.execute(this::flushSilencioso);
+        } catch (RejectedExecutionException e) {
+            // La cola se está cerrando: close() drenará lo pendiente
+        }
+    }
+
+    private void flushSilencioso() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error en flush write-behind: " + e.getMessage());
+        }
+    }
+
+    private void verificarAbierta() {
+        if (cerrada) throw new IllegalStateException("La cola write-behind está cerrada.");
+    }
+
+    /**
+     * Mutación pendiente de un ID
+     */
+    private static final class Pendiente {
+        PeliculaValue pelicula; // Últimos datos (null si es eliminación)
+        boolean eliminar;
+        Pelicula aplicada; // Copia entregada al DAO (puede recibir un ID nuevo)
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        void completar(int id) {
+            future.complete(aplicada != null ? aplicada.getId() : id);
+        }
+    }
+}
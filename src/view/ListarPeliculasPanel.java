@@ -6,11 +6,12 @@ import java.awt.FlowLayout;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.util.Comparator;
 import java.util.List;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 
+import model.Genero;
 import model.Pelicula;
 
 /**
@@ -26,6 +27,9 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
     private final JButton btnFiltrar;
     private final JButton btnLimpiarFiltros;
     private final JButton btnListarTodas;
+    private final JButton btnCargarMas;
+    private final JButton btnCancelar;
+    private final JLabel lblEstadoCarga;
 
     // Tabla y modelo
     private final JTable tablePeliculas;
@@ -33,8 +37,11 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
 
     // Componente para mostrar total
     private final JLabel lblTotal;
-    // Referencia al sorter
-    private TableRowSorter<DefaultTableModel> sorter;
+    // Orden elegido en el encabezado; lo aplica la base de datos (ORDER BY)
+    private final transient ServerSideRowSorter sorter;
+    // Última fila cargada: punto de continuación (keyset) para "Cargar más"
+    private transient Pelicula ultimaCargada;
+    private boolean hayMas; // Quedan filas sin cargar después de ultimaCargada
 
     // Columnas de la tabla
     private final String[] columnNames = {"ID", "Título", "Director", "Año", "Duración (min)", "Género"};
@@ -61,6 +68,12 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         btnFiltrar = new JButton("Aplicar Filtros");
         btnLimpiarFiltros = new JButton("Limpiar Filtros");
         btnListarTodas = new JButton("Listar Todas");
+        btnCargarMas = new JButton("Cargar más");
+        btnCargarMas.setEnabled(false);
+        btnCancelar = new JButton("Cancelar");
+        btnCancelar.setEnabled(false); // Solo mientras hay una consulta en curso
+        btnCancelar.setToolTipText("Detiene la consulta en curso");
+        lblEstadoCarga = new JLabel();
 
         // Configurar tabla con ordenamiento
         tableModel = new DefaultTableModel(columnNames, 0) {
@@ -92,16 +105,10 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         };
 
         tablePeliculas = new JTable(tableModel);
-        // Crear y configurar el TableRowSorter explícitamente
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(tableModel);
+        // El clic en el encabezado solo registra el orden (por ID ascendente al
+        // inicio); el controlador vuelve a consultar con ORDER BY
+        sorter = new ServerSideRowSorter(tableModel, new RowSorter.SortKey(0, SortOrder.ASCENDING));
         tablePeliculas.setRowSorter(sorter);
-        // Guardar referencia al sorter como campo de la clase
-        this.sorter = sorter;
-
-        // OPCIONAL: Configurar ordenamiento personalizado para columnas específicas
-        configurarOrdenamiento();
-        // OPCIONAL: Configurar ordenamiento personalizado para columnas específicas
-        configurarOrdenamiento();
 
         // Inicializar label
         lblTotal = new JLabel("0");
@@ -110,26 +117,6 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         initComponents();
     }
     
-    private void configurarOrdenamiento() {
-        // Obtener el TableRowSorter
-        javax.swing.table.TableRowSorter<DefaultTableModel> sorter
-                = (javax.swing.table.TableRowSorter<DefaultTableModel>) tablePeliculas.getRowSorter();
-
-        // Configurar comparadores personalizados si es necesario
-        java.util.Comparator<String> generoComparator = (s1, s2) -> {
-            // Ordenamiento personalizado para géneros si lo deseas
-            return s1.compareToIgnoreCase(s2);
-        };
-
-        // Aplicar comparador personalizado para la columna de género (índice 5)
-        sorter.setComparator(5, generoComparator);
-
-        // OPCIONAL: Establecer ordenamiento inicial (por ID ascendente)
-        java.util.List<javax.swing.RowSorter.SortKey> sortKeys = new java.util.ArrayList<>();
-        sortKeys.add(new javax.swing.RowSorter.SortKey(0, javax.swing.SortOrder.ASCENDING));
-        sorter.setSortKeys(sortKeys);
-    }
-
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -185,6 +172,9 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         JPanel panelInfo = new JPanel(new FlowLayout(FlowLayout.LEFT));
         panelInfo.add(new JLabel("Total de películas mostradas: "));
         panelInfo.add(lblTotal); // CAMBIAR ESTA LÍNEA - usar el campo de la clase
+        panelInfo.add(btnCargarMas);
+        panelInfo.add(btnCancelar);
+        panelInfo.add(lblEstadoCarga);
         add(panelInfo, BorderLayout.SOUTH);
 
         // Configurar ancho de columnas después de que la tabla esté agregada
@@ -201,37 +191,115 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
     // End of variables declaration//GEN-END:variables
     
     /**
-     * Carga las películas en la tabla manteniendo el ordenamiento
+     * Reemplaza el contenido de la tabla por la primera página (ya ordenada
+     * por la base de datos). El orden elegido se conserva entre recargas
      */
-    @SuppressWarnings("unchecked")
     public void cargarPeliculas(List<Pelicula> peliculas) {
-        // Guardar el ordenamiento actual
-        javax.swing.table.TableRowSorter<DefaultTableModel> sorter
-                = (javax.swing.table.TableRowSorter<DefaultTableModel>) tablePeliculas.getRowSorter();
-        java.util.List<javax.swing.RowSorter.SortKey> sortKeys = (java.util.List<javax.swing.RowSorter.SortKey>) sorter.getSortKeys();
-
         tableModel.setRowCount(0); // Limpiar tabla
+        ultimaCargada = null;
+        agregarPeliculas(peliculas);
+    }
 
+    /**
+     * Agrega al final la página siguiente ("Cargar más")
+     */
+    public void agregarPeliculas(List<Pelicula> peliculas) {
         for (Pelicula p : peliculas) {
-            Object[] fila = {
-                p.getId(), // Integer para ordenamiento numérico correcto
-                p.getTitulo(),
-                p.getDirector(),
-                p.getAnio(), // Integer para ordenamiento numérico correcto  
-                p.getDuracion(), // Integer para ordenamiento numérico correcto
-                p.getGenero().toString()
-            };
-            tableModel.addRow(fila);
+            tableModel.addRow(filaDe(p));
         }
+        if (!peliculas.isEmpty()) ultimaCargada = peliculas.get(peliculas.size() - 1);
 
-        // Restaurar el ordenamiento
-        sorter.setSortKeys(sortKeys);
+        actualizarContador(tablePeliculas.getRowCount());
+    }
+
+    /**
+     * Habilita "Cargar más" si la última página vino completa
+     */
+    public void setHayMas(boolean hayMas) {
+        this.hayMas = hayMas;
+        btnCargarMas.setEnabled(hayMas);
+    }
 
-        // Actualizar contador - usar el número de filas mostradas (después del filtro)
+    /**
+     * Aplica a la tabla el cambio de una sola película sin recargarla: quita
+     * su fila (si estaba) y, si corresponde, la inserta en su posición según
+     * el orden actual. Si queda después de la última fila cargada no se
+     * inserta: aparecerá con "Cargar más"
+     *
+     * @param id ID de la película
+     * @param pelicula Valor nuevo, o null para solo quitarla
+     * @param orden Orden con el que se cargó la tabla
+     */
+    public void aplicarCambio(int id, Pelicula pelicula, Comparator<Pelicula> orden) {
+        for (int fila = 0; fila < tableModel.getRowCount(); fila++) {
+            if (((Integer) tableModel.getValueAt(fila, 0)) == id) {
+                tableModel.removeRow(fila);
+                break;
+            }
+        }
+        if (pelicula != null && (!hayMas || ultimaCargada == null || orden.compare(pelicula, ultimaCargada) <= 0)) {
+            // Búsqueda binaria de la primera fila que va después
+            int desde = 0, hasta = tableModel.getRowCount();
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (orden.compare(filaAPelicula(medio), pelicula) <= 0) desde = medio + 1;
+                else hasta = medio;
+            }
+            tableModel.insertRow(desde, filaDe(pelicula));
+        }
         actualizarContador(tablePeliculas.getRowCount());
-        lblTotal.repaint();
     }
 
+    private Object[] filaDe(Pelicula p) {
+        return new Object[]{
+            p.getId(), // Integer para ordenamiento numérico correcto
+            p.getTitulo(),
+            p.getDirector(),
+            p.getAnio(), // Integer para ordenamiento numérico correcto
+            p.getDuracion(), // Integer para ordenamiento numérico correcto
+            p.getGenero().toString()
+        };
+    }
+
+    private Pelicula filaAPelicula(int fila) {
+        return new Pelicula((Integer) tableModel.getValueAt(fila, 0),
+                (String) tableModel.getValueAt(fila, 1),
+                (String) tableModel.getValueAt(fila, 2),
+                (Integer) tableModel.getValueAt(fila, 3),
+                (Integer) tableModel.getValueAt(fila, 4),
+                Genero.valueOf((String) tableModel.getValueAt(fila, 5)));
+    }
+
+    /**
+     * Indica si hay una consulta en curso: habilita "Cancelar" y muestra el
+     * estado de la carga
+     * 
+     * @param cargando true mientras la consulta se ejecuta
+     * @param estado Texto a mostrar junto a los botones (vacío = nada)
+     */
+    public void setCargando(boolean cargando, String estado) {
+        btnCancelar.setEnabled(cargando);
+        if (cargando) btnCargarMas.setEnabled(false);
+        lblEstadoCarga.setText(estado);
+    }
+
+    /**
+     * @return Última película cargada (continuación keyset), o null si la tabla está vacía
+     */
+    public Pelicula getUltimaCargada() {
+        return ultimaCargada;
+    }
+
+    /**
+     * @return Índice de la columna por la que se ordena
+     */
+    public int getColumnaOrden() {
+        return sorter.getSortKeys().isEmpty() ? 0 : sorter.getSortKeys().get(0).getColumn();
+    }
+
+    public boolean isOrdenDescendente() {
+        return !sorter.getSortKeys().isEmpty() && sorter.getSortKeys().get(0).getSortOrder() == SortOrder.DESCENDING;
+    }
 
     public void actualizarContador(int total) {
         lblTotal.setText(String.valueOf(total));
@@ -246,6 +314,9 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         spnAnioDesde.setValue(1900);
         spnAnioHasta.setValue(2030);
         tableModel.setRowCount(0);
+        ultimaCargada = null;
+        hayMas = false;
+        btnCargarMas.setEnabled(false);
         lblTotal.setText("0");
     }
 
@@ -254,11 +325,9 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         return tablePeliculas.getRowCount();
     }
 
-// AGREGAR: Método para limpiar ordenamiento
+// AGREGAR: Método para limpiar ordenamiento (vuelve al orden inicial por ID)
     public void limpiarOrdenamiento() {
-        javax.swing.table.TableRowSorter<DefaultTableModel> sorter
-                = (javax.swing.table.TableRowSorter<DefaultTableModel>) tablePeliculas.getRowSorter();
-        sorter.setSortKeys(null);
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
     }
 
     // Getters para los componentes
@@ -274,6 +343,14 @@ public class ListarPeliculasPanel extends javax.swing.JPanel {
         return btnListarTodas;
     }
 
+    public JButton getBtnCargarMas() {
+        return btnCargarMas;
+    }
+
+    public JButton getBtnCancelar() {
+        return btnCancelar;
+    }
+
     public String getGeneroSeleccionado() {
         return (String) cmbGenero.getSelectedItem();
     }
@@ -1,6 +1,7 @@
 package view;
 
 import java.awt.*;
+import java.util.function.Consumer;
 import javax.swing.*;
 
 /**
@@ -16,6 +17,8 @@ import javax.swing.*;
  * - Diseño BorderLayout para organización flexible
  * - Toolbar con acciones principales
  * - Integración con PeliculaFormPanel
+ * - Paneles construidos de forma diferida la primera vez que se usan
+ * - Indicador del estado de la conexión a la base de datos en la toolbar
  * - Tamaño y posición centrada por defecto
  * 
  */
@@ -27,13 +30,19 @@ public class MainFrame extends javax.swing.JFrame {
     private final JButton btnModificar= new JButton("Modificar");
     private final JButton btnEliminar = new JButton("Eliminar");
     private final JButton btnListar   = new JButton("Listar");
+    private final JLabel lblEstadoBD  = new JLabel();
+    private final JLabel lblPrecarga  = new JLabel();
 
-    private final PeliculaFormPanel formPanel = new PeliculaFormPanel();
-    private final ModificarPeliculaPanel modificarPanel = new ModificarPeliculaPanel();
-    private final EliminarPeliculaPanel eliminarPanel = new EliminarPeliculaPanel();
-    private final ListarPeliculasPanel listarPanel = new ListarPeliculasPanel();
+    // Paneles: se crean al primer uso (ver getters)
+    private PeliculaFormPanel formPanel;
+    private ModificarPeliculaPanel modificarPanel;
+    private EliminarPeliculaPanel eliminarPanel;
+    private ListarPeliculasPanel listarPanel;
     
     private final JPanel cardPanel = new JPanel(new CardLayout());
+    
+    // Se notifica con el nombre del panel cada vez que se construye uno
+    private transient Consumer<String> onPanelCreado = nombre -> {};
 
 
     /**
@@ -60,17 +69,16 @@ public class MainFrame extends javax.swing.JFrame {
         // Configurar el layout después de limpiar
         getContentPane().setLayout(new BorderLayout());
         
-        // Configurar panel de cards
-        cardPanel.add(formPanel, "AGREGAR");
-        cardPanel.add(modificarPanel, "MODIFICAR");
-        cardPanel.add(eliminarPanel, "ELIMINAR");
-        cardPanel.add(listarPanel, "LISTAR");
-
         // Toolbar
         toolbar.add(btnAgregar);
         toolbar.add(btnModificar);   btnModificar.setEnabled(true); btnModificar.setToolTipText("Permite modificar una película existente");
         toolbar.add(btnEliminar);    btnEliminar.setEnabled(true);  btnEliminar.setToolTipText("Permite eliminar una película existente");
         toolbar.add(btnListar);      btnListar.setEnabled(true);    btnListar.setToolTipText("Permite listar todas las películas y filtrarlas por género y rango de fechas");
+        toolbar.add(Box.createHorizontalGlue());
+        toolbar.add(lblPrecarga);    lblPrecarga.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 12));
+        lblPrecarga.setForeground(Color.GRAY);
+        toolbar.add(lblEstadoBD);    lblEstadoBD.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 8));
+        setEstadoConexion("BD: verificando…", true);
         
         getContentPane().add(toolbar, BorderLayout.NORTH);
         getContentPane().add(cardPanel, BorderLayout.CENTER);
@@ -85,15 +93,75 @@ public class MainFrame extends javax.swing.JFrame {
     public JButton getBtnEliminar() { return btnEliminar; }
     public JButton getBtnListar() { return btnListar; }
     
-    public PeliculaFormPanel getFormPanel(){ return formPanel; }
-    public ListarPeliculasPanel getListarPanel() { return listarPanel; }
-    public ModificarPeliculaPanel getModificarPanel() { return modificarPanel; }
-    public EliminarPeliculaPanel getEliminarPanel() { return eliminarPanel; }
+    public PeliculaFormPanel getFormPanel(){
+        if (formPanel == null) registrar(formPanel = new PeliculaFormPanel(), "AGREGAR");
+        return formPanel;
+    }
+    public ListarPeliculasPanel getListarPanel() {
+        if (listarPanel == null) registrar(listarPanel = new ListarPeliculasPanel(), "LISTAR");
+        return listarPanel;
+    }
+    public ModificarPeliculaPanel getModificarPanel() {
+        if (modificarPanel == null) registrar(modificarPanel = new ModificarPeliculaPanel(), "MODIFICAR");
+        return modificarPanel;
+    }
+    public EliminarPeliculaPanel getEliminarPanel() {
+        if (eliminarPanel == null) registrar(eliminarPanel = new EliminarPeliculaPanel(), "ELIMINAR");
+        return eliminarPanel;
+    }
+    
+    /**
+     * Actualiza el indicador de conexión de la toolbar
+     * 
+     * @param texto Estado a mostrar (ej. "BD: conectada")
+     * @param disponible false pinta el indicador en rojo
+     */
+    public void setEstadoConexion(String texto, boolean disponible) {
+        lblEstadoBD.setText(texto);
+        lblEstadoBD.setForeground(disponible ? new Color(0, 128, 0) : Color.RED);
+    }
+    
+    /**
+     * Muestra el avance de la precarga de caché en la toolbar
+     * 
+     * @param texto Texto a mostrar ("" lo oculta)
+     */
+    public void setProgresoPrecarga(String texto) {
+        lblPrecarga.setText(texto);
+        lblPrecarga.setVisible(!texto.isEmpty());
+    }
+    
+    /**
+     * Define quién se entera de la construcción diferida de cada panel
+     * (el controlador lo usa para conectar los listeners del panel)
+     * 
+     * @param onPanelCreado Recibe el nombre del panel recién creado
+     */
+    public void setOnPanelCreado(Consumer<String> onPanelCreado) {
+        this.onPanelCreado = onPanelCreado;
+    }
     
+    /**
+     * Muestra un panel, construyéndolo si es la primera vez
+     * 
+     * @param nombre AGREGAR, MODIFICAR, ELIMINAR o LISTAR
+     */
     public void mostrarPanel(String nombre) {
+        switch (nombre) {
+            case "AGREGAR" -> getFormPanel();
+            case "MODIFICAR" -> getModificarPanel();
+            case "ELIMINAR" -> getEliminarPanel();
+            case "LISTAR" -> getListarPanel();
+            default -> throw new IllegalArgumentException("Panel desconocido: " + nombre);
+        }
         CardLayout cl = (CardLayout) cardPanel.getLayout();
         cl.show(cardPanel, nombre);
     }
+    
+    private void registrar(JPanel panel, String nombre) {
+        cardPanel.add(panel, nombre);
+        onPanelCreado.accept(nombre);
+    }
 
 
     /**
@@ -0,0 +1,113 @@
+package view;
+
+import java.util.Collections;
+import java.util.List;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+
+/**
+ * RowSorter que no ordena en el cliente
+ *
+ * Responsabilidades:
+ * - Registrar la columna y el sentido elegidos al hacer clic en el
+ *   encabezado, para que el encabezado muestre la flecha de orden
+ * - Notificar SORT_ORDER_CHANGED para que el controlador vuelva a consultar
+ *   con ORDER BY en la base de datos
+ *
+ * Características:
+ * - Las filas del modelo ya vienen ordenadas: la vista y el modelo usan los
+ *   mismos índices, así la tabla no necesita tener todo el catálogo cargado
+ *
+ */
+
+public class ServerSideRowSorter extends RowSorter<TableModel> {
+
+    private final TableModel model;
+    private List<SortKey> sortKeys;
+
+    /**
+     * @param model Modelo de la tabla
+     * @param inicial Orden inicial
+     */
+    public ServerSideRowSorter(TableModel model, SortKey inicial) {
+        this.model = model;
+        this.sortKeys = List.of(inicial);
+    }
+
+    @Override
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Clic en el encabezado: la misma columna invierte el sentido, otra
+     * columna pasa a ordenar ascendente
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        SortKey actual = sortKeys.isEmpty() ? null : sortKeys.get(0);
+        SortOrder orden = actual != null && actual.getColumn() == column && actual.getSortOrder() == SortOrder.ASCENDING
+                ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+        setSortKeys(List.of(new SortKey(column, orden)));
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> nuevas = keys == null ? List.of() : List.copyOf(keys);
+        if (!nuevas.equals(sortKeys)) {
+            sortKeys = nuevas;
+            fireSortOrderChanged();
+        }
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return Collections.unmodifiableList(sortKeys);
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        return index;
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        return index;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    // El orden lo resuelve la base de datos: los cambios del modelo no reordenan
+    @Override
+    public void modelStructureChanged() {
+    }
+
+    @Override
+    public void allRowsChanged() {
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+    }
+}
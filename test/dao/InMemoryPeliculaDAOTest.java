@@ -0,0 +1,113 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import model.Genero;
+import model.Pelicula;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de consistencia de los índices de InMemoryPeliculaDAO
+ *
+ * Cada prueba modifica o elimina una película y comprueba que todas las
+ * lecturas (findAll, búsquedas por título, rangos de año, géneros y páginas)
+ * ven la misma fila, sin duplicados ni huecos
+ *
+ */
+
+public class InMemoryPeliculaDAOTest {
+
+    private InMemoryPeliculaDAO dao;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryPeliculaDAO();
+    }
+
+    @Test
+    public void updateConTituloEquivalenteConservaLaFila() throws SQLException {
+        int id = dao.create(new Pelicula("Suenos de Campus", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.update(new Pelicula(id, "Sueños de Campus", "Ana Ruiz", 2001, 95, Genero.Drama));
+
+        assertUnica(dao.findAll(), id, "Sueños de Campus");
+        assertUnica(dao.findByTitleLike("Campus"), id, "Sueños de Campus");
+        assertUnica(dao.findPage(0, 50), id, "Sueños de Campus");
+        assertUnica(dao.findByTitlePrefix("SUENOS"), id, "Sueños de Campus");
+    }
+
+    @Test
+    public void updateConTituloDistintoMueveLaEntrada() throws SQLException {
+        int id = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.create(new Pelicula("Beta", "Ana Ruiz", 2002, 95, Genero.Drama));
+        dao.update(new Pelicula(id, "Gamma", "Ana Ruiz", 2001, 95, Genero.Drama));
+
+        List<Pelicula> todas = dao.findAll();
+        assertEquals(2, todas.size());
+        assertEquals("Beta", todas.get(0).getTitulo());
+        assertEquals("Gamma", todas.get(1).getTitulo());
+        assertTrue(dao.findByTitlePrefix("Alfa").isEmpty());
+        assertUnica(dao.findByTitlePrefix("gam"), id, "Gamma");
+    }
+
+    @Test
+    public void updateDeAnioYGeneroMueveLosIndices() throws SQLException {
+        int id = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.update(new Pelicula(id, "Alfa", "Ana Ruiz", 2010, 95, Genero.Terror));
+
+        assertTrue(dao.findByFilters(null, 2000, 2005).isEmpty());
+        assertTrue(dao.findByFilters(Genero.Drama, 1900, 2100).isEmpty());
+        assertUnica(dao.findByFilters(Genero.Terror, 2010, 2010), id, "Alfa");
+        assertUnica(dao.findBy(PeliculaCriteria.create().anioEntre(2005, 2015)), id, "Alfa");
+    }
+
+    @Test
+    public void findByTitlePrefixIgnoraAcentosYMayusculas() throws SQLException {
+        int id = dao.create(new Pelicula("Éxodo", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.create(new Pelicula("Exilio", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.create(new Pelicula("Fuga", "Ana Ruiz", 2001, 95, Genero.Drama));
+
+        assertUnica(dao.findByTitlePrefix("exo"), id, "Éxodo");
+        assertUnica(dao.findByTitlePrefix("ÉXO"), id, "Éxodo");
+        assertEquals(2, dao.findByTitlePrefix("Ex").size());
+    }
+
+    @Test
+    public void deleteQuitaTodasLasEntradas() throws SQLException {
+        int id = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.delete(id);
+
+        assertNull(dao.findById(id));
+        assertTrue(dao.findAll().isEmpty());
+        assertTrue(dao.findByTitleLike("Alfa").isEmpty());
+        assertTrue(dao.findByTitlePrefix("Alfa").isEmpty());
+        assertTrue(dao.findByFilters(Genero.Drama, 1900, 2100).isEmpty());
+        assertTrue(dao.findPage(0, 50).isEmpty());
+        // La clave única quedó libre
+        dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+    }
+
+    @Test
+    public void applyBatchFallidoDeshaceLoAplicado() throws SQLException {
+        int id = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        try {
+            dao.applyBatch(List.of(new Pelicula(id, "Álfa", "Ana Ruiz", 2001, 95, Genero.Drama)), List.of(999));
+            fail("El lote con una baja inexistente debía fallar");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("No se encontró"));
+        }
+
+        assertUnica(dao.findAll(), id, "Alfa");
+        assertUnica(dao.findByTitlePrefix("alfa"), id, "Alfa");
+    }
+
+    private static void assertUnica(List<Pelicula> peliculas, int id, String titulo) {
+        assertEquals(1, peliculas.size());
+        assertEquals(Integer.valueOf(id), peliculas.get(0).getId());
+        assertEquals(titulo, peliculas.get(0).getTitulo());
+    }
+}
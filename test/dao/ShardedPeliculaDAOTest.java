@@ -0,0 +1,124 @@
+package dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import model.Genero;
+import model.Pelicula;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de ShardedPeliculaDAO sobre shards InMemoryPeliculaDAO
+ *
+ */
+
+public class ShardedPeliculaDAOTest {
+
+    private static final int SHARDS = 3;
+
+    private List<InMemoryPeliculaDAO> nodos;
+    private ShardedPeliculaDAO dao;
+
+    @Before
+    public void setUp() {
+        nodos = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) nodos.add(new InMemoryPeliculaDAO());
+        // Enruta por año, así cada prueba elige el shard de cada película
+        dao = new ShardedPeliculaDAO(new ArrayList<>(nodos), Pelicula::getAnio);
+    }
+
+    @Test
+    public void createConIdLocalDesbordadoFallaSinDejarLaFila() throws SQLException {
+        nodos.get(0).importBatch(List.of(new Pelicula(Integer.MAX_VALUE / SHARDS + 1, "Vieja", "Ana Ruiz", 2001, 95, Genero.Drama)));
+        try {
+            dao.create(new Pelicula("Nueva", "Ana Ruiz", 2001, 95, Genero.Drama));
+            fail("El ID global no cabe en un int");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(String.valueOf(Integer.MAX_VALUE / SHARDS + 2)));
+        }
+        assertEquals(1, nodos.get(0).findAll().size());
+    }
+
+    @Test
+    public void keysetRecorreTodoElCatalogoSinRepetir() throws SQLException {
+        for (int i = 0; i < 20; i++) dao.create(new Pelicula("Titulo " + (char) ('A' + i), "Ana Ruiz", 2000 + i, 95, Genero.Drama));
+
+        List<Pelicula> vistas = new ArrayList<>();
+        Pelicula ultima = null;
+        while (true) {
+            PeliculaCriteria c = PeliculaCriteria.create().limite(7);
+            if (ultima != null) c.despuesDe(ultima);
+            List<Pelicula> pagina = dao.findBy(c);
+            if (pagina.isEmpty()) break;
+            vistas.addAll(pagina);
+            ultima = pagina.get(pagina.size() - 1);
+        }
+        assertEquals(ids(dao.findAll()), ids(vistas));
+    }
+
+    @Test
+    public void applyBatchFallidoRestauraTodosLosShards() throws SQLException {
+        int enSitio = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2000, 95, Genero.Drama));
+        int movida = dao.create(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        int borrada = dao.create(new Pelicula("Gamma", "Ana Ruiz", 2002, 95, Genero.Drama));
+        Pelicula mover = new Pelicula(movida, "Beta", "Ana Ruiz", 2002, 95, Genero.Drama);
+        try {
+            dao.applyBatch(List.of(new Pelicula(enSitio, "Alfa 2", "Ana Ruiz", 2000, 95, Genero.Drama), mover),
+                    List.of(borrada, 998));
+            fail("El lote con una baja inexistente debía fallar");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().startsWith("No se encontró"));
+        }
+
+        assertEquals(Integer.valueOf(movida), mover.getId());
+        assertEquals("Alfa", dao.findById(enSitio).getTitulo());
+        assertEquals(2001, dao.findById(movida).getAnio());
+        assertEquals("Gamma", dao.findById(borrada).getTitulo());
+        assertEquals(3, dao.findAll().size());
+    }
+
+    @Test
+    public void applyBatchConMovimientoFallidoDeshaceLosMovimientosPrevios() throws SQLException {
+        int borrada = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2000, 95, Genero.Drama));
+        int primera = dao.create(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        int segunda = dao.create(new Pelicula("Gamma", "Ana Ruiz", 2001, 95, Genero.Drama));
+        dao.create(new Pelicula("Gamma", "Ana Ruiz", 2002, 95, Genero.Drama));
+        Pelicula mover = new Pelicula(primera, "Beta", "Ana Ruiz", 2002, 95, Genero.Drama);
+        try {
+            // La segunda choca con la restricción única del shard destino
+            dao.applyBatch(List.of(mover, new Pelicula(segunda, "Gamma", "Ana Ruiz", 2002, 95, Genero.Drama)),
+                    List.of(borrada));
+            fail("El movimiento duplicado debía fallar");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("Duplicate"));
+        }
+
+        assertEquals(Integer.valueOf(primera), mover.getId());
+        assertEquals(2001, dao.findById(primera).getAnio());
+        assertEquals(2001, dao.findById(segunda).getAnio());
+        assertEquals("Alfa", dao.findById(borrada).getTitulo());
+        assertEquals(4, dao.findAll().size());
+    }
+
+    @Test
+    public void applyBatchMueveYBorraEntreShards() throws SQLException {
+        int movida = dao.create(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        int borrada = dao.create(new Pelicula("Gamma", "Ana Ruiz", 2002, 95, Genero.Drama));
+        Pelicula mover = new Pelicula(movida, "Beta", "Ana Ruiz", 2003, 95, Genero.Drama);
+        dao.applyBatch(List.of(mover), List.of(borrada));
+
+        assertTrue(mover.getId() != movida);
+        assertEquals(2003, dao.findById(mover.getId()).getAnio());
+        assertEquals(1, dao.findAll().size());
+    }
+
+    private static List<Integer> ids(List<Pelicula> peliculas) {
+        List<Integer> out = new ArrayList<>(peliculas.size());
+        for (Pelicula p : peliculas) out.add(p.getId());
+        return out;
+    }
+}
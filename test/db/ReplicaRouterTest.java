@@ -0,0 +1,130 @@
+package db;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de read-your-writes de ReplicaRouter con nodos simulados
+ *
+ * Cada nodo es una conexión falsa que responde gtid_executed (el primario) y
+ * GTID_SUBSET (la réplica) según cuántas transacciones aplicó
+ *
+ */
+
+public class ReplicaRouterTest {
+
+    private final Nodo primario = new Nodo("primario");
+    private final Nodo replica = new Nodo("replica");
+    private ReplicaRouter router;
+
+    @After
+    public void tearDown() {
+        if (router != null) router.close();
+    }
+
+    @Test
+    public void laSesionLeeDelPrimarioHastaQueLaReplicaAlcanzaSuEscritura() throws SQLException {
+        router = new ReplicaRouter(primario, List.of(replica), ReplicaRouter.Estrategia.ROUND_ROBIN, 0, 0);
+        Session sesion = new Session();
+
+        assertEquals("replica", leer(sesion));
+        escribir(sesion);
+        assertEquals("primario", leer(sesion));
+
+        replica.aplicadas = primario.aplicadas;
+        assertEquals("replica", leer(sesion));
+        assertEquals("replica", leer(sesion));
+    }
+
+    @Test
+    public void unaLecturaSinSesionNoEsperaEscrituras() throws SQLException {
+        router = new ReplicaRouter(primario, List.of(replica), ReplicaRouter.Estrategia.ROUND_ROBIN, 60_000, 0);
+        escribir(new Session());
+
+        assertEquals("replica", router.reader().get().toString());
+    }
+
+    @Test
+    public void sinGtidUsaLaVentanaTrasEscribir() throws SQLException {
+        primario.conGtid = false;
+        router = new ReplicaRouter(primario, List.of(replica), ReplicaRouter.Estrategia.ROUND_ROBIN, 60_000, 0);
+        Session sesion = new Session();
+        escribir(sesion);
+
+        assertEquals("primario", leer(sesion));
+    }
+
+    private void escribir(Session sesion) throws SQLException {
+        sesion.ejecutar(() -> {
+            router.writer().get().close();
+            primario.aplicadas++;
+            return null;
+        });
+    }
+
+    private String leer(Session sesion) throws SQLException {
+        return sesion.ejecutar(() -> {
+            Connection c = router.reader().get();
+            c.close();
+            return c.toString();
+        });
+    }
+
+    /**
+     * Nodo simulado: su gtid_executed es "uuid:1-aplicadas"
+     */
+    private static final class Nodo implements ConnectionProvider {
+        final String nombre;
+        volatile int aplicadas;
+        volatile boolean conGtid = true;
+
+        Nodo(String nombre) {
+            this.nombre = nombre;
+        }
+
+        @Override
+        public Connection get() {
+            return proxy(Connection.class, (metodo, args) -> switch (metodo) {
+                case "createStatement" -> proxy(Statement.class, (m, a) -> m.equals("executeQuery")
+                        ? fila(conGtid && aplicadas > 0 ? "uuid:1-" + aplicadas : "") : null);
+                case "prepareStatement" -> {
+                    String[] gtid = new String[1];
+                    yield proxy(PreparedStatement.class, (m, a) -> switch (m) {
+                        case "setString" -> gtid[0] = (String) a[1];
+                        case "executeQuery" -> fila(Integer.parseInt(gtid[0].substring("uuid:1-".length())) <= aplicadas ? 1 : 0);
+                        default -> null;
+                    });
+                }
+                case "toString" -> nombre;
+                default -> null;
+            });
+        }
+
+        private static ResultSet fila(Object valor) {
+            boolean[] leida = new boolean[1];
+            return proxy(ResultSet.class, (m, a) -> switch (m) {
+                case "next" -> !leida[0] && (leida[0] = true);
+                case "getString" -> valor.toString();
+                case "getInt" -> (Integer) valor;
+                default -> null;
+            });
+        }
+    }
+
+    private interface Respuesta {
+        Object responder(String metodo, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> tipo, Respuesta respuesta) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                (p, m, a) -> respuesta.responder(m.getName(), a)));
+    }
+}
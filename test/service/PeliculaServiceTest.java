@@ -0,0 +1,86 @@
+package service;
+
+import dao.InMemoryPeliculaDAO;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import model.Genero;
+import model.Pelicula;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de PeliculaService en modo write-behind
+ *
+ */
+
+public class PeliculaServiceTest {
+
+    private PeliculaService servicio;
+
+    @After
+    public void tearDown() {
+        if (servicio != null) servicio.close();
+    }
+
+    @Test
+    public void updateAsyncRechazaDuplicadosAntesDeEncolar() throws Exception {
+        servicio = new PeliculaService(new InMemoryPeliculaDAO());
+        servicio.add(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        int id = servicio.add(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        servicio.habilitarWriteBehind(1, 60_000); // Cada mutación se aplica al encolarla
+
+        Throwable error = causa(() -> servicio.updateAsync(new Pelicula(id, "ALFA", "Ana Ruiz", 2001, 95, Genero.Drama))
+                .get(5, TimeUnit.SECONDS));
+        assertTrue(error instanceof IllegalArgumentException);
+        assertEquals("Beta", servicio.findById(id).getTitulo());
+    }
+
+    @Test
+    public void updateAsyncFallidoNoCambiaElIndiceDeTitulos() throws Exception {
+        servicio = new PeliculaService(new InMemoryPeliculaDAO() {
+            @Override
+            public void update(Pelicula p) throws SQLException {
+                if (p.getTitulo().startsWith("Rompe")) throw new SQLException("falla del backend");
+                super.update(p);
+            }
+        });
+        int id = servicio.add(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        servicio.findByTitleFuzzy("Alfa", 5); // Carga el índice
+        servicio.habilitarWriteBehind(1, 60_000); // Cada mutación se aplica al encolarla
+
+        Throwable error = causa(() -> servicio.updateAsync(new Pelicula(id, "Rompehielos", "Ana Ruiz", 2001, 95, Genero.Drama))
+                .get(5, TimeUnit.SECONDS));
+        assertTrue(error instanceof SQLException);
+        assertTrue(servicio.findByTitleFuzzy("Rompehielos", 5).isEmpty());
+        assertEquals(1, servicio.findByTitleFuzzy("Alfa", 5).size());
+    }
+
+    @Test
+    public void updateAsyncConfirmadoActualizaElIndiceDeTitulos() throws Exception {
+        servicio = new PeliculaService(new InMemoryPeliculaDAO());
+        int id = servicio.add(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        servicio.findByTitleFuzzy("Alfa", 5);
+        servicio.habilitarWriteBehind(1, 60_000); // Cada mutación se aplica al encolarla
+
+        servicio.updateAsync(new Pelicula(id, "Rompehielos", "Ana Ruiz", 2001, 95, Genero.Drama)).get(5, TimeUnit.SECONDS);
+        assertEquals(Integer.valueOf(id), servicio.findByTitleFuzzy("Rompehielos", 5).get(0).getId());
+    }
+
+    private interface Espera {
+        void run() throws Exception;
+    }
+
+    private static Throwable causa(Espera espera) throws Exception {
+        try {
+            espera.run();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("La operación debía fallar");
+        return null;
+    }
+}
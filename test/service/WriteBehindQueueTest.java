@@ -0,0 +1,113 @@
+package service;
+
+import dao.InMemoryPeliculaDAO;
+import dao.ShardedPeliculaDAO;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import model.Genero;
+import model.Pelicula;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas del camino de error de WriteBehindQueue: cuando el lote falla,
+ * cada future recibe el resultado de su propia operación
+ *
+ */
+
+public class WriteBehindQueueTest {
+
+    private WriteBehindQueue cola;
+
+    @After
+    public void tearDown() {
+        if (cola != null) cola.close();
+    }
+
+    @Test
+    public void loteFallidoAislaLaOperacionCulpable() throws Exception {
+        InMemoryPeliculaDAO dao = new InMemoryPeliculaDAO();
+        int id = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        int borrar = dao.create(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        cola = new WriteBehindQueue(dao, 100, 60_000);
+
+        CompletableFuture<Integer> modificada = cola.enqueueUpdate(new Pelicula(id, "Gamma", "Ana Ruiz", 2001, 95, Genero.Drama));
+        CompletableFuture<Integer> eliminada = cola.enqueueDelete(borrar);
+        CompletableFuture<Integer> inexistente = cola.enqueueDelete(999);
+        cola.flush();
+
+        assertEquals(Integer.valueOf(id), esperar(modificada));
+        assertEquals(Integer.valueOf(borrar), esperar(eliminada));
+        assertTrue(causa(inexistente) instanceof SQLException);
+        assertEquals("Gamma", dao.findById(id).getTitulo());
+        assertNull(dao.findById(borrar));
+    }
+
+    @Test
+    public void excepcionDeEjecucionCompletaTodosLosFutures() throws Exception {
+        InMemoryPeliculaDAO dao = new InMemoryPeliculaDAO() {
+            @Override
+            public void update(Pelicula p) throws SQLException {
+                if (p.getTitulo().equals("Rompe")) throw new IllegalStateException("falla del backend");
+                super.update(p);
+            }
+        };
+        int id = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2001, 95, Genero.Drama));
+        int otra = dao.create(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        cola = new WriteBehindQueue(dao, 100, 60_000);
+
+        CompletableFuture<Integer> rota = cola.enqueueUpdate(new Pelicula(id, "Rompe", "Ana Ruiz", 2001, 95, Genero.Drama));
+        CompletableFuture<Integer> sana = cola.enqueueUpdate(new Pelicula(otra, "Gamma", "Ana Ruiz", 2001, 95, Genero.Drama));
+        cola.flush();
+
+        assertTrue(causa(rota) instanceof IllegalStateException);
+        assertEquals(Integer.valueOf(otra), esperar(sana));
+        assertEquals("Alfa", dao.findById(id).getTitulo());
+    }
+
+    @Test
+    public void loteFallidoConShardsNoRepiteLoYaAplicado() throws Exception {
+        List<InMemoryPeliculaDAO> nodos = List.of(new InMemoryPeliculaDAO(), new InMemoryPeliculaDAO());
+        // Enruta por año: cambiar el año mueve la fila de shard
+        ShardedPeliculaDAO dao = new ShardedPeliculaDAO(List.copyOf(nodos), Pelicula::getAnio);
+        int movida = dao.create(new Pelicula("Alfa", "Ana Ruiz", 2000, 95, Genero.Drama));
+        int borrar = dao.create(new Pelicula("Beta", "Ana Ruiz", 2001, 95, Genero.Drama));
+        cola = new WriteBehindQueue(dao, 100, 60_000);
+
+        CompletableFuture<Integer> mover = cola.enqueueUpdate(new Pelicula(movida, "Alfa", "Ana Ruiz", 2003, 95, Genero.Drama));
+        CompletableFuture<Integer> eliminada = cola.enqueueDelete(borrar);
+        CompletableFuture<Integer> inexistente = cola.enqueueDelete(998);
+        cola.flush();
+
+        Integer nuevoId = esperar(mover);
+        assertNotNull(dao.findById(nuevoId));
+        assertEquals(2003, dao.findById(nuevoId).getAnio());
+        assertNull(dao.findById(movida));
+        assertEquals(Integer.valueOf(borrar), esperar(eliminada));
+        assertNull(dao.findById(borrar));
+        assertTrue(causa(inexistente) instanceof SQLException);
+        assertEquals(1, dao.findAll().size());
+    }
+
+    private static Integer esperar(CompletableFuture<Integer> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static Throwable causa(CompletableFuture<Integer> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("La operación debía fallar");
+        return null;
+    }
+}